@@ -18,6 +18,7 @@ import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.openmrs.util.IntBitmap;
 
 /**
  * This class represents a list of patientIds.
@@ -36,10 +37,36 @@ public class Cohort extends BaseOpenmrsData  {
 
 	private Collection<CohortMembership> members;
 
+	/**
+	 * The ids of the members of a cohort returned by one of the set operations, its memberships are
+	 * only created from them when they are needed
+	 */
+	private IntBitmap unmaterializedMemberIds;
+
+	/**
+	 * The ids of the active members, built from the memberships when first needed
+	 */
+	private transient IntBitmap activeMemberIds;
+
+	/**
+	 * The time in milliseconds until which {@link #activeMemberIds} is valid, that is when the first
+	 * membership that starts in the future becomes active
+	 */
+	private transient long activeMemberIdsValidUntil;
+
 	public Cohort() {
 		members = new TreeSet<CohortMembership>();
 	}
 	
+	/**
+	 * Creates a cohort whose memberships are created from the given ids when they are needed
+	 * 
+	 * @param memberIds the ids of the members
+	 */
+	private Cohort(IntBitmap memberIds) {
+		this.unmaterializedMemberIds = memberIds;
+	}
+	
 	/**
 	 * Convenience constructor to create a Cohort object that has an primarykey/internal identifier
 	 * of <code>cohortId</code>
@@ -135,9 +162,15 @@ public class Cohort extends BaseOpenmrsData  {
 		return StringUtils.join(getMemberIds(), ',');
 	}
 
+	/**
+	 * @param patientId the id of a patient
+	 * @return true if the patient is an active member of this cohort
+	 * @should return true if the patient is an active member
+	 * @should return false if the membership of the patient has ended
+	 * @should return true once a membership that starts in the future has started
+	 */
 	public boolean contains(Integer patientId) {
-		return getMembers() != null && getMembers().stream()
-				.anyMatch(m -> m.getPatient().getPatientId().equals(patientId) && m.isMemberActive());
+		return patientId != null && getActiveMemberIds().contains(patientId);
 	}
 	
 	public boolean contains(Patient patient) {
@@ -150,8 +183,8 @@ public class Cohort extends BaseOpenmrsData  {
 		if (getName() != null) {
 			sb.append(" name=").append(getName());
 		}
-		if (getMembers() != null) {
-			sb.append(" size=").append(getMembers().size());
+		if (members != null || unmaterializedMemberIds != null) {
+			sb.append(" size=").append(size());
 		}
 		return sb.toString();
 	}
@@ -165,15 +198,22 @@ public class Cohort extends BaseOpenmrsData  {
 	}
 	
 	public void removeMember(Patient patient) {
-		List<CohortMembership> memberToRemoveList = getMembers().stream()
+		List<CohortMembership> memberToRemoveList = materializeMembers().stream()
 				.filter(m -> m.getPatient().getPatientId().equals(patient.getPatientId())).collect(Collectors.toList());
 		memberToRemoveList.forEach(m -> m.setEndDate(new Date()));
+		activeMemberIds = null;
 	}
 
 	public void addMembership(CohortMembership cohortMembership) {
-		if (!this.contains(cohortMembership.getPatient().getPatientId())) {
+		Integer patientId = cohortMembership.getPatient().getPatientId();
+		if (!this.contains(patientId)) {
 			cohortMembership.setCohort(this);
-			getMembers().add(cohortMembership);
+			materializeMembers().add(cohortMembership);
+			if (activeMemberIds != null && patientId != null && patientId >= 0 && cohortMembership.isMemberActive()) {
+				activeMemberIds.add(patientId);
+			} else {
+				activeMemberIds = null;
+			}
 		}
 	}
 	
@@ -182,11 +222,12 @@ public class Cohort extends BaseOpenmrsData  {
 	}
 
 	public void removeMembership(CohortMembership cohortMembership) {
-		List<CohortMembership> memberToRemoveList = getMembers().stream()
+		List<CohortMembership> memberToRemoveList = materializeMembers().stream()
 				.filter(m -> m.equals(cohortMembership) ||
 						m.getPatient().getPatientId().equals(cohortMembership.getPatient().getPatientId()))
 				.collect(Collectors.toList());
 		memberToRemoveList.forEach(m -> m.setEndDate(new Date()));
+		activeMemberIds = null;
 	}
 
 	public List<CohortMembership> getMemberships(Date asOf) {
@@ -195,16 +236,18 @@ public class Cohort extends BaseOpenmrsData  {
 	}
 
 	public void purgeMemberships(List<CohortMembership> cohortMembershipList) {
-		List<CohortMembership> membersToPurge = getMembers().stream()
-				.filter(m -> cohortMembershipList.stream()
-						.anyMatch(c -> m.getPatient().getPatientId().equals(c.getPatient().getPatientId())))
-				.collect(Collectors.toList());
-		membersToPurge.forEach(m -> getMembers().remove(m));
+		Set<Integer> patientIdsToPurge = cohortMembershipList.stream().map(c -> c.getPatient().getPatientId())
+				.collect(Collectors.toSet());
+		materializeMembers().removeIf(m -> patientIdsToPurge.contains(m.getPatient().getPatientId()));
+		activeMemberIds = null;
 	}
 
 
 	public int size() {
-		return getMembers().size();
+		if (members == null && unmaterializedMemberIds != null) {
+			return unmaterializedMemberIds.size();
+		}
+		return materializeMembers().size();
 	}
 	
 	public int getSize() {
@@ -215,23 +258,82 @@ public class Cohort extends BaseOpenmrsData  {
 		return size() == 0;
 	}
 	
+	private IntBitmap getActiveMemberIds() {
+		return getActiveMemberIds(new Date());
+	}
+	
+	/**
+	 * Gets the ids of the members active at the given time from the memberships. The ids are kept
+	 * until the memberships may have been changed outside of this class or a membership that starts
+	 * in the future becomes active.
+	 * 
+	 * @param now the current time
+	 * @return the ids of the active members
+	 * @should rebuild the ids once a membership that starts in the future has started
+	 */
+	IntBitmap getActiveMemberIds(Date now) {
+		if (members == null && unmaterializedMemberIds != null) {
+			return unmaterializedMemberIds;
+		}
+		
+		if (activeMemberIds == null || now.getTime() >= activeMemberIdsValidUntil) {
+			IntBitmap ids = new IntBitmap();
+			long validUntil = Long.MAX_VALUE;
+			for (CohortMembership member : materializeMembers()) {
+				Integer patientId = member.getPatient() == null ? null : member.getPatient().getPatientId();
+				if (patientId == null || patientId < 0 || member.getEndDate() != null
+				        || member.getStartDate() == null) {
+					continue;
+				}
+				if (!member.getStartDate().after(now)) {
+					ids.add(patientId);
+				} else {
+					validUntil = Math.min(validUntil, member.getStartDate().getTime());
+				}
+			}
+			activeMemberIds = ids;
+			activeMemberIdsValidUntil = validUntil;
+		}
+		return activeMemberIds;
+	}
+	
+	/**
+	 * Creates the memberships of a cohort returned by one of the set operations, they are only
+	 * created when they are needed
+	 */
+	private Collection<CohortMembership> materializeMembers() {
+		if (members == null) {
+			members = new TreeSet<CohortMembership>();
+			if (unmaterializedMemberIds != null) {
+				unmaterializedMemberIds.forEach(id -> {
+					CohortMembership member = new CohortMembership(new Patient(id));
+					member.setCohort(this);
+					members.add(member);
+				});
+				activeMemberIds = unmaterializedMemberIds;
+				activeMemberIdsValidUntil = Long.MAX_VALUE;
+				unmaterializedMemberIds = null;
+			}
+		}
+		return members;
+	}
+	
 	// static utility methods
 	
 	/**
-	 * Returns the union of two cohorts
+	 * Returns the union of two cohorts, treating null as an empty cohort. The result has the active
+	 * members of either cohort.
 	 * 
 	 * @param a The first Cohort
 	 * @param b The second Cohort
 	 * @return Cohort
+	 * @should contain the active members of both cohorts
+	 * @should not contain members whose membership has ended
 	 */
 	public static Cohort union(Cohort a, Cohort b) {
-		Cohort ret = new Cohort();
-		if (a != null) {
-			ret.getMembers().addAll(a.getMembers());
-		}
-		if (b != null) {
-			ret.getMembers().addAll(b.getMembers());
-		}
+		IntBitmap ids = IntBitmap.union(a == null ? new IntBitmap() : a.getActiveMemberIds(),
+		    b == null ? new IntBitmap() : b.getActiveMemberIds());
+		Cohort ret = new Cohort(ids);
 		if (a != null && b != null) {
 			ret.setName("(" + a.getName() + " + " + b.getName() + ")");
 		}
@@ -239,42 +341,46 @@ public class Cohort extends BaseOpenmrsData  {
 	}
 	
 	/**
-	 * Returns the intersection of two cohorts, treating null as an empty cohort
+	 * Returns the intersection of two cohorts, treating null as an empty cohort. The result has the
+	 * patients that are active members of both cohorts.
 	 * 
 	 * @param a The first Cohort
 	 * @param b The second Cohort
 	 * @return Cohort
+	 * @should contain the patients that are active members of both cohorts
 	 */
 	public static Cohort intersect(Cohort a, Cohort b) {
-		Cohort ret = new Cohort();
-		ret.setName("(" + (a == null ? "NULL" : a.getName()) + " * " + (b == null ? "NULL" : b.getName()) + ")");
+		IntBitmap ids = new IntBitmap();
 		if (a != null && b != null) {
-			ret.getMembers().addAll(a.getMembers());
-			ret.getMembers().retainAll(b.getMembers());
+			ids = IntBitmap.intersect(a.getActiveMemberIds(), b.getActiveMemberIds());
 		}
+		Cohort ret = new Cohort(ids);
+		ret.setName("(" + (a == null ? "NULL" : a.getName()) + " * " + (b == null ? "NULL" : b.getName()) + ")");
 		return ret;
 	}
 	
 	/**
-	 * Subtracts a cohort from a cohort
+	 * Subtracts a cohort from a cohort. The result has the active members of the original cohort
+	 * that are not active members of the cohort to subtract.
 	 * 
 	 * @param a the original Cohort
 	 * @param b the Cohort to subtract
 	 * @return Cohort
+	 * @should contain the active members of the first cohort that are not in the second one
+	 * @should not create memberships until they are needed
+	 * @should keep the members when serialized
 	 */
 	public static Cohort subtract(Cohort a, Cohort b) {
-		Cohort ret = new Cohort();
+		IntBitmap ids = new IntBitmap();
 		if (a != null) {
-			ret.getMembers().addAll(a.getMembers());
-			if (b != null) {
-				ret.getMembers().removeAll(b.getMembers());
-				ret.setName("(" + a.getName() + " - " + b.getName() + ")");
-			}
+			ids = IntBitmap.subtract(a.getActiveMemberIds(), b == null ? ids : b.getActiveMemberIds());
+		}
+		Cohort ret = new Cohort(ids);
+		if (a != null && b != null) {
+			ret.setName("(" + a.getName() + " - " + b.getName() + ")");
 		}
 		return ret;
 	}
-
-
 	// getters and setters
 	
 	public Integer getCohortId() {
@@ -303,7 +409,11 @@ public class Cohort extends BaseOpenmrsData  {
 
 	public Set<Integer> getMemberIds() {
 		memberIds = new TreeSet<Integer>();
-		for (CohortMembership member : getMembers()) {
+		if (members == null && unmaterializedMemberIds != null) {
+			unmaterializedMemberIds.forEach(memberIds::add);
+			return memberIds;
+		}
+		for (CohortMembership member : materializeMembers()) {
 			memberIds.add(member.getPatient().getPatientId());
 		}
 		return memberIds;
@@ -316,15 +426,23 @@ public class Cohort extends BaseOpenmrsData  {
 		}
 	}
 
+	/**
+	 * Gets the memberships of this cohort. {@link #contains(Integer)} keeps the ids of the active
+	 * members until this method is called, so call it again after changing the returned memberships.
+	 * 
+	 * @return the memberships
+	 */
 	public Collection<CohortMembership> getMembers() {
-		if (members == null) {
-			members = new TreeSet<CohortMembership>();
-		}
-		return members;
+		Collection<CohortMembership> memberships = materializeMembers();
+		// the caller may change the memberships
+		activeMemberIds = null;
+		return memberships;
 	}
 
 	public void setMembers(Collection<CohortMembership> members) {
 		this.members = members;
+		unmaterializedMemberIds = null;
+		activeMemberIds = null;
 	}
 
 	/**
@@ -127,6 +127,12 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * getCompatibleNames().
 	 */
 	private Map<Locale, List<ConceptName>> compatibleCache;
+	
+	/**
+	 * The names grouped by locale and the names already looked up per locale. Built on the first
+	 * lookup and rebuilt once the names were changed, see {@link #getNameIndex()}.
+	 */
+	private transient volatile ConceptNameIndex nameIndex;
 
 	private Set<ConceptAttribute> attributes = new LinkedHashSet<>();
 
@@ -644,24 +650,33 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * @return preferred name for the locale, or null if no preferred name is specified
 	 * @should return the concept name explicitly marked as locale preferred
 	 * @should return the fully specified name if no name is explicitly marked as locale preferred
+	 * @should return the new preferred name after the names were changed
 	 */
 	public ConceptName getPreferredName(Locale forLocale) {
+		if (forLocale == null) {
+			return null;
+		}
+		return getNameIndex().getPreferredName(forLocale, this::findPreferredName);
+	}
+	
+	/**
+	 * Looks up the preferred name for {@link #getPreferredName(Locale)}
+	 */
+	private ConceptName findPreferredName(Locale forLocale) {
 		
 		if (log.isDebugEnabled()) {
 			log.debug("Getting preferred conceptName for locale: " + forLocale);
 		}
 		// fail early if this concept has no names defined
-		if (getNames(forLocale).isEmpty()) {
+		List<ConceptName> namesInLocale = getNameIndex().getNames(forLocale);
+		if (namesInLocale.isEmpty()) {
 			if (log.isDebugEnabled()) {
 				log.debug("there are no names defined for concept with id: " + conceptId + " in the  locale: " + forLocale);
 			}
 			return null;
-		} else if (forLocale == null) {
-			log.warn("Locale cannot be null");
-			return null;
 		}
 		
-		for (ConceptName nameInLocale : getNames(forLocale)) {
+		for (ConceptName nameInLocale : namesInLocale) {
 			if (ObjectUtils.nullSafeEquals(nameInLocale.getLocalePreferred(), true)) {
 				return nameInLocale;
 			}
@@ -697,10 +712,21 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * @should return the name marked as fully specified for the given locale
 	 */
 	public ConceptName getFullySpecifiedName(Locale locale) {
-		if (locale != null && !getNames(locale).isEmpty()) {
+		if (locale == null) {
+			return null;
+		}
+		return getNameIndex().getFullySpecifiedName(locale, this::findFullySpecifiedName);
+	}
+	
+	/**
+	 * Looks up the fully specified name for {@link #getFullySpecifiedName(Locale)}
+	 */
+	private ConceptName findFullySpecifiedName(Locale locale) {
+		List<ConceptName> namesInLocale = getNameIndex().getNames(locale);
+		if (!namesInLocale.isEmpty()) {
 			//get the first fully specified name, since every concept must have a fully specified name,
 			//then, this loop will have to return a name
-			for (ConceptName conceptName : getNames(locale)) {
+			for (ConceptName conceptName : namesInLocale) {
 				if (ObjectUtils.nullSafeEquals(conceptName.isFullySpecifiedName(), true)) {
 					return conceptName;
 				}
@@ -730,11 +756,11 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * 
 	 * @param locale locale for which names should be returned
 	 * @return Collection of ConceptNames with the given locale
+	 * @should not return a name that was voided after an earlier lookup
+	 * @should not return a name that was replaced in the names collection after an earlier lookup
 	 */
 	public Collection<ConceptName> getNames(Locale locale) {
-		return getNames().stream()
-				.filter(n -> n.getLocale().equals(locale))
-				.collect(Collectors.toSet());
+		return new HashSet<ConceptName>(getNameIndex().getNames(locale));
 	}
 	
 	/**
@@ -745,13 +771,26 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * @return Collection of ConceptNames with the given locale language or country
 	 */
 	private Collection<ConceptName> getPartiallyCompatibleNames(Locale locale) {
-		String language = locale.getLanguage();
-		String country = locale.getCountry();
+		return getNameIndex().getPartiallyCompatibleNames(locale);
+	}
+	
+	/**
+	 * Gets the index of the names of this concept, building it if this is the first lookup or the
+	 * names changed since it was built
+	 * 
+	 * @return the index
+	 */
+	private ConceptNameIndex getNameIndex() {
+		if (names == null) {
+			names = new HashSet<ConceptName>();
+		}
 		
-		return getNames().stream()
-				.filter(n -> language.equals(n.getLocale().getLanguage()) || 
-							StringUtils.isNotBlank(country) && country.equals(n.getLocale().getCountry()))
-				.collect(Collectors.toSet());
+		ConceptNameIndex index = nameIndex;
+		if (index == null || !index.isValidFor(names)) {
+			index = new ConceptNameIndex(names);
+			nameIndex = index;
+		}
+		return index;
 	}
 	
 	/**
@@ -850,8 +889,18 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 * @return the short name, or null if none has been explicitly set
 	 */
 	public ConceptName getShortNameInLocale(Locale locale) {
+		if (locale == null) {
+			return null;
+		}
+		return getNameIndex().getShortName(locale, this::findShortName);
+	}
+	
+	/**
+	 * Looks up the short name for {@link #getShortNameInLocale(Locale)}
+	 */
+	private ConceptName findShortName(Locale locale) {
 		ConceptName bestMatch = null;
-		if (locale != null && !getShortNames().isEmpty()) {
+		if (!getShortNames().isEmpty()) {
 			for (ConceptName shortName : getShortNames()) {
 				Locale nameLocale = shortName.getLocale();
 				if (nameLocale.equals(locale)) {
@@ -999,6 +1048,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 */
 	public void setNames(Collection<ConceptName> names) {
 		this.names = names;
+		nameIndex = null;
 	}
 	
 	/**
@@ -1040,6 +1090,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 					}
 				}
 				names.add(conceptName);
+				nameIndex = null;
 				if (compatibleCache != null) {
 					compatibleCache.clear(); // clear the locale cache, forcing it to be rebuilt
 				}
@@ -1055,6 +1106,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	 */
 	public boolean removeName(ConceptName conceptName) {
 		if (names != null) {
+			nameIndex = null;
 			return names.remove(conceptName);
 		} else {
 			return false;
@@ -79,6 +79,9 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	@Field
 	private Boolean localePreferred = false;
 	
+	/** Incremented whenever a property that the name lookups of the concept depend on changes */
+	private transient int modificationCount = 0;
+	
 	private User changedBy;
 	
 	private Date dateChanged;
@@ -136,6 +139,7 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 		} else {
 			this.name = name;
 		}
+		modificationCount++;
 	}
 	
 	public Locale getLocale() {
@@ -144,6 +148,7 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	
 	public void setLocale(Locale locale) {
 		this.locale = locale;
+		modificationCount++;
 	}
 
 	/**
@@ -210,6 +215,7 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	@Override
 	public void setVoided(Boolean voided) {
 		this.voided = voided;
+		modificationCount++;
 	}
 	
 	/**
@@ -305,6 +311,7 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	 */
 	public void setConceptNameType(ConceptNameType conceptNameType) {
 		this.conceptNameType = conceptNameType;
+		modificationCount++;
 	}
 	
 	/**
@@ -334,6 +341,16 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	 */
 	public void setLocalePreferred(Boolean localePreferred) {
 		this.localePreferred = localePreferred;
+		modificationCount++;
+	}
+	
+	/**
+	 * @return the number of times the name, locale, type, voided or locale preferred property of
+	 *         this name was set, used to tell whether the {@link ConceptNameIndex} of its concept is
+	 *         still valid
+	 */
+	int getModificationCount() {
+		return modificationCount;
 	}
 	
 	/**
@@ -0,0 +1,168 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The non voided names of a {@link Concept} grouped by locale, language and country, along with
+ * the names that were already looked up per locale. A concept builds its index the first time a
+ * name is looked up and drops it when its names are changed. Since the names collection and the
+ * {@link ConceptName}s can be changed without going through their concept, the index remembers the
+ * names in the order the collection returned them and the
+ * {@link ConceptName#getModificationCount() modification count} of each name, and is no longer
+ * {@link #isValidFor(Collection) valid} once a name was added, removed or replaced by another one
+ * or any of them changed.
+ *
+ * @since 2.2.0
+ */
+class ConceptNameIndex {
+	
+	/** Marks a locale for which no name was found, the maps do not allow null values */
+	private static final ConceptName NO_NAME = new ConceptName();
+	
+	private final Collection<ConceptName> indexedNames;
+	
+	private final ConceptName[] names;
+	
+	private final int[] modificationCounts;
+	
+	private final Map<Locale, List<ConceptName>> namesByLocale = new HashMap<Locale, List<ConceptName>>();
+	
+	private final Map<String, List<ConceptName>> namesByLanguage = new HashMap<String, List<ConceptName>>();
+	
+	private final Map<String, List<ConceptName>> namesByCountry = new HashMap<String, List<ConceptName>>();
+	
+	private final Map<Locale, ConceptName> preferredNames = new ConcurrentHashMap<Locale, ConceptName>();
+	
+	private final Map<Locale, ConceptName> fullySpecifiedNames = new ConcurrentHashMap<Locale, ConceptName>();
+	
+	private final Map<Locale, ConceptName> shortNames = new ConcurrentHashMap<Locale, ConceptName>();
+	
+	private final Map<Locale, List<ConceptName>> partiallyCompatibleNames = new ConcurrentHashMap<Locale, List<ConceptName>>();
+	
+	/**
+	 * @param allNames all the names of the concept, including the voided ones
+	 */
+	ConceptNameIndex(Collection<ConceptName> allNames) {
+		indexedNames = allNames;
+		names = allNames.toArray(new ConceptName[allNames.size()]);
+		modificationCounts = new int[names.length];
+		for (int i = 0; i < names.length; i++) {
+			ConceptName name = names[i];
+			modificationCounts[i] = name.getModificationCount();
+			if (name.getVoided() || name.getLocale() == null) {
+				continue;
+			}
+			
+			Locale locale = name.getLocale();
+			add(namesByLocale, locale, name);
+			add(namesByLanguage, locale.getLanguage(), name);
+			if (StringUtils.isNotBlank(locale.getCountry())) {
+				add(namesByCountry, locale.getCountry(), name);
+			}
+		}
+	}
+	
+	/**
+	 * @param allNames all the names of the concept, including the voided ones
+	 * @return true if the given names are the ones this index was built from and none of them was
+	 *         changed since
+	 */
+	boolean isValidFor(Collection<ConceptName> allNames) {
+		if (allNames != indexedNames || allNames.size() != names.length) {
+			return false;
+		}
+		int i = 0;
+		for (ConceptName name : allNames) {
+			// a name replaced by another one leaves the size of the collection unchanged
+			if (name != names[i] || name.getModificationCount() != modificationCounts[i]) {
+				return false;
+			}
+			i++;
+		}
+		return true;
+	}
+	
+	/**
+	 * @param locale the locale of the names
+	 * @return the non voided names in exactly the given locale
+	 */
+	List<ConceptName> getNames(Locale locale) {
+		List<ConceptName> namesInLocale = namesByLocale.get(locale);
+		return namesInLocale == null ? Collections.<ConceptName> emptyList() : namesInLocale;
+	}
+	
+	/**
+	 * @param locale the locale of the names
+	 * @return the non voided names in the language of the given locale or in its country, if it has
+	 *         one
+	 */
+	List<ConceptName> getPartiallyCompatibleNames(Locale locale) {
+		List<ConceptName> compatibleNames = partiallyCompatibleNames.get(locale);
+		if (compatibleNames == null) {
+			compatibleNames = new ArrayList<ConceptName>();
+			List<ConceptName> namesInLanguage = namesByLanguage.get(locale.getLanguage());
+			if (namesInLanguage != null) {
+				compatibleNames.addAll(namesInLanguage);
+			}
+			List<ConceptName> namesInCountry = namesByCountry.get(locale.getCountry());
+			if (namesInCountry != null) {
+				for (ConceptName name : namesInCountry) {
+					if (!locale.getLanguage().equals(name.getLocale().getLanguage())) {
+						compatibleNames.add(name);
+					}
+				}
+			}
+			partiallyCompatibleNames.put(locale, compatibleNames);
+		}
+		return compatibleNames;
+	}
+	
+	ConceptName getPreferredName(Locale locale, Function<Locale, ConceptName> lookup) {
+		return get(preferredNames, locale, lookup);
+	}
+	
+	ConceptName getFullySpecifiedName(Locale locale, Function<Locale, ConceptName> lookup) {
+		return get(fullySpecifiedNames, locale, lookup);
+	}
+	
+	ConceptName getShortName(Locale locale, Function<Locale, ConceptName> lookup) {
+		return get(shortNames, locale, lookup);
+	}
+	
+	private static ConceptName get(Map<Locale, ConceptName> names, Locale locale, Function<Locale, ConceptName> lookup) {
+		ConceptName name = names.get(locale);
+		if (name == null) {
+			name = lookup.apply(locale);
+			names.put(locale, name == null ? NO_NAME : name);
+		}
+		return name == NO_NAME ? null : name;
+	}
+	
+	private static <K> void add(Map<K, List<ConceptName>> index, K key, ConceptName name) {
+		List<ConceptName> names = index.get(key);
+		if (names == null) {
+			names = new ArrayList<ConceptName>();
+			index.put(key, names);
+		}
+		names.add(name);
+	}
+}
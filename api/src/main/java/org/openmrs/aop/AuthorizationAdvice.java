@@ -11,6 +11,9 @@ package org.openmrs.aop;
 
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.openmrs.User;
@@ -32,6 +35,12 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 	 */
 	protected final Logger log = LoggerFactory.getLogger(AuthorizationAdvice.class);
 	
+	/**
+	 * The resolved {@link org.openmrs.annotation.Authorized} metadata of the methods seen so far,
+	 * so that the annotations are only read by reflection the first time a method is called
+	 */
+	private final Map<Method, AuthorizedMethod> authorizedMethods = new ConcurrentHashMap<Method, AuthorizedMethod>();
+	
 	/**
 	 * Allows us to check whether a user is authorized to access a particular method.
 	 * 
@@ -40,16 +49,14 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 	 * @param target
 	 * @throws Throwable
 	 * @should notify listeners about checked privileges
+	 * @should fail on every call to a method the user lacks the privileges for
 	 */
 	@Override
-	@SuppressWarnings( { "unchecked" })
 	public void before(Method method, Object[] args, Object target) throws Throwable {
 		
-		if (log.isDebugEnabled()) {
+		boolean debug = log.isDebugEnabled();
+		if (debug) {
 			log.debug("Calling authorization advice before " + method.getName());
-		}
-		
-		if (log.isDebugEnabled()) {
 			User user = Context.getAuthenticatedUser();
 			log.debug("User " + user);
 			if (user != null) {
@@ -57,9 +64,9 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 			}
 		}
 		
-		AuthorizedAnnotationAttributes attributes = new AuthorizedAnnotationAttributes();
-		Collection<String> privileges = attributes.getAttributes(method);
-		boolean requireAll = attributes.getRequireAll(method);
+		AuthorizedMethod authorizedMethod = getAuthorizedMethod(method);
+		Collection<String> privileges = authorizedMethod.privileges;
+		boolean requireAll = authorizedMethod.requireAll;
 		
 		// Only execute if the "secure" method has authorization attributes
 		// Iterate through required privileges and return only if the user has
@@ -72,7 +79,7 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 					return;
 				}
 				
-				if (log.isDebugEnabled()) {
+				if (debug) {
 					log.debug("User has privilege " + privilege + "? " + Context.hasPrivilege(privilege));
 				}
 				
@@ -98,11 +105,30 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 				throwUnauthorized(Context.getAuthenticatedUser(), method, privileges);
 			}
 			
-		} else if (attributes.hasAuthorizedAnnotation(method) && !Context.isAuthenticated()) {
+		} else if (authorizedMethod.annotated && !Context.isAuthenticated()) {
 			throwUnauthorized(Context.getAuthenticatedUser(), method);
 		}
 	}
 	
+	/**
+	 * Gets the authorization metadata of the given method, resolving it from the annotations the
+	 * first time the method is seen
+	 * 
+	 * @param method the method being called
+	 * @return the authorization metadata of the method
+	 */
+	@SuppressWarnings("unchecked")
+	private AuthorizedMethod getAuthorizedMethod(Method method) {
+		AuthorizedMethod authorizedMethod = authorizedMethods.get(method);
+		if (authorizedMethod == null) {
+			AuthorizedAnnotationAttributes attributes = new AuthorizedAnnotationAttributes();
+			authorizedMethod = new AuthorizedMethod(attributes.getAttributes(method), attributes.getRequireAll(method),
+			        attributes.hasAuthorizedAnnotation(method));
+			authorizedMethods.put(method, authorizedMethod);
+		}
+		return authorizedMethod;
+	}
+	
 	/**
 	 * Throws an APIAuthorization exception stating why the user failed
 	 * 
@@ -145,4 +171,23 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 		}
 		throw new APIAuthenticationException(Context.getMessageSourceService().getMessage("error.aunthenticationRequired"));
 	}
+	
+	/**
+	 * The privileges required to call a method as resolved from its
+	 * {@link org.openmrs.annotation.Authorized} annotation
+	 */
+	private static class AuthorizedMethod {
+		
+		private final Collection<String> privileges;
+		
+		private final boolean requireAll;
+		
+		private final boolean annotated;
+		
+		private AuthorizedMethod(Collection<String> privileges, boolean requireAll, boolean annotated) {
+			this.privileges = Collections.unmodifiableCollection(privileges);
+			this.requireAll = requireAll;
+			this.annotated = annotated;
+		}
+	}
 }
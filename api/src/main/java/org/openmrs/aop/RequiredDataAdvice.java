@@ -14,9 +14,13 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openmrs.OpenmrsObject;
 import org.openmrs.Retireable;
@@ -38,6 +42,8 @@ import org.openmrs.util.HandlerUtil;
 import org.openmrs.util.Reflect;
 import org.openmrs.validator.ValidateUtil;
 import org.springframework.aop.MethodBeforeAdvice;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.util.StringUtils;
 
 /**
@@ -76,7 +82,12 @@ import org.springframework.util.StringUtils;
  * @see VoidHandler
  * @since 1.5
  */
-public class RequiredDataAdvice implements MethodBeforeAdvice {
+public class RequiredDataAdvice implements MethodBeforeAdvice, ApplicationListener<ContextRefreshedEvent> {
+	
+	/**
+	 * The child collection fields to recurse into, cached by class and handler type
+	 */
+	private static final Map<Class<?>, Map<Class<? extends RequiredDataHandler>, List<ChildCollectionField>>> childCollectionFields = new ConcurrentHashMap<Class<?>, Map<Class<? extends RequiredDataHandler>, List<ChildCollectionField>>>();
 	
 	/**
 	 * @see org.springframework.aop.MethodBeforeAdvice#before(java.lang.reflect.Method,
@@ -142,7 +153,7 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 				Collection<OpenmrsObject> openmrsObjects = (Collection<OpenmrsObject>) mainArgument;
 				
 				for (OpenmrsObject object : openmrsObjects) {
-					ValidateUtil.validate(mainArgument);
+					ValidateUtil.validate(object);
 					
 					recursivelyHandle(SaveHandler.class, object, other);
 				}
@@ -237,22 +248,27 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 	 *            void/retire reason)
 	 * @param alreadyHandled an optional list of objects that have already been handled and should
 	 *            not be processed again. this is intended to prevent infinite recursion when
-	 *            handling collection properties.
+	 *            handling collection properties. Objects are compared by identity and the list is
+	 *            not modified.
 	 * @see HandlerUtil#getHandlersForType(Class, Class)
 	 */
-	@SuppressWarnings("unchecked")
 	public static <H extends RequiredDataHandler> void recursivelyHandle(Class<H> handlerType, OpenmrsObject openmrsObject,
 	        User currentUser, Date currentDate, String other, List<OpenmrsObject> alreadyHandled) {
+		Set<OpenmrsObject> handled = Collections.newSetFromMap(new IdentityHashMap<OpenmrsObject, Boolean>());
+		if (alreadyHandled != null) {
+			handled.addAll(alreadyHandled);
+		}
+		handleRecursively(handlerType, openmrsObject, currentUser, currentDate, other, handled);
+	}
+	
+	private static <H extends RequiredDataHandler> void handleRecursively(Class<H> handlerType, OpenmrsObject openmrsObject,
+	        User currentUser, Date currentDate, String other, Set<OpenmrsObject> alreadyHandled) {
 		if (openmrsObject == null) {
 			return;
 		}
 		
 		Class<? extends OpenmrsObject> openmrsObjectClass = openmrsObject.getClass();
 		
-		if (alreadyHandled == null) {
-			alreadyHandled = new ArrayList<OpenmrsObject>();
-		}
-		
 		// fetch all handlers for the object being saved
 		List<H> handlers = HandlerUtil.getHandlersForType(handlerType, openmrsObjectClass);
 		
@@ -262,28 +278,17 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		}
 		alreadyHandled.add(openmrsObject);
 		
-		Reflect reflect = new Reflect(OpenmrsObject.class);
-		List<Field> allInheritedFields = reflect.getInheritedFields(openmrsObjectClass);
-		
 		// loop over all child collections of OpenmrsObjects and recursively save on those
-		for (Field field : allInheritedFields) {
-			
-			// skip field if it's declared independent
-			if (Reflect.isAnnotationPresent(openmrsObjectClass, field.getName(), Independent.class)) {
-				continue;
-			}
-			
-			if (reflect.isCollectionField(field) && !isHandlerMarkedAsDisabled(handlerType, field)) {
+		for (ChildCollectionField childCollectionField : getChildCollectionFields(openmrsObjectClass, handlerType)) {
 				
-				// the collection we'll be looping over
-				Collection<OpenmrsObject> childCollection = getChildCollection(openmrsObject, field);
+			// the collection we'll be looping over
+			Collection<OpenmrsObject> childCollection = childCollectionField.getChildCollection(openmrsObject);
 				
-				if (childCollection != null) {
-					for (Object collectionElement : childCollection) {
-						if (!alreadyHandled.contains(collectionElement)) {
-							recursivelyHandle(handlerType, (OpenmrsObject) collectionElement, currentUser, currentDate,
-							    other, alreadyHandled);
-						}
+			if (childCollection != null) {
+				for (Object collectionElement : childCollection) {
+					if (!alreadyHandled.contains(collectionElement)) {
+						handleRecursively(handlerType, (OpenmrsObject) collectionElement, currentUser, currentDate, other,
+						    alreadyHandled);
 					}
 				}
 			}
@@ -291,6 +296,56 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		
 	}
 	
+	/**
+	 * Gets the fields of the given class holding collections of OpenmrsObjects that the given
+	 * handler type should recurse into, i.e. those that are not declared {@link Independent} and
+	 * have not disabled the handler type. The fields are looked up by reflection only the first
+	 * time a class is handled with a given handler type.
+	 * 
+	 * @param openmrsObjectClass the class of the object being handled
+	 * @param handlerType the type of handler being applied
+	 * @return the child collection fields to recurse into
+	 */
+	private static List<ChildCollectionField> getChildCollectionFields(Class<? extends OpenmrsObject> openmrsObjectClass,
+	        Class<? extends RequiredDataHandler> handlerType) {
+		Map<Class<? extends RequiredDataHandler>, List<ChildCollectionField>> fieldsByHandlerType = childCollectionFields
+		        .get(openmrsObjectClass);
+		if (fieldsByHandlerType == null) {
+			fieldsByHandlerType = new ConcurrentHashMap<Class<? extends RequiredDataHandler>, List<ChildCollectionField>>();
+			childCollectionFields.put(openmrsObjectClass, fieldsByHandlerType);
+		}
+		
+		List<ChildCollectionField> fields = fieldsByHandlerType.get(handlerType);
+		if (fields == null) {
+			fields = new ArrayList<ChildCollectionField>();
+			Reflect reflect = new Reflect(OpenmrsObject.class);
+			for (Field field : reflect.getInheritedFields(openmrsObjectClass)) {
+				// skip field if it's declared independent
+				if (Reflect.isAnnotationPresent(openmrsObjectClass, field.getName(), Independent.class)) {
+					continue;
+				}
+				if (reflect.isCollectionField(field) && !isHandlerMarkedAsDisabled(handlerType, field)) {
+					fields.add(new ChildCollectionField(openmrsObjectClass, field));
+				}
+			}
+			fields = Collections.unmodifiableList(fields);
+			fieldsByHandlerType.put(handlerType, fields);
+		}
+		return fields;
+	}
+	
+	/**
+	 * Clears the cached child collection fields, they are resolved again the next time a class is
+	 * handled. This is done whenever the application context is refreshed so that classes from
+	 * stopped modules are not held on to.
+	 * 
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		childCollectionFields.clear();
+	}
+	
 	/**
 	 * This method gets a child attribute off of an OpenmrsObject. It usually uses the getter for
 	 * the attribute, but can use the direct field (even if its private) if told to by the
@@ -389,4 +444,47 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		
 		return false;
 	}
+	
+	/**
+	 * A field holding a collection of OpenmrsObjects along with the getter used to read it, both
+	 * resolved once per class
+	 */
+	private static class ChildCollectionField {
+		
+		private final Field field;
+		
+		private final Method getter;
+		
+		private ChildCollectionField(Class<? extends OpenmrsObject> openmrsObjectClass, Field field) {
+			this.field = field;
+			Method method = null;
+			if (!field.isAnnotationPresent(AllowDirectAccess.class)) {
+				try {
+					method = openmrsObjectClass.getMethod("get" + StringUtils.capitalize(field.getName()), (Class[]) null);
+				}
+				catch (NoSuchMethodException e) {
+					// getChildCollection reports the missing getter when the field is read
+				}
+			}
+			this.getter = method;
+		}
+
+		@SuppressWarnings("unchecked")
+		private Collection<OpenmrsObject> getChildCollection(OpenmrsObject openmrsObject) {
+			if (getter == null) {
+				return RequiredDataAdvice.getChildCollection(openmrsObject, field);
+			}
+			try {
+				return (Collection<OpenmrsObject>) getter.invoke(openmrsObject);
+			}
+			catch (IllegalAccessException e) {
+				throw new APIException("unable.getter.method", new Object[] { "use", getter.getName(), field.getName(),
+				        openmrsObject.getClass() });
+			}
+			catch (InvocationTargetException e) {
+				throw new APIException("unable.getter.method", new Object[] { "run", getter.getName(), field.getName(),
+				        openmrsObject.getClass() });
+			}
+		}
+	}
 }
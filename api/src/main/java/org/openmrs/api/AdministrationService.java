@@ -165,6 +165,7 @@ public interface AdministrationService extends OpenmrsService {
 	 * @param globalProperty the global property to delete/remove from the database
 	 * @throws APIException
 	 * @should delete global property from database
+	 * @should not return the value of the deleted property
 	 */
 	@Authorized(PrivilegeConstants.PURGE_GLOBAL_PROPERTIES)
 	public void purgeGlobalProperty(GlobalProperty globalProperty) throws APIException;
@@ -14,6 +14,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.openmrs.Concept;
 import org.openmrs.ConceptAnswer;
@@ -633,6 +634,45 @@ public interface ConceptService extends OpenmrsService {
 	@Authorized(PrivilegeConstants.GET_CONCEPTS)
 	public List<ConceptSet> getSetsContainingConcept(Concept concept) throws APIException;
 	
+	/**
+	 * Checks whether a concept is a member of a concept set, either directly or through one of the
+	 * sets among its members. The concept set hierarchy is cached, so this does not query the
+	 * database once the hierarchy is loaded.
+	 * 
+	 * @param concept the concept to look for
+	 * @param conceptSet the concept set to look in
+	 * @return true if the concept is in the set
+	 * @since 2.2.0
+	 * @should return true for a member of a nested set
+	 * @should return false for a concept that is not in the set
+	 * @should see the members added by saving a concept
+	 */
+	@Authorized(PrivilegeConstants.GET_CONCEPTS)
+	public boolean isConceptInSet(Concept concept, Concept conceptSet) throws APIException;
+	
+	/**
+	 * Gets the ids of the members of a concept set and, recursively, of the sets among them, e.g.
+	 * to query the obs of all the concepts in a set at once
+	 * 
+	 * @param conceptSet the concept set to expand
+	 * @return the ids of the concepts in the set
+	 * @since 2.2.0
+	 * @should return the ids of the members of nested sets
+	 */
+	@Authorized(PrivilegeConstants.GET_CONCEPTS)
+	public Set<Integer> getConceptIdsByConceptSet(Concept conceptSet) throws APIException;
+	
+	/**
+	 * Gets the ids of the concept sets that contain a concept, directly or through other sets
+	 * 
+	 * @param concept the concept to look for
+	 * @return the ids of the concept sets
+	 * @since 2.2.0
+	 * @should return the ids of the sets that contain the concept through other sets
+	 */
+	@Authorized(PrivilegeConstants.GET_CONCEPTS)
+	public Set<Integer> getConceptSetIdsContainingConcept(Concept concept) throws APIException;
+	
 	/**
 	 * Get a List of all concept proposals
 	 * 
@@ -928,7 +968,9 @@ public interface ConceptService extends OpenmrsService {
 	public Integer getMaxConceptId();
 	
 	/**
-	 * Returns an iterator for all concepts, including retired and expired.
+	 * Returns an iterator for all concepts, including retired and expired. The concepts are loaded
+	 * in batches in ascending concept id order and evicted from the session once the next batch is
+	 * loaded.
 	 * 
 	 * @return the Iterator
 	 * @should start with the smallest concept id
@@ -937,6 +979,33 @@ public interface ConceptService extends OpenmrsService {
 	@Authorized(PrivilegeConstants.GET_CONCEPTS)
 	public Iterator<Concept> conceptIterator();
 	
+	/**
+	 * Returns an iterator for all concepts, including retired and expired, that loads the concepts
+	 * with their names the given number at a time in ascending concept id order. The concepts of a
+	 * batch are evicted from the session once the next batch is loaded, so callers should not keep
+	 * references to them.
+	 * 
+	 * @param batchSize the number of concepts to load at a time
+	 * @return the Iterator
+	 * @since 2.2.0
+	 * @should iterate over all concepts in ascending concept id order
+	 * @should fail if the batch size is less than 1
+	 */
+	@Authorized(PrivilegeConstants.GET_CONCEPTS)
+	public Iterator<Concept> conceptIterator(int batchSize);
+	
+	/**
+	 * Returns a sequential stream of all concepts, including retired and expired, backed by
+	 * {@link #conceptIterator(int)}
+	 * 
+	 * @param batchSize the number of concepts to load at a time
+	 * @return the Stream
+	 * @since 2.2.0
+	 * @should return all concepts in ascending concept id order
+	 */
+	@Authorized(PrivilegeConstants.GET_CONCEPTS)
+	public Stream<Concept> conceptStream(int batchSize);
+	
 	/**
 	 * Looks up a concept via {@link ConceptMap} This will return the {@link Concept} which contains
 	 * a {@link ConceptMap} entry whose <code>sourceCode</code> is equal to the passed
@@ -34,22 +34,28 @@ public interface DatatypeService extends OpenmrsService {
 	Set<Class<? extends CustomDatatypeHandler<?, ?>>> getAllHandlerClasses();
 	
 	/**
+	 * Gets a configured instance of a {@link CustomDatatype}. Since 2.2.0 the instances are cached by
+	 * class and configuration and shared by all callers, so they must not be reconfigured.
+	 * 
 	 * @param clazz
 	 * @param config
 	 * @return an instantiated {@link CustomDatatype}, with a configuration set
 	 * @throws CustomDatatypeException
+	 * @should return the same instance for the same class and configuration
 	 */
 	<T extends CustomDatatype<?>> T getDatatype(Class<T> clazz, String config) throws CustomDatatypeException;
 	
 	/**
-	 * Gets the default handler for a {@link CustomDatatype}, and sets its configuration
-	 *  
+	 * Gets the default handler for a {@link CustomDatatype}, and sets its configuration. Since 2.2.0
+	 * the handlers are cached by class and configuration and shared by all callers, so they must not
+	 * be reconfigured.
 	 * 
 	 * @param datatype
 	 * @param handlerConfig
 	 * @return default handler with the given configuration
      * @should return a handler for the specified datatype
      * @should return a handler for a datatype that extends a generic superclass
+     * @should return the same handler for the same configuration
 	 */
 	CustomDatatypeHandler<?, ?> getHandler(CustomDatatype<?> datatype, String handlerConfig);
 	
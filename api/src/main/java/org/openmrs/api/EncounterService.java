@@ -13,6 +13,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import org.openmrs.Cohort;
 import org.openmrs.Encounter;
@@ -442,6 +443,33 @@ public interface EncounterService extends OpenmrsService {
 	 */
 	public Map<Integer, List<Encounter>> getAllEncounters(Cohort patients);
 	
+	/**
+	 * Passes the non voided encounters of a cohort of patients to the given action one patient at a
+	 * time, in ascending order of the patient ids. Unlike {@link #getAllEncounters(Cohort)}, the
+	 * encounters are not all loaded at once: the ids of the encounters are read from a forward only
+	 * scroll and, before the encounters of each patient are loaded, whatever was loaded into the
+	 * hibernate session for the previous patient is evicted from it, so that going through a large
+	 * cohort needs little more memory than the history of a single patient. What was in the session
+	 * before this method was called, including unsaved changes, is left alone. Unless the session
+	 * is only flushed manually, as in a read only transaction, pending changes made by the action are
+	 * flushed before the entities they belong to are evicted. Callers must not keep references to
+	 * the encounters of earlier patients, or to anything loaded with them, as they become
+	 * detached.<br>
+	 * <br>
+	 * Note that the MySQL driver reads all the rows of the scroll up front unless
+	 * <code>useCursorFetch=true</code> is set in the connection url.
+	 * 
+	 * @param patients the cohort of patients, null for all patients
+	 * @param action called with the id of each patient that has encounters and its encounters,
+	 *            newest first
+	 * @since 2.2.0
+	 * @should pass the encounters of each patient of the cohort in order of the patient ids
+	 * @should pass the encounters of all patients if the cohort is null
+	 * @should not pass voided encounters
+	 */
+	@Authorized( { PrivilegeConstants.GET_ENCOUNTERS })
+	public void forEachPatientEncounters(Cohort patients, BiConsumer<Integer, List<Encounter>> action);
+	
 	/**
 	 * Return the number of encounters matching a patient name or patient identifier
 	 * 
@@ -601,6 +629,9 @@ public interface EncounterService extends OpenmrsService {
 	 * visits that have no assigned encounters.
 	 * <p>
 	 * The empty encounters have only visit set.
+	 * <p>
+	 * The results are ordered newest first by the start of their visit, or by the encounter date for
+	 * encounters without a visit. Only the requested page is loaded from the database.
 	 * 
 	 * @param patient the patient to match
 	 * @param includeVoided if voided encounters or visits should be included
@@ -610,6 +641,9 @@ public interface EncounterService extends OpenmrsService {
 	 * @return encounters and empty encounters with only visit set
 	 * @throws APIException
 	 * @since 1.9
+	 * @should return encounters and empty visits newest first
+	 * @should return the requested page
+	 * @should filter the results by the query
 	 */
 	@Authorized( { PrivilegeConstants.GET_VISITS })
 	public List<Encounter> getEncountersByVisitsAndPatient(Patient patient, boolean includeVoided, String query,
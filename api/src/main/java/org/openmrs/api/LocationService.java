@@ -11,6 +11,7 @@ package org.openmrs.api;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.openmrs.Address;
 import org.openmrs.Location;
@@ -367,6 +368,55 @@ public interface LocationService extends OpenmrsService {
 	@Authorized( { PrivilegeConstants.GET_LOCATIONS })
 	public List<Location> getRootLocations(boolean includeRetired);
 	
+	/**
+	 * Gets the ids of the child locations of a location and, recursively, of their children. Unlike
+	 * {@link Location#getDescendantLocations(boolean)} this does not load the locations, the
+	 * hierarchy is cached, so the ids can be used to restrict a query to a whole subtree, e.g.
+	 * <code>Restrictions.in("location.locationId", ids)</code>.
+	 * 
+	 * @param location the location to get the descendants of
+	 * @param includeRetired whether to include retired locations, if false the descendants of a
+	 *            retired location are not included either
+	 * @return the ids, not including the id of the given location, an unmodifiable set
+	 * @should return the ids of all descendants of the location
+	 * @should not return retired locations and their descendants if includeRetired is false
+	 * @should return an empty set for an unsaved location
+	 * @should see a location saved in the same transaction
+	 * @since 2.2.0
+	 */
+	@Authorized( { PrivilegeConstants.GET_LOCATIONS })
+	public Set<Integer> getDescendantLocationIds(Location location, boolean includeRetired);
+	
+	/**
+	 * Gets the ids of the parent location of a location and, recursively, of its parent. The
+	 * hierarchy is cached so this does not load the locations.
+	 * 
+	 * @param location the location to get the ancestors of
+	 * @return the ids, starting with the id of the parent location and ending with the id of a root
+	 *         location, an unmodifiable list
+	 * @should return the ids of all ancestors of the location starting with its parent
+	 * @should return an empty list for a root location
+	 * @since 2.2.0
+	 */
+	@Authorized( { PrivilegeConstants.GET_LOCATIONS })
+	public List<Integer> getAncestorLocationIds(Location location);
+	
+	/**
+	 * Checks whether a location is the given root location or one of its descendants, like
+	 * {@link Location#isInHierarchy(Location, Location)} but using the cached hierarchy
+	 * 
+	 * @param location the location to check
+	 * @param root the root of the hierarchy
+	 * @return true if the location is the root or one of its descendants, false if either is null
+	 * @should return true if the location is the root
+	 * @should return true if the location is a descendant of the root
+	 * @should return false if the location is not a descendant of the root
+	 * @should return false if either location is null
+	 * @since 2.2.0
+	 */
+	@Authorized( { PrivilegeConstants.GET_LOCATIONS })
+	public boolean isInHierarchy(Location location, Location root);
+	
 	/**
 	 * Given an Address object, returns all the possible values for the specified AddressField. This
 	 * method is not implemented in core, but is meant to overridden by implementing modules such as
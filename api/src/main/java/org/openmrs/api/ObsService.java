@@ -9,9 +9,11 @@
  */
 package org.openmrs.api;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
@@ -117,6 +119,36 @@ public interface ObsService extends OpenmrsService {
 	@Authorized( { PrivilegeConstants.ADD_OBS, PrivilegeConstants.EDIT_OBS })
 	public Obs saveObs(Obs obs, String changeMessage) throws APIException;
 	
+	/**
+	 * Saves many new observations at once, e.g. when migrating data or loading it from a device.
+	 * Unlike calling {@link #saveObs(Obs, String)} for each obs, authorization is checked once, the
+	 * obs are validated and their audit fields are filled in one pass before any of them is saved,
+	 * all obs are saved in a single transaction, and the hibernate session is flushed and cleared
+	 * after every batch of obs so that it does not grow with the number of obs saved. The members
+	 * of an obs group are saved along with the group and take its encounter, and the person, date
+	 * and location of the group if they have none, even if they are given before the group. The new
+	 * groups an obs is in are saved before it, whether they are among the given obs or not. An obs
+	 * in an encounter takes the patient of the encounter as its person.<br>
+	 * <br>
+	 * Since the session is cleared, the returned obs and any other objects loaded in the session
+	 * are detached once this returns, any changes made to them before are saved to the database.
+	 * 
+	 * @param obs the new obs to save, including obs groups
+	 * @return the saved obs, in the order they were given
+	 * @throws APIException if any of the obs is null or was already saved
+	 * @since 2.2.0
+	 * @should save all the given obs
+	 * @should save the members of obs groups
+	 * @should save the members of obs groups given before their group
+	 * @should save the new groups of the given obs that are not among the given obs
+	 * @should set the person of obs in an encounter to the patient of the encounter
+	 * @should set creator and dateCreated on all obs
+	 * @should fail if an obs was already saved
+	 * @should fail if an obs is invalid
+	 */
+	@Authorized(PrivilegeConstants.ADD_OBS)
+	public List<Obs> saveObs(Collection<Obs> obs) throws APIException;
+	
 	/**
 	 * Equivalent to deleting an observation
 	 * 
@@ -348,6 +380,91 @@ public interface ObsService extends OpenmrsService {
 	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
 	        Date fromDate, Date toDate, boolean includeVoidedObs, String accessionNumber) throws APIException;
 	
+	/**
+	 * Gets a page of the observations that match the given criteria, which are the same as for
+	 * {@link #getObservations(List, List, List, List, List, List, List, Integer, Integer, Date, Date, boolean, String)}
+	 * . The observations are ordered by obsDatetime and then obsId and each page starts right after
+	 * the last observation of the previous one (keyset pagination), so fetching a page deep into the
+	 * results costs the same as fetching the first one. Pass the last observation of the returned
+	 * page to get the next page, until a page has less than <code>pageSize</code> observations.
+	 * 
+	 * @param whom List&lt;Person&gt; to restrict obs to (optional)
+	 * @param encounters List&lt;Encounter&gt; to restrict obs to (optional)
+	 * @param questions List&lt;Concept&gt; to restrict the obs to (optional)
+	 * @param answers List&lt;Concept&gt; to restrict the valueCoded to (optional)
+	 * @param personTypes List&lt;PERSON_TYPE&gt; objects to restrict this to. Only used if
+	 *            <code>whom</code> is an empty list (optional)
+	 * @param locations The org.openmrs.Location objects to restrict to (optional)
+	 * @param obsGroupId the Obs.getObsGroupId() to this integer (optional)
+	 * @param fromDate the earliest Obs date to get (optional)
+	 * @param toDate the latest Obs date to get (optional)
+	 * @param includeVoidedObs true/false whether to also include the voided obs (required)
+	 * @param accessionNumber accession number (optional)
+	 * @param lastObs the last observation of the previous page, null to get the first page
+	 * @param pageSize the maximum number of observations to return
+	 * @return the observations that come after <code>lastObs</code>
+	 * @throws APIException
+	 * @since 2.2.0
+	 * @should return the first page ordered by obsDatetime and obsId if lastObs is null
+	 * @should return all matching observations across pages
+	 * @should apply the same criteria as getObservations
+	 * @should fail if the page size is less than 1
+	 * @should fail if lastObs is not saved
+	 */
+	@Authorized(PrivilegeConstants.GET_OBS)
+	public List<Obs> getObservationsAfter(List<Person> whom, List<Encounter> encounters, List<Concept> questions,
+	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
+	        Date fromDate, Date toDate, boolean includeVoidedObs, String accessionNumber, Obs lastObs, int pageSize)
+	        throws APIException;
+	
+	/**
+	 * Returns a sequential stream of the observations that match the given criteria, which are the
+	 * same as for
+	 * {@link #getObservations(List, List, List, List, List, List, List, Integer, Integer, Date, Date, boolean, String)}
+	 * , ordered by obsDatetime and then obsId. The observations are loaded the given number at a time
+	 * the same way as by
+	 * {@link #getObservationsAfter(List, List, List, List, List, List, Integer, Date, Date, boolean, String, Obs, int)}
+	 * and what was loaded into the hibernate session with a page, i.e. the observations and the
+	 * persons, encounters, concepts and locations they refer to, is evicted when the next page is
+	 * loaded, so that reading millions of observations needs about as much memory as a single page
+	 * and the objects it refers to. Callers must therefore not keep the observations of earlier
+	 * pages, as they become detached, while the rest of the session, including unsaved changes, is
+	 * left alone.<br>
+	 * <br>
+	 * The pages, the first one included, are only loaded as the stream is consumed, i.e. after this
+	 * method and its read only transaction have returned. They are read with the hibernate session
+	 * bound to the consuming thread, e.g. the one opened by
+	 * {@link org.openmrs.api.context.Context#openSession()}, and in the caller's transaction if there
+	 * is one, otherwise each page is read by a query of its own. Changes made to the observations
+	 * of a page are flushed before they are evicted only if the session is flushed automatically,
+	 * as in a read write transaction, which a session opened by Context.openSession() is not.
+	 * 
+	 * @param whom List&lt;Person&gt; to restrict obs to (optional)
+	 * @param encounters List&lt;Encounter&gt; to restrict obs to (optional)
+	 * @param questions List&lt;Concept&gt; to restrict the obs to (optional)
+	 * @param answers List&lt;Concept&gt; to restrict the valueCoded to (optional)
+	 * @param personTypes List&lt;PERSON_TYPE&gt; objects to restrict this to. Only used if
+	 *            <code>whom</code> is an empty list (optional)
+	 * @param locations The org.openmrs.Location objects to restrict to (optional)
+	 * @param obsGroupId the Obs.getObsGroupId() to this integer (optional)
+	 * @param fromDate the earliest Obs date to get (optional)
+	 * @param toDate the latest Obs date to get (optional)
+	 * @param includeVoidedObs true/false whether to also include the voided obs (required)
+	 * @param accessionNumber accession number (optional)
+	 * @param batchSize the number of observations to load at a time
+	 * @return the Stream
+	 * @throws APIException
+	 * @since 2.2.0
+	 * @should return all matching observations ordered by obsDatetime and obsId
+	 * @should keep the other objects in the session
+	 * @should fail if the batch size is less than 1
+	 */
+	@Authorized(PrivilegeConstants.GET_OBS)
+	public Stream<Obs> getObservationStream(List<Person> whom, List<Encounter> encounters, List<Concept> questions,
+	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
+	        Date fromDate, Date toDate, boolean includeVoidedObs, String accessionNumber, int batchSize)
+	        throws APIException;
+	
 	/**
 	 * This method searches the obs table based on the given <code>searchString</code>.
 	 * 
@@ -386,6 +503,7 @@ public interface ObsService extends OpenmrsService {
 	 * @should fill in complex data object for complex obs
 	 * @should return normal obs for non complex obs
 	 * @should not fail with null view
+	 * @should return a stream over the stored file for the stream view
 	 * @deprecated as of 2.1.0, use {@link #getObs(Integer)} 
 	 */
 	@Deprecated
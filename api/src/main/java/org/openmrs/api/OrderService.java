@@ -299,6 +299,20 @@ public interface OrderService extends OpenmrsService {
 	@Authorized(PrivilegeConstants.ADD_ORDERS)
 	public Long getNextOrderNumberSeedSequenceValue();
 	
+	/**
+	 * Reserves a contiguous block of order number seeds by advancing the next available order
+	 * number seed by the specified count in one update, the caller owns all the seeds from the
+	 * returned value up to but not including the returned value plus count.
+	 * 
+	 * @param count the number of seeds to reserve
+	 * @return the first seed in the reserved block
+	 * @since 2.2.0
+	 * @should advance the order number seed by the specified count
+	 * @should fail if count is not positive
+	 */
+	@Authorized(PrivilegeConstants.ADD_ORDERS)
+	public Long reserveOrderNumberSeedSequenceValues(int count);
+	
 	/**
 	 * Gets the order matching the specified order number and its previous orders in the ordering
 	 * they occurred, i.e if this order has a previous order, fetch it and if it also has a previous
@@ -469,6 +469,10 @@ public interface ProgramWorkflowService extends OpenmrsService {
 	 * @should not throw NullPointerException when given cohort and programs are null
 	 * @should not fail when given cohort is empty
 	 * @should not fail when given program is empty
+	 * @should return patient programs ordered by patient when given cohort is null
+	 * @should return patient programs of a cohort larger than an in clause
+	 * @should return patient programs of a cohort too large to query in chunks
+	 * @should return patient programs of all patients in given programs when given cohort is null
 	 */
 	@Authorized( { PrivilegeConstants.GET_PATIENT_PROGRAMS })
 	public List<PatientProgram> getPatientPrograms(Cohort cohort, Collection<Program> programs);
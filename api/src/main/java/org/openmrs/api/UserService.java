@@ -523,6 +523,17 @@ public interface UserService extends OpenmrsService {
 	 */
 	public void notifyPrivilegeListeners(User user, String privilege, boolean hasPrivilege);
 	
+	/**
+	 * Checks whether any privilege listener beans are registered, privilege checks only notify the
+	 * listeners when there is at least one of them.
+	 * 
+	 * @see PrivilegeListener
+	 * @return <code>true</code> if there are privilege listeners to notify
+	 * @since 2.2.0
+	 * @should return true if there are privilege listeners
+	 */
+	public boolean hasPrivilegeListeners();
+	
 	/**
 	 * Saves the current key/value as a user property for the current user.
 	 * 
@@ -0,0 +1,311 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openmrs.Concept;
+import org.openmrs.ConceptSet;
+import org.openmrs.api.ConceptService;
+import org.openmrs.api.db.ConceptDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Process wide cache of the concept set hierarchy, used by the {@link ConceptService} to expand
+ * concept sets and to tell whether a concept is inside a set without querying the database level by
+ * level. The whole hierarchy is loaded with a single query the first time it is needed, and the
+ * members and containing sets of a concept are computed once and then kept, so checking whether a
+ * concept is in a set is a hash lookup. Like {@link ConceptService#getConceptsByConceptSet(Concept)},
+ * only the members that are marked as sets are expanded further.<br>
+ * <br>
+ * The cache is evicted whenever a concept is saved or purged. Within a transaction it is only
+ * evicted once the transaction completes, so other threads keep using the committed hierarchy and
+ * never see uncommitted or rolled back set members, while the transaction that made the change
+ * bypasses the cache and queries the members of each set it walks from the database. It is also
+ * evicted whenever the application context is refreshed, e.g. after a module was started. Code that
+ * changes the concept_set table without going through the {@link ConceptService} must call
+ * {@link #evict()}.
+ *
+ * @since 2.2.0
+ */
+public class ConceptSetCache implements ApplicationListener<ContextRefreshedEvent> {
+	
+	private static final Logger log = LoggerFactory.getLogger(ConceptSetCache.class);
+	
+	/** The only key of the cache, the whole hierarchy is cached as one value */
+	private static final String HIERARCHY = "hierarchy";
+	
+	private static final TransactionAwareCache<String, Hierarchy> hierarchies = new TransactionAwareCache<String, Hierarchy>();
+	
+	/**
+	 * Gets the ids of the members of a concept set and, recursively, of the sets among them
+	 *
+	 * @param conceptSetId the id of the concept set
+	 * @param dao used to load the hierarchy if it is not cached
+	 * @return the ids in the order of {@link ConceptService#getConceptsByConceptSet(org.openmrs.Concept)}
+	 *         , a member of several of the sets is listed once for each
+	 * @should return the members of nested sets
+	 * @should not expand members that are not marked as sets
+	 * @should not loop forever on a cyclic hierarchy
+	 */
+	public static List<Integer> getMemberIdsInOrder(Integer conceptSetId, ConceptDAO dao) {
+		return getHierarchy(dao).getMemberIdsInOrder(conceptSetId);
+	}
+	
+	/**
+	 * Gets the ids of the members of a concept set and, recursively, of the sets among them
+	 *
+	 * @param conceptSetId the id of the concept set
+	 * @param dao used to load the hierarchy if it is not cached
+	 * @return the ids, an unmodifiable set
+	 */
+	public static Set<Integer> getMemberIds(Integer conceptSetId, ConceptDAO dao) {
+		return getHierarchy(dao).getMemberIds(conceptSetId);
+	}
+	
+	/**
+	 * Gets the ids of the concept sets that contain a concept, directly or through other sets
+	 *
+	 * @param conceptId the id of the concept
+	 * @param dao used to load the hierarchy if it is not cached
+	 * @return the ids, an unmodifiable set
+	 * @should return the sets that contain the concept through other sets
+	 */
+	public static Set<Integer> getContainingSetIds(Integer conceptId, ConceptDAO dao) {
+		return getHierarchy(dao).getContainingSetIds(conceptId);
+	}
+	
+	/**
+	 * Removes the hierarchy from the cache. If called within a transaction, it is removed when the
+	 * transaction completes and the transaction does not use the cache until then.
+	 *
+	 * @should reload the hierarchy after it was evicted
+	 * @should keep the cached hierarchy for other transactions until the transaction completes
+	 */
+	public static void evict() {
+		hierarchies.evict(HIERARCHY);
+	}
+	
+	private static Hierarchy getHierarchy(ConceptDAO dao) {
+		if (hierarchies.isChangedInTransaction(HIERARCHY)) {
+			// the cached hierarchy does not have the uncommitted changes of this transaction
+			return new UncommittedHierarchy(dao);
+		}
+		
+		Hierarchy cached = hierarchies.get(HIERARCHY);
+		if (cached != null) {
+			return cached;
+		}
+		
+		long expectedVersion = hierarchies.getVersion();
+		Hierarchy loaded = new Hierarchy(dao.getConceptSetMemberIds(), dao.getConceptSetConceptIds());
+		hierarchies.put(HIERARCHY, loaded, expectedVersion);
+		
+		if (log.isDebugEnabled()) {
+			log.debug("Loaded the members of " + loaded.membersBySet.size() + " concept sets");
+		}
+		return loaded;
+	}
+	
+	/**
+	 * Evicts the cache since the started or stopped modules may have changed concept sets in the
+	 * database
+	 *
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		evict();
+	}
+	
+	/**
+	 * The members of each concept set and the concept sets each concept is a member of, along with
+	 * the transitive closures computed so far. The members of a member are only included if the
+	 * member is marked as a set, while the members of the concept a walk starts from always are.
+	 */
+	private static class Hierarchy {
+		
+		private final Map<Integer, List<Integer>> membersBySet;
+		
+		private final Set<Integer> setIds;
+		
+		private final Map<Integer, List<Integer>> setsByMember = new HashMap<Integer, List<Integer>>();
+		
+		private final Map<Integer, Set<Integer>> memberClosures = new ConcurrentHashMap<Integer, Set<Integer>>();
+		
+		private final Map<Integer, Set<Integer>> containingSetClosures = new ConcurrentHashMap<Integer, Set<Integer>>();
+		
+		private Hierarchy(Map<Integer, List<Integer>> membersBySet, Set<Integer> setIds) {
+			this.membersBySet = membersBySet;
+			this.setIds = setIds;
+			for (Map.Entry<Integer, List<Integer>> entry : membersBySet.entrySet()) {
+				for (Integer memberId : entry.getValue()) {
+					List<Integer> sets = setsByMember.get(memberId);
+					if (sets == null) {
+						sets = new ArrayList<Integer>();
+						setsByMember.put(memberId, sets);
+					}
+					sets.add(entry.getKey());
+				}
+			}
+		}
+		
+		/**
+		 * @param conceptSetId the id of a concept set
+		 * @return the ids of the direct members of the set in sort weight order, or null
+		 */
+		protected List<Integer> getDirectMemberIds(Integer conceptSetId) {
+			return membersBySet.get(conceptSetId);
+		}
+		
+		/**
+		 * @param conceptId the id of a concept
+		 * @return the ids of the sets the concept is a direct member of, or null
+		 */
+		protected List<Integer> getDirectSetIds(Integer conceptId) {
+			return setsByMember.get(conceptId);
+		}
+		
+		/**
+		 * @param conceptId the id of a concept
+		 * @return true if the concept is marked as a set
+		 */
+		protected boolean isSet(Integer conceptId) {
+			return setIds.contains(conceptId);
+		}
+		
+		private List<Integer> getMemberIdsInOrder(Integer conceptSetId) {
+			List<Integer> memberIds = new ArrayList<Integer>();
+			addMemberIds(conceptSetId, memberIds, new HashSet<Integer>());
+			return memberIds;
+		}
+		
+		private void addMemberIds(Integer conceptSetId, List<Integer> memberIds, Set<Integer> alreadySeen) {
+			if (!alreadySeen.add(conceptSetId)) {
+				return;
+			}
+			List<Integer> members = getDirectMemberIds(conceptSetId);
+			if (members != null) {
+				for (Integer memberId : members) {
+					memberIds.add(memberId);
+					if (isSet(memberId)) {
+						addMemberIds(memberId, memberIds, alreadySeen);
+					}
+				}
+			}
+		}
+		
+		private Set<Integer> getMemberIds(Integer conceptSetId) {
+			if (conceptSetId == null) {
+				return Collections.emptySet();
+			}
+			Set<Integer> memberIds = memberClosures.get(conceptSetId);
+			if (memberIds == null) {
+				memberIds = Collections.unmodifiableSet(getClosure(conceptSetId, true));
+				memberClosures.put(conceptSetId, memberIds);
+			}
+			return memberIds;
+		}
+		
+		private Set<Integer> getContainingSetIds(Integer conceptId) {
+			if (conceptId == null) {
+				return Collections.emptySet();
+			}
+			Set<Integer> setIds = containingSetClosures.get(conceptId);
+			if (setIds == null) {
+				setIds = Collections.unmodifiableSet(getClosure(conceptId, false));
+				containingSetClosures.put(conceptId, setIds);
+			}
+			return setIds;
+		}
+		
+		/**
+		 * Walks the hierarchy down to the members or up to the containing sets. In both directions a
+		 * concept is only walked past if it is a set, since a set only includes the members of the
+		 * members that are sets.
+		 */
+		private Set<Integer> getClosure(Integer start, boolean members) {
+			Set<Integer> closure = new LinkedHashSet<Integer>();
+			Deque<Integer> toVisit = new ArrayDeque<Integer>();
+			toVisit.add(start);
+			while (!toVisit.isEmpty()) {
+				Integer id = toVisit.poll();
+				List<Integer> next = members ? getDirectMemberIds(id) : getDirectSetIds(id);
+				if (next != null) {
+					for (Integer nextId : next) {
+						if (closure.add(nextId) && isSet(nextId)) {
+							toVisit.add(nextId);
+						}
+					}
+				}
+			}
+			return closure;
+		}
+	}
+	
+	/**
+	 * The hierarchy as seen by a transaction that changed it, the members and sets of a concept are
+	 * queried from the database as they are walked, which sees the changes of the transaction
+	 */
+	private static class UncommittedHierarchy extends Hierarchy {
+		
+		private final ConceptDAO dao;
+		
+		private UncommittedHierarchy(ConceptDAO dao) {
+			super(Collections.<Integer, List<Integer>> emptyMap(), Collections.<Integer> emptySet());
+			this.dao = dao;
+		}
+		
+		@Override
+		protected List<Integer> getDirectMemberIds(Integer conceptSetId) {
+			Concept conceptSet = dao.getConcept(conceptSetId);
+			if (conceptSet == null) {
+				return null;
+			}
+			List<Integer> memberIds = new ArrayList<Integer>();
+			for (ConceptSet member : dao.getConceptSetsByConcept(conceptSet)) {
+				memberIds.add(member.getConcept().getConceptId());
+			}
+			return memberIds;
+		}
+		
+		@Override
+		protected boolean isSet(Integer conceptId) {
+			Concept concept = dao.getConcept(conceptId);
+			return concept != null && Boolean.TRUE.equals(concept.getSet());
+		}
+		
+		@Override
+		protected List<Integer> getDirectSetIds(Integer conceptId) {
+			Concept concept = dao.getConcept(conceptId);
+			if (concept == null) {
+				return null;
+			}
+			List<Integer> setIds = new ArrayList<Integer>();
+			for (ConceptSet set : dao.getSetsContainingConcept(concept)) {
+				setIds.add(set.getConceptSet().getConceptId());
+			}
+			return setIds;
+		}
+	}
+}
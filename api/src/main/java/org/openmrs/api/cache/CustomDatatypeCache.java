@@ -0,0 +1,108 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.openmrs.api.DatatypeService;
+import org.openmrs.customdatatype.CustomDatatype;
+import org.openmrs.customdatatype.CustomDatatypeHandler;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Process wide cache of configured {@link CustomDatatype} and {@link CustomDatatypeHandler}
+ * instances, keyed by their class and configuration, used by the {@link DatatypeService} so that
+ * the value of every attribute that is rendered does not instantiate and configure its datatype and
+ * handler again. Reading an instance that is already cached takes no lock.<br>
+ * <br>
+ * The cached instances are shared by all callers, which therefore must not change their
+ * configuration. Since the same class and configuration always give an equivalent instance, the
+ * cache never goes stale, but it is evicted whenever an attribute type is changed or deleted so that
+ * instances with configurations no longer in use are dropped, and whenever the application context
+ * is refreshed since a module that was started or stopped may have replaced the classes.
+ *
+ * @since 2.2.0
+ */
+public class CustomDatatypeCache implements ApplicationListener<ContextRefreshedEvent> {
+	
+	private static final Map<Key, Object> instances = new ConcurrentHashMap<Key, Object>();
+	
+	/**
+	 * Gets the instance of a datatype or handler class with the given configuration
+	 *
+	 * @param clazz the class of the instance
+	 * @param configuration the configuration of the instance, may be null
+	 * @param factory creates and configures the instance if it is not cached
+	 * @return the cached instance
+	 * @should return the cached instance for the same class and configuration
+	 * @should create a new instance for a different configuration
+	 * @should create a new instance after the cache was evicted
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T get(Class<? extends T> clazz, String configuration, Supplier<T> factory) {
+		Key key = new Key(clazz, configuration);
+		Object instance = instances.get(key);
+		if (instance == null) {
+			instance = instances.computeIfAbsent(key, k -> factory.get());
+		}
+		return (T) instance;
+	}
+	
+	/**
+	 * Removes all the instances from the cache
+	 */
+	public static void evict() {
+		instances.clear();
+	}
+	
+	/**
+	 * Clears the cache since the started or stopped modules may have replaced datatype or handler
+	 * classes
+	 *
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		evict();
+	}
+	
+	/**
+	 * The class and configuration of a cached instance
+	 */
+	private static class Key {
+		
+		private final Class<?> clazz;
+		
+		private final String configuration;
+		
+		private Key(Class<?> clazz, String configuration) {
+			this.clazz = clazz;
+			this.configuration = configuration;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return clazz.equals(other.clazz) && Objects.equals(configuration, other.configuration);
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * clazz.hashCode() + Objects.hashCode(configuration);
+		}
+	}
+}
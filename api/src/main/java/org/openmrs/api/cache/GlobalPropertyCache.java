@@ -0,0 +1,171 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.GlobalPropertyListener;
+import org.openmrs.api.db.AdministrationDAO;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Process wide cache of the values of the global properties, used by
+ * {@link AdministrationService#getGlobalProperty(String)} so that reading a global property does
+ * not hit the database on every call. Property names are matched case insensitively, like the
+ * database does, and properties that do not exist are cached too.<br>
+ * <br>
+ * A value is evicted when its global property is saved or deleted. Within a transaction it is only
+ * evicted once the transaction completes, so other threads keep reading the committed value and
+ * never see uncommitted or rolled back values, while the transaction that made the change reads the
+ * value from the database until then. The cache is registered as a
+ * {@link GlobalPropertyListener} and is cleared whenever the application context is refreshed,
+ * e.g. after a module was started. Code that changes the global_property table without going
+ * through the {@link AdministrationService} must call {@link #evict(String)} or {@link #clear()}.
+ *
+ * @since 2.2.0
+ */
+public class GlobalPropertyCache implements GlobalPropertyListener, ApplicationListener<ContextRefreshedEvent> {
+	
+	/** Marks a global property that does not exist, the cache does not allow null values */
+	private static final Object NO_VALUE = new Object();
+	
+	private static final TransactionAwareCache<String, Object> values = new TransactionAwareCache<String, Object>();
+	
+	private static final AtomicLong hitCount = new AtomicLong();
+	
+	private static final AtomicLong missCount = new AtomicLong();
+	
+	/**
+	 * Gets the value of a global property from the cache, loading it from the database if it is not
+	 * cached yet
+	 *
+	 * @param propertyName the name of the global property
+	 * @param dao used to load the value on a cache miss
+	 * @return the value of the global property or null if it does not exist
+	 * @should return the cached value without querying the database
+	 * @should return null for a property that does not exist
+	 * @should match property names case insensitively
+	 * @should not cache a value that was evicted while it was loaded
+	 */
+	public static String getValue(String propertyName, AdministrationDAO dao) {
+		String key = getKey(propertyName);
+		Object value = values.get(key);
+		if (value != null) {
+			hitCount.incrementAndGet();
+			return value == NO_VALUE ? null : (String) value;
+		}
+		
+		missCount.incrementAndGet();
+		long expectedVersion = values.getVersion();
+		String loadedValue = dao.getGlobalProperty(propertyName);
+		put(key, loadedValue, expectedVersion);
+		
+		return loadedValue;
+	}
+	
+	/**
+	 * Removes the value of a global property from the cache. If called within a transaction, it is
+	 * removed when the transaction completes and the transaction does not use the cache for the
+	 * property until then.
+	 *
+	 * @param propertyName the name of the global property
+	 * @should not cache the property again before the transaction completes
+	 */
+	public static void evict(String propertyName) {
+		if (propertyName == null) {
+			return;
+		}
+		
+		values.evict(getKey(propertyName));
+	}
+	
+	/**
+	 * Removes all values from the cache
+	 */
+	public static void clear() {
+		values.clear();
+	}
+	
+	/**
+	 * @return the number of global property reads that were served by the cache
+	 */
+	public static long getHitCount() {
+		return hitCount.get();
+	}
+	
+	/**
+	 * @return the number of global property reads that had to go to the database
+	 */
+	public static long getMissCount() {
+		return missCount.get();
+	}
+	
+	/**
+	 * @return the number of global properties in the cache, including the ones that do not exist
+	 */
+	public static int getSize() {
+		return values.size();
+	}
+	
+	/**
+	 * Resets the hit and miss counts
+	 */
+	public static void resetStatistics() {
+		hitCount.set(0);
+		missCount.set(0);
+	}
+	
+	private static void put(String key, String value, long expectedVersion) {
+		values.put(key, value == null ? NO_VALUE : value, expectedVersion);
+	}
+	
+	private static String getKey(String propertyName) {
+		return propertyName.toLowerCase(Locale.ENGLISH);
+	}
+	
+	/**
+	 * @see org.openmrs.api.GlobalPropertyListener#supportsPropertyName(java.lang.String)
+	 */
+	@Override
+	public boolean supportsPropertyName(String propertyName) {
+		return true;
+	}
+	
+	/**
+	 * @see org.openmrs.api.GlobalPropertyListener#globalPropertyChanged(org.openmrs.GlobalProperty)
+	 */
+	@Override
+	public void globalPropertyChanged(GlobalProperty newValue) {
+		evict(newValue.getProperty());
+	}
+	
+	/**
+	 * @see org.openmrs.api.GlobalPropertyListener#globalPropertyDeleted(java.lang.String)
+	 */
+	@Override
+	public void globalPropertyDeleted(String propertyName) {
+		evict(propertyName);
+	}
+	
+	/**
+	 * Clears the cache since the started or stopped modules may have changed global properties in
+	 * the database
+	 *
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		clear();
+	}
+}
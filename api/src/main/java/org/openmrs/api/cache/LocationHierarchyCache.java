@@ -0,0 +1,181 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openmrs.api.LocationService;
+import org.openmrs.api.db.LocationDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Process wide cache of the location hierarchy, used by the {@link LocationService} to find the
+ * descendants and ancestors of a location without loading the child locations of every location
+ * in the tree one select at a time. The parent of every location is loaded with a single query the
+ * first time it is needed, once for all locations and once for the unretired ones only, and the
+ * descendants of a location are computed once and then kept, so the ids of a subtree can be passed
+ * straight to a query.<br>
+ * <br>
+ * The cache is evicted whenever a location is saved or purged. Within a transaction it is only
+ * evicted once the transaction completes, so other threads keep using the committed hierarchy and
+ * never see uncommitted or rolled back parents, while the transaction that made the change bypasses
+ * the cache and loads the parents from the database for every lookup. It is also evicted whenever
+ * the application context is refreshed, e.g. after a module was started. Code that changes the
+ * location table without going through the {@link LocationService} must call {@link #evict()}.
+ *
+ * @since 2.2.0
+ */
+public class LocationHierarchyCache implements ApplicationListener<ContextRefreshedEvent> {
+	
+	private static final Logger log = LoggerFactory.getLogger(LocationHierarchyCache.class);
+	
+	/** The hierarchy of all locations and the one of the unretired locations, keyed by includeRetired */
+	private static final TransactionAwareCache<Boolean, Hierarchy> hierarchies = new TransactionAwareCache<Boolean, Hierarchy>();
+	
+	/**
+	 * Gets the ids of the child locations of a location and, recursively, of their children
+	 *
+	 * @param locationId the id of the location
+	 * @param includeRetired whether to include retired locations, if false the descendants of a
+	 *            retired location are not included either
+	 * @param dao used to load the hierarchy if it is not cached
+	 * @return the ids, not including the given one, in breadth first order, an unmodifiable set
+	 * @should return the descendants of the location
+	 * @should skip retired locations and their descendants if includeRetired is false
+	 * @should not loop forever on a cyclic hierarchy
+	 */
+	public static Set<Integer> getDescendantLocationIds(Integer locationId, boolean includeRetired, LocationDAO dao) {
+		return getHierarchy(includeRetired, dao).getDescendantIds(locationId);
+	}
+	
+	/**
+	 * Gets the ids of the parent location of a location and, recursively, of its parent
+	 *
+	 * @param locationId the id of the location
+	 * @param dao used to load the hierarchy if it is not cached
+	 * @return the ids, not including the given one, starting with the parent, an unmodifiable list
+	 * @should return the ancestors of the location starting with its parent
+	 */
+	public static List<Integer> getAncestorLocationIds(Integer locationId, LocationDAO dao) {
+		return getHierarchy(true, dao).getAncestorIds(locationId);
+	}
+	
+	/**
+	 * Removes the hierarchy from the cache. If called within a transaction, it is removed when the
+	 * transaction completes and the transaction does not use the cache until then.
+	 *
+	 * @should reload the hierarchy after it was evicted
+	 * @should keep the cached hierarchy for other transactions until the transaction completes
+	 */
+	public static void evict() {
+		hierarchies.evict(true);
+		hierarchies.evict(false);
+	}
+	
+	private static Hierarchy getHierarchy(boolean includeRetired, LocationDAO dao) {
+		Hierarchy cached = hierarchies.get(includeRetired);
+		if (cached != null) {
+			return cached;
+		}
+		
+		// within a transaction that changed the hierarchy, it is loaded for every lookup and not cached
+		long expectedVersion = hierarchies.getVersion();
+		Hierarchy loaded = new Hierarchy(dao.getParentLocationIds(includeRetired));
+		hierarchies.put(includeRetired, loaded, expectedVersion);
+		
+		if (log.isDebugEnabled()) {
+			log.debug("Loaded the parents of " + loaded.parentIds.size() + " locations");
+		}
+		return loaded;
+	}
+	
+	/**
+	 * Evicts the cache since the started or stopped modules may have changed locations in the
+	 * database
+	 *
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		evict();
+	}
+	
+	/**
+	 * The parent and the children of each location, along with the descendants computed so far
+	 */
+	private static class Hierarchy {
+		
+		private final Map<Integer, Integer> parentIds;
+		
+		private final Map<Integer, List<Integer>> childIds = new HashMap<Integer, List<Integer>>();
+		
+		private final Map<Integer, Set<Integer>> descendantClosures = new ConcurrentHashMap<Integer, Set<Integer>>();
+		
+		private Hierarchy(Map<Integer, Integer> parentIds) {
+			this.parentIds = parentIds;
+			for (Map.Entry<Integer, Integer> entry : parentIds.entrySet()) {
+				if (entry.getValue() != null) {
+					List<Integer> children = childIds.get(entry.getValue());
+					if (children == null) {
+						children = new ArrayList<Integer>();
+						childIds.put(entry.getValue(), children);
+					}
+					children.add(entry.getKey());
+				}
+			}
+		}
+		
+		private Set<Integer> getDescendantIds(Integer locationId) {
+			if (locationId == null) {
+				return Collections.emptySet();
+			}
+			Set<Integer> descendantIds = descendantClosures.get(locationId);
+			if (descendantIds == null) {
+				Set<Integer> closure = new LinkedHashSet<Integer>();
+				Deque<Integer> toVisit = new ArrayDeque<Integer>();
+				toVisit.add(locationId);
+				while (!toVisit.isEmpty()) {
+					List<Integer> children = childIds.get(toVisit.poll());
+					if (children != null) {
+						for (Integer childId : children) {
+							if (closure.add(childId)) {
+								toVisit.add(childId);
+							}
+						}
+					}
+				}
+				descendantIds = Collections.unmodifiableSet(closure);
+				descendantClosures.put(locationId, descendantIds);
+			}
+			return descendantIds;
+		}
+		
+		private List<Integer> getAncestorIds(Integer locationId) {
+			Set<Integer> ancestorIds = new LinkedHashSet<Integer>();
+			Integer parentId = locationId == null ? null : parentIds.get(locationId);
+			while (parentId != null && ancestorIds.add(parentId)) {
+				parentId = parentIds.get(parentId);
+			}
+			return Collections.unmodifiableList(new ArrayList<Integer>(ancestorIds));
+		}
+	}
+}
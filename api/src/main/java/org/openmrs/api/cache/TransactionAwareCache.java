@@ -0,0 +1,137 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds the values of one of the process wide caches of this package. A value loaded from the
+ * database is only cached if it was not evicted while it was loaded. A value evicted within a
+ * transaction is only removed once the transaction completes, so other threads keep using the
+ * committed value and never see uncommitted or rolled back changes, while the transaction that made
+ * the change does not get the value from the cache until then.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values, which must not be null
+ * @since 2.2.0
+ */
+class TransactionAwareCache<K, V> {
+	
+	private final Map<K, V> values = new ConcurrentHashMap<K, V>();
+	
+	/**
+	 * Incremented by every removal, a value loaded from the database is only cached if nothing was
+	 * removed while it was loaded. Guarded by the lock of this cache.
+	 */
+	private long version = 0;
+	
+	/**
+	 * @param key the key of the value
+	 * @return the cached value, or null if it is not cached or was evicted by the current transaction
+	 */
+	V get(K key) {
+		return isChangedInTransaction(key) ? null : values.get(key);
+	}
+	
+	/**
+	 * Gets the version to pass to {@link #put(Object, Object, long)}, it must be read before the
+	 * value is loaded from the database
+	 *
+	 * @return the current version
+	 */
+	synchronized long getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Caches a value loaded from the database, unless something was removed from the cache since the
+	 * given version was read or the current transaction evicted the key
+	 *
+	 * @param key the key of the value
+	 * @param value the value
+	 * @param expectedVersion the version read before the value was loaded
+	 */
+	synchronized void put(K key, V value, long expectedVersion) {
+		if (version == expectedVersion && !isChangedInTransaction(key)) {
+			values.put(key, value);
+		}
+	}
+	
+	/**
+	 * Removes a value from the cache. If called within a transaction, it is removed when the
+	 * transaction completes and the transaction does not get it from the cache until then.
+	 *
+	 * @param key the key of the value
+	 */
+	void evict(K key) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			remove(key);
+			return;
+		}
+		
+		Set<K> changedKeys = getChangedKeys();
+		if (changedKeys == null) {
+			final Set<K> keys = new HashSet<K>();
+			TransactionSynchronizationManager.bindResource(this, keys);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(TransactionAwareCache.this);
+					for (K key : keys) {
+						remove(key);
+					}
+				}
+			});
+			changedKeys = keys;
+		}
+		changedKeys.add(key);
+	}
+	
+	/**
+	 * Removes all values from the cache right away
+	 */
+	synchronized void clear() {
+		version++;
+		values.clear();
+	}
+	
+	/**
+	 * @param key the key of a value
+	 * @return true if the current transaction evicted the key
+	 */
+	boolean isChangedInTransaction(K key) {
+		Set<K> changedKeys = getChangedKeys();
+		return changedKeys != null && changedKeys.contains(key);
+	}
+	
+	/**
+	 * @return the number of cached values
+	 */
+	int size() {
+		return values.size();
+	}
+	
+	private synchronized void remove(K key) {
+		version++;
+		values.remove(key);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private Set<K> getChangedKeys() {
+		return (Set<K>) TransactionSynchronizationManager.getResource(this);
+	}
+}
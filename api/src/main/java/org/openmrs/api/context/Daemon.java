@@ -18,6 +18,7 @@ import org.openmrs.module.Module;
 import org.openmrs.module.ModuleException;
 import org.openmrs.module.ModuleFactory;
 import org.openmrs.scheduler.Task;
+import org.openmrs.scheduler.executor.ExecutorSchedulerTask;
 import org.openmrs.scheduler.timer.TimerSchedulerTask;
 import org.openmrs.util.OpenmrsSecurityManager;
 import org.slf4j.Logger;
@@ -160,6 +161,43 @@ public class Daemon {
 		
 	}
 	
+	/**
+	 * Executes the given task in the current thread, authenticated as the daemon user until the task
+	 * returns. Unlike {@link #executeScheduledTask(Task)} no new thread is started, the caller is
+	 * expected to already be running on a thread of the scheduler's pool. <br>
+	 * <br>
+	 * This can only be called from {@link ExecutorSchedulerTask} during actual task execution
+	 *
+	 * @param task the task to run
+	 * @since 2.2.0
+	 * @should not be called from other methods other than ExecutorSchedulerTask
+	 * @should run the task as the daemon user in the current thread
+	 */
+	public static void executeScheduledTaskInCurrentThread(final Task task) throws Exception {
+		
+		// quick check to make sure we're only being called by ourselves
+		Class<?> callerClass = new OpenmrsSecurityManager().getCallerClass(0);
+		if (!ExecutorSchedulerTask.class.isAssignableFrom(callerClass)) {
+			throw new APIException("Scheduler.executor.task.only", new Object[] { callerClass.getName() });
+		}
+		
+		isDaemonThread.set(true);
+		try {
+			Context.openSession();
+			TimerSchedulerTask.execute(task);
+		}
+		finally {
+			try {
+				Context.closeSession();
+			}
+			finally {
+				// pooled threads are reused for other work, so they must not stay daemon threads
+				daemonThreadUser.remove();
+				isDaemonThread.remove();
+			}
+		}
+	}
+	
 	/**
 	 * Call this method if you are inside a Daemon thread (for example in a Module activator or a
 	 * scheduled task) and you want to start up a new parallel Daemon thread. You may only call this
@@ -199,6 +237,46 @@ public class Daemon {
 		return thread;
 	}
 	
+	/**
+	 * Wraps the given runnable so that the thread that runs it, e.g. a thread of a pool, runs it as
+	 * the daemon user in a session of its own and is no daemon thread anymore afterwards. Like
+	 * {@link #runInNewDaemonThread(Runnable)} this may only be called from a daemon thread.
+	 *
+	 * @param runnable what to run as the daemon user
+	 * @return the runnable to hand to the thread or pool
+	 * @since 2.2.0
+	 * @should throw error if called from a non daemon thread
+	 * @should run the runnable as the daemon user in the thread that runs it
+	 */
+	public static Runnable createDaemonRunnable(final Runnable runnable) {
+		// make sure we're already in a daemon thread
+		if (!isDaemonThread()) {
+			throw new APIAuthenticationException("Only daemon threads can spawn new daemon threads");
+		}
+		
+		return new Runnable() {
+			
+			@Override
+			public void run() {
+				isDaemonThread.set(true);
+				try {
+					Context.openSession();
+					runnable.run();
+				}
+				finally {
+					try {
+						Context.closeSession();
+					}
+					finally {
+						// pooled threads are reused for other work, so they must not stay daemon threads
+						daemonThreadUser.remove();
+						isDaemonThread.remove();
+					}
+				}
+			}
+		};
+	}
+	
 	/**
 	 * @return true if the current thread was started by this class and so is a daemon thread that
 	 *         has all privileges
@@ -10,23 +10,29 @@
 package org.openmrs.api.context;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.StringUtils;
 import org.openmrs.Location;
+import org.openmrs.Privilege;
 import org.openmrs.Role;
 import org.openmrs.User;
 import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.UserService;
 import org.openmrs.api.db.ContextDAO;
 import org.openmrs.util.LocaleUtility;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.RoleConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Represents an OpenMRS <code>User Context</code> which stores the current user information. Only
@@ -46,6 +52,12 @@ public class UserContext implements Serializable {
 	 */
 	private static final Logger log = LoggerFactory.getLogger(UserContext.class);
 	
+	/**
+	 * Incremented whenever a user, role or privilege is saved or purged, which invalidates the
+	 * privileges cached by every user context
+	 */
+	private static final AtomicLong rolesVersion = new AtomicLong();
+	
 	/**
 	 * User object containing details about the authenticated user
 	 */
@@ -76,6 +88,12 @@ public class UserContext implements Serializable {
 	 */
 	private Integer locationId;
 	
+	/**
+	 * The privileges of this context flattened into one set, it is rebuilt when the authenticated
+	 * user or the proxy privileges change and when any user, role or privilege is saved or purged
+	 */
+	private transient volatile PrivilegeCache privilegeCache;
+	
 	/**
 	 * Default public constructor
 	 */
@@ -98,6 +116,7 @@ public class UserContext implements Serializable {
 		}
 		
 		this.user = contextDAO.authenticate(username, password);
+		privilegeCache = null;
 		setUserLocation();
 		if (log.isDebugEnabled()) {
 			log.debug("Authenticated as: " + this.user);
@@ -120,6 +139,7 @@ public class UserContext implements Serializable {
 		
 		if (user != null) {
 			user = Context.getUserService().getUser(user.getUserId());
+			privilegeCache = null;
 			//update the stored location in the user's session
 			setUserLocation();
 			setUserLocale();
@@ -161,6 +181,7 @@ public class UserContext implements Serializable {
 		}
 		
 		this.user = userToBecome;
+		privilegeCache = null;
 		//update the user's location
 		setUserLocation();
 		
@@ -193,6 +214,7 @@ public class UserContext implements Serializable {
 	public void logout() {
 		log.debug("setting user to null on logout");
 		user = null;
+		privilegeCache = null;
 	}
 	
 	/**
@@ -217,6 +239,7 @@ public class UserContext implements Serializable {
 		}
 		
 		proxies.add(privilege);
+		privilegeCache = null;
 	}
 	
 	/**
@@ -231,6 +254,7 @@ public class UserContext implements Serializable {
 		
 		if (proxies.contains(privilege)) {
 			proxies.remove(privilege);
+			privilegeCache = null;
 		}
 	}
 	
@@ -304,37 +328,83 @@ public class UserContext implements Serializable {
 	 * @should not authorize if anonymous user does not have specified privilege
 	 */
 	public boolean hasPrivilege(String privilege) {
+		UserService userService = Context.getUserService();
+		PrivilegeCache cache = getPrivilegeCache(userService);
 		
-		// if a user has logged in, check their privileges
-		if (isAuthenticated()
-		        && (getAuthenticatedUser().hasPrivilege(privilege) || getAuthenticatedRole().hasPrivilege(privilege))) {
-			
-			// check user's privileges
-			Context.getUserService().notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
-			return true;
-			
-		}
-		
+		boolean hasPrivilege = cache.hasPrivilege(privilege);
 		if (log.isDebugEnabled()) {
-			log.debug("Checking '" + privilege + "' against proxies: " + proxies);
+			log.debug("Checking '" + privilege + "' against user, roles and proxies: " + proxies + ", has privilege: "
+			        + hasPrivilege);
 		}
 		
-		// check proxied privileges
-		for (String s : proxies) {
-			if (s.equals(privilege)) {
-				Context.getUserService().notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
-				return true;
-			}
+		if (cache.notifyPrivilegeListeners) {
+			userService.notifyPrivilegeListeners(getAuthenticatedUser(), privilege, hasPrivilege);
 		}
+		return hasPrivilege;
+	}
 		
-		if (getAnonymousRole().hasPrivilege(privilege)) {
-			Context.getUserService().notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
-			return true;
+	/**
+	 * Marks the privileges cached by all user contexts as stale. It is called by the
+	 * {@link UserService} when a user, role or privilege is saved or purged, changes made to the
+	 * roles of a user or to the privileges or inherited roles of a role are therefore only seen by
+	 * {@link #hasPrivilege(String)} once they are saved. Within a transaction the privileges are
+	 * marked as stale again when it completes, so that privileges rebuilt by other threads before the
+	 * change was committed are not kept.
+	 * 
+	 * @since 2.2.0
+	 */
+	public static void rolesChanged() {
+		rolesVersion.incrementAndGet();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					rolesVersion.incrementAndGet();
+				}
+			});
 		}
+	}
+	
+	/**
+	 * Gets the flattened privileges of this context, rebuilding them if the authenticated user, the
+	 * proxy privileges or the user service have changed, or any user, role or privilege was saved,
+	 * since they were last built.
+	 * 
+	 * @param userService the current user service
+	 * @return the privilege cache
+	 */
+	private PrivilegeCache getPrivilegeCache(UserService userService) {
+		PrivilegeCache cache = privilegeCache;
+		if (cache == null || !cache.isValidFor(user, userService)) {
+			// read before the roles are walked so that a change made meanwhile invalidates the result
+			long version = rolesVersion.get();
+			Set<String> privileges = new HashSet<String>(proxies);
+			boolean allPrivileges = false;
+			
+			List<Role> roles = new ArrayList<Role>();
+			roles.add(getAnonymousRole());
+			if (user != null) {
+				allPrivileges = user.isSuperUser();
+				roles.addAll(user.getAllRoles());
+				roles.add(getAuthenticatedRole());
+			}
+			for (Role role : roles) {
+				if (RoleConstants.SUPERUSER.equals(role.getRole())) {
+					allPrivileges = true;
+				}
+				if (role.getPrivileges() != null) {
+					for (Privilege p : role.getPrivileges()) {
+						privileges.add(p.getPrivilege());
+					}
+				}
+			}
 		
-		// default return value
-		Context.getUserService().notifyPrivilegeListeners(getAuthenticatedUser(), privilege, false);
-		return false;
+			cache = new PrivilegeCache(user, userService, version, privileges, allPrivileges, userService
+			        .hasPrivilegeListeners());
+			privilegeCache = cache;
+		}
+		return cache;
 	}
 	
 	/**
@@ -456,4 +526,48 @@ public class UserContext implements Serializable {
 			}
 		}
 	}
+	
+	/**
+	 * An immutable snapshot of the privileges available to a user context, including those of the
+	 * authenticated and anonymous roles and the proxy privileges
+	 */
+	private static class PrivilegeCache {
+		
+		private final User user;
+		
+		private final UserService userService;
+		
+		private final long version;
+		
+		private final Set<String> privileges;
+		
+		private final boolean allPrivileges;
+		
+		private final boolean notifyPrivilegeListeners;
+		
+		private PrivilegeCache(User user, UserService userService, long version, Set<String> privileges,
+		    boolean allPrivileges, boolean notifyPrivilegeListeners) {
+			this.user = user;
+			this.userService = userService;
+			this.version = version;
+			this.privileges = privileges;
+			this.allPrivileges = allPrivileges;
+			this.notifyPrivilegeListeners = notifyPrivilegeListeners;
+		}
+		
+		private boolean isValidFor(User currentUser, UserService currentUserService) {
+			return currentUser == user && currentUserService == userService && rolesVersion.get() == version;
+		}
+		
+		private boolean hasPrivilege(String privilege) {
+			if (allPrivileges) {
+				return true;
+			}
+			// all authenticated users have the "" (empty) privilege
+			if (user != null && StringUtils.isEmpty(privilege)) {
+				return true;
+			}
+			return privileges.contains(privilege);
+		}
+	}
 }
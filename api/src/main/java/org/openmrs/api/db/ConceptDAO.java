@@ -218,6 +218,23 @@ public interface ConceptDAO {
 	 */
 	public List<ConceptSet> getSetsContainingConcept(Concept concept) throws DAOException;
 	
+	/**
+	 * Gets the members of all concept sets
+	 * 
+	 * @return the ids of the members of each concept set keyed by the id of the set, in sort
+	 *         weight order
+	 * @since 2.2.0
+	 */
+	public Map<Integer, List<Integer>> getConceptSetMemberIds() throws DAOException;
+	
+	/**
+	 * Gets the concepts that are marked as sets
+	 * 
+	 * @return the ids of the concepts whose set flag is true
+	 * @since 2.2.0
+	 */
+	public Set<Integer> getConceptSetConceptIds() throws DAOException;
+	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptNumeric(java.lang.Integer)
 	 */
@@ -320,6 +337,11 @@ public interface ConceptDAO {
 	 */
 	public Iterator<Concept> conceptIterator();
 	
+	/**
+	 * @see org.openmrs.api.ConceptService#conceptIterator(int)
+	 */
+	public Iterator<Concept> conceptIterator(int batchSize);
+	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptsByMapping(java.lang.String, java.lang.String)
 	 */
@@ -156,6 +156,15 @@ public interface LocationDAO {
 	 */
 	public List<Location> getRootLocations(boolean includeRetired);
 	
+	/**
+	 * Gets the id of the parent of each location with a single query
+	 * 
+	 * @param includeRetired whether to include retired locations
+	 * @return the id of the parent location by location id, null for root locations
+	 * @since 2.2.0
+	 */
+	public Map<Integer, Integer> getParentLocationIds(boolean includeRetired);
+	
 	/**
 	 * @see LocationService#getAllLocationAttributeTypes()
 	 */
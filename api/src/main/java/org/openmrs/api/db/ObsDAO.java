@@ -10,6 +10,7 @@
 package org.openmrs.api.db;
 
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 
 import org.openmrs.Concept;
@@ -65,6 +66,34 @@ public interface ObsDAO {
 	        Date fromDate, Date toDate, List<ConceptName> valueCodedNameAnswers, boolean includeVoidedObs,
 	        String accessionNumber) throws DAOException;
 	
+	/**
+	 * Gets the observations that match the given criteria and come after the given key, ordered by
+	 * obsDatetime and obsId
+	 * 
+	 * @param lastObsDatetime the obsDatetime of the last observation of the previous page, null for
+	 *            the first page
+	 * @param lastObsId the obsId of the last observation of the previous page, null for the first
+	 *            page
+	 * @param pageSize the maximum number of observations to return
+	 * @see org.openmrs.api.ObsService#getObservationsAfter(List, List, List, List, List, List,
+	 *      Integer, Date, Date, boolean, String, Obs, int)
+	 * @since 2.2.0
+	 */
+	public List<Obs> getObservationsAfter(List<Person> whom, List<Encounter> encounters, List<Concept> questions,
+	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
+	        Date fromDate, Date toDate, boolean includeVoidedObs, String accessionNumber, Date lastObsDatetime,
+	        Integer lastObsId, int pageSize) throws DAOException;
+	
+	/**
+	 * @see org.openmrs.api.ObsService#getObservationStream(List, List, List, List, List, List,
+	 *      Integer, Date, Date, boolean, String, int)
+	 * @since 2.2.0
+	 */
+	public Iterator<Obs> getObservationIterator(List<Person> whom, List<Encounter> encounters, List<Concept> questions,
+	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
+	        Date fromDate, Date toDate, boolean includeVoidedObs, String accessionNumber, int batchSize)
+	        throws DAOException;
+	
 	/**
 	 * @param uuid
 	 * @return obs or null
@@ -0,0 +1,56 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.io.Serializable;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+import org.openmrs.api.cache.CustomDatatypeCache;
+import org.openmrs.attribute.AttributeType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts the {@link CustomDatatypeCache} whenever an {@link AttributeType} is changed or deleted,
+ * whichever service it is saved through, so that the cache does not keep the datatypes and handlers
+ * of configurations that are no longer in use
+ *
+ * @since 2.2.0
+ */
+@Component("customDatatypeCacheInterceptor")
+public class CustomDatatypeCacheInterceptor extends EmptyInterceptor {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * @see org.hibernate.EmptyInterceptor#onFlushDirty(Object, java.io.Serializable, Object[],
+	 *      Object[], String[], org.hibernate.type.Type[])
+	 * @should evict the cache if an attribute type is changed
+	 */
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+	        String[] propertyNames, Type[] types) {
+		if (entity instanceof AttributeType) {
+			CustomDatatypeCache.evict();
+		}
+		return false;
+	}
+	
+	/**
+	 * @see org.hibernate.EmptyInterceptor#onDelete(Object, java.io.Serializable, Object[], String[],
+	 *      org.hibernate.type.Type[])
+	 */
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		if (entity instanceof AttributeType) {
+			CustomDatatypeCache.evict();
+		}
+	}
+}
@@ -19,8 +19,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.Vector;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Transformer;
@@ -29,6 +29,7 @@ import org.hibernate.Criteria;
 import org.hibernate.FlushMode;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.MatchMode;
@@ -83,6 +84,9 @@ public class HibernateConceptDAO implements ConceptDAO {
 	
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 	
+	/** The number of concepts loaded at a time by {@link #conceptIterator()} */
+	private static final int DEFAULT_CONCEPT_ITERATOR_BATCH_SIZE = 100;
+	
 	private SessionFactory sessionFactory;
 	
 	/**
@@ -823,31 +827,37 @@ public class HibernateConceptDAO implements ConceptDAO {
 	}
 	
 	/**
-	 * returns a list of n-generations of parents of a concept in a concept set
-	 * 
-	 * @param Concept current
-	 * @return List&lt;Concept&gt;
-	 * @throws DAOException
+	 * @see org.openmrs.api.db.ConceptDAO#getConceptSetMemberIds()
 	 */
+	@Override
 	@SuppressWarnings("unchecked")
-	private List<Concept> getParents(Concept current) throws DAOException {
-		List<Concept> parents = new Vector<Concept>();
-		if (current != null) {
-			Query query = sessionFactory.getCurrentSession().createQuery(
-			    "from Concept c join c.conceptSets sets where sets.concept = ?").setEntity(0, current);
-			List<Concept> immed_parents = query.list();
-			for (Concept c : immed_parents) {
-				parents.addAll(getParents(c));
-			}
-			parents.add(current);
-			if (log.isDebugEnabled()) {
-				log.debug("parents found: ");
-				for (Concept c : parents) {
-					log.debug("id: " + c.getConceptId());
-				}
+	public Map<Integer, List<Integer>> getConceptSetMemberIds() {
+		List<Object[]> rows = sessionFactory.getCurrentSession().createQuery(
+		    "select cs.conceptSet.conceptId, cs.concept.conceptId from ConceptSet cs"
+		            + " order by cs.sortWeight, cs.conceptSetId").list();
+		
+		Map<Integer, List<Integer>> memberIds = new HashMap<Integer, List<Integer>>();
+		for (Object[] row : rows) {
+			List<Integer> members = memberIds.get(row[0]);
+			if (members == null) {
+				members = new ArrayList<Integer>();
+				memberIds.put((Integer) row[0], members);
 			}
+			members.add((Integer) row[1]);
 		}
-		return parents;
+		return memberIds;
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.ConceptDAO#getConceptSetConceptIds()
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Set<Integer> getConceptSetConceptIds() {
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Concept.class);
+		criteria.add(Restrictions.eq("set", true));
+		criteria.setProjection(Projections.property("conceptId"));
+		return new HashSet<Integer>(criteria.list());
 	}
 	
 	/**
@@ -953,14 +963,6 @@ public class HibernateConceptDAO implements ConceptDAO {
 		return nameTag;
 	}
 	
-	/**
-	 * @see org.openmrs.api.db.ConceptDAO#getMaxConceptId()
-	 */
-	public Integer getMinConceptId() {
-		Query query = sessionFactory.getCurrentSession().createQuery("select min(conceptId) from Concept");
-		return (Integer) query.uniqueResult();
-	}
-	
 	/**
 	 * @see org.openmrs.api.db.ConceptDAO#getMaxConceptId()
 	 */
@@ -975,21 +977,39 @@ public class HibernateConceptDAO implements ConceptDAO {
 	 */
 	@Override
 	public Iterator<Concept> conceptIterator() {
-		return new ConceptIterator();
+		return conceptIterator(DEFAULT_CONCEPT_ITERATOR_BATCH_SIZE);
 	}
 	
 	/**
-	 * An iterator that loops over all concepts in the dictionary one at a time
+	 * @see org.openmrs.api.db.ConceptDAO#conceptIterator(int)
+	 */
+	@Override
+	public Iterator<Concept> conceptIterator(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size must be greater than 0");
+		}
+		return new ConceptIterator(batchSize);
+	}
+	
+	/**
+	 * Iterates over the concepts in ascending concept id order, loading them with their names one
+	 * batch at a time. The concepts of a batch are evicted from the session when the next batch is
+	 * loaded so that the memory used stays bounded however many concepts there are.
 	 */
 	private class ConceptIterator implements Iterator<Concept> {
 		
-		Concept currentConcept = null;
+		private final int batchSize;
+		
+		private List<Concept> batch = Collections.emptyList();
 		
-		Concept nextConcept;
+		private int position = 0;
 		
-		public ConceptIterator() {
-			final int firstConceptId = getMinConceptId();
-			nextConcept = getConcept(firstConceptId);
+		private Integer lastConceptId = null;
+		
+		private boolean lastBatch = false;
+		
+		public ConceptIterator(int batchSize) {
+			this.batchSize = batchSize;
 		}
 		
 		/**
@@ -997,7 +1017,10 @@ public class HibernateConceptDAO implements ConceptDAO {
 		 */
 		@Override
 		public boolean hasNext() {
-			return nextConcept != null;
+			if (position == batch.size() && !lastBatch) {
+				loadNextBatch();
+			}
+			return position < batch.size();
 		}
 		
 		/**
@@ -1005,14 +1028,10 @@ public class HibernateConceptDAO implements ConceptDAO {
 		 */
 		@Override
 		public Concept next() {
-			if (currentConcept != null) {
-				sessionFactory.getCurrentSession().evict(currentConcept);
+			if (!hasNext()) {
+				throw new NoSuchElementException();
 			}
-			
-			currentConcept = nextConcept;
-			nextConcept = getNextConcept(currentConcept);
-			
-			return currentConcept;
+			return batch.get(position++);
 		}
 		
 		/**
@@ -1023,6 +1042,34 @@ public class HibernateConceptDAO implements ConceptDAO {
 			throw new UnsupportedOperationException();
 		}
 		
+		@SuppressWarnings("unchecked")
+		private void loadNextBatch() {
+			Session session = sessionFactory.getCurrentSession();
+			for (Concept concept : batch) {
+				session.evict(concept);
+			}
+			
+			// page on the concept id rather than an offset so that each batch is a simple index range
+			Query idQuery = session.createQuery("select conceptId from Concept"
+			        + (lastConceptId == null ? "" : " where conceptId > :lastConceptId") + " order by conceptId");
+			if (lastConceptId != null) {
+				idQuery.setParameter("lastConceptId", lastConceptId);
+			}
+			idQuery.setMaxResults(batchSize);
+			List<Integer> conceptIds = idQuery.list();
+			
+			lastBatch = conceptIds.size() < batchSize;
+			position = 0;
+			if (conceptIds.isEmpty()) {
+				batch = Collections.emptyList();
+				return;
+			}
+			lastConceptId = conceptIds.get(conceptIds.size() - 1);
+			
+			batch = session.createQuery(
+			    "select distinct c from Concept c left join fetch c.names where c.conceptId in (:conceptIds)"
+			            + " order by c.conceptId").setParameterList("conceptIds", conceptIds).list();
+		}
 	}
 	
 	/**
@@ -11,16 +11,21 @@ package org.openmrs.api.db.hibernate;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.CacheMode;
 import org.hibernate.Criteria;
 import org.hibernate.FlushMode;
 import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Conjunction;
@@ -57,6 +62,12 @@ public class HibernateEncounterDAO implements EncounterDAO {
 	
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 	
+	/**
+	 * The number of rows fetched at a time by the scroll of
+	 * {@link #forEachPatientEncounters(Cohort, BiConsumer)}
+	 */
+	private static final int SCROLL_FETCH_SIZE = 1000;
+	
 	/**
 	 * Hibernate session factory
 	 */
@@ -316,11 +327,18 @@ public class HibernateEncounterDAO implements EncounterDAO {
 	 * @see EncounterDAO#getAllEncounters(org.openmrs.Cohort)
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public Map<Integer, List<Encounter>> getAllEncounters(Cohort patients) {
 		Map<Integer, List<Encounter>> encountersBypatient = new HashMap<Integer, List<Encounter>>();
 		
-		@SuppressWarnings("unchecked")
-		List<Encounter> allEncounters = createEncounterCriteria(patients).list();
+		List<Encounter> allEncounters;
+		if (patients == null) {
+			allEncounters = createEncounterCriteria().list();
+		} else {
+			// a cohort can have far more members than fit into a single IN clause
+			allEncounters = InClauseHelper.list(sessionFactory, this::createEncounterCriteria, "patient.personId",
+			    patients.getMemberIds());
+		}
 		
 		// set up the return map
 		for (Encounter encounter : allEncounters) {
@@ -340,22 +358,85 @@ public class HibernateEncounterDAO implements EncounterDAO {
 	}
 	
 	/**
-	 * Create the criteria for fetching all encounters based on cohort
+	 * @see EncounterDAO#forEachPatientEncounters(Cohort, BiConsumer)
+	 */
+	@Override
+	public void forEachPatientEncounters(Cohort patients, BiConsumer<Integer, List<Encounter>> action) {
+		Supplier<Criteria> criteriaFactory = () -> sessionFactory.getCurrentSession().createCriteria(Encounter.class)
+		        .add(Restrictions.eq("voided", false)).setProjection(
+		            Projections.projectionList().add(Projections.property("patient.personId")).add(
+		                Projections.property("encounterId"))).addOrder(Order.asc("patient.personId")).addOrder(
+		            Order.asc("encounterId")).setFetchSize(SCROLL_FETCH_SIZE).setCacheMode(CacheMode.IGNORE);
+		Function<Criteria, Integer> scroll = criteria -> scrollEncountersByPatient(criteria, action);
+		
+		int patientCount;
+		if (patients == null) {
+			patientCount = scroll.apply(criteriaFactory.get());
+		} else {
+			// the chunks are run in the order of the patient ids, so the patients are still passed in order
+			patientCount = InClauseHelper.execute(sessionFactory, criteriaFactory, "patient.personId", patients
+			        .getMemberIds(), scroll, Integer::sum);
+		}
+		log.debug("Passed the encounters of " + patientCount + " patients");
+	}
+	
+	/**
+	 * Reads the ids of the encounters of each patient from a forward only scroll and passes the
+	 * encounters to the action as soon as the scroll moves to the next patient
 	 *
-	 * @param patients
-	 * @return a map of patient with their encounters
+	 * @return the number of patients
 	 */
-	private Criteria createEncounterCriteria(Cohort patients) {
+	private int scrollEncountersByPatient(Criteria criteria, BiConsumer<Integer, List<Encounter>> action) {
+		int patientCount = 0;
+		PageEvictor evictor = new PageEvictor(sessionFactory.getCurrentSession());
+		ScrollableResults results = criteria.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			Integer patientId = null;
+			List<Integer> encounterIds = new ArrayList<Integer>();
+			while (results.next()) {
+				Integer nextPatientId = results.getInteger(0);
+				if (patientId != null && !patientId.equals(nextPatientId)) {
+					passEncounters(patientId, encounterIds, action, evictor);
+					patientCount++;
+					encounterIds = new ArrayList<Integer>();
+				}
+				patientId = nextPatientId;
+				encounterIds.add(results.getInteger(1));
+			}
+			if (patientId != null) {
+				passEncounters(patientId, encounterIds, action, evictor);
+				patientCount++;
+			}
+			evictor.startPage();
+		}
+		finally {
+			results.close();
+		}
+		return patientCount;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void passEncounters(Integer patientId, List<Integer> encounterIds, BiConsumer<Integer, List<Encounter>> action,
+	        PageEvictor evictor) {
+		// the encounters of the previous patient, and whatever was loaded with them, are no longer needed
+		evictor.startPage();
+		
+		List<Encounter> encounters = sessionFactory.getCurrentSession().createCriteria(Encounter.class).add(
+		    InClauseHelper.in("encounterId", encounterIds)).addOrder(Order.desc("encounterDatetime")).addOrder(
+		    Order.desc("encounterId")).list();
+		action.accept(patientId, encounters);
+	}
+	
+	/**
+	 * Create the criteria for fetching all encounters, the caller restricts it to the patients of a
+	 * cohort
+	 *
+	 * @return the criteria
+	 */
+	private Criteria createEncounterCriteria() {
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Encounter.class);
 		criteria.setCacheMode(org.hibernate.CacheMode.IGNORE);
 		
-		// only include this where clause if patients were passed in
-		if (patients != null) {
-            ArrayList<Integer> patientIds = new ArrayList<Integer>();
-			patients.getMembers().forEach(m -> patientIds.add(m.getPatient().getPatientId()));
-			criteria.add(Restrictions.in("patient.personId", patientIds));
-		}
-		
 		criteria.add(Restrictions.eq("voided", false));
 		
 		criteria.addOrder(Order.desc("patient.personId"));
@@ -546,50 +627,122 @@ public class HibernateEncounterDAO implements EncounterDAO {
 	 *      boolean, java.lang.String, java.lang.Integer, java.lang.Integer)
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public List<Encounter> getEncountersByVisitsAndPatient(Patient patient, boolean includeVoided, String query,
 	        Integer start, Integer length) {
+		if (start == null) {
+			start = 0;
+		}
+		// no source can contribute more than start + length rows to the page, so that is all each
+		// query has to sort and return
+		Integer maxResults = (length == null) ? null : start + length;
+		
+		// the timeline merges three lists that the database sorts and limits on its own: the
+		// encounters in a visit, sorted by the start of their visit, the encounters without a visit,
+		// sorted by their date, and the visits without encounters, sorted by their start
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Encounter.class);
 		addEncountersByPatientCriteria(criteria, patient, includeVoided, query);
+		criteria.add(Restrictions.isNotNull("visit"));
+		criteria.addOrder(Order.desc("visit.startDatetime")).addOrder(Order.desc("visit.visitId")).addOrder(
+		    Order.desc("encounterDatetime")).addOrder(Order.desc("encounterId"));
+		List<Object[]> encountersInVisits = listTimelineKeys(criteria, "encounterId", "visit.startDatetime", maxResults);
 		
-		@SuppressWarnings("unchecked")
-		List<Encounter> encounters = criteria.list();
+		criteria = sessionFactory.getCurrentSession().createCriteria(Encounter.class);
+		addEncountersByPatientCriteria(criteria, patient, includeVoided, query);
+		criteria.add(Restrictions.isNull("visit"));
+		criteria.addOrder(Order.desc("encounterDatetime")).addOrder(Order.desc("encounterId"));
+		List<Object[]> encountersWithoutVisit = listTimelineKeys(criteria, "encounterId", "encounterDatetime", maxResults);
 		
 		criteria = sessionFactory.getCurrentSession().createCriteria(Visit.class);
 		addEmptyVisitsByPatientCriteria(criteria, patient, includeVoided, query);
-		
-		@SuppressWarnings("unchecked")
-		List<Visit> emptyVisits = criteria.list();
-		
-		if (!emptyVisits.isEmpty()) {
-			for (Visit emptyVisit : emptyVisits) {
-				Encounter mockEncounter = new Encounter();
-				mockEncounter.setVisit(emptyVisit);
-				encounters.add(mockEncounter);
+		criteria.addOrder(Order.desc("startDatetime")).addOrder(Order.desc("visitId"));
+		List<Object[]> emptyVisits = listTimelineKeys(criteria, "visitId", "startDatetime", maxResults);
+		
+		// merge the three lists newest first, on equal dates encounters in visits come first and
+		// empty visits last
+		List<Integer> encounterIds = new ArrayList<Integer>();
+		List<Integer> visitIds = new ArrayList<Integer>();
+		List<Boolean> isVisit = new ArrayList<Boolean>();
+		int a = 0;
+		int b = 0;
+		int c = 0;
+		int end = (length == null) ? Integer.MAX_VALUE : start + length;
+		for (int position = 0; position < end; position++) {
+			Date inVisitDate = (a < encountersInVisits.size()) ? (Date) encountersInVisits.get(a)[1] : null;
+			Date withoutVisitDate = (b < encountersWithoutVisit.size()) ? (Date) encountersWithoutVisit.get(b)[1] : null;
+			Date emptyVisitDate = (c < emptyVisits.size()) ? (Date) emptyVisits.get(c)[1] : null;
+			
+			Object[] next;
+			boolean nextIsVisit = false;
+			if (isNewest(inVisitDate, withoutVisitDate, emptyVisitDate)) {
+				next = encountersInVisits.get(a++);
+			} else if (isNewest(withoutVisitDate, null, emptyVisitDate)) {
+				next = encountersWithoutVisit.get(b++);
+			} else if (emptyVisitDate != null) {
+				next = emptyVisits.get(c++);
+				nextIsVisit = true;
+			} else {
+				break;
 			}
 			
-			Collections.sort(encounters, new Comparator<Encounter>() {
-				
-				@Override
-				public int compare(Encounter o1, Encounter o2) {
-					Date o1Date = (o1.getVisit() != null) ? o1.getVisit().getStartDatetime() : o1.getEncounterDatetime();
-					Date o2Date = (o2.getVisit() != null) ? o2.getVisit().getStartDatetime() : o2.getEncounterDatetime();
-					return o2Date.compareTo(o1Date);
+			if (position >= start) {
+				if (nextIsVisit) {
+					visitIds.add((Integer) next[0]);
+				} else {
+					encounterIds.add((Integer) next[0]);
 				}
-			});
+				isVisit.add(nextIsVisit);
+			}
 		}
 		
-		if (start == null) {
-			start = 0;
-		}
-		if (length == null) {
-			length = encounters.size();
+		// only the rows of the requested page are loaded as objects
+		Map<Integer, Encounter> encountersById = new HashMap<Integer, Encounter>();
+		if (!encounterIds.isEmpty()) {
+			for (Encounter encounter : (List<Encounter>) sessionFactory.getCurrentSession().createCriteria(
+			    Encounter.class).add(Restrictions.in("encounterId", encounterIds)).list()) {
+				encountersById.put(encounter.getEncounterId(), encounter);
+			}
 		}
-		int end = start + length;
-		if (end > encounters.size()) {
-			end = encounters.size();
+		Map<Integer, Visit> visitsById = new HashMap<Integer, Visit>();
+		if (!visitIds.isEmpty()) {
+			for (Visit visit : (List<Visit>) sessionFactory.getCurrentSession().createCriteria(Visit.class).add(
+			    Restrictions.in("visitId", visitIds)).list()) {
+				visitsById.put(visit.getVisitId(), visit);
+			}
 		}
 		
-		return encounters.subList(start, end);
+		List<Encounter> encounters = new ArrayList<Encounter>(isVisit.size());
+		int nextEncounter = 0;
+		int nextVisit = 0;
+		for (Boolean visit : isVisit) {
+			if (visit) {
+				Encounter mockEncounter = new Encounter();
+				mockEncounter.setVisit(visitsById.get(visitIds.get(nextVisit++)));
+				encounters.add(mockEncounter);
+			} else {
+				encounters.add(encountersById.get(encounterIds.get(nextEncounter++)));
+			}
+		}
+		return encounters;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<Object[]> listTimelineKeys(Criteria criteria, String idProperty, String dateProperty,
+	        Integer maxResults) {
+		criteria.setProjection(Projections.projectionList().add(Projections.property(idProperty)).add(
+		    Projections.property(dateProperty)));
+		if (maxResults != null) {
+			criteria.setMaxResults(maxResults);
+		}
+		return criteria.list();
+	}
+	
+	/**
+	 * @return true if the date is not null and not before any of the other dates
+	 */
+	private boolean isNewest(Date date, Date other, Date another) {
+		return date != null && (other == null || date.compareTo(other) >= 0)
+		        && (another == null || date.compareTo(another) >= 0);
 	}
 	
 	/**
@@ -630,9 +783,6 @@ public class HibernateEncounterDAO implements EncounterDAO {
 			or.add(Restrictions.ilike("visitType.name", query, MatchMode.ANYWHERE));
 			or.add(Restrictions.ilike("location.name", query, MatchMode.ANYWHERE));
 		}
-		
-		criteria.addOrder(Order.desc("startDatetime"));
-		criteria.addOrder(Order.desc("visitId"));
 	}
 	
 	private void addEncountersByPatientCriteria(Criteria criteria, Patient patient, boolean includeVoided, String query) {
@@ -656,11 +806,6 @@ public class HibernateEncounterDAO implements EncounterDAO {
 			or.add(Restrictions.ilike("location.name", query, MatchMode.ANYWHERE));
 			or.add(Restrictions.ilike("encounterType.name", query, MatchMode.ANYWHERE));
 		}
-		
-		criteria.addOrder(Order.desc("visit.startDatetime"));
-		criteria.addOrder(Order.desc("visit.visitId"));
-		criteria.addOrder(Order.desc("encounterDatetime"));
-		criteria.addOrder(Order.desc("encounterId"));
 	}
 	
 	/**
@@ -11,6 +11,7 @@ package org.openmrs.api.db.hibernate;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -272,6 +273,25 @@ public class HibernateLocationDAO implements LocationDAO {
 		return criteria.list();
 	}
 	
+	/**
+	 * @see LocationDAO#getParentLocationIds(boolean)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public Map<Integer, Integer> getParentLocationIds(boolean includeRetired) throws DAOException {
+		String hql = "select l.locationId, p.locationId from Location l left join l.parentLocation p";
+		if (!includeRetired) {
+			hql += " where l.retired = false";
+		}
+		List<Object[]> rows = sessionFactory.getCurrentSession().createQuery(hql).list();
+		
+		Map<Integer, Integer> parentIds = new HashMap<Integer, Integer>();
+		for (Object[] row : rows) {
+			parentIds.put((Integer) row[0], (Integer) row[1]);
+		}
+		return parentIds;
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.LocationDAO#getAllLocationAttributeTypes()
 	 */
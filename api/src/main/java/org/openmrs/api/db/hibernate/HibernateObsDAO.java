@@ -9,12 +9,20 @@
  */
 package org.openmrs.api.db.hibernate;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.Criteria;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Order;
@@ -106,10 +114,10 @@ public class HibernateObsDAO implements ObsDAO {
 	        Integer mostRecentN, Integer obsGroupId, Date fromDate, Date toDate, boolean includeVoidedObs,
 	        String accessionNumber) throws DAOException {
 		
-		Criteria criteria = createGetObservationsCriteria(whom, encounters, questions, answers, personTypes, locations,
-		    sortList, mostRecentN, obsGroupId, fromDate, toDate, null, includeVoidedObs, accessionNumber);
-		
-		return criteria.list();
+		// sorted and limited results cannot be merged from several queries
+		return executeObservationsQuery(whom, () -> createGetObservationsCriteria(encounters, questions, answers,
+		    personTypes, locations, sortList, mostRecentN, obsGroupId, fromDate, toDate, null, includeVoidedObs,
+		    accessionNumber), criteria -> (List<Obs>) criteria.list(), null);
 	}
 	
 	/**
@@ -120,16 +128,159 @@ public class HibernateObsDAO implements ObsDAO {
 	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
 	        Date fromDate, Date toDate, List<ConceptName> valueCodedNameAnswers, boolean includeVoidedObs,
 	        String accessionNumber) throws DAOException {
-		Criteria criteria = createGetObservationsCriteria(whom, encounters, questions, answers, personTypes, locations,
-		    null, null, obsGroupId, fromDate, toDate, valueCodedNameAnswers, includeVoidedObs, accessionNumber);
-		criteria.setProjection(Projections.rowCount());
-		return (Long) criteria.list().get(0);
+		return executeObservationsQuery(whom, () -> createGetObservationsCriteria(encounters, questions, answers,
+		    personTypes, locations, null, null, obsGroupId, fromDate, toDate, valueCodedNameAnswers, includeVoidedObs,
+		    accessionNumber).setProjection(Projections.rowCount()), criteria -> (Long) criteria.list().get(0), Long::sum);
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.ObsDAO#getObservationsAfter(List, List, List, List, List, List,
+	 *      Integer, Date, Date, boolean, String, Date, Integer, int)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<Obs> getObservationsAfter(List<Person> whom, List<Encounter> encounters, List<Concept> questions,
+	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
+	        Date fromDate, Date toDate, boolean includeVoidedObs, String accessionNumber, Date lastObsDatetime,
+	        Integer lastObsId, int pageSize) throws DAOException {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("The page size must be greater than 0");
+		}
+		
+		return executeObservationsQuery(whom, () -> {
+			Criteria criteria = createGetObservationsCriteria(encounters, questions, answers, personTypes, locations, null,
+			    pageSize, obsGroupId, fromDate, toDate, null, includeVoidedObs, accessionNumber);
+			
+			// seek past the last row of the previous page instead of using an offset, so that every page
+			// is a range scan on the obs_datetime index however deep into the results it is
+			if (lastObsDatetime != null && lastObsId != null) {
+				criteria.add(Restrictions.or(Restrictions.gt("obsDatetime", lastObsDatetime), Restrictions.and(
+				    Restrictions.eq("obsDatetime", lastObsDatetime), Restrictions.gt("obsId", lastObsId))));
+			}
+			criteria.addOrder(Order.asc("obsDatetime"));
+			criteria.addOrder(Order.asc("obsId"));
+			return criteria;
+		}, criteria -> (List<Obs>) criteria.list(), null);
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.ObsDAO#getObservationIterator(List, List, List, List, List, List,
+	 *      Integer, Date, Date, boolean, String, int)
+	 */
+	@Override
+	public Iterator<Obs> getObservationIterator(List<Person> whom, List<Encounter> encounters, List<Concept> questions,
+	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
+	        Date fromDate, Date toDate, boolean includeVoidedObs, String accessionNumber, int batchSize)
+	        throws DAOException {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size must be greater than 0");
+		}
+		return new ObsIterator(batchSize, lastObs -> getObservationsAfter(whom, encounters, questions, answers,
+		    personTypes, locations, obsGroupId, fromDate, toDate, includeVoidedObs, accessionNumber,
+		    lastObs == null ? null : lastObs.getObsDatetime(), lastObs == null ? null : lastObs.getObsId(), batchSize));
+	}
+	
+	/**
+	 * Iterates over the observations one page at a time. What was loaded into the session with a
+	 * page, i.e. the observations and the persons, encounters, concepts and locations they refer
+	 * to, is evicted when the next page is loaded so that the memory used stays bounded however
+	 * many observations there are, while anything else in the session is left alone. The pages
+	 * are loaded with whatever session is current when they are needed.
+	 */
+	private class ObsIterator implements Iterator<Obs> {
+		
+		private final int batchSize;
+		
+		private final Function<Obs, List<Obs>> nextPage;
+		
+		private List<Obs> batch = Collections.emptyList();
+		
+		private int position = 0;
+		
+		private boolean lastBatch = false;
+		
+		private Session session;
+		
+		private PageEvictor evictor;
+		
+		public ObsIterator(int batchSize, Function<Obs, List<Obs>> nextPage) {
+			this.batchSize = batchSize;
+			this.nextPage = nextPage;
+		}
+		
+		/**
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			if (position == batch.size() && !lastBatch) {
+				loadNextBatch();
+			}
+			return position < batch.size();
+		}
+		
+		/**
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		public Obs next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return batch.get(position++);
+		}
+		
+		/**
+		 * @see java.util.Iterator#remove()
+		 */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		private void loadNextBatch() {
+			Obs lastObs = batch.isEmpty() ? null : batch.get(batch.size() - 1);
+			Session currentSession = sessionFactory.getCurrentSession();
+			if (currentSession != session) {
+				session = currentSession;
+				evictor = new PageEvictor(currentSession);
+			}
+			evictor.startPage();
+			
+			batch = nextPage.apply(lastObs);
+			position = 0;
+			lastBatch = batch.size() < batchSize;
+		}
 	}
 	
 	/**
-	 * A utility method for creating a criteria based on parameters (which are optional)
+	 * Runs a query for observations, restricted to the given persons if there are any. Since the
+	 * persons may be as many as the members of a large cohort, the query is run with the
+	 * {@link InClauseHelper}.
+	 *
+	 * @param whom the persons, null or empty for all persons
+	 * @param criteriaFactory creates the query without the restriction on the persons
+	 * @param query runs the query
+	 * @param merge merges the results of two queries, null if they cannot be merged
+	 * @return the result of the query
+	 */
+	private <R> R executeObservationsQuery(List<Person> whom, Supplier<Criteria> criteriaFactory,
+	        Function<Criteria, R> query, BinaryOperator<R> merge) {
+		if (CollectionUtils.isEmpty(whom)) {
+			return query.apply(criteriaFactory.get());
+		}
+		
+		List<Integer> personIds = new ArrayList<Integer>(whom.size());
+		for (Person person : whom) {
+			personIds.add(person.getPersonId());
+		}
+		return InClauseHelper.execute(sessionFactory, criteriaFactory, "person.personId", personIds, query, merge);
+	}
+	
+	/**
+	 * A utility method for creating a criteria based on parameters (which are optional), the
+	 * restriction on the persons is added by {@link #executeObservationsQuery}
 	 *
-	 * @param whom
 	 * @param encounters
 	 * @param questions
 	 * @param answers
@@ -144,16 +295,12 @@ public class HibernateObsDAO implements ObsDAO {
 	 * @param accessionNumber
 	 * @return
 	 */
-	private Criteria createGetObservationsCriteria(List<Person> whom, List<Encounter> encounters, List<Concept> questions,
+	private Criteria createGetObservationsCriteria(List<Encounter> encounters, List<Concept> questions,
 	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, List<String> sortList,
 	        Integer mostRecentN, Integer obsGroupId, Date fromDate, Date toDate, List<ConceptName> valueCodedNameAnswers,
 	        boolean includeVoidedObs, String accessionNumber) {
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Obs.class, "obs");
 		
-		if (CollectionUtils.isNotEmpty(whom)) {
-			criteria.add(Restrictions.in("person", whom));
-		}
-		
 		if (CollectionUtils.isNotEmpty(encounters)) {
 			criteria.add(Restrictions.in("encounter", encounters));
 		}
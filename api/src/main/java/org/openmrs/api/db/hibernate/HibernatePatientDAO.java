@@ -24,6 +24,7 @@ import java.util.regex.Pattern;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
 import org.hibernate.SessionFactory;
@@ -694,7 +695,7 @@ public class HibernatePatientDAO implements PatientDAO {
 		}
 		query = LuceneQuery.escapeQuery(query);
 
-		List<Patient> patients = new LinkedList<>();
+		List<Integer> patientIds = new ArrayList<>();
 
 		String minChars = Context.getAdministrationService().getGlobalProperty(OpenmrsConstants.GLOBAL_PROPERTY_MIN_SEARCH_CHARACTERS);
 
@@ -702,7 +703,7 @@ public class HibernatePatientDAO implements PatientDAO {
 			minChars = "" + OpenmrsConstants.GLOBAL_PROPERTY_DEFAULT_MIN_SEARCH_CHARACTERS;
 		}
 		if (query.length() < Integer.valueOf(minChars)) {
-			return patients;
+			return new LinkedList<>();
 		}
 
 		LuceneQuery<PatientIdentifier> identifierQuery = getPatientIdentifierLuceneQuery(query, includeVoided);
@@ -710,7 +711,7 @@ public class HibernatePatientDAO implements PatientDAO {
 		long identifiersSize = identifierQuery.resultSize();
 		if (identifiersSize > start) {
 			ListPart<Object[]> patientIdentifiers = identifierQuery.listPartProjection(start, length, "patient.personId");
-			patientIdentifiers.getList().forEach(patientIdentifier -> patients.add(getPatient((Integer) patientIdentifier[0])));
+			patientIdentifiers.getList().forEach(patientIdentifier -> patientIds.add((Integer) patientIdentifier[0]));
 
 			length -= patientIdentifiers.getList().size();
 			start = 0;
@@ -719,7 +720,7 @@ public class HibernatePatientDAO implements PatientDAO {
 		}
 
 		if (length == 0) {
-			return patients;
+			return getPatientsInOrder(patientIds);
 		}
 
 		PersonLuceneQuery personLuceneQuery = new PersonLuceneQuery(sessionFactory);
@@ -728,7 +729,7 @@ public class HibernatePatientDAO implements PatientDAO {
 		long namesSize = nameQuery.resultSize();
 		if (namesSize > start) {
 			ListPart<Object[]> personNames = nameQuery.listPartProjection(start, length, "person.personId");
-			personNames.getList().forEach(personName -> patients.add(getPatient((Integer) personName[0])));
+			personNames.getList().forEach(personName -> patientIds.add((Integer) personName[0]));
 
 			length -= personNames.getList().size();
 			start = 0;
@@ -737,16 +738,50 @@ public class HibernatePatientDAO implements PatientDAO {
 		}
 
 		if (length == 0) {
-			return patients;
+			return getPatientsInOrder(patientIds);
 		}
 
 		LuceneQuery<PersonAttribute> attributeQuery = personLuceneQuery.getPatientAttributeQuery(query, includeVoided, nameQuery);
 		long attributesSize = attributeQuery.resultSize();
 		if (attributesSize > start) {
 			ListPart<Object[]> personAttributes = attributeQuery.listPartProjection(start, length, "person.personId");
-			personAttributes.getList().forEach(personAttribute -> patients.add(getPatient((Integer) personAttribute[0])));
+			personAttributes.getList().forEach(personAttribute -> patientIds.add((Integer) personAttribute[0]));
 		}
 
+		return getPatientsInOrder(patientIds);
+	}
+
+	/**
+	 * Loads the patients with the given ids in one query with their names and identifiers instead
+	 * of one select per patient, the returned list keeps the order of the ids so that the ranking
+	 * from the lucene queries is preserved
+	 *
+	 * @param patientIds the ids of the patients to load
+	 * @return the patients in the order of the ids
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Patient> getPatientsInOrder(List<Integer> patientIds) {
+		List<Patient> patients = new LinkedList<>();
+		if (patientIds.isEmpty()) {
+			return patients;
+		}
+
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Patient.class);
+		criteria.add(Restrictions.in("patientId", patientIds));
+		criteria.setFetchMode("names", FetchMode.JOIN);
+		criteria.setFetchMode("identifiers", FetchMode.JOIN);
+		criteria.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
+
+		Map<Integer, Patient> patientsById = new HashMap<>();
+		for (Patient patient : (List<Patient>) criteria.list()) {
+			patientsById.put(patient.getPatientId(), patient);
+		}
+		for (Integer patientId : patientIds) {
+			Patient patient = patientsById.get(patientId);
+			if (patient != null) {
+				patients.add(patient);
+			}
+		}
 		return patients;
 	}
 
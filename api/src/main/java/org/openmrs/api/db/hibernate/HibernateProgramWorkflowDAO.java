@@ -12,6 +12,7 @@ package org.openmrs.api.db.hibernate;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.hibernate.Criteria;
 import org.hibernate.Query;
@@ -198,28 +199,21 @@ public class HibernateProgramWorkflowDAO implements ProgramWorkflowDAO {
 	@Override
 	@SuppressWarnings("unchecked")
 	public List<PatientProgram> getPatientPrograms(Cohort cohort, Collection<Program> programs) {
-		String hql = "from PatientProgram ";
-		if (cohort != null || programs != null) {
-			hql += "where ";
-		}
-		if (cohort != null) {
-			hql += "patient.patientId in (:patientIds) ";
-		}
-		if (programs != null) {
-			if (cohort != null) {
-				hql += "and ";
+		Supplier<Criteria> criteriaFactory = () -> {
+			Criteria criteria = sessionFactory.getCurrentSession().createCriteria(PatientProgram.class);
+			if (programs != null) {
+				criteria.add(programs.isEmpty() ? Restrictions.sqlRestriction("1 = 0") : Restrictions.in("program",
+				    programs));
 			}
-			hql += " program in (:programs)";
-		}
-		hql += " order by patient.patientId, dateEnrolled";
-		Query query = sessionFactory.getCurrentSession().createQuery(hql);
-		if (cohort != null) {
-			query.setParameterList("patientIds", cohort.getMemberIds());
-		}
-		if (programs != null) {
-			query.setParameterList("programs", programs);
+			criteria.addOrder(Order.asc("patient.personId"));
+			criteria.addOrder(Order.asc("dateEnrolled"));
+			return criteria;
+		};
+		if (cohort == null) {
+			return criteriaFactory.get().list();
 		}
-		return query.list();
+		// the chunks are merged in the order of the patient ids, so the order is kept
+		return InClauseHelper.list(sessionFactory, criteriaFactory, "patient.personId", cohort.getMemberIds());
 	}
 	
 	/**
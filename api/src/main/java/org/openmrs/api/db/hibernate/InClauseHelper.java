@@ -0,0 +1,316 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.hibernate.Criteria;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.CriteriaImpl;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Restricts criteria queries to a collection of ids that may be as large as a cohort, e.g. the
+ * patients of a cohort of 100,000 members. Passing that many ids as a single IN clause exceeds the
+ * packet size of MySQL or the number of parameters of other databases, and makes the optimizer
+ * fall back to a full scan, so depending on the number of ids the query is run as one of the
+ * following {@link Strategy strategies}:
+ * <ul>
+ * <li>up to {@link #MAX_IN_CLAUSE_SIZE} ids, with a plain IN clause</li>
+ * <li>up to {@link #MAX_CHUNKED_SIZE} ids, once for every {@link #MAX_IN_CLAUSE_SIZE} ids with the
+ * results merged, provided the query can be merged at all</li>
+ * <li>otherwise the ids are inserted into a temporary table of the current connection that the
+ * query is joined against, if the database supports temporary tables</li>
+ * </ul>
+ * The query may itself restrict another query to a temporary table of ids, e.g. while its results
+ * are loaded, the nested query then uses a table of its own.
+ *
+ * @since 2.2.0
+ */
+public class InClauseHelper {
+	
+	private static final Logger log = LoggerFactory.getLogger(InClauseHelper.class);
+	
+	/**
+	 * The largest number of ids passed to the database in a single IN clause
+	 */
+	public static final int MAX_IN_CLAUSE_SIZE = 1000;
+	
+	/**
+	 * The largest number of ids for which a query is run in chunks, more ids are put in a temporary
+	 * table if the database supports it
+	 */
+	public static final int MAX_CHUNKED_SIZE = 10000;
+	
+	private static final String ID_TABLE_NAME = "query_ids";
+	
+	/** Binds the names of the temporary id tables that were already created in a transaction */
+	private static final Object ID_TABLES_CREATED = new Object();
+	
+	/**
+	 * The number of queries of the current thread that use a temporary id table, a nested query gets
+	 * a table of its own so that it does not overwrite the ids of the enclosing query
+	 */
+	private static final ThreadLocal<Integer> idTablesInUse = ThreadLocal.withInitial(() -> 0);
+	
+	/**
+	 * The ways a query can be restricted to a collection of ids
+	 */
+	public enum Strategy {
+		/** The ids are passed in IN clauses of at most {@link #MAX_IN_CLAUSE_SIZE} ids each */
+		IN,
+		/** The query is run once for every {@link #MAX_IN_CLAUSE_SIZE} ids and the results are merged */
+		CHUNKED_IN,
+		/** The ids are inserted into a temporary table which the query selects them from */
+		TEMPORARY_TABLE
+	}
+	
+	/**
+	 * Gets the strategy used to restrict a query to the given number of ids
+	 *
+	 * @param size the number of ids
+	 * @param mergeable whether the results of several queries can be merged
+	 * @param dialect the dialect of the database
+	 * @return the strategy
+	 * @should use an in clause for few ids
+	 * @should query in chunks if the results are mergeable
+	 * @should use a temporary table for many ids
+	 * @should use a temporary table if the results are not mergeable
+	 * @should fall back to in clauses if the database does not support temporary tables
+	 */
+	public static Strategy getStrategy(int size, boolean mergeable, Dialect dialect) {
+		if (size <= MAX_IN_CLAUSE_SIZE) {
+			return Strategy.IN;
+		}
+		if ((size > MAX_CHUNKED_SIZE || !mergeable) && dialect.supportsTemporaryTables()) {
+			return Strategy.TEMPORARY_TABLE;
+		}
+		return mergeable ? Strategy.CHUNKED_IN : Strategy.IN;
+	}
+	
+	/**
+	 * Lists the results of a criteria query restricted to a collection of ids. If the query is run in
+	 * chunks, the results of the chunks are concatenated in ascending order of their ids, so an
+	 * ascending order on the given property holds for all the results while any other order only
+	 * holds within the results of each chunk.
+	 *
+	 * @param sessionFactory the session factory
+	 * @param criteriaFactory creates the query without the restriction on the ids, it is called
+	 *            once for every chunk
+	 * @param property the property the ids are matched against, e.g. <code>patient.personId</code>
+	 * @param ids the ids
+	 * @return the results
+	 * @should return the same results with every strategy
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> List<T> list(SessionFactory sessionFactory, Supplier<Criteria> criteriaFactory, String property,
+	        Collection<Integer> ids) {
+		return execute(sessionFactory, criteriaFactory, property, ids, criteria -> (List<T>) criteria.list(), (
+		        results, moreResults) -> {
+			results.addAll(moreResults);
+			return results;
+		});
+	}
+	
+	/**
+	 * Runs a criteria query restricted to a collection of ids
+	 *
+	 * @param sessionFactory the session factory
+	 * @param criteriaFactory creates the query without the restriction on the ids, it is called
+	 *            once for every chunk
+	 * @param property the property the ids are matched against, e.g. <code>patient.personId</code>
+	 * @param ids the ids
+	 * @param query runs the query, e.g. lists its results or gets a projection
+	 * @param merge merges the results of two chunks, null if the query must not be run in chunks
+	 *            e.g. because its results are limited or aggregated
+	 * @return the result of the query
+	 * @should merge the results of the chunks
+	 * @should give a nested query a temporary table of its own
+	 */
+	public static <R> R execute(SessionFactory sessionFactory, Supplier<Criteria> criteriaFactory, String property,
+	        Collection<Integer> ids, Function<Criteria, R> query, BinaryOperator<R> merge) {
+		Strategy strategy = getStrategy(ids.size(), merge != null, HibernateUtil.getDialect(sessionFactory));
+		return execute(strategy, sessionFactory, criteriaFactory, property, ids, query, merge);
+	}
+	
+	static <R> R execute(Strategy strategy, SessionFactory sessionFactory, Supplier<Criteria> criteriaFactory,
+	        String property, Collection<Integer> ids, Function<Criteria, R> query, BinaryOperator<R> merge) {
+		List<Integer> sortedIds = getSortedIds(ids);
+		if (log.isDebugEnabled()) {
+			log.debug("Restricting " + property + " to " + sortedIds.size() + " ids with " + strategy);
+		}
+		
+		if (strategy == Strategy.CHUNKED_IN && sortedIds.size() > MAX_IN_CLAUSE_SIZE) {
+			R result = null;
+			for (int start = 0; start < sortedIds.size(); start += MAX_IN_CLAUSE_SIZE) {
+				List<Integer> chunk = sortedIds.subList(start, Math.min(start + MAX_IN_CLAUSE_SIZE, sortedIds.size()));
+				R chunkResult = query.apply(criteriaFactory.get().add(Restrictions.in(property, chunk)));
+				result = (result == null) ? chunkResult : merge.apply(result, chunkResult);
+			}
+			return result;
+		} else if (strategy == Strategy.TEMPORARY_TABLE && !sortedIds.isEmpty()) {
+			return executeWithIdTable(sessionFactory, criteriaFactory.get(), property, sortedIds, query);
+		}
+		return query.apply(criteriaFactory.get().add(in(property, sortedIds)));
+	}
+	
+	/**
+	 * Creates a restriction of a property to a collection of ids that is split into IN clauses of
+	 * at most {@link #MAX_IN_CLAUSE_SIZE} ids each
+	 *
+	 * @param property the property the ids are matched against
+	 * @param ids the ids
+	 * @return the restriction, which matches nothing if there are no ids
+	 * @should split the ids into several in clauses
+	 * @should match nothing if there are no ids
+	 */
+	public static Criterion in(String property, Collection<Integer> ids) {
+		if (ids.isEmpty()) {
+			return Restrictions.sqlRestriction("1 = 0");
+		}
+		if (ids.size() <= MAX_IN_CLAUSE_SIZE) {
+			return Restrictions.in(property, ids);
+		}
+		
+		List<Integer> idList = new ArrayList<Integer>(ids);
+		Disjunction or = Restrictions.disjunction();
+		for (int start = 0; start < idList.size(); start += MAX_IN_CLAUSE_SIZE) {
+			or.add(Restrictions.in(property, idList.subList(start, Math.min(start + MAX_IN_CLAUSE_SIZE, idList.size()))));
+		}
+		return or;
+	}
+	
+	private static List<Integer> getSortedIds(Collection<Integer> ids) {
+		TreeSet<Integer> sortedIds = new TreeSet<Integer>();
+		for (Integer id : ids) {
+			if (id != null) {
+				sortedIds.add(id);
+			}
+		}
+		return new ArrayList<Integer>(sortedIds);
+	}
+	
+	private static <R> R executeWithIdTable(SessionFactory sessionFactory, Criteria criteria, String property,
+	        List<Integer> ids, Function<Criteria, R> query) {
+		Dialect dialect = HibernateUtil.getDialect(sessionFactory);
+		int nesting = idTablesInUse.get();
+		String table = dialect.generateTemporaryTableName(nesting == 0 ? ID_TABLE_NAME : ID_TABLE_NAME + "_" + nesting);
+		String column = getColumnName(sessionFactory, criteria, property);
+		
+		idTablesInUse.set(nesting + 1);
+		try {
+			sessionFactory.getCurrentSession().doWork(connection -> fillIdTable(connection, dialect, table, ids));
+			try {
+				criteria.add(Restrictions.sqlRestriction("{alias}." + column + " in (select id from " + table + ")"));
+				return query.apply(criteria);
+			}
+			finally {
+				sessionFactory.getCurrentSession().doWork(connection -> clearIdTable(connection, dialect, table));
+			}
+		}
+		finally {
+			if (nesting == 0) {
+				idTablesInUse.remove();
+			} else {
+				idTablesInUse.set(nesting);
+			}
+		}
+	}
+	
+	private static String getColumnName(SessionFactory sessionFactory, Criteria criteria, String property) {
+		String entityName = ((CriteriaImpl) criteria).getEntityOrClassName();
+		AbstractEntityPersister persister = (AbstractEntityPersister) ((SessionFactoryImplementor) sessionFactory)
+		        .getEntityPersister(entityName);
+		return persister.getPropertyColumnNames(property)[0];
+	}
+	
+	private static void fillIdTable(Connection connection, Dialect dialect, String table, List<Integer> ids)
+	        throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			// temporary tables are dropped with the connection or the transaction, depending on the
+			// database, so the table is created again in every transaction unless it already exists
+			if (dialect.dropTemporaryTableAfterUse() || !TransactionSynchronizationManager.isSynchronizationActive()
+			        || !getCreatedIdTables().contains(table)) {
+				statement.execute(dialect.getCreateTemporaryTableString() + " " + table + " (id "
+				        + dialect.getTypeName(Types.INTEGER) + " not null primary key) "
+				        + dialect.getCreateTemporaryTablePostfix());
+				markIdTableCreated(dialect, table);
+			}
+			statement.executeUpdate("delete from " + table);
+		}
+		
+		try (PreparedStatement insert = connection.prepareStatement("insert into " + table + " (id) values (?)")) {
+			int batched = 0;
+			for (Integer id : ids) {
+				insert.setInt(1, id);
+				insert.addBatch();
+				if (++batched % MAX_IN_CLAUSE_SIZE == 0) {
+					insert.executeBatch();
+				}
+			}
+			insert.executeBatch();
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static Set<String> getCreatedIdTables() {
+		Set<String> tables = (Set<String>) TransactionSynchronizationManager.getResource(ID_TABLES_CREATED);
+		return tables != null ? tables : new HashSet<String>();
+	}
+	
+	private static void markIdTableCreated(Dialect dialect, String table) {
+		if (dialect.dropTemporaryTableAfterUse() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.hasResource(ID_TABLES_CREATED)) {
+			TransactionSynchronizationManager.bindResource(ID_TABLES_CREATED, new HashSet<String>());
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(ID_TABLES_CREATED);
+				}
+			});
+		}
+		getCreatedIdTables().add(table);
+	}
+	
+	private static void clearIdTable(Connection connection, Dialect dialect, String table) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			if (dialect.dropTemporaryTableAfterUse()) {
+				statement.execute(dialect.getDropTemporaryTableString() + " " + table);
+			} else {
+				statement.executeUpdate("delete from " + table);
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * Evicts the entities that were loaded into a session while one page of a large result was read,
+ * e.g. the observations of a page and the persons, encounters and concepts they refer to, so that
+ * reading page after page does not make the session grow. Unlike clearing the session, the entities
+ * that were in the session before the page was read, and any unsaved changes to them, are left
+ * alone.
+ *
+ * @since 2.2.0
+ */
+class PageEvictor {
+	
+	private final Session session;
+	
+	private Set<EntityKey> keysBeforePage;
+	
+	/**
+	 * @param session the session the pages are read with
+	 */
+	PageEvictor(Session session) {
+		this.session = session;
+	}
+	
+	/**
+	 * Evicts the entities loaded since the previous call, if any, and remembers the entities that are
+	 * in the session now. It is called before each page is read. Unless the session is never flushed
+	 * automatically, pending changes are flushed first so that evicting an entity does not discard
+	 * them.
+	 *
+	 * @should evict the entities loaded since the previous page
+	 * @should keep the entities that were in the session before the first page
+	 * @should flush the changes to the evicted entities
+	 */
+	void startPage() {
+		if (keysBeforePage != null) {
+			if (session.getFlushMode() != FlushMode.MANUAL && session.isDirty()) {
+				session.flush();
+			}
+			PersistenceContext persistenceContext = ((SessionImplementor) session).getPersistenceContext();
+			for (Object key : new ArrayList<Object>(session.getStatistics().getEntityKeys())) {
+				if (!keysBeforePage.contains(key)) {
+					// evicting the proxy of an entity, if it has one, detaches both
+					Object proxy = persistenceContext.getProxy((EntityKey) key);
+					Object entity = proxy != null ? proxy : persistenceContext.getEntity((EntityKey) key);
+					if (entity != null && session.contains(entity)) {
+						session.evict(entity);
+					}
+				}
+			}
+		}
+		
+		keysBeforePage = new HashSet<EntityKey>();
+		for (Object key : session.getStatistics().getEntityKeys()) {
+			keysBeforePage.add((EntityKey) key);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.openmrs.api.OrderContext;
+import org.openmrs.api.OrderNumberGenerator;
+import org.openmrs.api.context.Context;
+import org.openmrs.util.OpenmrsConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * An {@link OrderNumberGenerator} that reserves order number seeds in blocks instead of locking and
+ * updating the {@link OpenmrsConstants#GP_NEXT_ORDER_NUMBER_SEED} global property for every order,
+ * the seeds in a block are then handed out from memory. The block size is read from the
+ * {@link OpenmrsConstants#GP_ORDER_NUMBER_BLOCK_SIZE} global property each time a new block is
+ * reserved. It generates order numbers in the same format as the default generator, but the seeds
+ * left in the current block are lost when the server is stopped, so there can be gaps in the
+ * sequence. To use it, set the {@link OpenmrsConstants#GP_ORDER_NUMBER_GENERATOR_BEAN_ID} global
+ * property to <code>blockOrderNumberGenerator</code>.
+ *
+ * @since 2.2.0
+ */
+@Component("blockOrderNumberGenerator")
+public class BlockOrderNumberGenerator implements OrderNumberGenerator {
+	
+	private static final Logger log = LoggerFactory.getLogger(BlockOrderNumberGenerator.class);
+	
+	public static final int DEFAULT_BLOCK_SIZE = 100;
+	
+	private volatile Block currentBlock;
+	
+	/**
+	 * @see org.openmrs.api.OrderNumberGenerator#getNewOrderNumber(org.openmrs.api.OrderContext)
+	 * @should always return unique orderNumbers when called multiple times without saving orders
+	 * @should reserve a block of seeds at a time
+	 * @should reserve a new block when the current one is used up
+	 */
+	@Override
+	public String getNewOrderNumber(OrderContext orderContext) {
+		return OrderServiceImpl.ORDER_NUMBER_PREFIX + getNextSeed();
+	}
+	
+	private long getNextSeed() {
+		while (true) {
+			Block block = currentBlock;
+			if (block != null) {
+				long seed = block.next.getAndIncrement();
+				if (seed < block.limit) {
+					return seed;
+				}
+			}
+			synchronized (this) {
+				//another thread may have already replaced the used up block
+				if (currentBlock == block) {
+					currentBlock = reserveBlock();
+				}
+			}
+		}
+	}
+	
+	private Block reserveBlock() {
+		int blockSize = getBlockSize();
+		long first = Context.getOrderService().reserveOrderNumberSeedSequenceValues(blockSize);
+		if (log.isDebugEnabled()) {
+			log.debug("Reserved order number seeds " + first + " to " + (first + blockSize - 1));
+		}
+		return new Block(first, first + blockSize);
+	}
+	
+	private int getBlockSize() {
+		String value = Context.getAdministrationService().getGlobalProperty(OpenmrsConstants.GP_ORDER_NUMBER_BLOCK_SIZE);
+		int blockSize = NumberUtils.toInt(value, DEFAULT_BLOCK_SIZE);
+		if (blockSize < 1) {
+			log.warn("Ignoring invalid order number block size '" + value + "', using " + DEFAULT_BLOCK_SIZE);
+			blockSize = DEFAULT_BLOCK_SIZE;
+		}
+		return blockSize;
+	}
+	
+	/**
+	 * A reserved range of seeds, from next (inclusive) up to limit (exclusive)
+	 */
+	private static class Block {
+		
+		private final AtomicLong next;
+		
+		private final long limit;
+		
+		Block(long first, long limit) {
+			this.next = new AtomicLong(first);
+			this.limit = limit;
+		}
+	}
+}
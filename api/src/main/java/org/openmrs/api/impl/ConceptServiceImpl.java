@@ -24,8 +24,12 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
 import java.util.Vector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.collections.CollectionUtils;
@@ -59,6 +63,7 @@ import org.openmrs.api.ConceptNameInUseException;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.ConceptStopWordException;
 import org.openmrs.api.ConceptsLockedException;
+import org.openmrs.api.cache.ConceptSetCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ConceptDAO;
 import org.openmrs.api.db.DAOException;
@@ -233,6 +238,7 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		}
 
 		Concept conceptToReturn = dao.saveConcept(concept);
+		ConceptSetCache.evict();
 		
 		return conceptToReturn;
 	}
@@ -264,6 +270,7 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		}
 		
 		dao.purgeConcept(concept);
+		ConceptSetCache.evict();
 	}
 	
 	/**
@@ -676,9 +683,10 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	@Override
 	@Transactional(readOnly = true)
 	public List<Concept> getConceptsByConceptSet(Concept c) {
-		Set<Integer> alreadySeen = new HashSet<Integer>();
 		List<Concept> ret = new ArrayList<Concept>();
-		explodeConceptSetHelper(c, ret, alreadySeen);
+		for (Integer conceptId : ConceptSetCache.getMemberIdsInOrder(c.getConceptId(), dao)) {
+			ret.add(dao.getConcept(conceptId));
+		}
 		return ret;
 	}
 	
@@ -695,6 +703,33 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		return dao.getSetsContainingConcept(concept);
 	}
 	
+	/**
+	 * @see org.openmrs.api.ConceptService#isConceptInSet(org.openmrs.Concept, org.openmrs.Concept)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public boolean isConceptInSet(Concept concept, Concept conceptSet) throws APIException {
+		return ConceptSetCache.getMemberIds(conceptSet.getConceptId(), dao).contains(concept.getConceptId());
+	}
+	
+	/**
+	 * @see org.openmrs.api.ConceptService#getConceptIdsByConceptSet(org.openmrs.Concept)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Set<Integer> getConceptIdsByConceptSet(Concept conceptSet) throws APIException {
+		return ConceptSetCache.getMemberIds(conceptSet.getConceptId(), dao);
+	}
+	
+	/**
+	 * @see org.openmrs.api.ConceptService#getConceptSetIdsContainingConcept(org.openmrs.Concept)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Set<Integer> getConceptSetIdsContainingConcept(Concept concept) throws APIException {
+		return ConceptSetCache.getContainingSetIds(concept.getConceptId(), dao);
+	}
+	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptProposal(java.lang.Integer)
 	 */
@@ -884,30 +919,6 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		return dao.getMaxConceptId();
 	}
 	
-	/**
-	 * Utility method used by getConceptsInSet(Concept concept)
-	 * 
-	 * @param concept
-	 * @param ret
-	 * @param alreadySeen
-	 */
-	private void explodeConceptSetHelper(Concept concept, Collection<Concept> ret, Collection<Integer> alreadySeen) {
-		if (alreadySeen.contains(concept.getConceptId())) {
-			return;
-		}
-		alreadySeen.add(concept.getConceptId());
-		List<ConceptSet> cs = getConceptSetsByConcept(concept);
-		for (ConceptSet set : cs) {
-			Concept c = set.getConcept();
-			if (c.getSet()) {
-				ret.add(c);
-				explodeConceptSetHelper(c, ret, alreadySeen);
-			} else {
-				ret.add(c);
-			}
-		}
-	}
-	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptNameTagByName(java.lang.String)
 	 */
@@ -989,6 +1000,25 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		return dao.conceptIterator();
 	}
 	
+	/**
+	 * @see org.openmrs.api.ConceptService#conceptIterator(int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Iterator<Concept> conceptIterator(int batchSize) {
+		return dao.conceptIterator(batchSize);
+	}
+	
+	/**
+	 * @see org.openmrs.api.ConceptService#conceptStream(int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Stream<Concept> conceptStream(int batchSize) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(dao.conceptIterator(batchSize),
+		    Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptByUuid(java.lang.String)
 	 */
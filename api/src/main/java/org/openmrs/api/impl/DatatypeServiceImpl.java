@@ -19,6 +19,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.openmrs.api.DatatypeService;
+import org.openmrs.api.cache.CustomDatatypeCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ClobDatatypeStorage;
 import org.openmrs.api.db.DatatypeDAO;
@@ -38,7 +39,7 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 	
 	private List<Class<? extends CustomDatatypeHandler>> handlerClasses;
 	
-	private transient Map<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>> prioritizedHandlerClasses;
+	private transient volatile Map<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>> prioritizedHandlerClasses;
 	
 	private DatatypeDAO dao;
 	
@@ -99,14 +100,16 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 	@Override
 	@Transactional(readOnly = true)
 	public <T extends CustomDatatype<?>> T getDatatype(Class<T> clazz, String config) {
-		try {
-			T dt = clazz.newInstance();
-			dt.setConfiguration(config);
-			return dt;
-		}
-		catch (Exception ex) {
-			throw new CustomDatatypeException("Failed to instantiate " + clazz + " with config " + config, ex);
-		}
+		return CustomDatatypeCache.get(clazz, config, () -> {
+			try {
+				T dt = clazz.newInstance();
+				dt.setConfiguration(config);
+				return dt;
+			}
+			catch (Exception ex) {
+				throw new CustomDatatypeException("Failed to instantiate " + clazz + " with config " + config, ex);
+			}
+		});
 	}
 	
 	/**
@@ -162,7 +165,7 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 	 */
 	@Override
 	@Transactional(readOnly = true)
-	public synchronized CustomDatatypeHandler<?, ?> getHandler(CustomDatatype<?> datatype, String handlerConfig) {
+	public CustomDatatypeHandler<?, ?> getHandler(CustomDatatype<?> datatype, String handlerConfig) {
 		if (prioritizedHandlerClasses == null) {
 			prioritizeHandlers();
 		}
@@ -170,15 +173,17 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 		if (clazz == null) {
 			return null;
 		}
-		try {
-			CustomDatatypeHandler<?, ?> ret = clazz.newInstance();
-			ret.setHandlerConfiguration(handlerConfig);
-			return ret;
-		}
-		catch (Exception ex) {
-			throw new CustomDatatypeException("Failed to instantiate handler for " + datatype + " with config "
-			        + handlerConfig, ex);
-		}
+		return CustomDatatypeCache.get(clazz, handlerConfig, () -> {
+			try {
+				CustomDatatypeHandler<?, ?> ret = clazz.newInstance();
+				ret.setHandlerConfiguration(handlerConfig);
+				return ret;
+			}
+			catch (Exception ex) {
+				throw new CustomDatatypeException("Failed to instantiate handler for " + datatype + " with config "
+				        + handlerConfig, ex);
+			}
+		});
 	}
 	
 	/**
@@ -187,15 +192,17 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 	 */
 	private synchronized void prioritizeHandlers() {
 		if (prioritizedHandlerClasses == null) {
-			prioritizedHandlerClasses = new LinkedHashMap<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>>();
+			// the map is only published once it is complete, so that getHandler can read it without a lock
+			Map<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>> prioritized = new LinkedHashMap<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>>();
 			for (Class dt : getAllDatatypeClasses()) {
 				List<Class<? extends CustomDatatypeHandler>> handlerClasses = getHandlerClasses(dt);
 				if (handlerClasses == null || handlerClasses.isEmpty()) {
-					prioritizedHandlerClasses.put(dt, null);
+					prioritized.put(dt, null);
 				} else {
-					prioritizedHandlerClasses.put(dt, handlerClasses.get(0));
+					prioritized.put(dt, handlerClasses.get(0));
 				}
 			}
+			prioritizedHandlerClasses = prioritized;
 		}
 	}
 	
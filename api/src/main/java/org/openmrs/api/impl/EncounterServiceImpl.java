@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.lang.StringUtils;
 import org.openmrs.Cohort;
@@ -579,6 +580,16 @@ public class EncounterServiceImpl extends BaseOpenmrsService implements Encounte
 		return dao.getAllEncounters(patients);
 	}
 	
+	/**
+	 * @see org.openmrs.api.EncounterService#forEachPatientEncounters(org.openmrs.Cohort,
+	 *      java.util.function.BiConsumer)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void forEachPatientEncounters(Cohort patients, BiConsumer<Integer, List<Encounter>> action) {
+		dao.forEachPatientEncounters(patients, action);
+	}
+	
 	/**
 	 * @see org.openmrs.api.EncounterService#getEncounters(java.lang.String, java.lang.Integer,
 	 *      java.lang.Integer, boolean)
@@ -10,9 +10,11 @@
 package org.openmrs.api.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.openmrs.Address;
@@ -22,6 +24,7 @@ import org.openmrs.LocationAttributeType;
 import org.openmrs.LocationTag;
 import org.openmrs.api.APIException;
 import org.openmrs.api.LocationService;
+import org.openmrs.api.cache.LocationHierarchyCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.LocationDAO;
 import org.openmrs.customdatatype.CustomDatatypeUtil;
@@ -85,6 +88,7 @@ public class LocationServiceImpl extends BaseOpenmrsService implements LocationS
 		
 		CustomDatatypeUtil.saveAttributesIfNecessary(location);
 		
+		LocationHierarchyCache.evict();
 		return dao.saveLocation(location);
 	}
 	
@@ -252,6 +256,7 @@ public class LocationServiceImpl extends BaseOpenmrsService implements LocationS
 	 */
 	@Override
 	public void purgeLocation(Location location) throws APIException {
+		LocationHierarchyCache.evict();
 		dao.deleteLocation(location);
 	}
 	
@@ -383,6 +388,47 @@ public class LocationServiceImpl extends BaseOpenmrsService implements LocationS
 		return dao.getRootLocations(includeRetired);
 	}
 	
+	/**
+	 * @see org.openmrs.api.LocationService#getDescendantLocationIds(org.openmrs.Location, boolean)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Set<Integer> getDescendantLocationIds(Location location, boolean includeRetired) throws APIException {
+		if (location == null || location.getLocationId() == null) {
+			return Collections.emptySet();
+		}
+		return LocationHierarchyCache.getDescendantLocationIds(location.getLocationId(), includeRetired, dao);
+	}
+	
+	/**
+	 * @see org.openmrs.api.LocationService#getAncestorLocationIds(org.openmrs.Location)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Integer> getAncestorLocationIds(Location location) throws APIException {
+		if (location == null || location.getLocationId() == null) {
+			return Collections.emptyList();
+		}
+		return LocationHierarchyCache.getAncestorLocationIds(location.getLocationId(), dao);
+	}
+	
+	/**
+	 * @see org.openmrs.api.LocationService#isInHierarchy(org.openmrs.Location, org.openmrs.Location)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public boolean isInHierarchy(Location location, Location root) throws APIException {
+		if (location == null || root == null) {
+			return false;
+		}
+		if (location.getLocationId() == null || root.getLocationId() == null) {
+			// unsaved locations are not in the cached hierarchy
+			return Location.isInHierarchy(location, root);
+		}
+		return location.getLocationId().equals(root.getLocationId())
+		        || getAncestorLocationIds(location).contains(root.getLocationId());
+	}
+	
 	/**
 	 * @see org.openmrs.api.LocationService#getPossibleAddressValues(Address, String)
 	 */
@@ -10,11 +10,22 @@
 package org.openmrs.api.impl;
 
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Vector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
@@ -38,6 +49,8 @@ import org.openmrs.util.OpenmrsClassLoader;
 import org.openmrs.util.OpenmrsConstants.PERSON_TYPE;
 import org.openmrs.util.OpenmrsUtil;
 import org.openmrs.util.PrivilegeConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -59,6 +72,14 @@ public class ObsServiceImpl extends BaseOpenmrsService implements ObsService {
 	 */
 	private static Map<String, ComplexObsHandler> handlers = null;
 	
+	/**
+	 * The number of obs after which {@link #saveObs(Collection)} flushes and clears the session,
+	 * the same as the hibernate.jdbc.batch_size so that each flush sends full JDBC batches
+	 */
+	private static final int SAVE_OBS_BATCH_SIZE = 50;
+	
+	private final Logger log = LoggerFactory.getLogger(getClass());
+	
 	/**
 	 * Default empty constructor for this obs service
 	 */
@@ -114,6 +135,158 @@ public class ObsServiceImpl extends BaseOpenmrsService implements ObsService {
 		}
 	}
 
+	/**
+	 * @see org.openmrs.api.ObsService#saveObs(java.util.Collection)
+	 */
+	@Override
+	public List<Obs> saveObs(Collection<Obs> obs) throws APIException {
+		long start = System.currentTimeMillis();
+		List<Obs> savedObs = new ArrayList<Obs>(obs.size());
+		int unflushedCount = 0;
+		int totalCount = 0;
+		
+		for (Obs o : obs) {
+			if (o == null) {
+				throw new APIException("Obs.error.cannot.be.null", (Object[]) null);
+			}
+			if (o.getObsId() != null) {
+				throw new APIException("Obs.error.bulkSave.existing", new Object[] { o });
+			}
+		}
+		
+		Set<Obs> givenObs = Collections.newSetFromMap(new IdentityHashMap<Obs, Boolean>());
+		givenObs.addAll(obs);
+		
+		for (Obs o : obs) {
+			savedObs.add(o);
+			// already saved as the member of a group given before it, or to be saved along with
+			// a group given after it
+			if (o.getObsId() != null || isSavedWithObsGroup(o, givenObs)) {
+				continue;
+			}
+			unflushedCount += saveObsWithNewObsGroups(o, givenObs);
+			
+			// only between groups, so that a group and its members are flushed together
+			if (unflushedCount >= SAVE_OBS_BATCH_SIZE) {
+				Context.flushSession();
+				Context.clearSession();
+				totalCount += unflushedCount;
+				unflushedCount = 0;
+			}
+		}
+		
+		// members that refer to a given group which does not list them among its members
+		for (Obs o : obs) {
+			if (o.getObsId() == null) {
+				unflushedCount += saveObsWithNewObsGroups(o, givenObs);
+				
+				if (unflushedCount >= SAVE_OBS_BATCH_SIZE) {
+					Context.flushSession();
+					Context.clearSession();
+					totalCount += unflushedCount;
+					unflushedCount = 0;
+				}
+			}
+		}
+		Context.flushSession();
+		totalCount += unflushedCount;
+		
+		if (log.isInfoEnabled()) {
+			long elapsed = Math.max(1, System.currentTimeMillis() - start);
+			log.info("Saved " + totalCount + " obs in " + elapsed + " ms (" + (totalCount * 1000L / elapsed)
+			        + " obs/sec)");
+		}
+		return savedObs;
+	}
+	
+	/**
+	 * @return true if the obs is in a new group that is among the given obs, directly or through
+	 *         other new groups
+	 */
+	private boolean isSavedWithObsGroup(Obs obs, Set<Obs> givenObs) {
+		for (Obs group = obs.getObsGroup(); group != null && group.getObsId() == null; group = group.getObsGroup()) {
+			if (givenObs.contains(group)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Saves a new obs along with the new groups it is in that were not saved yet, outermost first
+	 * since each obs refers to its group, and with its new members. An obs in a group that is new,
+	 * i.e. saved by this call, takes the encounter of the group and its person, date and location
+	 * if it has none.
+	 * 
+	 * @return the number of obs saved
+	 */
+	private int saveObsWithNewObsGroups(Obs obs, Set<Obs> givenObs) {
+		Deque<Obs> toSave = new ArrayDeque<Obs>();
+		for (Obs o = obs; o != null && o.getObsId() == null; o = o.getObsGroup()) {
+			toSave.push(o);
+		}
+		
+		int count = 0;
+		Obs outermostGroup = toSave.peek().getObsGroup();
+		boolean inNewGroup = outermostGroup != null && givenObs.contains(outermostGroup);
+		for (Obs o : toSave) {
+			// unless it was saved as a member of the group before it
+			if (o.getObsId() == null) {
+				if (inNewGroup) {
+					inheritFromObsGroup(o, o.getObsGroup());
+				} else {
+					setPersonFromEncounter(o);
+				}
+				count += saveObsAndMembers(o);
+			}
+			inNewGroup = true;
+		}
+		return count;
+	}
+	
+	/**
+	 * Saves a new obs and its new members, the group is saved before its members since they refer
+	 * to it, as the members of a group are not saved by cascade
+	 * 
+	 * @return the number of obs saved
+	 */
+	private int saveObsAndMembers(Obs obs) {
+		int count = 0;
+		Deque<Obs> toSave = new ArrayDeque<Obs>();
+		toSave.add(obs);
+		while (!toSave.isEmpty()) {
+			Obs next = toSave.poll();
+			if (next.getObsId() != null) {
+				continue;
+			}
+			handleExistingObsWithComplexConcept(next);
+			dao.saveObs(next);
+			count++;
+			
+			if (next.hasGroupMembers()) {
+				for (Obs member : next.getGroupMembers(true)) {
+					inheritFromObsGroup(member, next);
+					toSave.add(member);
+				}
+			}
+		}
+		return count;
+	}
+	
+	private void inheritFromObsGroup(Obs member, Obs obsGroup) {
+		member.setEncounter(obsGroup.getEncounter());
+		if (member.getPerson() == null) {
+			member.setPerson(obsGroup.getPerson());
+		}
+		if (member.getObsDatetime() == null) {
+			member.setObsDatetime(obsGroup.getObsDatetime());
+		}
+		if (member.getLocation() == null) {
+			member.setLocation(obsGroup.getLocation());
+		}
+		setPersonFromEncounter(member);
+	}
+	
 	private void setPersonFromEncounter(Obs obs) {
 		Encounter encounter = obs.getEncounter();
 		if (encounter != null) {
@@ -359,6 +532,39 @@ public class ObsServiceImpl extends BaseOpenmrsService implements ObsService {
 		    obsGroupId, fromDate, toDate, includeVoidedObs, accessionNumber);
 	}
 	
+	/**
+	 * @see org.openmrs.api.ObsService#getObservationsAfter(List, List, List, List, List, List,
+	 *      Integer, Date, Date, boolean, String, Obs, int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Obs> getObservationsAfter(List<Person> whom, List<Encounter> encounters, List<Concept> questions,
+	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
+	        Date fromDate, Date toDate, boolean includeVoidedObs, String accessionNumber, Obs lastObs, int pageSize)
+	        throws APIException {
+		if (lastObs != null && lastObs.getObsId() == null) {
+			throw new IllegalArgumentException("The last obs of the previous page must be saved");
+		}
+		return dao.getObservationsAfter(whom, encounters, questions, answers, personTypes, locations, obsGroupId,
+		    fromDate, toDate, includeVoidedObs, accessionNumber, lastObs == null ? null : lastObs.getObsDatetime(),
+		    lastObs == null ? null : lastObs.getObsId(), pageSize);
+	}
+	
+	/**
+	 * @see org.openmrs.api.ObsService#getObservationStream(List, List, List, List, List, List,
+	 *      Integer, Date, Date, boolean, String, int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Stream<Obs> getObservationStream(List<Person> whom, List<Encounter> encounters, List<Concept> questions,
+	        List<Concept> answers, List<PERSON_TYPE> personTypes, List<Location> locations, Integer obsGroupId,
+	        Date fromDate, Date toDate, boolean includeVoidedObs, String accessionNumber, int batchSize)
+	        throws APIException {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(dao.getObservationIterator(whom, encounters,
+		    questions, answers, personTypes, locations, obsGroupId, fromDate, toDate, includeVoidedObs, accessionNumber,
+		    batchSize), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+	
 	/**
 	 * @see org.openmrs.api.ObsService#getObservationCount(java.util.List, java.util.List,
 	 *      java.util.List, java.util.List, java.util.List, java.util.List, java.lang.Integer,
@@ -58,6 +58,7 @@ import org.openmrs.api.order.exception.OrderEntryException;
 import org.openmrs.order.OrderUtil;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
+import org.openmrs.util.StripedLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Propagation;
@@ -77,12 +78,21 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 	
-	private static final String ORDER_NUMBER_PREFIX = "ORD-";
+	static final String ORDER_NUMBER_PREFIX = "ORD-";
 	
 	protected OrderDAO dao;
 	
 	private static OrderNumberGenerator orderNumberGenerator = null;
 	
+	private static final int PATIENT_LOCK_STRIPES = 128;
+	
+	/**
+	 * Serializes order placement per patient, the active order checks done while saving an order
+	 * only ever look at orders of the same patient so orders for different patients can be saved
+	 * concurrently
+	 */
+	private final StripedLock patientLocks = new StripedLock(PATIENT_LOCK_STRIPES);
+	
 	public OrderServiceImpl() {
 	}
 	
@@ -98,8 +108,10 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 * @see org.openmrs.api.OrderService#saveOrder(org.openmrs.Order, org.openmrs.api.OrderContext)
 	 */
 	@Override
-	public synchronized Order saveOrder(Order order, OrderContext orderContext) throws APIException {
-		return saveOrder(order, orderContext, false);
+	public Order saveOrder(Order order, OrderContext orderContext) throws APIException {
+		synchronized (getPatientLock(order)) {
+			return saveOrder(order, orderContext, false);
+		}
 	}
 	
 	/**
@@ -123,8 +135,21 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 * @see org.openmrs.api.OrderService#saveOrder(org.openmrs.Order, org.openmrs.api.OrderContext)
 	 */
 	@Override
-	public synchronized Order saveRetrospectiveOrder(Order order, OrderContext orderContext) {
-		return saveOrder(order, orderContext, true);
+	public Order saveRetrospectiveOrder(Order order, OrderContext orderContext) {
+		synchronized (getPatientLock(order)) {
+			return saveOrder(order, orderContext, true);
+		}
+	}
+	
+	/**
+	 * Gets the monitor that guards saving orders for the patient of the specified order
+	 * 
+	 * @param order the order to be saved
+	 * @return the lock for the order's patient
+	 */
+	private Object getPatientLock(Order order) {
+		Patient patient = order.getPatient();
+		return patientLocks.getLock(patient != null ? patient.getPatientId() : null);
 	}
 	
 	private Order saveOrder(Order order, OrderContext orderContext, boolean isRetrospective) {
@@ -569,6 +594,18 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 		return dao.getNextOrderNumberSeedSequenceValue();
 	}
 	
+	/**
+	 * @see org.openmrs.api.OrderService#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public synchronized Long reserveOrderNumberSeedSequenceValues(int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("The number of order number seeds to reserve must be positive");
+		}
+		return dao.reserveOrderNumberSeedSequenceValues(count);
+	}
+	
 	/**
 	 * @see org.openmrs.api.OrderService#getOrderHistoryByOrderNumber(java.lang.String)
 	 */
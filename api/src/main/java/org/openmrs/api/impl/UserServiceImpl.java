@@ -30,6 +30,7 @@ import org.openmrs.api.APIException;
 import org.openmrs.api.CannotDeleteRoleWithChildrenException;
 import org.openmrs.api.UserService;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.LoginCredential;
 import org.openmrs.api.db.UserDAO;
@@ -154,6 +155,8 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 			        + " is already in use.");
 		}
 		
+		// the roles of the user may have changed
+		UserContext.rolesChanged();
 		return dao.saveUser(user, null);
 	}
 	
@@ -234,6 +237,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		}
 		
 		dao.deletePrivilege(privilege);
+		UserContext.rolesChanged();
 	}
 	
 	/**
@@ -241,6 +245,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 	 */
 	@Override
 	public Privilege savePrivilege(Privilege privilege) throws APIException {
+		UserContext.rolesChanged();
 		return dao.savePrivilege(privilege);
 	}
 
@@ -280,6 +285,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		}
 		
 		dao.deleteRole(role);
+		UserContext.rolesChanged();
 	}
 	
 	/**
@@ -295,6 +301,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		
 		checkPrivileges(role);
 		
+		UserContext.rolesChanged();
 		return dao.saveRole(role);
 	}
 	
@@ -623,6 +630,15 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		}
 	}
 	
+	/**
+	 * @see UserService#hasPrivilegeListeners()
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public boolean hasPrivilegeListeners() {
+		return privilegeListeners != null && !privilegeListeners.isEmpty();
+	}
+	
 	@Override
 	public User saveUserProperty(String key, String value) {
 		User user = Context.getAuthenticatedUser();
@@ -18,6 +18,7 @@ import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 import org.openmrs.ConceptDatatype;
 import org.openmrs.api.APIException;
+import org.openmrs.api.cache.CustomDatatypeCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.attribute.Attribute;
 import org.openmrs.attribute.AttributeType;
@@ -96,11 +97,18 @@ public class CustomDatatypeUtil {
 			try {
 				Class<? extends CustomDatatypeHandler> clazz = (Class<? extends CustomDatatypeHandler>) Context
 				        .loadClass(preferredHandlerClassname);
-				CustomDatatypeHandler handler = clazz.newInstance();
-				if (handlerConfig != null) {
-					handler.setHandlerConfiguration(handlerConfig);
-				}
-				return handler;
+				return CustomDatatypeCache.get(clazz, handlerConfig, () -> {
+					try {
+						CustomDatatypeHandler handler = clazz.newInstance();
+						if (handlerConfig != null) {
+							handler.setHandlerConfiguration(handlerConfig);
+						}
+						return handler;
+					}
+					catch (ReflectiveOperationException ex) {
+						throw new CustomDatatypeException("Failed to instantiate " + clazz, ex);
+					}
+				});
 			}
 			catch (Exception ex) {
 				log.warn("Failed to instantiate and configure preferred handler with class " + preferredHandlerClassname
@@ -9,7 +9,26 @@
  */
 package org.openmrs.hl7;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.api.AdministrationService;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,7 +39,17 @@ import ca.uhn.hl7v2.HL7Exception;
  * Processes message in the HL7 inbound queue. Messages are moved into either the archive or error
  * table depending on success or failure of the processing. You may, however, set a global property
  * that causes the processor to ignore messages regarding unknown patients from a non-local HL7
- * source. (i.e. those messages neither go to the archive or the error table.)
+ * source. (i.e. those messages neither go to the archive or the error table.)<br>
+ * <br>
+ * The queue is processed in batches that are claimed by marking them as processing, so several
+ * processors can drain the same queue. The claimed entries that could not be processed are marked
+ * as pending again, and the run stops so that they are retried by the next one; the first run after
+ * the server started also releases the entries left processing by a processor that was stopped
+ * abruptly, including those of processors of other servers that are still running. When the processor runs in a daemon thread, e.g. as the scheduled task, the entries of a
+ * batch are spread over a pool with the number of threads set by the
+ * {@link OpenmrsConstants#GLOBAL_PROPERTY_HL7_PROCESSOR_THREADS} global property, each worker runs as
+ * the daemon user in its own session, and all the messages about the same patient are handled by the
+ * same thread in the order they were received.
  *
  * @version 1.0
  */
@@ -33,6 +62,14 @@ public class HL7InQueueProcessor /* implements Runnable */{
 	
 	private static Integer count = 0;
 	
+	private static final AtomicLong processedCount = new AtomicLong();
+	
+	private static volatile long lastRunProcessedCount = 0;
+	
+	private static volatile long lastRunMillis = 0;
+	
+	private static volatile boolean staleClaimsReleased = false;
+	
 	// processor per JVM
 	
 	/**
@@ -46,6 +83,31 @@ public class HL7InQueueProcessor /* implements Runnable */{
 		HL7InQueueProcessor.count = count;
 	}
 	
+	/**
+	 * @return the number of queue entries processed since the server was started
+	 * @since 2.2.0
+	 */
+	public static long getProcessedCount() {
+		return processedCount.get();
+	}
+	
+	/**
+	 * @return the number of queue entries processed per second by the last run of
+	 *         {@link #processHL7InQueue()}
+	 * @since 2.2.0
+	 */
+	public static double getLastRunThroughput() {
+		return lastRunMillis == 0 ? 0 : lastRunProcessedCount * 1000.0 / lastRunMillis;
+	}
+	
+	/**
+	 * @return the number of queue entries waiting to be processed
+	 * @since 2.2.0
+	 */
+	public static int getBacklog() {
+		return Context.getHL7Service().countHL7InQueue(HL7Constants.HL7_STATUS_PENDING, null);
+	}
+	
 	/**
 	 * Process a single queue entry from the inbound HL7 queue
 	 *
@@ -64,6 +126,60 @@ public class HL7InQueueProcessor /* implements Runnable */{
 		catch (HL7Exception e) {
 			log.error("Unable to process hl7 in queue", e);
 		}
+		afterProcessing();
+	}
+	
+	/**
+	 * Process a single queue entry that was claimed by {@link HL7Service#claimHL7InQueues(int)}
+	 */
+	private void processClaimedHL7InQueue(HL7InQueue hl7InQueue) throws HL7Exception {
+		
+		if (log.isDebugEnabled()) {
+			log.debug("Processing HL7 inbound queue (id=" + hl7InQueue.getHL7InQueueId() + ",key="
+			        + hl7InQueue.getHL7SourceKey() + ")");
+		}
+		
+		Context.getHL7Service().processClaimedHL7InQueue(hl7InQueue);
+		afterProcessing();
+	}
+	
+	/**
+	 * Processes the claimed queue entries with the given ids one after the other, using the lookup
+	 * cache of the run. The entries are loaded one at a time since the session may be cleared after
+	 * each of them. Once the run is stopping, the remaining entries are left unprocessed.
+	 *
+	 * @return the ids of the entries that were not processed
+	 */
+	private List<Integer> processClaimedHL7InQueues(List<Integer> hl7InQueueIds, AtomicBoolean stopping,
+	        HL7LookupCache lookupCache) {
+		List<Integer> unprocessed = new ArrayList<Integer>();
+		lookupCache.bind();
+		try {
+			for (Integer hl7InQueueId : hl7InQueueIds) {
+				if (stopping.get() || Thread.currentThread().isInterrupted()) {
+					unprocessed.add(hl7InQueueId);
+					continue;
+				}
+				try {
+					HL7InQueue hl7InQueue = Context.getHL7Service().getHL7InQueue(hl7InQueueId);
+					if (hl7InQueue != null) {
+						processClaimedHL7InQueue(hl7InQueue);
+					}
+				}
+				catch (Exception e) {
+					log.error("Unable to process hl7 in queue entry " + hl7InQueueId, e);
+					unprocessed.add(hl7InQueueId);
+				}
+			}
+		}
+		finally {
+			HL7LookupCache.unbind();
+		}
+		return unprocessed;
+	}
+	
+	private synchronized void afterProcessing() {
+		processedCount.incrementAndGet();
 		setCount(count + 1);
 		if (count > 25) {
 			// clean up memory after processing each queue entry (otherwise, the
@@ -97,6 +213,8 @@ public class HL7InQueueProcessor /* implements Runnable */{
 	
 	/**
 	 * Starts up a thread to process all existing HL7InQueue entries
+	 *
+	 * @should process all pending queue entries
 	 */
 	public void processHL7InQueue() throws HL7Exception {
 		synchronized (isRunning) {
@@ -106,16 +224,203 @@ public class HL7InQueueProcessor /* implements Runnable */{
 			}
 			isRunning = true;
 		}
+		ExecutorService workers = null;
 		try {
 			log.debug("Start processing hl7 in queue");
-			while (processNextHL7InQueue()) {
-				// loop until queue is empty
+			if (!staleClaimsReleased) {
+				int released = Context.getHL7Service().releaseHL7InQueues(null);
+				if (released > 0) {
+					log.warn("Released " + released + " hl7 in queue entries that were left processing");
+				}
+				staleClaimsReleased = true;
+			}
+			
+			AdministrationService as = Context.getAdministrationService();
+			int threads = Math.max(1, as.getGlobalPropertyValue(OpenmrsConstants.GLOBAL_PROPERTY_HL7_PROCESSOR_THREADS, 1));
+			int batchSize = Math.max(1, as.getGlobalPropertyValue(OpenmrsConstants.GLOBAL_PROPERTY_HL7_PROCESSOR_BATCH_SIZE,
+			    100));
+			if (threads > 1 && !Daemon.isDaemonThread()) {
+				log.info("The hl7 in queue is processed in the calling thread since only a daemon thread can start "
+				        + "authenticated workers");
+				threads = 1;
+			}
+			if (threads > 1) {
+				workers = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+			}
+			HL7LookupCache lookupCache = new HL7LookupCache(as.getGlobalPropertyValue(
+			    OpenmrsConstants.GLOBAL_PROPERTY_HL7_PROCESSOR_LOOKUP_CACHE_SIZE, 1000));
+			
+			long start = System.currentTimeMillis();
+			long processedBefore = processedCount.get();
+			List<HL7InQueue> batch;
+			while (!(batch = Context.getHL7Service().claimHL7InQueues(batchSize)).isEmpty()) {
+				if (!processBatch(batch, threads, workers, lookupCache)) {
+					break;
+				}
+			}
+			
+			lastRunProcessedCount = processedCount.get() - processedBefore;
+			lastRunMillis = System.currentTimeMillis() - start;
+			if (lastRunProcessedCount > 0) {
+				log.info("Processed " + lastRunProcessedCount + " hl7 in queue entries in " + lastRunMillis + " ms ("
+				        + String.format("%.1f", getLastRunThroughput()) + " per second), " + getBacklog()
+				        + " entries are pending");
+				log.info("The hl7 lookup cache saved " + lookupCache.getHitCount() + " database lookups, "
+				        + lookupCache.getMissCount() + " lookups were not cached");
 			}
 			log.debug("Done processing hl7 in queue");
 		}
 		finally {
+			if (workers != null) {
+				workers.shutdownNow();
+			}
 			isRunning = false;
 		}
 	}
 	
+	/**
+	 * Processes a claimed batch of queue entries and marks the entries that could not be processed
+	 * as pending again
+	 *
+	 * @param workers the pool to process the entries in, null to process them in the current thread
+	 * @param lookupCache the lookup cache of the run
+	 * @return false if the run should stop, i.e. some entries could not be processed or the current
+	 *         thread was interrupted
+	 */
+	private boolean processBatch(List<HL7InQueue> batch, int threads, ExecutorService workers,
+	        HL7LookupCache lookupCache) {
+		AtomicBoolean stopping = new AtomicBoolean();
+		List<Integer> unprocessed = new ArrayList<Integer>();
+		try {
+			if (workers == null || batch.size() == 1) {
+				unprocessed.addAll(processClaimedHL7InQueues(partition(batch, 1).get(0), stopping, lookupCache));
+			} else {
+				unprocessed.addAll(processInParallel(partition(batch, threads), workers, stopping, lookupCache));
+			}
+		}
+		finally {
+			if (!unprocessed.isEmpty()) {
+				int released = Context.getHL7Service().releaseHL7InQueues(unprocessed);
+				log.warn(unprocessed.size() + " claimed hl7 in queue entries were not processed, " + released
+				        + " of them are pending again");
+			}
+		}
+		return unprocessed.isEmpty() && !Thread.currentThread().isInterrupted();
+	}
+	
+	/**
+	 * Processes each list of queue entries in the given pool, as the daemon user, and waits for all
+	 * of them to finish. If the current thread is interrupted while waiting, the workers stop after
+	 * the entry they are processing.
+	 *
+	 * @return the ids of the entries that were not processed
+	 */
+	private List<Integer> processInParallel(List<List<Integer>> partitions, ExecutorService workers,
+	        final AtomicBoolean stopping, final HL7LookupCache lookupCache) {
+		final List<Integer> unprocessed = Collections.synchronizedList(new ArrayList<Integer>());
+		Map<Future<?>, List<Integer>> futures = new LinkedHashMap<Future<?>, List<Integer>>();
+		for (final List<Integer> hl7InQueueIds : partitions) {
+			Runnable worker = new Runnable() {
+				
+				@Override
+				public void run() {
+					unprocessed.addAll(processClaimedHL7InQueues(hl7InQueueIds, stopping, lookupCache));
+				}
+			};
+			futures.put(workers.submit(Daemon.createDaemonRunnable(worker)), hl7InQueueIds);
+		}
+		
+		boolean interrupted = false;
+		for (Map.Entry<Future<?>, List<Integer>> future : futures.entrySet()) {
+			while (true) {
+				try {
+					future.getKey().get();
+					break;
+				}
+				catch (InterruptedException e) {
+					// keep waiting, the workers finish the entries they are processing and skip the rest
+					interrupted = true;
+					stopping.set(true);
+					log.warn("HL7 processor interrupted while waiting for the current batch to be processed");
+				}
+				catch (ExecutionException e) {
+					log.error("HL7 processor worker failed", e.getCause());
+					unprocessed.addAll(future.getValue());
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return new ArrayList<Integer>(unprocessed);
+	}
+	
+	/**
+	 * Creates the named daemon threads of the pool the queue entries are processed in
+	 */
+	private static class WorkerThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "HL7 processor worker " + threadNumber.getAndIncrement());
+			// the workers should not prolong the lifetime of the application
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+	
+	/**
+	 * Splits the ids of the given queue entries into at most the given number of lists, the entries
+	 * with the same ordering key always end up in the same list in the order they were given
+	 *
+	 * @should keep the entries of the same patient together and in order
+	 * @should not return empty lists
+	 */
+	static List<List<Integer>> partition(List<HL7InQueue> hl7InQueues, int threads) {
+		List<List<Integer>> partitions = new ArrayList<List<Integer>>(threads);
+		for (int i = 0; i < threads; i++) {
+			partitions.add(new ArrayList<Integer>());
+		}
+		for (HL7InQueue hl7InQueue : hl7InQueues) {
+			int index = (getOrderingKey(hl7InQueue).hashCode() & Integer.MAX_VALUE) % threads;
+			partitions.get(index).add(hl7InQueue.getHL7InQueueId());
+		}
+		
+		Iterator<List<Integer>> iterator = partitions.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().isEmpty()) {
+				iterator.remove();
+			}
+		}
+		return partitions;
+	}
+	
+	/**
+	 * Gets the key of the messages that must be processed in order, i.e. the patient identifiers in
+	 * the PID segment of the message, or the source key if the message has no PID segment. The
+	 * message is not parsed, the segment is looked up in the raw text.
+	 *
+	 * @should return the patient identifiers of the message
+	 * @should return the source key if the message has no PID segment
+	 */
+	static String getOrderingKey(HL7InQueue hl7InQueue) {
+		String data = hl7InQueue.getHL7Data();
+		if (data != null && data.startsWith("MSH") && data.length() > 3) {
+			char fieldSeparator = data.charAt(3);
+			for (String segment : data.split("[\\r\\n]+")) {
+				if (segment.startsWith("PID" + fieldSeparator)) {
+					String[] fields = StringUtils.splitPreserveAllTokens(segment, fieldSeparator);
+					if (fields.length > 3 && StringUtils.isNotBlank(fields[3])) {
+						return "PID:" + fields[3];
+					}
+					break;
+				}
+			}
+		}
+		return "KEY:" + hl7InQueue.getHL7SourceKey();
+	}
+	
 }
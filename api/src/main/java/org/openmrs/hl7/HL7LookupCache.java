@@ -0,0 +1,167 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.hl7;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ca.uhn.hl7v2.model.Type;
+import ca.uhn.hl7v2.parser.EncodingCharacters;
+import ca.uhn.hl7v2.parser.PipeParser;
+
+/**
+ * Caches the ids of the concepts, locations, users, providers and patients that the coded values of
+ * hl7 messages resolve to while the {@link HL7InQueueProcessor} processes the queue, since the
+ * messages from one source keep using the same few codes. Each run of the processor creates its own
+ * cache and binds it to the threads that process the entries, the static methods use the cache
+ * bound to the current thread and do nothing outside of a run.<br>
+ * <br>
+ * Only values that were resolved are cached, so a code that could not be resolved is looked up
+ * again by the next message. Callers must check that the object with a cached id still exists and
+ * still matches the hl7 value, and {@link #evict(String, String) evict} the entry if it does not.
+ * The number of entries is bounded by the
+ * {@link org.openmrs.util.OpenmrsConstants#GLOBAL_PROPERTY_HL7_PROCESSOR_LOOKUP_CACHE_SIZE} global
+ * property, once the cache is full further values are not cached until the next run.
+ *
+ * @since 2.2.0
+ */
+public class HL7LookupCache {
+	
+	public static final String CONCEPT = "concept";
+	
+	public static final String LOCATION = "location";
+	
+	public static final String USER = "user";
+	
+	public static final String PERSON = "person";
+	
+	public static final String PROVIDER = "provider";
+	
+	public static final String PATIENT = "patient";
+	
+	private static final EncodingCharacters ENCODING_CHARACTERS = new EncodingCharacters('|', "^~\\&");
+	
+	private static final ThreadLocal<HL7LookupCache> boundCache = new ThreadLocal<HL7LookupCache>();
+	
+	private final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	
+	private final int maxSize;
+	
+	private final AtomicLong hitCount = new AtomicLong();
+	
+	private final AtomicLong missCount = new AtomicLong();
+	
+	/**
+	 * @param maxSize the maximum number of cached values, nothing is cached if less than 1
+	 */
+	public HL7LookupCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+	
+	/**
+	 * Makes this the cache used by the static methods in the current thread until {@link #unbind()}
+	 * is called
+	 */
+	public void bind() {
+		boundCache.set(this);
+	}
+	
+	/**
+	 * Stops caching in the current thread
+	 */
+	public static void unbind() {
+		boundCache.remove();
+	}
+	
+	/**
+	 * Gets the cached id of the object that the given key resolved to
+	 *
+	 * @param type the type of the object, e.g. {@link #CONCEPT}
+	 * @param key the hl7 value that was resolved, see {@link #key(Type...)}
+	 * @return the id or null if it is not cached or no cache is bound to the current thread
+	 * @should return the cached id
+	 * @should return null if no cache is bound to the current thread
+	 * @should stop caching values when full
+	 */
+	public static Integer get(String type, String key) {
+		HL7LookupCache cache = boundCache.get();
+		if (cache == null) {
+			return null;
+		}
+		
+		Integer id = cache.ids.get(type + ":" + key);
+		if (id == null) {
+			cache.missCount.incrementAndGet();
+		} else {
+			cache.hitCount.incrementAndGet();
+		}
+		return id;
+	}
+	
+	/**
+	 * Caches the id of the object that the given key resolved to, does nothing if no cache is bound
+	 * to the current thread or the cache is full
+	 *
+	 * @param type the type of the object, e.g. {@link #CONCEPT}
+	 * @param key the hl7 value that was resolved, see {@link #key(Type...)}
+	 * @param id the id of the object, null ids are not cached
+	 */
+	public static void put(String type, String key, Integer id) {
+		HL7LookupCache cache = boundCache.get();
+		// the size is only checked roughly since the threads of a run share the cache
+		if (cache != null && id != null && cache.ids.size() < cache.maxSize) {
+			cache.ids.put(type + ":" + key, id);
+		}
+	}
+	
+	/**
+	 * Removes a cached id, e.g. because the object it refers to no longer exists
+	 *
+	 * @param type the type of the object, e.g. {@link #CONCEPT}
+	 * @param key the hl7 value that was resolved
+	 */
+	public static void evict(String type, String key) {
+		HL7LookupCache cache = boundCache.get();
+		if (cache != null) {
+			cache.ids.remove(type + ":" + key);
+		}
+	}
+	
+	/**
+	 * @param values the hl7 values to build a cache key from
+	 * @return the given values in their encoded form
+	 */
+	public static String key(Type... values) {
+		StringBuilder key = new StringBuilder();
+		for (Type value : values) {
+			if (key.length() > 0) {
+				key.append('~');
+			}
+			key.append(PipeParser.encode(value, ENCODING_CHARACTERS));
+		}
+		return key.toString();
+	}
+	
+	/**
+	 * @return the number of lookups that were served by this cache, i.e. the database queries that
+	 *         were saved
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+	
+	/**
+	 * @return the number of lookups that were not cached
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+}
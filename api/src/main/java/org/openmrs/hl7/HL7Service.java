@@ -218,6 +218,37 @@ public interface HL7Service extends OpenmrsService {
 	@Authorized(PrivilegeConstants.GET_HL7_IN_QUEUE)
 	public HL7InQueue getNextHL7InQueue() throws APIException;
 	
+	/**
+	 * Marks the oldest pending queue items as processing and returns them, so that they can be
+	 * processed by {@link #processClaimedHL7InQueue(HL7InQueue)}. A pending item is only claimed if
+	 * no other processor claimed it first, so concurrent callers never get the same item.
+	 * 
+	 * @param maxResults the maximum number of items to claim
+	 * @return the claimed queue items in the order they were received
+	 * @throws APIException
+	 * @since 2.2.0
+	 * @should claim the oldest pending queue items
+	 * @should not claim queue items that are not pending
+	 */
+	@Authorized(PrivilegeConstants.PRIV_UPDATE_HL7_IN_QUEUE)
+	public List<HL7InQueue> claimHL7InQueues(int maxResults) throws APIException;
+	
+	/**
+	 * Marks claimed queue items that are still processing as pending again, so that the items a
+	 * processor claimed but could not process are claimed again later instead of staying processing
+	 * forever. Items that were processed in the meantime are left alone.
+	 * 
+	 * @param hl7InQueueIds the ids of the queue items to release, null to release all the queue items
+	 *            that are marked as processing
+	 * @return the number of queue items that are pending again
+	 * @throws APIException
+	 * @since 2.2.0
+	 * @should release the given queue items that are processing
+	 * @should release all the queue items that are processing if the ids are null
+	 */
+	@Authorized(PrivilegeConstants.PRIV_UPDATE_HL7_IN_QUEUE)
+	public int releaseHL7InQueues(List<Integer> hl7InQueueIds) throws APIException;
+	
 	/**
 	 * Completely delete the hl7 in queue item from the database.
 	 * 
@@ -382,6 +413,7 @@ public interface HL7Service extends OpenmrsService {
 	 * @return The internal id number of the Patient described by the PID segment, or null if the
 	 *         patient is not found or if the PID segment is ambiguous
 	 * @throws HL7Exception
+	 * @should not use a cached patient id that no longer has any of the identifiers
 	 */
 	public Integer resolvePatientId(PID pid) throws HL7Exception;
 	
@@ -421,6 +453,19 @@ public interface HL7Service extends OpenmrsService {
 	 */
 	public HL7InQueue processHL7InQueue(HL7InQueue inQueue) throws HL7Exception;
 	
+	/**
+	 * Process the given {@link HL7InQueue} item that was claimed by {@link #claimHL7InQueues(int)}
+	 * the same way as {@link #processHL7InQueue(HL7InQueue)} does.
+	 * 
+	 * @param inQueue the claimed {@link HL7InQueue} to parse and save all encounters/obs to the db
+	 * @return the processed {@link HL7InQueue}
+	 * @throws HL7Exception
+	 * @since 2.2.0
+	 * @should create HL7InArchive after successful parsing
+	 * @should fail if given inQueue is not marked as processing
+	 */
+	public HL7InQueue processClaimedHL7InQueue(HL7InQueue inQueue) throws HL7Exception;
+	
 	/**
 	 * Parses the given string and returns the resulting {@link Message}
 	 * 
@@ -80,6 +80,16 @@ public interface HL7DAO {
 	 */
 	public HL7InQueue getNextHL7InQueue() throws DAOException;
 	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#claimHL7InQueues(int)
+	 */
+	public List<HL7InQueue> claimHL7InQueues(int maxResults) throws DAOException;
+	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#releaseHL7InQueues(List)
+	 */
+	public int releaseHL7InQueues(List<Integer> hl7InQueueIds) throws DAOException;
+	
 	/**
 	 * @see org.openmrs.hl7.HL7Service#deleteHL7InQueue(org.openmrs.hl7.HL7InQueue)
 	 */
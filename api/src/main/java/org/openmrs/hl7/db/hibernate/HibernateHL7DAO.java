@@ -9,6 +9,7 @@
  */
 package org.openmrs.hl7.db.hibernate;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 
@@ -209,6 +210,57 @@ public class HibernateHL7DAO implements HL7DAO {
 		return (HL7InQueue) query.uniqueResult();
 	}
 	
+	/**
+	 * @see org.openmrs.hl7.db.HL7DAO#claimHL7InQueues(int)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<HL7InQueue> claimHL7InQueues(int maxResults) throws DAOException {
+		List<HL7InQueue> pending = sessionFactory.getCurrentSession().createQuery(
+		    "from HL7InQueue as hiq where hiq.messageState = :pending order by HL7InQueueId").setParameter("pending",
+		    HL7Constants.HL7_STATUS_PENDING).setMaxResults(maxResults).list();
+		
+		// the state is only changed if it is still pending, so an entry that another processor claimed
+		// in the meantime is skipped
+		Query claim = sessionFactory.getCurrentSession().createQuery(
+		    "update HL7InQueue set messageState = :processing where HL7InQueueId = :id and messageState = :pending")
+		        .setParameter("processing", HL7Constants.HL7_STATUS_PROCESSING).setParameter("pending",
+		            HL7Constants.HL7_STATUS_PENDING);
+		List<HL7InQueue> claimed = new ArrayList<HL7InQueue>(pending.size());
+		for (HL7InQueue hl7InQueue : pending) {
+			if (claim.setParameter("id", hl7InQueue.getHL7InQueueId()).executeUpdate() == 1) {
+				sessionFactory.getCurrentSession().refresh(hl7InQueue);
+				claimed.add(hl7InQueue);
+			} else {
+				sessionFactory.getCurrentSession().evict(hl7InQueue);
+			}
+		}
+		return claimed;
+	}
+	
+	/**
+	 * @see org.openmrs.hl7.db.HL7DAO#releaseHL7InQueues(List)
+	 */
+	@Override
+	public int releaseHL7InQueues(List<Integer> hl7InQueueIds) throws DAOException {
+		String hql = "update HL7InQueue set messageState = :pending where messageState = :processing";
+		if (hl7InQueueIds == null) {
+			return sessionFactory.getCurrentSession().createQuery(hql).setParameter("pending",
+			    HL7Constants.HL7_STATUS_PENDING).setParameter("processing", HL7Constants.HL7_STATUS_PROCESSING)
+			        .executeUpdate();
+		}
+		
+		// like claiming, releasing is done one item at a time so that any number of ids can be given
+		// whatever the database's limit on the size of an in clause
+		Query release = sessionFactory.getCurrentSession().createQuery(hql + " and HL7InQueueId = :id").setParameter(
+		    "pending", HL7Constants.HL7_STATUS_PENDING).setParameter("processing", HL7Constants.HL7_STATUS_PROCESSING);
+		int released = 0;
+		for (Integer hl7InQueueId : hl7InQueueIds) {
+			released += release.setParameter("id", hl7InQueueId).executeUpdate();
+		}
+		return released;
+	}
+	
 	/**
 	 * @see org.openmrs.hl7.db.HL7DAO#deleteHL7InQueue(org.openmrs.hl7.HL7InQueue)
 	 */
@@ -20,8 +20,11 @@ import java.util.regex.Pattern;
 
 import org.openmrs.Concept;
 import org.openmrs.ConceptAnswer;
+import org.openmrs.ConceptMap;
 import org.openmrs.ConceptName;
 import org.openmrs.ConceptProposal;
+import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.ConceptSource;
 import org.openmrs.Drug;
 import org.openmrs.Encounter;
 import org.openmrs.EncounterRole;
@@ -40,6 +43,7 @@ import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.hl7.HL7Constants;
 import org.openmrs.hl7.HL7InQueueProcessor;
+import org.openmrs.hl7.HL7LookupCache;
 import org.openmrs.hl7.HL7Service;
 import org.openmrs.obs.ComplexData;
 import org.openmrs.util.OpenmrsConstants;
@@ -959,6 +963,8 @@ public class ORUR01Handler implements Application {
 	 * @should return null if codingSystem not found
 	 * @should return a Concept if given local coding system
 	 * @should return a mapped Concept if given a valid mapping
+	 * @should use the cached concept id of a mapping while a lookup cache is bound
+	 * @should not use a cached concept id that is no longer mapped to the code
 	 */
 	protected Concept getConcept(String hl7ConceptId, String codingSystem, String uid) throws HL7Exception {
 		if (codingSystem == null || HL7Constants.HL7_LOCAL_CONCEPT.equals(codingSystem)) {
@@ -973,8 +979,41 @@ public class ORUR01Handler implements Application {
 			}
 		} else {
 			// the concept is not local, look it up in our mapping
-			return Context.getConceptService().getConceptByMapping(hl7ConceptId, codingSystem);
+			String cacheKey = codingSystem + "^" + hl7ConceptId;
+			Integer conceptId = HL7LookupCache.get(HL7LookupCache.CONCEPT, cacheKey);
+			if (conceptId != null) {
+				Concept concept = Context.getConceptService().getConcept(conceptId);
+				if (concept != null && isMappedTo(concept, hl7ConceptId, codingSystem)) {
+					return concept;
+				}
+				HL7LookupCache.evict(HL7LookupCache.CONCEPT, cacheKey);
+			}
+			
+			Concept concept = Context.getConceptService().getConceptByMapping(hl7ConceptId, codingSystem);
+			if (concept != null) {
+				HL7LookupCache.put(HL7LookupCache.CONCEPT, cacheKey, concept.getConceptId());
+			}
+			return concept;
+		}
+	}
+	
+	/**
+	 * @return true if the concept has a mapping with the given code in the given source, matched by
+	 *         name or hl7 code like {@link org.openmrs.api.ConceptService#getConceptByMapping(String, String)}
+	 *         does
+	 */
+	private boolean isMappedTo(Concept concept, String code, String sourceName) {
+		for (ConceptMap map : concept.getConceptMappings()) {
+			ConceptReferenceTerm term = map.getConceptReferenceTerm();
+			if (term != null && code.equalsIgnoreCase(term.getCode())) {
+				ConceptSource source = term.getConceptSource();
+				if (source != null && (sourceName.equalsIgnoreCase(source.getName()) || sourceName.equalsIgnoreCase(source
+				        .getHl7Code()))) {
+					return true;
+				}
+			}
 		}
+		return false;
 	}
 	
 	/**
@@ -1035,6 +1074,16 @@ public class ORUR01Handler implements Application {
 	
 	private Provider getProvider(PV1 pv1) throws HL7Exception {
 		XCN hl7Provider = pv1.getAttendingDoctor(0);
+		String cacheKey = HL7LookupCache.key(hl7Provider);
+		Integer providerId = HL7LookupCache.get(HL7LookupCache.PROVIDER, cacheKey);
+		if (providerId != null) {
+			Provider provider = Context.getProviderService().getProvider(providerId);
+			if (provider != null) {
+				return provider;
+			}
+			HL7LookupCache.evict(HL7LookupCache.PROVIDER, cacheKey);
+		}
+		
 		Provider provider = null;
 		String id = hl7Provider.getIDNumber().getValue();
 		String assignAuth = hl7Provider.getAssigningAuthority().getUniversalID().getValue();
@@ -1081,6 +1130,7 @@ public class ORUR01Handler implements Application {
 			throw new HL7Exception(errorMessage);
 		}
 		
+		HL7LookupCache.put(HL7LookupCache.PROVIDER, cacheKey, provider.getProviderId());
 		return provider;
 	}
 	
@@ -42,6 +42,7 @@ import org.openmrs.hl7.HL7Constants;
 import org.openmrs.hl7.HL7InArchive;
 import org.openmrs.hl7.HL7InError;
 import org.openmrs.hl7.HL7InQueue;
+import org.openmrs.hl7.HL7LookupCache;
 import org.openmrs.hl7.HL7QueueItem;
 import org.openmrs.hl7.HL7Service;
 import org.openmrs.hl7.HL7Source;
@@ -308,6 +309,22 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 		return dao.getNextHL7InQueue();
 	}
 	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#claimHL7InQueues(int)
+	 */
+	@Override
+	public List<HL7InQueue> claimHL7InQueues(int maxResults) throws APIException {
+		return dao.claimHL7InQueues(maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#releaseHL7InQueues(List)
+	 */
+	@Override
+	public int releaseHL7InQueues(List<Integer> hl7InQueueIds) throws APIException {
+		return dao.releaseHL7InQueues(hl7InQueueIds);
+	}
+	
 	/**
 	 * @see org.openmrs.hl7.HL7Service#getHL7InArchiveByState(java.lang.Integer)
 	 */
@@ -462,6 +479,12 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 			}
 		} else {
 			// log.debug("searching for user by name");
+			String cacheKey = HL7LookupCache.key(xcn.getGivenName(), xcn.getFamilyName());
+			Integer cachedUserId = HL7LookupCache.get(HL7LookupCache.USER, cacheKey);
+			if (cachedUserId != null && Context.getUserService().getUser(cachedUserId) != null) {
+				return cachedUserId;
+			}
+			HL7LookupCache.evict(HL7LookupCache.USER, cacheKey);
 			try {
 				List<User> users = Context.getUserService().getUsersByName(givenName,familyName,true);
 				if( users == null) {
@@ -469,6 +492,7 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 					return null;
 				}
 				else if( users.size() == 1){
+					HL7LookupCache.put(HL7LookupCache.USER, cacheKey, users.get(0).getUserId());
 					return users.get(0).getUserId();
 				}
 				else{
@@ -504,8 +528,16 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 				return null;
 			}
 		} else {
+			String cacheKey = HL7LookupCache.key(xcn.getGivenName(), xcn.getFamilyName());
+			Integer cachedPersonId = HL7LookupCache.get(HL7LookupCache.PERSON, cacheKey);
+			if (cachedPersonId != null && Context.getPersonService().getPerson(cachedPersonId) != null) {
+				return cachedPersonId;
+			}
+			HL7LookupCache.evict(HL7LookupCache.PERSON, cacheKey);
+			
 			List<Person> persons = Context.getPersonService().getPeople(givenName + " " + familyName, null);
 			if (persons.size() == 1) {
+				HL7LookupCache.put(HL7LookupCache.PERSON, cacheKey, persons.get(0).getPersonId());
 				return persons.get(0).getPersonId();
 			} else if (persons.isEmpty()) {
 				log.error("Couldn't find a person named " + givenName + " " + familyName);
@@ -547,12 +579,20 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 		}
 		
 		// Treat the 4th component "Facility" as location.name
+		String cacheKey = HL7LookupCache.key(pl.getFacility());
+		Integer cachedLocationId = HL7LookupCache.get(HL7LookupCache.LOCATION, cacheKey);
+		if (cachedLocationId != null && Context.getLocationService().getLocation(cachedLocationId) != null) {
+			return cachedLocationId;
+		}
+		HL7LookupCache.evict(HL7LookupCache.LOCATION, cacheKey);
 		try {
 			Location l = Context.getLocationService().getLocation(facility);
 			if (l == null) {
 				log.debug("Couldn't find a location named '" + facility + "'");
 			}
-			return l == null ? null : l.getLocationId();
+			Integer locationId = l == null ? null : l.getLocationId();
+			HL7LookupCache.put(HL7LookupCache.LOCATION, cacheKey, locationId);
+			return locationId;
 		}
 		catch (Exception ex) {
 			log.error("Error trying to treat PL.facility '" + facility + "' as a location.name", ex);
@@ -569,13 +609,52 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 	@Override
 	@Transactional(readOnly = true)
 	public Integer resolvePatientId(PID pid) throws HL7Exception {
+		String cacheKey = HL7LookupCache.key(pid.getPatientIdentifierList());
+		Integer cachedPatientId = HL7LookupCache.get(HL7LookupCache.PATIENT, cacheKey);
+		if (cachedPatientId != null) {
+			Patient patient = Context.getPatientService().getPatient(cachedPatientId);
+			if (patient != null && !patient.getVoided() && isIdentifiedBy(patient, pid.getPatientIdentifierList())) {
+				return cachedPatientId;
+			}
+			HL7LookupCache.evict(HL7LookupCache.PATIENT, cacheKey);
+		}
+		
 		Person p = resolvePersonFromIdentifiers(pid.getPatientIdentifierList());
 		if (p != null && p.isPatient()) {
+			HL7LookupCache.put(HL7LookupCache.PATIENT, cacheKey, p.getPersonId());
 			return p.getPersonId();
 		}
 		return null;
 	}
 	
+	/**
+	 * Checks that a patient still has one of the given identifiers, as they are interpreted by
+	 * {@link #resolvePersonFromIdentifiers(CX[])}, without querying for the other patients with it
+	 */
+	private boolean isIdentifiedBy(Patient patient, CX[] identifiers) {
+		for (CX identifier : identifiers) {
+			String hl7PersonId = identifier.getIDNumber().getValue();
+			String assigningAuthority = identifier.getAssigningAuthority().getNamespaceID().getValue();
+			if (StringUtils.isBlank(assigningAuthority) || HL7Constants.HL7_AUTHORITY_LOCAL.equals(assigningAuthority)) {
+				if (patient.getPatientId().toString().equals(hl7PersonId)) {
+					return true;
+				}
+			} else if (HL7Constants.HL7_AUTHORITY_UUID.equals(assigningAuthority)) {
+				if (patient.getUuid().equals(hl7PersonId)) {
+					return true;
+				}
+			} else {
+				for (PatientIdentifier patientIdentifier : patient.getActiveIdentifiers()) {
+					if (patientIdentifier.getIdentifier().equals(hl7PersonId)
+					        && patientIdentifier.getIdentifierType().getName().equals(assigningAuthority)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * @param identifiers CX identifier list from an identifier (either PID or NK1)
 	 * @return The internal id number of the Patient based on one of the given identifiers, or null
@@ -713,6 +792,29 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 			hl7InQueue.setMessageState(HL7Constants.HL7_STATUS_PROCESSING);
 		}
 		
+		return processHL7InQueueEntry(hl7InQueue);
+	}
+	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#processClaimedHL7InQueue(org.openmrs.hl7.HL7InQueue)
+	 */
+	@Override
+	public HL7InQueue processClaimedHL7InQueue(HL7InQueue hl7InQueue) throws HL7Exception {
+		
+		if (hl7InQueue == null) {
+			throw new HL7Exception("hl7InQueue argument cannot be null");
+		}
+		
+		if (!OpenmrsUtil.nullSafeEquals(HL7Constants.HL7_STATUS_PROCESSING, hl7InQueue.getMessageState())) {
+			throw new HL7Exception("The hl7InQueue message with id: " + hl7InQueue.getHL7InQueueId()
+			        + " was not claimed for processing. " + ",key=" + hl7InQueue.getHL7SourceKey() + ")");
+		}
+		
+		return processHL7InQueueEntry(hl7InQueue);
+	}
+	
+	private HL7InQueue processHL7InQueueEntry(HL7InQueue hl7InQueue) {
+		
 		if (log.isDebugEnabled()) {
 			log.debug("Processing HL7 inbound queue (id=" + hl7InQueue.getHL7InQueueId() + ",key="
 			        + hl7InQueue.getHL7SourceKey() + ")");
@@ -38,6 +38,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
@@ -57,6 +59,22 @@ public class ModuleClassLoader extends URLClassLoader {
 	
 	static Logger log = LoggerFactory.getLogger(ModuleClassLoader.class);
 	
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+	
+	/**
+	 * The maximum number of class names that a class loader remembers it does not provide, the names
+	 * are forgotten once there are more
+	 */
+	private static final int MAX_CLASSES_NOT_FOUND = 10000;
+	
+	/**
+	 * Incremented whenever a module is started or stopped, which invalidates the lookup state of all
+	 * module class loaders
+	 */
+	private static final AtomicInteger lookupGeneration = new AtomicInteger();
+	
 	private final Module module;
 	
 	private Module[] requiredModules;
@@ -69,6 +87,14 @@ public class ModuleClassLoader extends URLClassLoader {
 	
 	private Set<String> providedPackages = new LinkedHashSet<String>();
 	
+	/**
+	 * True if {@link #providedPackages} holds all the packages of this class loader, i.e. it was
+	 * built from jar files only
+	 */
+	private boolean providedPackagesComplete = false;
+	
+	private volatile LookupState lookupState;
+	
 	private boolean disposed = false;
 	
 	/**
@@ -127,8 +153,11 @@ public class ModuleClassLoader extends URLClassLoader {
 				}
 			}
 		} else {
+			providedPackagesComplete = true;
 			for (URL url : urls) {
-				providedPackages.addAll(ModuleUtil.getPackagesFromFile(OpenmrsUtil.url2file(url)));
+				File file = OpenmrsUtil.url2file(url);
+				providedPackagesComplete &= file.getName().endsWith(".jar");
+				providedPackages.addAll(ModuleUtil.getPackagesFromFile(file));
 			}
 		}
 	}
@@ -509,6 +538,7 @@ public class ModuleClassLoader extends URLClassLoader {
 		}
 		requiredModules = collectRequiredModuleImports(getModule());
 		awareOfModules = collectAwareOfModuleImports(getModule());
+		lookupState = null;
 		for (Iterator<Map.Entry<URI, File>> it = libraryCache.entrySet().iterator(); it.hasNext();) {
 			if (it.next().getValue() == null) {
 				it.remove();
@@ -530,6 +560,7 @@ public class ModuleClassLoader extends URLClassLoader {
 		libraryCache.clear();
 		requiredModules = null;
 		awareOfModules = null;
+		lookupState = null;
 		disposed = true;
 	}
 	
@@ -587,7 +618,9 @@ public class ModuleClassLoader extends URLClassLoader {
 	
 	/**
 	 * Custom loadClass implementation to allow for loading from a given ModuleClassLoader and skip
-	 * the modules that have been tried already
+	 * the modules that have been tried already. The class is looked up in this module and then in
+	 * the modules it requires or is aware of, directly or through other modules, skipping the modules
+	 * that do not provide the package of the class.
 	 * 
 	 * @param name String path and name of the class to load
 	 * @param resolve boolean whether or not to resolve this class before returning
@@ -595,8 +628,10 @@ public class ModuleClassLoader extends URLClassLoader {
 	 * @param seenModules Set&lt;String&gt; moduleIds that have been tried already
 	 * @return Class that has been loaded
 	 * @throws ClassNotFoundException if no class found
+	 * @should load a class from a required module
+	 * @should fail for a class that no module provides
 	 */
-	protected synchronized Class<?> loadClass(final String name, final boolean resolve, final ModuleClassLoader requestor,
+	protected Class<?> loadClass(final String name, final boolean resolve, final ModuleClassLoader requestor,
 	        Set<String> seenModules) throws ClassNotFoundException {
 		
 		if (log.isTraceEnabled()) {
@@ -628,18 +663,8 @@ public class ModuleClassLoader extends URLClassLoader {
 			throw new ClassNotFoundException(msg);
 		}
 		
-		// Check if the class has already been loaded by this class loader
-		Class<?> result = findLoadedClass(name);
-		
-		// Try loading the class with this class loader 
-		if (result == null) {
-			try {
-				result = findClass(name);
-			}
-			catch (ClassNotFoundException e) {
-				// Continue trying...
-			}
-		}
+		// Try loading the class with this class loader
+		Class<?> result = findOwnClass(name);
 		
 		// We were able to "find" a class
 		if (result != null) {
@@ -650,43 +675,123 @@ public class ModuleClassLoader extends URLClassLoader {
 		
 		// Look through this module's imports to see if the class
 		// can be loaded from them.
-		
-		if (seenModules == null) {
-			seenModules = new HashSet<String>();
+		String packageName = StringUtils.substringBeforeLast(name, ".");
+		for (ModuleClassLoader moduleClassLoader : getLookupState().importedModuleClassLoaders) {
+			Module importedModule = moduleClassLoader.getModule();
+			if ((seenModules != null && seenModules.contains(importedModule.getModuleId()))
+			        || !moduleClassLoader.mayProvidePackage(packageName) || !ModuleFactory.isModuleStarted(importedModule)) {
+				continue;
+			}
+			
+			result = moduleClassLoader.findOwnClass(name);
+			if (result != null) {
+				moduleClassLoader.checkClassVisibility(result, requestor);
+				
+				return result;
+			}
 		}
 		
-		// Add this module to the list of modules we've tried already
+		throw new ClassNotFoundException(name);
+	}
+	
+	/**
+	 * Loads a class from the urls of this class loader only
+	 * 
+	 * @param name the name of the class
+	 * @return the class or null if this class loader does not provide it
+	 */
+	private Class<?> findOwnClass(final String name) {
+		synchronized (getClassLoadingLock(name)) {
+			// Check if the class has already been loaded by this class loader
+			Class<?> result = findLoadedClass(name);
+			if (result != null) {
+				return result;
+			}
+			
+			LookupState state = getLookupState();
+			if (state.classesNotFound.contains(name)) {
+				return null;
+			}
+			
+			try {
+				return findClass(name);
+			}
+			catch (ClassNotFoundException e) {
+				if (state.classesNotFound.size() >= MAX_CLASSES_NOT_FOUND) {
+					state.classesNotFound.clear();
+				}
+				state.classesNotFound.add(name);
+				return null;
+			}
+		}
+	}
+	
+	/**
+	 * @param packageName the name of a package
+	 * @return false if this class loader is known not to provide the package
+	 */
+	private boolean mayProvidePackage(String packageName) {
+		return !providedPackagesComplete || providedPackages.contains(packageName);
+	}
+	
+	/**
+	 * Gets the imported module class loaders and the classes not found by this class loader,
+	 * rebuilding them if a module was started or stopped since they were last built
+	 */
+	private LookupState getLookupState() {
+		LookupState state = lookupState;
+		int generation = lookupGeneration.get();
+		if (state == null || state.generation != generation) {
+			state = new LookupState(generation, collectImportedModuleClassLoaders());
+			lookupState = state;
+		}
+		return state;
+	}
+	
+	/**
+	 * Collects the class loaders of the modules this module requires or is aware of, and of the
+	 * modules that those modules import in turn, in the order they are searched for classes
+	 */
+	private List<ModuleClassLoader> collectImportedModuleClassLoaders() {
+		List<ModuleClassLoader> result = new ArrayList<ModuleClassLoader>();
+		Set<String> seenModules = new HashSet<String>();
 		seenModules.add(getModule().getModuleId());
-		
+		collectImportedModuleClassLoaders(this, seenModules, result);
+		return Collections.unmodifiableList(result);
+	}
+	
+	private static void collectImportedModuleClassLoaders(ModuleClassLoader moduleClassLoader, Set<String> seenModules,
+	        List<ModuleClassLoader> result) {
 		List<Module> importedModules = new ArrayList<Module>();
-		if (requiredModules != null) {
-			Collections.addAll(importedModules, requiredModules);
+		Module[] required = moduleClassLoader.requiredModules;
+		if (required != null) {
+			Collections.addAll(importedModules, required);
 		}
-		if (awareOfModules != null) {
-			Collections.addAll(importedModules, awareOfModules);
+		Module[] awareOf = moduleClassLoader.awareOfModules;
+		if (awareOf != null) {
+			Collections.addAll(importedModules, awareOf);
 		}
 		
 		for (Module importedModule : importedModules) {
-			if (seenModules.contains(importedModule.getModuleId())) {
+			if (!seenModules.add(importedModule.getModuleId())) {
 				continue;
 			}
 			
-			ModuleClassLoader moduleClassLoader = ModuleFactory.getModuleClassLoader(importedModule);
-			
 			// Module class loader may be null if module has not been started yet
-			if (moduleClassLoader != null) {
-				try {
-					result = moduleClassLoader.loadClass(name, resolve, requestor, seenModules);
-					
-					return result;
-				}
-				catch (ClassNotFoundException e) {
-					// Continue trying...
-				}
+			ModuleClassLoader importedModuleClassLoader = ModuleFactory.getModuleClassLoader(importedModule);
+			if (importedModuleClassLoader != null) {
+				result.add(importedModuleClassLoader);
+				collectImportedModuleClassLoaders(importedModuleClassLoader, seenModules, result);
 			}
 		}
-		
-		throw new ClassNotFoundException(name);
+	}
+	
+	/**
+	 * Drops the imported module class loaders and the classes not found that all module class
+	 * loaders remember, needs to be called whenever a module is started or stopped
+	 */
+	static void invalidateLookupState() {
+		lookupGeneration.incrementAndGet();
 	}
 	
 	/**
@@ -1100,4 +1205,22 @@ public class ModuleClassLoader extends URLClassLoader {
 		return "{ModuleClassLoader: uid=" + System.identityHashCode(this) + "; " + module + "}";
 	}
 	
+	/**
+	 * What a module class loader remembers between class lookups until a module is started or
+	 * stopped
+	 */
+	private static class LookupState {
+		
+		private final int generation;
+		
+		private final List<ModuleClassLoader> importedModuleClassLoaders;
+		
+		private final Set<String> classesNotFound = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		
+		private LookupState(int generation, List<ModuleClassLoader> importedModuleClassLoaders) {
+			this.generation = generation;
+			this.importedModuleClassLoaders = importedModuleClassLoaders;
+		}
+	}
+	
 }
@@ -69,6 +69,15 @@ public class ModuleConstants {
 	 */
 	public static final String RUNTIMEPROPERTY_MODULE_LIST_TO_LOAD = "module.list_to_load";
 	
+	/**
+	 * The number of threads to start the modules with at application startup, modules that do not
+	 * depend on each other are started in parallel if greater than 1. Defaults to 1, i.e. the
+	 * modules are started one after the other.
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String RUNTIMEPROPERTY_MODULE_STARTUP_THREADS = "module.startup_threads";
+	
 	/**
 	 * Name of the runtime property that will tell the system where to look for modules to load. Can
 	 * be either relative or absolute
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +32,12 @@ import java.util.SortedMap;
 import java.util.Vector;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 
@@ -42,6 +49,7 @@ import org.openmrs.api.AdministrationService;
 import org.openmrs.api.OpenmrsService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.Daemon;
+import org.openmrs.api.context.UserContext;
 import org.openmrs.module.Extension.MEDIA_TYPE;
 import org.openmrs.util.CycleException;
 import org.openmrs.util.DatabaseUpdateException;
@@ -65,14 +73,17 @@ public class ModuleFactory {
 	
 	private static Logger log = LoggerFactory.getLogger(ModuleFactory.class);
 	
-	protected static volatile Map<String, Module> loadedModules = new WeakHashMap<String, Module>();
+	protected static volatile Map<String, Module> loadedModules = Collections
+	        .synchronizedMap(new WeakHashMap<String, Module>());
 	
-	protected static volatile Map<String, Module> startedModules = new WeakHashMap<String, Module>();
+	protected static volatile Map<String, Module> startedModules = Collections
+	        .synchronizedMap(new WeakHashMap<String, Module>());
 	
 	protected static volatile Map<String, List<Extension>> extensionMap = new HashMap<String, List<Extension>>();
 	
 	// maps to keep track of the memory and objects to free/close
-	protected static volatile Map<Module, ModuleClassLoader> moduleClassLoaders = new WeakHashMap<Module, ModuleClassLoader>();
+	protected static volatile Map<Module, ModuleClassLoader> moduleClassLoaders = Collections
+	        .synchronizedMap(new WeakHashMap<Module, ModuleClassLoader>());
 	
 	private static Map<String, Set<ModuleClassLoader>> providedPackages = new ConcurrentHashMap<String, Set<ModuleClassLoader>>();
 	
@@ -83,6 +94,10 @@ public class ModuleFactory {
 	
 	private static volatile Set<String> actualStartupOrder;
 	
+	/** The time in milliseconds it took to start each module, in the order they were started */
+	private static final Map<String, Long> moduleStartupTimes = Collections
+	        .synchronizedMap(new LinkedHashMap<String, Long>());
+	
 	/**
 	 * Add a module (in the form of a jar file) to the list of openmrs modules Returns null if an
 	 * error occurred and/or module was not successfully loaded
@@ -223,7 +238,10 @@ public class ModuleFactory {
 	 * Try to start all of the loaded modules that have the global property <i>moduleId</i>.started
 	 * is set to "true" or the property does not exist. Otherwise, leave it as only "loaded"<br>
 	 * <br>
-	 * Modules that are already started will be skipped.
+	 * Modules that are already started will be skipped. If the
+	 * {@link ModuleConstants#RUNTIMEPROPERTY_MODULE_STARTUP_THREADS} runtime property is greater
+	 * than 1, the modules are started level by level of the dependency graph, the modules of one
+	 * level are started in parallel after all the modules of the previous levels were started.
 	 */
 	public static void startModules() {
 		
@@ -242,35 +260,200 @@ public class ModuleFactory {
 				modules = (List<Module>)ex.getExtraData();
 			}
 			
-			// try and start the modules that should be started
-			for (Module mod : modules) {
-				
-				if (mod.isStarted()) {
-					continue; // skip over modules that are already started
+			long start = System.currentTimeMillis();
+			int threads = getModuleStartupThreads();
+			if (threads > 1) {
+				startModulesInParallel(modules, threads);
+			} else {
+				// try and start the modules that should be started
+				for (Module mod : modules) {
+					startModuleAtStartup(mod);
 				}
-				
-				// Skip module if required ones are not started
-				if (!requiredModulesStarted(mod)) {
-					String message = getFailedToStartModuleMessage(mod);
-					log.error(message);
-					mod.setStartupErrorMessage(message);
-					notifySuperUsersAboutModuleFailure(mod);
-					continue;
+			}
+			
+			log.info("Started the modules in " + (System.currentTimeMillis() - start) + " ms");
+		}
+	}
+	
+	/**
+	 * Starts the given modules with a pool of threads, each level of the dependency graph is started
+	 * once the previous one is done
+	 * 
+	 * @param modules the modules in startup order
+	 * @param threads the number of threads to start the modules with
+	 */
+	private static void startModulesInParallel(List<Module> modules, int threads) {
+		List<List<Module>> levels = getModulesByStartupLevel(modules);
+		log.info("Starting " + modules.size() + " modules in " + levels.size() + " levels with " + threads + " threads");
+		
+		final UserContext userContext = Context.getUserContext();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ModuleStartupThreadFactory());
+		try {
+			for (List<Module> level : levels) {
+				Map<Module, Future<?>> futures = new LinkedHashMap<Module, Future<?>>();
+				for (final Module mod : level) {
+					futures.put(mod, executor.submit(new Runnable() {
+						
+						@Override
+						public void run() {
+							Context.openSession();
+							try {
+								Context.setUserContext(userContext);
+								startModuleAtStartup(mod);
+							}
+							finally {
+								Context.closeSession();
+							}
+						}
+					}));
 				}
 				
-				try {
-					if (log.isDebugEnabled()) {
-						log.debug("starting module: " + mod.getModuleId());
+				// wait for the whole level, the next one may depend on any of its modules
+				for (Map.Entry<Module, Future<?>> future : futures.entrySet()) {
+					try {
+						future.getValue().get();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					catch (ExecutionException e) {
+						// startModuleAtStartup reports exceptions itself, so this is an error
+						Module mod = future.getKey();
+						log.error("Error while starting module: " + mod.getName(), e.getCause());
+						mod.setStartupErrorMessage("Error while starting module", e.getCause());
+						notifySuperUsersAboutModuleFailure(mod);
 					}
-					startModule(mod);
 				}
-				catch (Exception e) {
-					log.error("Error while starting module: " + mod.getName(), e);
-					mod.setStartupErrorMessage("Error while starting module", e);
-					notifySuperUsersAboutModuleFailure(mod);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Creates the named threads that start modules in parallel
+	 */
+	private static class ModuleStartupThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "OpenMRS Module Startup " + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+	
+	/**
+	 * Groups modules by their level in the dependency graph, a module is one level after the last
+	 * of the given modules that it requires or is aware of. Modules of the same level do not depend
+	 * on each other and can be started in parallel.
+	 * 
+	 * @param modules the modules in startup order
+	 * @return the modules of each level, in startup order
+	 * @should put modules that do not depend on each other in the same level
+	 * @should put a module one level after the last module it depends on
+	 */
+	static List<List<Module>> getModulesByStartupLevel(List<Module> modules) {
+		Map<String, Integer> levelsByPackage = new HashMap<String, Integer>();
+		List<List<Module>> levels = new ArrayList<List<Module>>();
+		for (Module mod : modules) {
+			List<String> dependencies = new ArrayList<String>();
+			if (mod.getRequiredModules() != null) {
+				dependencies.addAll(mod.getRequiredModules());
+			}
+			if (mod.getAwareOfModules() != null) {
+				dependencies.addAll(mod.getAwareOfModules());
+			}
+			
+			int level = 0;
+			for (String dependency : dependencies) {
+				Integer dependencyLevel = levelsByPackage.get(dependency);
+				if (dependencyLevel != null) {
+					level = Math.max(level, dependencyLevel + 1);
 				}
-			}		
+			}
+			levelsByPackage.put(mod.getPackageName(), level);
+			
+			if (level == levels.size()) {
+				levels.add(new ArrayList<Module>());
+			}
+			levels.get(level).add(mod);
 		}
+		return levels;
+	}
+	
+	/**
+	 * Starts a module at application startup unless it is started already, failures are reported
+	 * to the super users instead of being thrown
+	 * 
+	 * @param mod the module to start
+	 */
+	private static void startModuleAtStartup(Module mod) {
+		if (mod.isStarted()) {
+			return; // skip over modules that are already started
+		}
+		
+		try {
+			// Skip module if required ones are not started
+			if (!requiredModulesStarted(mod)) {
+				String message = getFailedToStartModuleMessage(mod);
+				log.error(message);
+				mod.setStartupErrorMessage(message);
+				notifySuperUsersAboutModuleFailure(mod);
+				return;
+			}
+			
+			if (log.isDebugEnabled()) {
+				log.debug("starting module: " + mod.getModuleId());
+			}
+			long start = System.currentTimeMillis();
+			startModule(mod);
+			if (mod.isStarted()) {
+				long time = System.currentTimeMillis() - start;
+				moduleStartupTimes.put(mod.getModuleId(), time);
+				log.info("Started module " + mod.getModuleId() + " in " + time + " ms");
+			}
+		}
+		catch (Exception e) {
+			log.error("Error while starting module: " + mod.getName(), e);
+			mod.setStartupErrorMessage("Error while starting module", e);
+			notifySuperUsersAboutModuleFailure(mod);
+		}
+	}
+	
+	/**
+	 * Returns the time it took to start each of the modules that were started at application
+	 * startup
+	 * 
+	 * @return map&lt;ModuleId, milliseconds&gt; in the order the modules were started
+	 * @since 2.2.0
+	 */
+	public static Map<String, Long> getModuleStartupTimes() {
+		synchronized (moduleStartupTimes) {
+			return new LinkedHashMap<String, Long>(moduleStartupTimes);
+		}
+	}
+	
+	/**
+	 * @return the value of the {@link ModuleConstants#RUNTIMEPROPERTY_MODULE_STARTUP_THREADS}
+	 *         runtime property, 1 if it is not set or invalid
+	 */
+	private static int getModuleStartupThreads() {
+		String threads = Context.getRuntimeProperties().getProperty(ModuleConstants.RUNTIMEPROPERTY_MODULE_STARTUP_THREADS);
+		if (StringUtils.hasText(threads)) {
+			try {
+				return Math.max(1, Integer.parseInt(threads.trim()));
+			}
+			catch (NumberFormatException e) {
+				log.warn("Invalid value for the runtime property " + ModuleConstants.RUNTIMEPROPERTY_MODULE_STARTUP_THREADS
+				        + ": " + threads);
+			}
+		}
+		return 1;
 	}
 	
 	/**
@@ -446,11 +629,7 @@ public class ModuleFactory {
 	 * @return <code>Collection&lt;Module&gt;</code> of the modules loaded into the system
 	 */
 	public static Collection<Module> getLoadedModules() {
-		if (getLoadedModulesMap().size() > 0) {
-			return getLoadedModulesMap().values();
-		}
-		
-		return Collections.emptyList();
+		return copyValues(getLoadedModulesMap());
 	}
 	
 	/**
@@ -461,7 +640,7 @@ public class ModuleFactory {
 	 */
 	public static Map<String, Module> getLoadedModulesMap() {
 		if (loadedModules == null) {
-			loadedModules = new WeakHashMap<String, Module>();
+			loadedModules = Collections.synchronizedMap(new WeakHashMap<String, Module>());
 		}
 		
 		return loadedModules;
@@ -475,13 +654,13 @@ public class ModuleFactory {
 	 */
 	public static Map<String, Module> getLoadedModulesMapPackage() {
 		if (loadedModules == null) {
-			loadedModules = new WeakHashMap<String, Module>();
+			loadedModules = Collections.synchronizedMap(new WeakHashMap<String, Module>());
 			return loadedModules;
 		}
 		
 		Map<String, Module> map = new WeakHashMap<String, Module>();
-		for (String key : loadedModules.keySet()) {
-			map.put(loadedModules.get(key).getPackageName(), loadedModules.get(key));
+		for (Module module : getLoadedModules()) {
+			map.put(module.getPackageName(), module);
 		}
 		return map;
 	}
@@ -489,14 +668,28 @@ public class ModuleFactory {
 	/**
 	 * Returns the modules that have been successfully started
 	 * 
-	 * @return <code>Collection&lt;Module&gt;</code> of the started modules
+	 * @return <code>Collection&lt;Module&gt;</code> of the started modules, a copy that does not
+	 *         change when modules are started or stopped
+	 * @should return a copy of the started modules
 	 */
 	public static Collection<Module> getStartedModules() {
-		if (getStartedModulesMap().size() > 0) {
-			return getStartedModulesMap().values();
+		return copyValues(getStartedModulesMap());
+	}
+	
+	/**
+	 * Copies the values of one of the synchronized module maps while holding its lock, since
+	 * modules may be started on several threads while others iterate over the modules
+	 * 
+	 * @param map the map
+	 * @return a copy of the values, or an empty list
+	 */
+	private static <K, V> Collection<V> copyValues(Map<K, V> map) {
+		synchronized (map) {
+			if (map.isEmpty()) {
+				return Collections.emptyList();
+			}
+			return new ArrayList<V>(map.values());
 		}
-		
-		return Collections.emptyList();
 	}
 	
 	public static List<Module> getStartedModulesInOrder() {
@@ -519,7 +712,7 @@ public class ModuleFactory {
 	 */
 	public static Map<String, Module> getStartedModulesMap() {
 		if (startedModules == null) {
-			startedModules = new WeakHashMap<String, Module>();
+			startedModules = Collections.synchronizedMap(new WeakHashMap<String, Module>());
 		}
 		
 		return startedModules;
@@ -571,7 +764,7 @@ public class ModuleFactory {
 	 * @return Module matching module package or null if none
 	 */
 	public static Module getModuleByPackage(String modulePackage) {
-		for (Module mod : getLoadedModulesMap().values()) {
+		for (Module mod : getLoadedModules()) {
 			if (mod.getPackageName().equals(modulePackage)) {
 				return mod;
 			}
@@ -722,20 +915,23 @@ public class ModuleFactory {
 						return Integer.valueOf(e1.getOrder()).compareTo(Integer.valueOf(e2.getOrder()));
 					}
 				};
-				for (Map.Entry<String, List<Extension>> moduleExtensionEntry : moduleExtensionMap.entrySet()) {
-					// Sort this module's extensions for current extension point
-					List<Extension> sortedModuleExtensions = moduleExtensionEntry.getValue();
-					Collections.sort(sortedModuleExtensions, sortOrder);
-					
-					// Get existing extensions, and append the ones from the new module
-					List<Extension> extensions = getExtensionMap().get(moduleExtensionEntry.getKey());
-					if (extensions == null) {
-						extensions = new Vector<Extension>();
-						getExtensionMap().put(moduleExtensionEntry.getKey(), extensions);
-					}
-					for (Extension ext : sortedModuleExtensions) {
-						log.debug("Adding to mapping ext: " + ext.getExtensionId() + " ext.class: " + ext.getClass());
-						extensions.add(ext);
+				// modules of the same dependency level may be started in parallel
+				synchronized (ModuleFactory.class) {
+					for (Map.Entry<String, List<Extension>> moduleExtensionEntry : moduleExtensionMap.entrySet()) {
+						// Sort this module's extensions for current extension point
+						List<Extension> sortedModuleExtensions = moduleExtensionEntry.getValue();
+						Collections.sort(sortedModuleExtensions, sortOrder);
+						
+						// Get existing extensions, and append the ones from the new module
+						List<Extension> extensions = getExtensionMap().get(moduleExtensionEntry.getKey());
+						if (extensions == null) {
+							extensions = new Vector<Extension>();
+							getExtensionMap().put(moduleExtensionEntry.getKey(), extensions);
+						}
+						for (Extension ext : sortedModuleExtensions) {
+							log.debug("Adding to mapping ext: " + ext.getExtensionId() + " ext.class: " + ext.getClass());
+							extensions.add(ext);
+						}
 					}
 				}
 				
@@ -770,10 +966,12 @@ public class ModuleFactory {
 				
 				// effectively mark this module as started successfully
 				getStartedModulesMap().put(moduleId, module);
-				if (actualStartupOrder == null) {
-					actualStartupOrder = new LinkedHashSet<String>();
+				synchronized (ModuleFactory.class) {
+					if (actualStartupOrder == null) {
+						actualStartupOrder = new LinkedHashSet<String>();
+					}
+					actualStartupOrder.add(moduleId);
 				}
-				actualStartupOrder.add(moduleId);
 				
 				try {
 					// save the state of this module for future restarts
@@ -798,7 +996,9 @@ public class ModuleFactory {
 				// done at initial app startup)
 				if (!module.getPrivileges().isEmpty() || !module.getGlobalProperties().isEmpty()) {
 					log.debug("Updating core dataset");
-					Context.checkCoreDataset();
+					synchronized (ModuleFactory.class) {
+						Context.checkCoreDataset();
+					}
 					// checkCoreDataset() currently doesn't throw an error. If
 					// it did, it needs to be
 					// caught and the module needs to be stopped and given a
@@ -867,6 +1067,7 @@ public class ModuleFactory {
 			newSet.add(moduleClassLoader);
 			providedPackages.put(providedPackage, newSet);
 		}
+		ModuleClassLoader.invalidateLookupState();
 	}
 	
 	private static void unregisterProvidedPackages(ModuleClassLoader moduleClassLoader) {
@@ -881,14 +1082,21 @@ public class ModuleFactory {
 			
 			providedPackages.put(providedPackage, newSet);
 		}
+		ModuleClassLoader.invalidateLookupState();
 	}
 	
+	/**
+	 * @param packageName the name of a package
+	 * @return the class loaders of the started modules that provide the package, the returned set
+	 *         cannot be modified
+	 */
 	public static Set<ModuleClassLoader> getModuleClassLoadersForPackage(String packageName) {
 		Set<ModuleClassLoader> set = providedPackages.get(packageName);
 		if (set == null) {
 			return Collections.emptySet();
 		} else {
-			return new HashSet<ModuleClassLoader>(set);
+			// the sets are never changed once they are in the map, they are replaced instead
+			return Collections.unmodifiableSet(set);
 		}
 	}
 	
@@ -1159,10 +1367,12 @@ public class ModuleFactory {
 			}
 			
 			getStartedModulesMap().remove(moduleId);
-			if (actualStartupOrder != null) {
-				actualStartupOrder.remove(moduleId);
-				for (Module depModule : dependentModulesStopped) {
-					actualStartupOrder.remove(depModule.getModuleId());
+			synchronized (ModuleFactory.class) {
+				if (actualStartupOrder != null) {
+					actualStartupOrder.remove(moduleId);
+					for (Module depModule : dependentModulesStopped) {
+						actualStartupOrder.remove(depModule.getModuleId());
+					}
 				}
 			}
 			
@@ -1285,7 +1495,9 @@ public class ModuleFactory {
 			log.warn("Module: " + mod.getModuleId() + " does not exist");
 		}
 		
-		return moduleClassLoaders.remove(mod);
+		ModuleClassLoader moduleClassLoader = moduleClassLoaders.remove(mod);
+		ModuleClassLoader.invalidateLookupState();
+		return moduleClassLoader;
 	}
 	
 	/**
@@ -1300,7 +1512,7 @@ public class ModuleFactory {
 		}
 		
 		// remove from list of loaded modules
-		getLoadedModules().remove(mod);
+		getLoadedModulesMap().values().remove(mod);
 		
 		if (mod != null) {
 			// remove the file from the module repository
@@ -1475,12 +1687,7 @@ public class ModuleFactory {
 	 * @return Collection&lt;ModuleClassLoader&gt; all known module classloaders or empty list.
 	 */
 	public static Collection<ModuleClassLoader> getModuleClassLoaders() {
-		Map<Module, ModuleClassLoader> classLoaders = getModuleClassLoaderMap();
-		if (classLoaders.size() > 0) {
-			return classLoaders.values();
-		}
-		
-		return Collections.emptyList();
+		return copyValues(getModuleClassLoaderMap());
 	}
 	
 	/**
@@ -1490,7 +1697,7 @@ public class ModuleFactory {
 	 */
 	public static Map<Module, ModuleClassLoader> getModuleClassLoaderMap() {
 		if (moduleClassLoaders == null) {
-			moduleClassLoaders = new WeakHashMap<Module, ModuleClassLoader>();
+			moduleClassLoaders = Collections.synchronizedMap(new WeakHashMap<Module, ModuleClassLoader>());
 		}
 		
 		return moduleClassLoaders;
@@ -1714,7 +1921,10 @@ public class ModuleFactory {
 		List<String> dependentModules = null;
 		Module module = getModuleById(moduleId);
 		
-		Map<String, Module> startedModules = getStartedModulesMap();
+		Map<String, Module> startedModules;
+		synchronized (getStartedModulesMap()) {
+			startedModules = new HashMap<String, Module>(getStartedModulesMap());
+		}
 		String modulePackage = module.getPackageName();
 		
 		for (Entry<String, Module> entry : startedModules.entrySet()) {
@@ -994,7 +994,7 @@ public class ModuleUtil {
 		// make a copy of the constant so we can modify the list
 		Map<String, String> coreModules = new HashMap<String, String>(ModuleConstants.CORE_MODULES);
 		
-		Collection<Module> startedModules = ModuleFactory.getStartedModulesMap().values();
+		Collection<Module> startedModules = ModuleFactory.getStartedModules();
 		
 		// loop through the current modules and test them
 		for (Module mod : startedModules) {
@@ -0,0 +1,152 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.obs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The data of a {@link ComplexData} returned for the {@link ComplexObsHandler#STREAM_VIEW}. It
+ * gives access to the stored file of a complex obs without reading it into memory, nothing is
+ * opened until one of the open methods is called and each call opens the file anew, so the caller
+ * is responsible for closing what it gets. Ranges of the file can be read on their own, e.g. to
+ * serve partial content.
+ *
+ * @since 2.2.0
+ */
+public class ComplexDataStream {
+	
+	private final File file;
+	
+	private final long length;
+	
+	/**
+	 * @param file the stored file of the complex obs
+	 */
+	public ComplexDataStream(File file) {
+		this.file = file;
+		this.length = file.length();
+	}
+	
+	/**
+	 * @return the number of bytes in the stored file
+	 */
+	public long getLength() {
+		return length;
+	}
+	
+	/**
+	 * Opens a stream over the whole stored file
+	 *
+	 * @return a new input stream that the caller must close
+	 * @throws IOException if the file cannot be opened
+	 * @should read the whole file
+	 */
+	public InputStream openStream() throws IOException {
+		return openStream(0, length);
+	}
+	
+	/**
+	 * Opens a stream over a range of the stored file
+	 *
+	 * @param offset the position of the first byte to read
+	 * @param count the maximum number of bytes to read, the stream ends earlier if the file does
+	 * @return a new input stream that the caller must close
+	 * @throws IOException if the file cannot be opened
+	 * @should read only the given range
+	 * @should fail if the offset is negative or beyond the end of the file
+	 */
+	public InputStream openStream(long offset, long count) throws IOException {
+		if (offset < 0 || offset > length || count < 0) {
+			throw new IllegalArgumentException("Invalid range " + offset + "+" + count + " of a file of " + length
+			        + " bytes");
+		}
+		FileChannel channel = openChannel();
+		try {
+			channel.position(offset);
+		}
+		catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return new RangeInputStream(channel, count);
+	}
+	
+	/**
+	 * Opens a channel over the stored file, it can be positioned at any offset or used to map a
+	 * region of the file into memory
+	 *
+	 * @return a new read only channel that the caller must close
+	 * @throws IOException if the file cannot be opened
+	 */
+	public FileChannel openChannel() throws IOException {
+		return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+	
+	/**
+	 * Reads at most a given number of bytes from a channel and closes the channel when closed
+	 */
+	private static class RangeInputStream extends InputStream {
+		
+		private final FileChannel channel;
+		
+		private long remaining;
+		
+		private RangeInputStream(FileChannel channel, long count) {
+			this.channel = channel;
+			this.remaining = count;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			int read = read(b, 0, 1);
+			return read == -1 ? -1 : b[0] & 0xff;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (remaining <= 0) {
+				return -1;
+			}
+			int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)));
+			if (read > 0) {
+				remaining -= read;
+			}
+			return read;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = Math.max(0, Math.min(n, Math.min(remaining, channel.size() - channel.position())));
+			channel.position(channel.position() + skipped);
+			remaining -= skipped;
+			return skipped;
+		}
+		
+		@Override
+		public int available() throws IOException {
+			long available = Math.min(remaining, channel.size() - channel.position());
+			return (int) Math.max(0, Math.min(Integer.MAX_VALUE, available));
+		}
+		
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -44,6 +44,14 @@ public interface ComplexObsHandler {
 	
 	public static final String URI_VIEW = "URI_VIEW";
 	
+	/**
+	 * View with a {@link ComplexDataStream} as data, the length and MIME type of the complex data are
+	 * set without reading it
+	 *
+	 * @since 2.2.0
+	 */
+	public static final String STREAM_VIEW = "STREAM_VIEW";
+	
 	/**
 	 * Save a complex obs. This extracts the ComplexData from an Obs, stores it to a location
 	 * determined by the handler, and returns the Obs with the ComplexData nullified.
@@ -20,6 +20,8 @@ import org.apache.commons.lang.StringUtils;
 import org.openmrs.Obs;
 import org.openmrs.api.context.Context;
 import org.openmrs.obs.ComplexData;
+import org.openmrs.obs.ComplexDataStream;
+import org.openmrs.obs.ComplexObsHandler;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
 import org.slf4j.Logger;
@@ -139,6 +141,31 @@ public class AbstractHandler {
 		return obs;
 	}
 	
+	/**
+	 * Attaches a {@link ComplexDataStream} over the stored file of the given obs as its complex data,
+	 * for the {@link ComplexObsHandler#STREAM_VIEW}. The file is not opened, only its length is read.
+	 * If the file does not exist the complex data is left null.
+	 *
+	 * @param obs the complex obs
+	 * @param title the title of the complex data
+	 * @param mimeType the MIME type of the complex data
+	 * @return the obs with the complex data filled in
+	 * @since 2.2.0
+	 */
+	protected Obs getStreamingObs(Obs obs, String title, String mimeType) {
+		File file = getComplexDataFile(obs);
+		if (file.exists()) {
+			ComplexDataStream stream = new ComplexDataStream(file);
+			ComplexData complexData = new ComplexData(title, stream);
+			complexData.setMimeType(mimeType);
+			complexData.setLength(stream.getLength());
+			obs.setComplexData(complexData);
+		} else {
+			log.error("Unable to find file associated with complex obs " + obs.getId() + " at " + file.getAbsolutePath());
+		}
+		return obs;
+	}
+	
 	/**
 	 * @see org.openmrs.obs.ComplexObsHandler#purgeComplexData(org.openmrs.Obs)
 	 */
@@ -32,7 +32,7 @@ import org.springframework.util.Assert;
 public class BinaryDataHandler extends AbstractHandler implements ComplexObsHandler {
 	
 	/** Views supported by this handler */
-	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, };
+	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.STREAM_VIEW };
 	
 	public static final Logger log = LoggerFactory.getLogger(BinaryDataHandler.class);
 	
@@ -47,6 +47,7 @@ public class BinaryDataHandler extends AbstractHandler implements ComplexObsHand
 	/**
 	 * Currently supports the following views:
 	 * org.openmrs.obs.ComplexObsHandler#RAW_VIEW
+	 * org.openmrs.obs.ComplexObsHandler#STREAM_VIEW
 	 * 
 	 * @see org.openmrs.obs.ComplexObsHandler#getObs(org.openmrs.Obs, java.lang.String)
 	 */
@@ -59,20 +60,16 @@ public class BinaryDataHandler extends AbstractHandler implements ComplexObsHand
 		
 		// Raw view (i.e. the file as is)
 		if (ComplexObsHandler.RAW_VIEW.equals(view)) {
-			// to handle problem with downloading/saving files with blank spaces or commas in their names
-			// also need to remove the "file" text appended to the end of the file name
-			String[] names = obs.getValueComplex().split("\\|");
-			String originalFilename = names[0];
-			originalFilename = originalFilename.replaceAll(",", "").replaceAll(" ", "").replaceAll("file$", "");
-			
 			try {
-				complexData = new ComplexData(originalFilename, OpenmrsUtil.getFileAsBytes(file));
+				complexData = new ComplexData(getOriginalFilename(obs), OpenmrsUtil.getFileAsBytes(file));
 			}
 			catch (IOException e) {
 				log.error("Trying to read file: " + file.getAbsolutePath(), e);
 			}
 			
 			obs.setComplexData(complexData);
+		} else if (ComplexObsHandler.STREAM_VIEW.equals(view)) {
+			return getStreamingObs(obs, getOriginalFilename(obs), "application/octet-stream");
 		} else {
 			// No other view supported
 			// NOTE: if adding support for another view, don't forget to update supportedViews list above
@@ -86,6 +83,14 @@ public class BinaryDataHandler extends AbstractHandler implements ComplexObsHand
 		return obs;
 	}
 	
+	private String getOriginalFilename(Obs obs) {
+		// to handle problem with downloading/saving files with blank spaces or commas in their names
+		// also need to remove the "file" text appended to the end of the file name
+		String[] names = obs.getValueComplex().split("\\|");
+		String originalFilename = names[0];
+		return originalFilename.replaceAll(",", "").replaceAll(" ", "").replaceAll("file$", "");
+	}
+	
 	/**
 	 * @see org.openmrs.obs.ComplexObsHandler#getSupportedViews()
 	 */
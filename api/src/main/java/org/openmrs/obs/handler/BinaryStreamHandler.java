@@ -34,7 +34,7 @@ import org.springframework.util.Assert;
 public class BinaryStreamHandler extends AbstractHandler implements ComplexObsHandler {
 	
 	/** Views supported by this handler */
-	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, };
+	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.STREAM_VIEW };
 	
 	public static final Logger log = LoggerFactory.getLogger(BinaryStreamHandler.class);
 	
@@ -63,13 +63,9 @@ public class BinaryStreamHandler extends AbstractHandler implements ComplexObsHa
 		if (ComplexObsHandler.RAW_VIEW.equals(view)) {
 			try {
 				File file = getComplexDataFile(obs);
-				String[] names = obs.getValueComplex().split("\\|");
-				String originalFilename = names[0];
-				originalFilename = originalFilename.replace(",", "").replace(" ", "");
-				
 				if (file.exists()) {
 					FileInputStream fileInputStream = new FileInputStream(file);
-					complexData = new ComplexData(originalFilename, fileInputStream);
+					complexData = new ComplexData(getOriginalFilename(obs), fileInputStream);
 				} else {
 					log.error("Unable to find file associated with complex obs " + obs.getId());
 				}
@@ -77,6 +73,8 @@ public class BinaryStreamHandler extends AbstractHandler implements ComplexObsHa
 			catch (Exception e) {
 				throw new APIException("Obs.error.while.trying.get.binary.complex", null, e);
 			}
+		} else if (ComplexObsHandler.STREAM_VIEW.equals(view)) {
+			return getStreamingObs(obs, getOriginalFilename(obs), "application/octet-stream");
 		} else {
 			// No other view supported
 			// NOTE: if adding support for another view, don't forget to update supportedViews list above
@@ -90,6 +88,12 @@ public class BinaryStreamHandler extends AbstractHandler implements ComplexObsHa
 		return obs;
 	}
 	
+	private String getOriginalFilename(Obs obs) {
+		String[] names = obs.getValueComplex().split("\\|");
+		String originalFilename = names[0];
+		return originalFilename.replace(",", "").replace(" ", "");
+	}
+	
 	/**
 	 * @see org.openmrs.obs.ComplexObsHandler#getSupportedViews()
 	 */
@@ -41,7 +41,7 @@ import org.slf4j.LoggerFactory;
 public class ImageHandler extends AbstractHandler implements ComplexObsHandler {
 	
 	/** Views supported by this handler */
-	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW };
+	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.STREAM_VIEW };
 	
 	public static final Logger log = LoggerFactory.getLogger(ImageHandler.class);
 	
@@ -81,26 +81,12 @@ public class ImageHandler extends AbstractHandler implements ComplexObsHandler {
 			}
 			
 			ComplexData complexData = new ComplexData(file.getName(), img);
-			
-			// Image MIME type
-			try {
-				FileImageInputStream imgStream = new FileImageInputStream(file);
-				Iterator<ImageReader> imgReader = ImageIO.getImageReaders(imgStream);
-				imgStream.close();
-				if (imgReader.hasNext()) {
-					complexData.setMimeType("image/" + imgReader.next().getFormatName().toLowerCase());
-				} else {
-					log.warn("MIME type of " + file.getAbsolutePath() + " is not known");
-				}
-			}
-			catch (FileNotFoundException e) {
-				log.error("Image " + file.getAbsolutePath() + " was not found", e);
-			}
-			catch (IOException e) {
-				log.error("Trying to determine MIME type of " + file.getAbsolutePath(), e);
-			}
+			complexData.setMimeType(getMimeType(file));
 			
 			obs.setComplexData(complexData);
+		} else if (ComplexObsHandler.STREAM_VIEW.equals(view)) {
+			// only the image header is read to find the MIME type, the image is not decoded
+			return getStreamingObs(obs, file.getName(), getMimeType(file));
 		} else {
 			// No other view supported
 			// NOTE: if adding support for another view, don't forget to update supportedViews list above
@@ -110,6 +96,32 @@ public class ImageHandler extends AbstractHandler implements ComplexObsHandler {
 		return obs;
 	}
 	
+	/**
+	 * Determines the MIME type of an image file from the format of its image reader
+	 * 
+	 * @param file the image file
+	 * @return the MIME type or null if it is not known
+	 */
+	private String getMimeType(File file) {
+		try {
+			FileImageInputStream imgStream = new FileImageInputStream(file);
+			Iterator<ImageReader> imgReader = ImageIO.getImageReaders(imgStream);
+			imgStream.close();
+			if (imgReader.hasNext()) {
+				return "image/" + imgReader.next().getFormatName().toLowerCase();
+			} else {
+				log.warn("MIME type of " + file.getAbsolutePath() + " is not known");
+			}
+		}
+		catch (FileNotFoundException e) {
+			log.error("Image " + file.getAbsolutePath() + " was not found", e);
+		}
+		catch (IOException e) {
+			log.error("Trying to determine MIME type of " + file.getAbsolutePath(), e);
+		}
+		return null;
+	}
+	
 	/**
 	 * @see org.openmrs.obs.ComplexObsHandler#getSupportedViews()
 	 */
@@ -34,7 +34,7 @@ import org.slf4j.LoggerFactory;
 public class MediaHandler extends AbstractHandler implements ComplexObsHandler {
 	
 	/** Views supported by this handler */
-	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, };
+	private static final String[] supportedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.STREAM_VIEW };
 	
 	public static final Logger log = LoggerFactory.getLogger(MediaHandler.class);
 	
@@ -54,12 +54,8 @@ public class MediaHandler extends AbstractHandler implements ComplexObsHandler {
 		// Raw media
 		if (ComplexObsHandler.RAW_VIEW.equals(view)) {
 			try {
-				String[] names = obs.getValueComplex().split("\\|");
-				String originalFilename = names[0];
-				originalFilename = originalFilename.replace(",", "").replace(" ", "");
-				
 				FileInputStream mediaStream = new FileInputStream(file);
-				ComplexData complexData = new ComplexData(originalFilename, mediaStream);
+				ComplexData complexData = new ComplexData(getOriginalFilename(obs), mediaStream);
 				
 				complexData.setMimeType(OpenmrsUtil.getFileMimeType(file));
 				
@@ -70,6 +66,8 @@ public class MediaHandler extends AbstractHandler implements ComplexObsHandler {
 			catch (FileNotFoundException e) {
 				log.error("Trying to create media file stream from " + file.getAbsolutePath(), e);
 			}
+		} else if (ComplexObsHandler.STREAM_VIEW.equals(view)) {
+			return getStreamingObs(obs, getOriginalFilename(obs), OpenmrsUtil.getFileMimeType(file));
 		}
 		// No other view supported
 		// NOTE: if adding support for another view, don't forget to update supportedViews list above
@@ -80,6 +78,12 @@ public class MediaHandler extends AbstractHandler implements ComplexObsHandler {
 		return obs;
 	}
 	
+	private String getOriginalFilename(Obs obs) {
+		String[] names = obs.getValueComplex().split("\\|");
+		String originalFilename = names[0];
+		return originalFilename.replace(",", "").replace(" ", "");
+	}
+	
 	/**
 	 * @see org.openmrs.obs.ComplexObsHandler#getSupportedViews()
 	 */
@@ -33,4 +33,10 @@ public class SchedulerConstants {
 	/** Scheduler admin email property - Used to email administrator if a task fails */
 	public static String SCHEDULER_ADMIN_EMAIL_PROPERTY = "scheduler.admin_email";
 	
+	/** Scheduler thread pool size property - The number of threads that scheduled tasks run on */
+	public final static String SCHEDULER_THREAD_POOL_SIZE_PROPERTY = "scheduler.threadPoolSize";
+	
+	/** The default number of threads that scheduled tasks run on */
+	public final static int SCHEDULER_DEFAULT_THREAD_POOL_SIZE = 10;
+	
 }
@@ -0,0 +1,283 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.executor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.openmrs.api.context.Context;
+import org.openmrs.scheduler.SchedulerConstants;
+import org.openmrs.scheduler.SchedulerException;
+import org.openmrs.scheduler.SchedulerUtil;
+import org.openmrs.scheduler.Task;
+import org.openmrs.scheduler.TaskDefinition;
+import org.openmrs.scheduler.TaskFactory;
+import org.openmrs.scheduler.timer.TimerSchedulerServiceImpl;
+import org.openmrs.util.PrivilegeConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Scheduler service that executes scheduled tasks on a bounded pool of threads instead of a JDK
+ * timer thread per task. Tasks still run as the daemon user, but on reused threads, and the
+ * {@link TaskMetrics} of every scheduled task are recorded. The number of threads is read from the
+ * {@link SchedulerConstants#SCHEDULER_THREAD_POOL_SIZE_PROPERTY} global property when the pool is
+ * created, if more tasks are due than there are threads they wait for a free thread. Task
+ * definitions are stored the same way as by the {@link TimerSchedulerServiceImpl}.
+ *
+ * @since 2.2.0
+ */
+@Transactional
+public class ExecutorSchedulerServiceImpl extends TimerSchedulerServiceImpl {
+	
+	private static final Logger log = LoggerFactory.getLogger(ExecutorSchedulerServiceImpl.class);
+	
+	/**
+	 * Scheduled tasks by task definition id
+	 */
+	private static Map<Integer, ExecutorSchedulerTask> scheduledTasks = new ConcurrentHashMap<Integer, ExecutorSchedulerTask>();
+	
+	/**
+	 * The pool running the scheduled tasks, it is shared by all instances of this service because the
+	 * service is recreated when the application context is refreshed while the tasks keep running
+	 */
+	private static ScheduledThreadPoolExecutor executor;
+	
+	/**
+	 * Gets the thread pool, creating it if this is the first task scheduled since startup or the
+	 * last shutdown.
+	 *
+	 * @return the thread pool running the scheduled tasks
+	 */
+	private static synchronized ScheduledThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			int poolSize = getThreadPoolSize();
+			log.info("Starting scheduler thread pool with " + poolSize + " threads");
+			executor = new ScheduledThreadPoolExecutor(poolSize, new SchedulerThreadFactory());
+			executor.setRemoveOnCancelPolicy(true);
+		}
+		return executor;
+	}
+	
+	private static int getThreadPoolSize() {
+		String value;
+		try {
+			Context.addProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
+			value = Context.getAdministrationService().getGlobalProperty(
+			    SchedulerConstants.SCHEDULER_THREAD_POOL_SIZE_PROPERTY);
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
+		}
+		
+		int poolSize = NumberUtils.toInt(value, SchedulerConstants.SCHEDULER_DEFAULT_THREAD_POOL_SIZE);
+		if (poolSize < 1) {
+			log.warn("Ignoring invalid scheduler thread pool size '" + value + "', using "
+			        + SchedulerConstants.SCHEDULER_DEFAULT_THREAD_POOL_SIZE);
+			poolSize = SchedulerConstants.SCHEDULER_DEFAULT_THREAD_POOL_SIZE;
+		}
+		return poolSize;
+	}
+	
+	/**
+	 * Shutdown hook for the scheduler, all of its scheduled tasks and the thread pool. Tasks that are
+	 * running are allowed to finish.
+	 */
+	@Override
+	public void onShutdown() {
+		try {
+			super.onShutdown();
+		}
+		finally {
+			scheduledTasks.clear();
+			synchronized (ExecutorSchedulerServiceImpl.class) {
+				if (executor != null) {
+					executor.shutdown();
+					executor = null;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Schedule the given task according to the given schedule.
+	 *
+	 * @param taskDefinition the task to be scheduled
+	 * @should handle zero repeat interval
+	 * @should run the task on the thread pool as the daemon user
+	 * @should record the metrics of the task
+	 */
+	@Override
+	public Task scheduleTask(TaskDefinition taskDefinition) throws SchedulerException {
+		Task clientTask = null;
+		if (taskDefinition != null) {
+			
+			// Cancel any existing scheduled task for the same task definition
+			ExecutorSchedulerTask schedulerTask = getScheduledTask(taskDefinition.getId());
+			if (schedulerTask != null) {
+				log.info("Shutting down the existing instance of this task to avoid conflicts!!");
+				schedulerTask.shutdown();
+			}
+			
+			try {
+				
+				// Create new task from task definition
+				clientTask = TaskFactory.getInstance().createInstance(taskDefinition);
+				
+				// if we were unable to get a class, just quit
+				if (clientTask != null) {
+					
+					taskDefinition.setTaskInstance(clientTask);
+					
+					// the repeat interval is recorded in seconds
+					long repeatInterval = 0;
+					if (taskDefinition.getRepeatInterval() != null) {
+						repeatInterval = taskDefinition.getRepeatInterval() * SchedulerConstants.SCHEDULER_MILLIS_PER_SECOND;
+					}
+					
+					long now = System.currentTimeMillis();
+					long firstExecutionTime;
+					if (taskDefinition.getStartTime() != null) {
+						// the start time is most likely in the past, the executor must not run the task once for
+						// every missed execution, so start from the next execution time instead
+						Date nextTime = SchedulerUtil.getNextExecution(taskDefinition);
+						log.info("Starting task ... the task will execute for the first time at " + nextTime);
+						firstExecutionTime = nextTime.getTime();
+					} else if (repeatInterval > 0) {
+						log.info("Delaying start time by " + SchedulerConstants.SCHEDULER_DEFAULT_DELAY + " milliseconds");
+						firstExecutionTime = now + SchedulerConstants.SCHEDULER_DEFAULT_DELAY;
+					} else {
+						log.info("Starting one-shot task");
+						firstExecutionTime = now;
+					}
+					
+					// Update the task status in the database first, this also assigns the id of a new task
+					// definition and nothing has been scheduled yet if it fails
+					taskDefinition.setStarted(true);
+					saveTaskDefinition(taskDefinition);
+					
+					schedulerTask = new ExecutorSchedulerTask(clientTask, firstExecutionTime, repeatInterval);
+					long initialDelay = Math.max(0, firstExecutionTime - now);
+					ScheduledFuture<?> future;
+					if (repeatInterval > 0) {
+						future = getExecutor().scheduleAtFixedRate(schedulerTask, initialDelay, repeatInterval,
+						    TimeUnit.MILLISECONDS);
+					} else {
+						future = getExecutor().schedule(schedulerTask, initialDelay, TimeUnit.MILLISECONDS);
+					}
+					schedulerTask.setFuture(future);
+					
+					log.debug("Registering scheduled task " + taskDefinition.getId());
+					scheduledTasks.put(taskDefinition.getId(), schedulerTask);
+				}
+			}
+			catch (Exception e) {
+				log.error("Failed to schedule task " + taskDefinition.getName(), e);
+				throw new SchedulerException("Failed to schedule task", e);
+			}
+		}
+		return clientTask;
+	}
+	
+	/**
+	 * @see org.openmrs.scheduler.SchedulerService#shutdownTask(TaskDefinition)
+	 */
+	@Override
+	public void shutdownTask(TaskDefinition taskDefinition) throws SchedulerException {
+		if (taskDefinition != null) {
+			
+			// Remove the task from the scheduled tasks and cancel its future executions
+			ExecutorSchedulerTask schedulerTask = null;
+			if (taskDefinition.getId() != null) {
+				schedulerTask = scheduledTasks.remove(taskDefinition.getId());
+			}
+			if (schedulerTask != null) {
+				schedulerTask.shutdown();
+				log.debug("Task " + taskDefinition.getName() + " shut down, " + schedulerTask.getMetrics());
+			}
+			
+			taskDefinition.setStarted(false);
+			saveTaskDefinition(taskDefinition);
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.scheduler.SchedulerService#getScheduledTasks()
+	 */
+	@Override
+	public Collection<TaskDefinition> getScheduledTasks() {
+		List<TaskDefinition> list = new ArrayList<TaskDefinition>();
+		for (Integer id : scheduledTasks.keySet()) {
+			TaskDefinition task = getTask(id);
+			if (task != null) {
+				list.add(task);
+			}
+		}
+		return list;
+	}
+	
+	/**
+	 * @see org.openmrs.scheduler.SchedulerService#getStatus(java.lang.Integer)
+	 */
+	@Override
+	public String getStatus(Integer id) {
+		ExecutorSchedulerTask scheduledTask = getScheduledTask(id);
+		if (scheduledTask != null) {
+			if (scheduledTask.isExecuting()) {
+				return "Currently executing";
+			} else if (!scheduledTask.isDone()) {
+				return "Scheduled to execute at " + new Date(scheduledTask.getNextExecutionTime());
+			}
+		}
+		return "Not Running";
+	}
+	
+	/**
+	 * Gets the execution statistics of a scheduled task, they are kept until the task is shut down.
+	 *
+	 * @param id the identifier of the task definition
+	 * @return the metrics of the task or null if it is not scheduled
+	 */
+	public static TaskMetrics getTaskMetrics(Integer id) {
+		ExecutorSchedulerTask scheduledTask = getScheduledTask(id);
+		return scheduledTask == null ? null : scheduledTask.getMetrics();
+	}
+	
+	private static ExecutorSchedulerTask getScheduledTask(Integer id) {
+		return id == null ? null : scheduledTasks.get(id);
+	}
+	
+	/**
+	 * Creates the named daemon threads of the scheduler's pool
+	 */
+	private static class SchedulerThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "OpenMRS Scheduler " + threadNumber.getAndIncrement());
+			// like the JDK timer threads, these should not prolong the lifetime of the application
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.executor;
+
+import java.util.concurrent.ScheduledFuture;
+
+import org.openmrs.api.context.Daemon;
+import org.openmrs.scheduler.SchedulerUtil;
+import org.openmrs.scheduler.Task;
+import org.openmrs.util.OpenmrsClassLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a {@link Task} on a thread of the {@link ExecutorSchedulerServiceImpl}'s pool, as the
+ * daemon user, and records its {@link TaskMetrics}.
+ *
+ * @since 2.2.0
+ */
+public class ExecutorSchedulerTask implements Runnable {
+	
+	private static final Logger log = LoggerFactory.getLogger(ExecutorSchedulerTask.class);
+	
+	/** The task that will be executed by the scheduler's thread pool */
+	private final Task task;
+	
+	/** The repeat interval in milliseconds, 0 if the task does not repeat */
+	private final long repeatInterval;
+	
+	private final TaskMetrics metrics = new TaskMetrics();
+	
+	/** The time in milliseconds the next execution is scheduled for */
+	private volatile long nextExecutionTime;
+	
+	private volatile boolean executing;
+	
+	private volatile ScheduledFuture<?> future;
+	
+	/**
+	 * @param task the task to execute
+	 * @param firstExecutionTime the time in milliseconds the task is scheduled to run first
+	 * @param repeatInterval the repeat interval in milliseconds, 0 if the task does not repeat
+	 */
+	public ExecutorSchedulerTask(Task task, long firstExecutionTime, long repeatInterval) {
+		this.task = task;
+		this.nextExecutionTime = firstExecutionTime;
+		this.repeatInterval = repeatInterval;
+	}
+	
+	/**
+	 * Executes the task and records how late it started and how long it ran.
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		long startTime = System.currentTimeMillis();
+		long queueDelay = Math.max(0, startTime - nextExecutionTime);
+		executing = true;
+		
+		// the pool's threads outlive module restarts, so give each execution the current class loader
+		Thread thread = Thread.currentThread();
+		ClassLoader previousClassLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader(OpenmrsClassLoader.getInstance());
+		try {
+			Daemon.executeScheduledTaskInCurrentThread(task);
+		}
+		catch (Exception t) {
+			// Suppress the error, the executor would not run the task again if it was thrown
+			log.error("FATAL ERROR: Task [" + task.getClass() + "] failed due to exception [" + t.getClass().getName()
+			        + "]", t);
+			SchedulerUtil.sendSchedulerError(t);
+		}
+		finally {
+			thread.setContextClassLoader(previousClassLoader);
+			executing = false;
+			
+			long runTime = System.currentTimeMillis() - startTime;
+			metrics.recordExecution(startTime, queueDelay, runTime, repeatInterval);
+			nextExecutionTime += repeatInterval;
+			
+			if (repeatInterval > 0 && runTime > repeatInterval) {
+				log.warn("Task [" + task.getClass() + "] took " + runTime + " ms which is longer than its repeat interval of "
+				        + repeatInterval + " ms");
+			} else if (log.isDebugEnabled()) {
+				log.debug("Task [" + task.getClass() + "] started " + queueDelay + " ms late and ran for " + runTime + " ms");
+			}
+		}
+	}
+	
+	/**
+	 * Cancels future executions and invokes the task's shutdown() callback method. An execution that
+	 * is already running is allowed to finish.
+	 */
+	public void shutdown() {
+		ScheduledFuture<?> scheduledFuture = future;
+		if (scheduledFuture != null) {
+			scheduledFuture.cancel(false);
+		}
+		task.shutdown();
+	}
+	
+	/**
+	 * @return the task executed by this scheduler task
+	 */
+	public Task getTask() {
+		return task;
+	}
+	
+	/**
+	 * @return the execution statistics of the task
+	 */
+	public TaskMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * @return true if the task is running right now
+	 */
+	public boolean isExecuting() {
+		return executing;
+	}
+	
+	/**
+	 * @return the time in milliseconds the next execution is scheduled for
+	 */
+	public long getNextExecutionTime() {
+		return nextExecutionTime;
+	}
+	
+	/**
+	 * @return true if the task will not run again
+	 */
+	public boolean isDone() {
+		ScheduledFuture<?> scheduledFuture = future;
+		return scheduledFuture != null && scheduledFuture.isDone();
+	}
+	
+	/**
+	 * @param future the handle of this task in the executor, used to cancel it
+	 */
+	void setFuture(ScheduledFuture<?> future) {
+		this.future = future;
+	}
+}
@@ -0,0 +1,141 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.executor;
+
+import java.util.Date;
+
+/**
+ * Execution statistics of a scheduled task. The queue delay of an execution is how long after its
+ * scheduled time it actually started, e.g. because all the scheduler's threads were busy or the
+ * previous execution overran. An overrun is an execution of a repeating task that took longer than
+ * the repeat interval, delaying the next execution.
+ *
+ * @since 2.2.0
+ */
+public class TaskMetrics {
+	
+	private long executionCount;
+	
+	private long overrunCount;
+	
+	private long totalQueueDelay;
+	
+	private long maxQueueDelay;
+	
+	private long lastQueueDelay;
+	
+	private long totalRunTime;
+	
+	private long maxRunTime;
+	
+	private long lastRunTime;
+	
+	private Date lastExecutionTime;
+	
+	/**
+	 * Records a finished execution of the task
+	 *
+	 * @param startTime the time in milliseconds when the execution started
+	 * @param queueDelay the milliseconds between the scheduled and the actual start
+	 * @param runTime the milliseconds the execution took
+	 * @param repeatInterval the repeat interval of the task in milliseconds, 0 if it does not repeat
+	 * @should count an overrun if the run time exceeds the repeat interval
+	 * @should not count overruns for tasks that do not repeat
+	 */
+	public synchronized void recordExecution(long startTime, long queueDelay, long runTime, long repeatInterval) {
+		executionCount++;
+		lastExecutionTime = new Date(startTime);
+		
+		lastQueueDelay = queueDelay;
+		totalQueueDelay += queueDelay;
+		maxQueueDelay = Math.max(maxQueueDelay, queueDelay);
+		
+		lastRunTime = runTime;
+		totalRunTime += runTime;
+		maxRunTime = Math.max(maxRunTime, runTime);
+		
+		if (repeatInterval > 0 && runTime > repeatInterval) {
+			overrunCount++;
+		}
+	}
+	
+	/**
+	 * @return the number of finished executions
+	 */
+	public synchronized long getExecutionCount() {
+		return executionCount;
+	}
+	
+	/**
+	 * @return the number of executions that took longer than the repeat interval
+	 */
+	public synchronized long getOverrunCount() {
+		return overrunCount;
+	}
+	
+	/**
+	 * @return the queue delay of the last execution in milliseconds
+	 */
+	public synchronized long getLastQueueDelay() {
+		return lastQueueDelay;
+	}
+	
+	/**
+	 * @return the longest queue delay in milliseconds
+	 */
+	public synchronized long getMaxQueueDelay() {
+		return maxQueueDelay;
+	}
+	
+	/**
+	 * @return the average queue delay in milliseconds, 0 if the task has not run yet
+	 */
+	public synchronized long getAverageQueueDelay() {
+		return executionCount == 0 ? 0 : totalQueueDelay / executionCount;
+	}
+	
+	/**
+	 * @return the run time of the last execution in milliseconds
+	 */
+	public synchronized long getLastRunTime() {
+		return lastRunTime;
+	}
+	
+	/**
+	 * @return the longest run time in milliseconds
+	 */
+	public synchronized long getMaxRunTime() {
+		return maxRunTime;
+	}
+	
+	/**
+	 * @return the average run time in milliseconds, 0 if the task has not run yet
+	 */
+	public synchronized long getAverageRunTime() {
+		return executionCount == 0 ? 0 : totalRunTime / executionCount;
+	}
+	
+	/**
+	 * @return the time the last execution started, null if the task has not run yet
+	 */
+	public synchronized Date getLastExecutionTime() {
+		return lastExecutionTime;
+	}
+	
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "executions: " + executionCount + ", overruns: " + overrunCount + ", queue delay (ms) last/avg/max: "
+		        + lastQueueDelay + "/" + getAverageQueueDelay() + "/" + maxQueueDelay + ", run time (ms) last/avg/max: "
+		        + lastRunTime + "/" + getAverageRunTime() + "/" + maxRunTime;
+	}
+}
@@ -0,0 +1,277 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of non negative ints, e.g. patient ids, stored as a bitmap. The values are split into
+ * blocks of 65536 by their upper 16 bits and only the blocks that contain values are allocated, so
+ * a dense range of ids takes 1 bit per id and a sparse set takes at most 8 KB per id range it
+ * touches. Membership tests are constant time and the set operations combine whole 64 bit words
+ * at a time.<br>
+ * <br>
+ * Instances are not thread safe.
+ *
+ * @since 2.2.0
+ */
+public final class IntBitmap implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int BLOCK_SHIFT = 16;
+
+	private static final int WORDS_PER_BLOCK = (1 << BLOCK_SHIFT) / Long.SIZE;
+
+	/** The upper 16 bits of the values in each block, sorted */
+	private int[] keys = new int[0];
+
+	private long[][] blocks = new long[0][];
+
+	private int blockCount = 0;
+
+	private int size = 0;
+
+	/**
+	 * Adds a value to this bitmap
+	 *
+	 * @param value the value to add
+	 * @return true if the value was not in this bitmap yet
+	 * @throws IllegalArgumentException if the value is negative
+	 * @should add the value
+	 * @should fail for a negative value
+	 */
+	public boolean add(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Only non negative values are supported: " + value);
+		}
+
+		int index = Arrays.binarySearch(keys, 0, blockCount, value >>> BLOCK_SHIFT);
+		if (index < 0) {
+			index = -index - 1;
+			insertBlock(index, value >>> BLOCK_SHIFT, new long[WORDS_PER_BLOCK]);
+		}
+
+		long[] block = blocks[index];
+		int word = wordIndex(value);
+		long bit = 1L << value;
+		if ((block[word] & bit) != 0) {
+			return false;
+		}
+		block[word] |= bit;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes a value from this bitmap
+	 *
+	 * @param value the value to remove
+	 * @return true if the value was in this bitmap
+	 * @should remove the value
+	 */
+	public boolean remove(int value) {
+		if (!contains(value)) {
+			return false;
+		}
+
+		blocks[Arrays.binarySearch(keys, 0, blockCount, value >>> BLOCK_SHIFT)][wordIndex(value)] &= ~(1L << value);
+		size--;
+		return true;
+	}
+
+	/**
+	 * @param value the value to look for
+	 * @return true if the value is in this bitmap
+	 * @should return false for a negative value
+	 */
+	public boolean contains(int value) {
+		if (value < 0) {
+			return false;
+		}
+
+		int index = Arrays.binarySearch(keys, 0, blockCount, value >>> BLOCK_SHIFT);
+		return index >= 0 && (blocks[index][wordIndex(value)] & (1L << value)) != 0;
+	}
+
+	/**
+	 * @return the number of values in this bitmap
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if this bitmap has no values
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Passes each value to the given action in ascending order
+	 *
+	 * @param action the action to perform on each value
+	 */
+	public void forEach(IntConsumer action) {
+		for (int i = 0; i < blockCount; i++) {
+			int base = keys[i] << BLOCK_SHIFT;
+			long[] block = blocks[i];
+			for (int word = 0; word < WORDS_PER_BLOCK; word++) {
+				long bits = block[word];
+				while (bits != 0) {
+					action.accept(base + word * Long.SIZE + Long.numberOfTrailingZeros(bits));
+					bits &= bits - 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the values of this bitmap in ascending order
+	 * @should return the values in ascending order
+	 */
+	public int[] toArray() {
+		final int[] values = new int[size];
+		forEach(new IntConsumer() {
+
+			private int next = 0;
+
+			@Override
+			public void accept(int value) {
+				values[next++] = value;
+			}
+		});
+		return values;
+	}
+
+	/**
+	 * Returns the values that are in either bitmap
+	 *
+	 * @param a the first bitmap
+	 * @param b the second bitmap
+	 * @return a new bitmap
+	 * @should return the values that are in either bitmap
+	 */
+	public static IntBitmap union(IntBitmap a, IntBitmap b) {
+		IntBitmap result = new IntBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < a.blockCount || j < b.blockCount) {
+			if (j == b.blockCount || (i < a.blockCount && a.keys[i] < b.keys[j])) {
+				result.appendBlock(a.keys[i], a.blocks[i].clone());
+				i++;
+			} else if (i == a.blockCount || b.keys[j] < a.keys[i]) {
+				result.appendBlock(b.keys[j], b.blocks[j].clone());
+				j++;
+			} else {
+				long[] block = new long[WORDS_PER_BLOCK];
+				for (int word = 0; word < WORDS_PER_BLOCK; word++) {
+					block[word] = a.blocks[i][word] | b.blocks[j][word];
+				}
+				result.appendBlock(a.keys[i], block);
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the values that are in both bitmaps
+	 *
+	 * @param a the first bitmap
+	 * @param b the second bitmap
+	 * @return a new bitmap
+	 * @should return the values that are in both bitmaps
+	 */
+	public static IntBitmap intersect(IntBitmap a, IntBitmap b) {
+		IntBitmap result = new IntBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < a.blockCount && j < b.blockCount) {
+			if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else if (b.keys[j] < a.keys[i]) {
+				j++;
+			} else {
+				long[] block = new long[WORDS_PER_BLOCK];
+				for (int word = 0; word < WORDS_PER_BLOCK; word++) {
+					block[word] = a.blocks[i][word] & b.blocks[j][word];
+				}
+				result.appendBlock(a.keys[i], block);
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the values of the first bitmap that are not in the second one
+	 *
+	 * @param a the bitmap to subtract from
+	 * @param b the bitmap to subtract
+	 * @return a new bitmap
+	 * @should return the values of the first bitmap that are not in the second one
+	 */
+	public static IntBitmap subtract(IntBitmap a, IntBitmap b) {
+		IntBitmap result = new IntBitmap();
+		int j = 0;
+		for (int i = 0; i < a.blockCount; i++) {
+			while (j < b.blockCount && b.keys[j] < a.keys[i]) {
+				j++;
+			}
+			if (j < b.blockCount && b.keys[j] == a.keys[i]) {
+				long[] block = new long[WORDS_PER_BLOCK];
+				for (int word = 0; word < WORDS_PER_BLOCK; word++) {
+					block[word] = a.blocks[i][word] & ~b.blocks[j][word];
+				}
+				result.appendBlock(a.keys[i], block);
+			} else {
+				result.appendBlock(a.keys[i], a.blocks[i].clone());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a block after the existing ones, empty blocks are dropped
+	 */
+	private void appendBlock(int key, long[] block) {
+		int count = 0;
+		for (long word : block) {
+			count += Long.bitCount(word);
+		}
+		if (count > 0) {
+			insertBlock(blockCount, key, block);
+			size += count;
+		}
+	}
+
+	private void insertBlock(int index, int key, long[] block) {
+		if (blockCount == keys.length) {
+			int capacity = Math.max(4, blockCount * 2);
+			keys = Arrays.copyOf(keys, capacity);
+			blocks = Arrays.copyOf(blocks, capacity);
+		}
+		System.arraycopy(keys, index, keys, index + 1, blockCount - index);
+		System.arraycopy(blocks, index, blocks, index + 1, blockCount - index);
+		keys[index] = key;
+		blocks[index] = block;
+		blockCount++;
+	}
+
+	private static int wordIndex(int value) {
+		return (value & ((1 << BLOCK_SHIFT) - 1)) >>> 6;
+	}
+}
@@ -330,6 +330,21 @@ public final class OpenmrsConstants {
 	
 	public static final String GLOBAL_PROPERTY_IGNORE_MISSING_NONLOCAL_PATIENTS = "hl7_processor.ignore_missing_patient_non_local";
 	
+	/**
+	 * @since 2.2.0
+	 */
+	public static final String GLOBAL_PROPERTY_HL7_PROCESSOR_THREADS = "hl7_processor.threads";
+	
+	/**
+	 * @since 2.2.0
+	 */
+	public static final String GLOBAL_PROPERTY_HL7_PROCESSOR_BATCH_SIZE = "hl7_processor.batch_size";
+	
+	/**
+	 * @since 2.2.0
+	 */
+	public static final String GLOBAL_PROPERTY_HL7_PROCESSOR_LOOKUP_CACHE_SIZE = "hl7_processor.lookup_cache_size";
+	
 	public static final String GLOBAL_PROPERTY_TRUE_CONCEPT = "concept.true";
 	
 	public static final String GLOBAL_PROPERTY_FALSE_CONCEPT = "concept.false";
@@ -556,6 +571,13 @@ public final class OpenmrsConstants {
 	
 	public static final String GP_ORDER_NUMBER_GENERATOR_BEAN_ID = "order.orderNumberGeneratorBeanId";
 	
+	/**
+	 * Specifies how many order numbers the block order number generator reserves at a time
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_ORDER_NUMBER_BLOCK_SIZE = "order.orderNumberBlockSize";
+	
 	/**
 	 * Specifies the uuid of the concept set where its members represent the possible drug routes
 	 */
@@ -711,6 +733,9 @@ public final class OpenmrsConstants {
 		        "Username for the OpenMRS user that will perform the scheduler activities"));
 		props.add(new GlobalProperty("scheduler.password", SchedulerConstants.SCHEDULER_DEFAULT_PASSWORD,
 		        "Password for the OpenMRS user that will perform the scheduler activities"));
+		props.add(new GlobalProperty(SchedulerConstants.SCHEDULER_THREAD_POOL_SIZE_PROPERTY, String
+		        .valueOf(SchedulerConstants.SCHEDULER_DEFAULT_THREAD_POOL_SIZE),
+		        "Number of threads that scheduled tasks are run on, takes effect when the scheduler is restarted"));
 		
 		props.add(new GlobalProperty(GLOBAL_PROPERTY_CONCEPTS_LOCKED, "false", "if true, do not allow editing concepts",
 		        BooleanDatatype.class, null));
@@ -865,6 +890,18 @@ public final class OpenmrsConstants {
 		        "If true, hl7 messages for patients that are not found and are non-local will silently be dropped/ignored",
 		        BooleanDatatype.class, null));
 		
+		props.add(new GlobalProperty(GLOBAL_PROPERTY_HL7_PROCESSOR_THREADS, "1",
+		        "The number of threads that process the hl7 inbound queue. Messages about the same patient are always "
+		                + "processed in order by the same thread"));
+		
+		props.add(new GlobalProperty(GLOBAL_PROPERTY_HL7_PROCESSOR_BATCH_SIZE, "100",
+		        "The number of hl7 inbound queue entries that the hl7 processor marks as processing at once. Entries "
+		                + "left in the processing state after a server crash must be set back to pending (0) by hand"));
+		
+		props.add(new GlobalProperty(GLOBAL_PROPERTY_HL7_PROCESSOR_LOOKUP_CACHE_SIZE, "1000",
+		        "The maximum number of concepts, locations, users, providers and patients that the hl7 processor "
+		                + "remembers the hl7 codes of while processing the queue, 0 disables the cache"));
+		
 		props
 		        .add(new GlobalProperty(
 		                GLOBAL_PROPERTY_SHOW_PATIENT_NAME,
@@ -1009,6 +1046,10 @@ public final class OpenmrsConstants {
 		props.add(new GlobalProperty(GP_ORDER_NUMBER_GENERATOR_BEAN_ID, "",
 		        "Specifies spring bean id of the order generator to use when assigning order numbers"));
 		
+		props.add(new GlobalProperty(GP_ORDER_NUMBER_BLOCK_SIZE, "100",
+		        "Specifies how many order numbers are reserved at a time when the order number generator bean id is set to "
+		                + "blockOrderNumberGenerator, numbers left in a block are skipped when the server restarts"));
+		
 		props.add(new GlobalProperty(GP_DRUG_ROUTES_CONCEPT_UUID, "",
 		        "Specifies the uuid of the concept set where its members represent the possible drug routes"));
 		
@@ -0,0 +1,72 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+/**
+ * A fixed set of monitors that callers can synchronize on per key instead of on one global monitor.
+ * Equal keys always map to the same monitor so work on the same key is serialized, while work on
+ * different keys can run in parallel unless the keys happen to share a stripe. A <code>null</code>
+ * key maps to a monitor of its own.
+ *
+ * <pre>
+ * synchronized (stripedLock.getLock(patient.getPatientId())) {
+ * 	...
+ * }
+ * </pre>
+ *
+ * @since 2.2.0
+ */
+public class StripedLock {
+	
+	private final Object[] locks;
+	
+	private final Object nullKeyLock = new Object();
+	
+	/**
+	 * @param stripes the number of monitors to spread the keys over
+	 * @should fail if stripes is not positive
+	 */
+	public StripedLock(int stripes) {
+		if (stripes < 1) {
+			throw new IllegalArgumentException("The number of stripes must be positive");
+		}
+		locks = new Object[stripes];
+		for (int i = 0; i < stripes; i++) {
+			locks[i] = new Object();
+		}
+	}
+	
+	/**
+	 * @return the number of monitors keys are spread over
+	 */
+	public int getStripes() {
+		return locks.length;
+	}
+	
+	/**
+	 * Gets the monitor to synchronize on for the given key
+	 *
+	 * @param key the key, may be null
+	 * @return the monitor for the key
+	 * @should return the same lock for equal keys
+	 * @should return a dedicated lock for a null key
+	 * @should allow different keys to be held concurrently
+	 * @should serialize work for the same key
+	 */
+	public Object getLock(Object key) {
+		if (key == null) {
+			return nullKeyLock;
+		}
+		int hash = key.hashCode();
+		//spread the bits so that sequential ids do not all differ only in the low bits
+		hash ^= (hash >>> 16);
+		return locks[(hash & Integer.MAX_VALUE) % locks.length];
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+
+/**
+ * Performance tests for the set operations of {@link Cohort}. The two cohorts have
+ * {@link #COHORT_SIZE} members each and overlap by half.
+ */
+@BenchmarkHistoryChart
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 5)
+public class CohortPT {
+	
+	private static final int COHORT_SIZE = 5000;
+	
+	@Rule
+	public TestRule benchmarkRule = new BenchmarkRule();
+	
+	private static Cohort a;
+	
+	private static Cohort b;
+	
+	@BeforeClass
+	public static void createCohorts() {
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int i = 0; i < COHORT_SIZE; i++) {
+			ids.add(i);
+		}
+		a = new Cohort(ids);
+		
+		ids.clear();
+		for (int i = COHORT_SIZE / 2; i < COHORT_SIZE + COHORT_SIZE / 2; i++) {
+			ids.add(i);
+		}
+		b = new Cohort(ids);
+	}
+	
+	@Test
+	public void shouldTestContains() {
+		int found = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (a.contains(i * 7)) {
+				found++;
+			}
+		}
+		// the multiples of 7 below COHORT_SIZE
+		assertEquals((COHORT_SIZE - 1) / 7 + 1, found);
+	}
+	
+	@Test
+	public void shouldTestUnion() {
+		assertEquals(COHORT_SIZE + COHORT_SIZE / 2, Cohort.union(a, b).getMemberIds().size());
+	}
+	
+	@Test
+	public void shouldTestIntersect() {
+		assertEquals(COHORT_SIZE / 2, Cohort.intersect(a, b).getMemberIds().size());
+	}
+	
+	@Test
+	public void shouldTestSubtract() {
+		assertEquals(COHORT_SIZE / 2, Cohort.subtract(a, b).getMemberIds().size());
+	}
+}
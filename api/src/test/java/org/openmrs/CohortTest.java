@@ -9,15 +9,23 @@
  */
 package org.openmrs;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 import org.openmrs.test.BaseContextSensitiveTest;
+import org.openmrs.util.IntBitmap;
 
 /**
  * Behavior-driven tests of the Cohort class.
@@ -66,4 +74,153 @@ public class CohortTest extends BaseContextSensitiveTest {
 		
 	}
 	
+	/**
+	 * @see Cohort#contains(Integer)
+	 */
+	@Test
+	public void contains_shouldReturnTrueIfThePatientIsAnActiveMember() {
+		Cohort cohort = new Cohort("name", "description", ids);
+		
+		assertTrue(cohort.contains(2));
+		assertFalse(cohort.contains(4));
+		assertFalse(cohort.contains((Integer) null));
+	}
+	
+	/**
+	 * @see Cohort#contains(Integer)
+	 */
+	@Test
+	public void contains_shouldReturnFalseIfTheMembershipOfThePatientHasEnded() {
+		Cohort cohort = new Cohort("name", "description", ids);
+		assertTrue(cohort.contains(2));
+		
+		cohort.removeMember(2);
+		assertFalse(cohort.contains(2));
+		
+		// memberships changed through the collection are seen as well
+		cohort.getMembers().iterator().next().setEndDate(new Date());
+		assertFalse(cohort.contains(1));
+	}
+	
+	/**
+	 * @see Cohort#contains(Integer)
+	 */
+	@Test
+	public void contains_shouldReturnFalseIfTheMembershipOfThePatientStartsInTheFuture() {
+		Cohort cohort = new Cohort();
+		cohort.addMembership(new CohortMembership(new Patient(1), new Date(System.currentTimeMillis() + 3600000)));
+		assertFalse(cohort.contains(1));
+	}
+	
+	/**
+	 * @see Cohort#getActiveMemberIds(Date)
+	 */
+	@Test
+	public void getActiveMemberIds_shouldRebuildTheIdsOnceAMembershipThatStartsInTheFutureHasStarted() {
+		Date start = new Date(System.currentTimeMillis() + 3600000);
+		Date beforeStart = new Date(start.getTime() - 1);
+		Cohort cohort = new Cohort();
+		cohort.addMembership(new CohortMembership(new Patient(1), start));
+		
+		IntBitmap ids = cohort.getActiveMemberIds(beforeStart);
+		assertFalse(ids.contains(1));
+		assertSame(ids, cohort.getActiveMemberIds(beforeStart));
+		
+		assertTrue(cohort.getActiveMemberIds(start).contains(1));
+	}
+	
+	/**
+	 * @see Cohort#union(Cohort,Cohort)
+	 */
+	@Test
+	public void union_shouldContainTheActiveMembersOfBothCohorts() {
+		Cohort union = Cohort.union(new Cohort("a", "", new Integer[] { 1, 2 }), new Cohort("b", "", new Integer[] { 2, 3 }));
+		
+		assertEquals("[1, 2, 3]", union.getMemberIds().toString());
+		assertEquals("(a + b)", union.getName());
+		assertEquals(3, Cohort.union(union, null).size());
+	}
+	
+	/**
+	 * @see Cohort#union(Cohort,Cohort)
+	 */
+	@Test
+	public void union_shouldNotContainMembersWhoseMembershipHasEnded() {
+		Cohort a = new Cohort("a", "", new Integer[] { 1, 2 });
+		a.removeMember(1);
+		
+		Cohort union = Cohort.union(a, new Cohort("b", "", new Integer[] { 3 }));
+		
+		assertFalse(union.contains(1));
+		assertEquals("[2, 3]", union.getMemberIds().toString());
+	}
+	
+	/**
+	 * @see Cohort#intersect(Cohort,Cohort)
+	 */
+	@Test
+	public void intersect_shouldContainThePatientsThatAreActiveMembersOfBothCohorts() {
+		Cohort a = new Cohort("a", "", new Integer[] { 1, 2, 3 });
+		Cohort b = new Cohort("b", "", new Integer[] { 2, 3, 4 });
+		b.removeMember(3);
+		
+		Cohort intersection = Cohort.intersect(a, b);
+		
+		assertEquals("[2]", intersection.getMemberIds().toString());
+		assertEquals("(a * b)", intersection.getName());
+		assertTrue(Cohort.intersect(a, null).isEmpty());
+	}
+	
+	/**
+	 * @see Cohort#subtract(Cohort,Cohort)
+	 */
+	@Test
+	public void subtract_shouldContainTheActiveMembersOfTheFirstCohortThatAreNotInTheSecondOne() {
+		Cohort a = new Cohort("a", "", new Integer[] { 1, 2, 3 });
+		Cohort b = new Cohort("b", "", new Integer[] { 2, 4 });
+		
+		Cohort difference = Cohort.subtract(a, b);
+		
+		assertEquals("[1, 3]", difference.getMemberIds().toString());
+		assertEquals("(a - b)", difference.getName());
+		assertEquals(3, Cohort.subtract(a, null).size());
+	}
+	
+	/**
+	 * @see Cohort#subtract(Cohort,Cohort)
+	 */
+	@Test
+	public void subtract_shouldNotCreateMembershipsUntilTheyAreNeeded() throws Exception {
+		Cohort difference = Cohort.subtract(new Cohort("a", "", new Integer[] { 1, 2, 3 }), new Cohort("b", "",
+		        new Integer[] { 2 }));
+		Field members = Cohort.class.getDeclaredField("members");
+		members.setAccessible(true);
+		
+		assertEquals(2, difference.size());
+		assertTrue(difference.contains(3));
+		assertEquals("[1, 3]", difference.getMemberIds().toString());
+		assertNull(members.get(difference));
+		
+		assertEquals(2, difference.getMembers().size());
+		for (CohortMembership membership : difference.getMembers()) {
+			assertSame(difference, membership.getCohort());
+			assertTrue(membership.isMemberActive());
+		}
+		assertTrue(difference.contains(3));
+	}
+	
+	/**
+	 * @see Cohort#subtract(Cohort,Cohort)
+	 */
+	@Test
+	public void subtract_shouldKeepTheMembersWhenSerialized() {
+		Cohort difference = Cohort.subtract(new Cohort("a", "", new Integer[] { 1, 2, 3 }), new Cohort("b", "",
+		        new Integer[] { 2 }));
+		
+		Cohort copy = (Cohort) SerializationUtils.deserialize(SerializationUtils.serialize(difference));
+		assertEquals(2, copy.size());
+		assertEquals("[1, 3]", copy.getMemberIds().toString());
+		assertEquals(2, copy.getMembers().size());
+	}
+	
 }
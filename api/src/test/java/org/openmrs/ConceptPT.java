@@ -0,0 +1,103 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs;
+
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+
+/**
+ * Performance tests for the name lookups of {@link Concept}. Each round looks up a name
+ * {@link #CALLS_PER_ROUND} times, the concept has names in en_GB only so the lookups in other
+ * locales have to fall back.
+ */
+@BenchmarkHistoryChart
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 5)
+public class ConceptPT extends BaseContextSensitiveTest {
+	
+	private static final int CALLS_PER_ROUND = 10000;
+	
+	@Rule
+	public TestRule benchmarkRule = new BenchmarkRule();
+	
+	private Concept concept;
+	
+	@Before
+	public void before() {
+		concept = Context.getConceptService().getConcept(5497);
+		// load the names outside of the measured code
+		concept.getNames().size();
+	}
+	
+	@Test
+	public void shouldTestGetNameInExactLocale() {
+		Locale locale = Locale.UK;
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			concept.getName(locale);
+		}
+	}
+	
+	@Test
+	public void shouldTestGetNameInCompatibleLocale() {
+		Locale locale = Locale.US;
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			concept.getName(locale);
+		}
+	}
+	
+	@Test
+	public void shouldTestGetNameInUnknownLocale() {
+		Locale locale = Locale.JAPANESE;
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			concept.getName(locale);
+		}
+	}
+	
+	@Test
+	public void shouldTestGetPreferredName() {
+		Locale locale = Locale.UK;
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			concept.getPreferredName(locale);
+		}
+	}
+	
+	@Test
+	public void shouldTestGetFullySpecifiedNameInCompatibleLocale() {
+		Locale locale = Locale.US;
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			concept.getFullySpecifiedName(locale);
+		}
+	}
+	
+	@Test
+	public void shouldTestGetShortNameInLocale() {
+		Locale locale = Locale.UK;
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			concept.getShortNameInLocale(locale);
+		}
+	}
+	
+	@Test
+	public void shouldTestGetNamesInLocale() {
+		Locale locale = Locale.UK;
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			concept.getNames(locale);
+		}
+	}
+}
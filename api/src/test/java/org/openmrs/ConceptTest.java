@@ -18,6 +18,7 @@ import static org.junit.Assert.assertThat;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -764,6 +765,62 @@ public class ConceptTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(preferredNameEN, testConcept.getPreferredName(new Locale("en")));
 	}
 	
+	/**
+	 * @see Concept#getPreferredName(Locale)
+	 */
+	@Test
+	public void getPreferredName_shouldReturnTheNewPreferredNameAfterTheNamesWereChanged() throws Exception {
+		Concept testConcept = createMockConcept(1, Locale.US);
+		ConceptName preferredName = createMockConceptName(3, Locale.US, null, true);
+		testConcept.addName(preferredName);
+		ConceptName otherName = createMockConceptName(4, Locale.US, null, false);
+		testConcept.addName(otherName);
+		Assert.assertEquals(preferredName, testConcept.getPreferredName(Locale.US));
+		
+		preferredName.setLocalePreferred(false);
+		otherName.setLocalePreferred(true);
+		Assert.assertEquals(otherName, testConcept.getPreferredName(Locale.US));
+		
+		ConceptName newPreferredName = createMockConceptName(5, Locale.US, null, true);
+		testConcept.setPreferredName(newPreferredName);
+		Assert.assertEquals(newPreferredName, testConcept.getPreferredName(Locale.US));
+	}
+	
+	/**
+	 * @see Concept#getNames(Locale)
+	 */
+	@Test
+	public void getNames_shouldNotReturnANameThatWasVoidedAfterAnEarlierLookup() throws Exception {
+		Concept testConcept = createMockConcept(1, Locale.US);
+		ConceptName name = createMockConceptName(3, Locale.US, null, false);
+		testConcept.addName(name);
+		Assert.assertTrue(testConcept.getNames(Locale.US).contains(name));
+		
+		name.setVoided(true);
+		Assert.assertFalse(testConcept.getNames(Locale.US).contains(name));
+	}
+	
+	/**
+	 * @see Concept#getNames(Locale)
+	 */
+	@Test
+	public void getNames_shouldNotReturnANameThatWasReplacedInTheNamesCollectionAfterAnEarlierLookup() throws Exception {
+		Concept testConcept = createMockConcept(1, Locale.US);
+		ConceptName name = createMockConceptName(3, Locale.US, null, false);
+		Collection<ConceptName> names = new HashSet<ConceptName>();
+		names.add(name);
+		testConcept.setNames(names);
+		Assert.assertTrue(testConcept.getNames(Locale.US).contains(name));
+		
+		// swapping a name for another one leaves the size of the collection unchanged
+		ConceptName otherName = createMockConceptName(4, Locale.US, null, false);
+		names.remove(name);
+		names.add(otherName);
+		Collection<ConceptName> namesInLocale = testConcept.getNames(Locale.US);
+		Assert.assertFalse(namesInLocale.contains(name));
+		Assert.assertTrue(namesInLocale.contains(otherName));
+	}
+	
 	/**
 	 * @see Concept#getShortestName(Locale,Boolean)
 	 */
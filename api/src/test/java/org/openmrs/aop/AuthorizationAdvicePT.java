@@ -0,0 +1,66 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.aop;
+
+import java.lang.reflect.Method;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.openmrs.annotation.AuthorizedAnnotationAttributes;
+import org.openmrs.api.ConceptService;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+
+/**
+ * Performance tests for {@link AuthorizationAdvice}. Each round runs the advice
+ * {@link #CALLS_PER_ROUND} times, the per call overhead is the round time divided by that number.
+ * The annotation lookup test measures the reflection the advice used to repeat on every call.
+ */
+@BenchmarkHistoryChart
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 5)
+public class AuthorizationAdvicePT extends BaseContextSensitiveTest {
+	
+	private static final int CALLS_PER_ROUND = 100000;
+	
+	@Rule
+	public TestRule benchmarkRule = new BenchmarkRule();
+	
+	private AuthorizationAdvice advice = new AuthorizationAdvice();
+	
+	private Method method;
+	
+	@Before
+	public void before() throws Exception {
+		method = ConceptService.class.getMethod("getConcept", Integer.class);
+	}
+	
+	@Test
+	public void shouldTestAuthorizationAdvice() throws Throwable {
+		Object[] args = new Object[] { 3 };
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			advice.before(method, args, null);
+		}
+	}
+	
+	@Test
+	public void shouldTestAuthorizedAnnotationLookup() {
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			AuthorizedAnnotationAttributes attributes = new AuthorizedAnnotationAttributes();
+			attributes.getAttributes(method);
+			attributes.getRequireAll(method);
+			attributes.hasAuthorizedAnnotation(method);
+		}
+	}
+}
@@ -17,15 +17,19 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.junit.Assert.assertThat;
 
+import java.lang.reflect.Method;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 import javax.annotation.Resource;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.openmrs.Concept;
 import org.openmrs.PrivilegeListener;
 import org.openmrs.User;
+import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.ConceptService;
 import org.openmrs.api.context.Context;
 import org.openmrs.test.BaseContextSensitiveTest;
 import org.openmrs.test.Verifies;
@@ -69,6 +73,27 @@ public class AuthorizationAdviceTest extends BaseContextSensitiveTest {
 		assertThat(listener2.lacksPrivileges, empty());
 	}
 	
+	/**
+	 * @see AuthorizationAdvice#before(Method, Object[], Object)
+	 */
+	@Test
+	public void before_shouldFailOnEveryCallToAMethodTheUserLacksThePrivilegesFor() throws Throwable {
+		AuthorizationAdvice advice = new AuthorizationAdvice();
+		Method method = ConceptService.class.getMethod("getConcept", Integer.class);
+		advice.before(method, new Object[] { 3 }, null);
+		
+		Context.logout();
+		for (int i = 0; i < 2; i++) {
+			try {
+				advice.before(method, new Object[] { 3 }, null);
+				Assert.fail("Expected an APIAuthenticationException");
+			}
+			catch (APIAuthenticationException e) {
+				//expected
+			}
+		}
+	}
+	
 	@Component("listener1")
 	public static class Listener1 implements PrivilegeListener {
 		
@@ -668,6 +668,43 @@ public class RequiredDataAdviceTest extends BaseContextMockTest {
 		
 	}
 	
+	@Test
+	public void before_shouldCallHandlersOnChildrenThatAreEqualButNotTheSameObject() throws Throwable {
+		
+		Method m = WithAppropriatelyNamedMethod.class.getMethod("voidClassWithDisableHandlersAnnotation",
+		    ClassWithDisableHandlersAnnotation.class);
+		
+		ClassWithDisableHandlersAnnotation openmrsObject = new ClassWithDisableHandlersAnnotation();
+		
+		// two different person objects that are equal because they share a uuid
+		Person person = new Person();
+		Person equalPerson = new Person();
+		equalPerson.setUuid(person.getUuid());
+		openmrsObject.setNotAnnotatedPersons(Arrays.asList(person, equalPerson));
+		
+		requiredDataAdvice.before(m, new Object[] { openmrsObject, "void reason" }, new WithAppropriatelyNamedMethod());
+		
+		verify(voidHandler, times(2)).handle(eq(person), Matchers.<User> anyObject(), Matchers.<Date> anyObject(),
+		    anyString());
+	}
+	
+	@Test
+	public void before_shouldCallHandlersOnlyOnceOnAChildThatIsInACollectionTwice() throws Throwable {
+		
+		Method m = WithAppropriatelyNamedMethod.class.getMethod("voidClassWithDisableHandlersAnnotation",
+		    ClassWithDisableHandlersAnnotation.class);
+		
+		ClassWithDisableHandlersAnnotation openmrsObject = new ClassWithDisableHandlersAnnotation();
+		
+		Person person = new Person();
+		openmrsObject.setNotAnnotatedPersons(Arrays.asList(person, person));
+		
+		requiredDataAdvice.before(m, new Object[] { openmrsObject, "void reason" }, new WithAppropriatelyNamedMethod());
+		
+		verify(voidHandler, times(1)).handle(eq(person), Matchers.<User> anyObject(), Matchers.<Date> anyObject(),
+		    anyString());
+	}
+	
 	class SomeOpenmrsData extends BaseOpenmrsData {
 		
 		@Override
@@ -551,6 +551,19 @@ public class AdministrationServiceTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(19, as.getAllGlobalProperties().size());
 	}
 	
+	/**
+	 * @see AdministrationService#purgeGlobalProperty(GlobalProperty)
+	 */
+	@Test
+	public void purgeGlobalProperty_shouldNotReturnTheValueOfTheDeletedProperty() throws Exception {
+		executeDataSet(ADMIN_INITIAL_DATA_XML);
+		AdministrationService as = Context.getAdministrationService();
+		
+		Assert.assertEquals("correct-value", as.getGlobalProperty("a_valid_gp_key"));
+		as.purgeGlobalProperty(as.getGlobalPropertyObject("a_valid_gp_key"));
+		Assert.assertNull(as.getGlobalProperty("a_valid_gp_key"));
+	}
+	
 	/**
 	 * @see AdministrationService#saveGlobalProperty(GlobalProperty)
 	 */
@@ -36,6 +36,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.dbunit.dataset.IDataSet;
@@ -451,6 +452,51 @@ public class ConceptServiceTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(numberofconcepts, iteratorCount);
 	}
 	
+	/**
+	 * @see ConceptService#conceptIterator(int)
+	 */
+	@Test
+	public void conceptIterator_shouldIterateOverAllConceptsInAscendingConceptIdOrder() throws Exception {
+		List<Integer> expected = new ArrayList<Integer>();
+		for (Concept concept : conceptService.getAllConcepts()) {
+			expected.add(concept.getConceptId());
+		}
+		Collections.sort(expected);
+		
+		List<Integer> actual = new ArrayList<Integer>();
+		Iterator<Concept> iterator = conceptService.conceptIterator(2);
+		while (iterator.hasNext() && actual.size() <= expected.size()) {
+			actual.add(iterator.next().getConceptId());
+		}
+		
+		Assert.assertEquals(expected, actual);
+	}
+	
+	/**
+	 * @see ConceptService#conceptIterator(int)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void conceptIterator_shouldFailIfTheBatchSizeIsLessThan1() throws Exception {
+		conceptService.conceptIterator(0);
+	}
+	
+	/**
+	 * @see ConceptService#conceptStream(int)
+	 */
+	@Test
+	public void conceptStream_shouldReturnAllConceptsInAscendingConceptIdOrder() throws Exception {
+		List<Integer> expected = new ArrayList<Integer>();
+		Iterator<Concept> iterator = conceptService.conceptIterator();
+		while (iterator.hasNext()) {
+			expected.add(iterator.next().getConceptId());
+		}
+		
+		List<Integer> actual = conceptService.conceptStream(3).map(Concept::getConceptId).collect(Collectors.toList());
+		
+		Assert.assertEquals(conceptService.getAllConcepts().size(), actual.size());
+		Assert.assertEquals(expected, actual);
+	}
+	
 	/**
 	 * @see ConceptService#saveConcept(Concept)
 	 */
@@ -1681,6 +1727,71 @@ public class ConceptServiceTest extends BaseContextSensitiveTest {
 		assertThat(conceptSet, containsInAnyOrder(hasId(2), hasId(3), hasId(4), hasId(5), hasId(6)));
 	}
 	
+	/**
+	 * @see ConceptService#isConceptInSet(Concept, Concept)
+	 */
+	@Test
+	public void isConceptInSet_shouldReturnTrueForAMemberOfANestedSet() throws Exception {
+		executeDataSet(GET_CONCEPTS_BY_SET_XML);
+		
+		Concept conceptSet = conceptService.getConcept(1);
+		for (Concept member : conceptService.getConceptsByConceptSet(conceptSet)) {
+			Assert.assertTrue(conceptService.isConceptInSet(member, conceptSet));
+		}
+	}
+	
+	/**
+	 * @see ConceptService#isConceptInSet(Concept, Concept)
+	 */
+	@Test
+	public void isConceptInSet_shouldReturnFalseForAConceptThatIsNotInTheSet() throws Exception {
+		Assert.assertFalse(conceptService.isConceptInSet(conceptService.getConcept(18), conceptService.getConcept(25)));
+		Assert.assertFalse(conceptService.isConceptInSet(conceptService.getConcept(23), conceptService.getConcept(18)));
+	}
+	
+	/**
+	 * @see ConceptService#isConceptInSet(Concept, Concept)
+	 */
+	@Test
+	public void isConceptInSet_shouldSeeTheMembersAddedBySavingAConcept() throws Exception {
+		Concept member = conceptService.getConcept(18);
+		Concept conceptSet = conceptService.getConcept(25);
+		Assert.assertFalse(conceptService.isConceptInSet(member, conceptSet));
+		
+		// 18 is a member of 23
+		conceptSet.addSetMember(conceptService.getConcept(23));
+		conceptService.saveConcept(conceptSet);
+		
+		Assert.assertTrue(conceptService.isConceptInSet(member, conceptSet));
+	}
+	
+	/**
+	 * @see ConceptService#getConceptIdsByConceptSet(Concept)
+	 */
+	@Test
+	public void getConceptIdsByConceptSet_shouldReturnTheIdsOfTheMembersOfNestedSets() throws Exception {
+		executeDataSet(GET_CONCEPTS_BY_SET_XML);
+		
+		Set<Integer> conceptIds = conceptService.getConceptIdsByConceptSet(conceptService.getConcept(1));
+		
+		assertThat(conceptIds, containsInAnyOrder(2, 3, 4, 5, 6));
+	}
+	
+	/**
+	 * @see ConceptService#getConceptSetIdsContainingConcept(Concept)
+	 */
+	@Test
+	public void getConceptSetIdsContainingConcept_shouldReturnTheIdsOfTheSetsThatContainTheConceptThroughOtherSets()
+	        throws Exception {
+		Concept conceptSet = conceptService.getConcept(25);
+		conceptSet.addSetMember(conceptService.getConcept(23));
+		conceptService.saveConcept(conceptSet);
+		
+		Set<Integer> conceptSetIds = conceptService.getConceptSetIdsContainingConcept(conceptService.getConcept(18));
+		
+		assertThat(conceptSetIds, containsInAnyOrder(23, 25));
+	}
+	
 	/**
 	 * @see ConceptService#saveConceptStopWord(org.openmrs.ConceptStopWord)
 	 */
@@ -18,6 +18,7 @@ import org.openmrs.customdatatype.CustomDatatype;
 import org.openmrs.customdatatype.CustomDatatypeUtil;
 import org.openmrs.customdatatype.datatype.DateDatatype;
 import org.openmrs.customdatatype.datatype.LocationDatatype;
+import org.openmrs.customdatatype.datatype.RegexValidatedTextDatatype;
 import org.openmrs.test.BaseContextSensitiveTest;
 
 public class DatatypeServiceTest extends BaseContextSensitiveTest {
@@ -43,4 +44,27 @@ public class DatatypeServiceTest extends BaseContextSensitiveTest {
 		CustomDatatype locationDatatype = CustomDatatypeUtil.getDatatype(LocationDatatype.class.getName(), null);
 		Assert.assertEquals(LocationDatatypeHandler.class, service.getHandler(locationDatatype, null).getClass());
 	}
+	
+	/**
+	 * @see DatatypeService#getHandler(CustomDatatype,String)
+	 */
+	@Test
+	public void getHandler_shouldReturnTheSameHandlerForTheSameConfiguration() throws Exception {
+		DatatypeService service = Context.getDatatypeService();
+		CustomDatatype dateDatatype = service.getDatatype(DateDatatype.class, null);
+		Assert.assertSame(service.getHandler(dateDatatype, "config"), service.getHandler(dateDatatype, "config"));
+		Assert.assertNotSame(service.getHandler(dateDatatype, "config"), service.getHandler(dateDatatype, null));
+	}
+	
+	/**
+	 * @see DatatypeService#getDatatype(Class,String)
+	 */
+	@Test
+	public void getDatatype_shouldReturnTheSameInstanceForTheSameClassAndConfiguration() throws Exception {
+		DatatypeService service = Context.getDatatypeService();
+		RegexValidatedTextDatatype datatype = service.getDatatype(RegexValidatedTextDatatype.class, "[a-z]+");
+		Assert.assertSame(datatype, service.getDatatype(RegexValidatedTextDatatype.class, "[a-z]+"));
+		Assert.assertSame(datatype, CustomDatatypeUtil.getDatatype(RegexValidatedTextDatatype.class.getName(), "[a-z]+"));
+		Assert.assertNotSame(datatype, service.getDatatype(RegexValidatedTextDatatype.class, "[0-9]+"));
+	}
 }
@@ -23,8 +23,10 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -1661,6 +1663,76 @@ public class EncounterServiceTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(3, allEncounters.get(7).size());
 	}
 	
+	/**
+	 * @see EncounterService#forEachPatientEncounters(Cohort, java.util.function.BiConsumer)
+	 */
+	@Test
+	public void forEachPatientEncounters_shouldPassTheEncountersOfEachPatientOfTheCohortInOrderOfThePatientIds()
+	        throws Exception {
+		Cohort cohort = new Cohort();
+		cohort.addMember(7);
+		cohort.addMember(2);
+		
+		Map<Integer, List<Integer>> encounterIds = getEncounterIdsByPatient(cohort);
+		assertEquals(Arrays.asList(2, 7), new ArrayList<Integer>(encounterIds.keySet()));
+		assertEquals(getEncounterIdsByPatient(Context.getEncounterService().getAllEncounters(cohort)), encounterIds);
+		
+		// the encounters of a patient are passed newest first
+		List<Encounter> encounters = Context.getEncounterService().getEncountersByPatientId(7);
+		Collections.sort(encounters, (e1, e2) -> e2.getEncounterDatetime().compareTo(e1.getEncounterDatetime()));
+		assertEquals(getEncounterIds(encounters), encounterIds.get(7));
+	}
+	
+	/**
+	 * @see EncounterService#forEachPatientEncounters(Cohort, java.util.function.BiConsumer)
+	 */
+	@Test
+	public void forEachPatientEncounters_shouldPassTheEncountersOfAllPatientsIfTheCohortIsNull() throws Exception {
+		Map<Integer, List<Integer>> encounterIds = getEncounterIdsByPatient((Cohort) null);
+		assertEquals(new ArrayList<Integer>(new TreeSet<Integer>(encounterIds.keySet())), new ArrayList<Integer>(
+		        encounterIds.keySet()));
+		assertEquals(getEncounterIdsByPatient(Context.getEncounterService().getAllEncounters(null)), encounterIds);
+	}
+	
+	/**
+	 * @see EncounterService#forEachPatientEncounters(Cohort, java.util.function.BiConsumer)
+	 */
+	@Test
+	public void forEachPatientEncounters_shouldNotPassVoidedEncounters() throws Exception {
+		Cohort cohort = new Cohort();
+		cohort.addMember(7);
+		Encounter voided = Context.getEncounterService().getEncountersByPatientId(7).get(0);
+		Context.getEncounterService().voidEncounter(voided, "testing");
+		Context.flushSession();
+		
+		List<Integer> encounterIds = getEncounterIdsByPatient(cohort).get(7);
+		assertEquals(2, encounterIds.size());
+		assertFalse(encounterIds.contains(voided.getEncounterId()));
+	}
+	
+	private Map<Integer, List<Integer>> getEncounterIdsByPatient(Cohort cohort) {
+		Map<Integer, List<Integer>> encounterIds = new LinkedHashMap<Integer, List<Integer>>();
+		Context.getEncounterService().forEachPatientEncounters(cohort,
+		    (patientId, encounters) -> encounterIds.put(patientId, getEncounterIds(encounters)));
+		return encounterIds;
+	}
+	
+	private Map<Integer, List<Integer>> getEncounterIdsByPatient(Map<Integer, List<Encounter>> encounters) {
+		Map<Integer, List<Integer>> encounterIds = new HashMap<Integer, List<Integer>>();
+		for (Map.Entry<Integer, List<Encounter>> entry : encounters.entrySet()) {
+			encounterIds.put(entry.getKey(), getEncounterIds(entry.getValue()));
+		}
+		return encounterIds;
+	}
+	
+	private List<Integer> getEncounterIds(List<Encounter> encounters) {
+		List<Integer> encounterIds = new ArrayList<Integer>();
+		for (Encounter encounter : encounters) {
+			encounterIds.add(encounter.getEncounterId());
+		}
+		return encounterIds;
+	}
+	
 	/**
 	 * @see EncounterService#getEncounters(Patient, Location, Date, Date, java.util.Collection,
 	 *      java.util.Collection, java.util.Collection, java.util.Collection, java.util.Collection,
@@ -3120,4 +3192,105 @@ public class EncounterServiceTest extends BaseContextSensitiveTest {
 		
 		assertEquals("Two New Order Groups Get Saved", 2, orderGroups.size());
 	}
+	
+	/**
+	 * Adds a visit with an encounter, an encounter without a visit and an empty visit to patient 2,
+	 * who already has an encounter without a visit and two empty visits
+	 */
+	private Patient createTimeline() throws Exception {
+		Patient patient = Context.getPatientService().getPatient(2);
+		VisitService vs = Context.getVisitService();
+		EncounterService es = Context.getEncounterService();
+		
+		Visit visit = new Visit(patient, vs.getVisitType(1), parseDate("2010-01-01"));
+		vs.saveVisit(visit);
+		Encounter inVisit = new Encounter();
+		inVisit.setPatient(patient);
+		inVisit.setEncounterType(es.getEncounterType(1));
+		inVisit.setEncounterDatetime(parseDate("2010-01-02"));
+		inVisit.setVisit(visit);
+		es.saveEncounter(inVisit);
+		
+		Encounter withoutVisit = new Encounter();
+		withoutVisit.setPatient(patient);
+		withoutVisit.setEncounterType(es.getEncounterType(1));
+		withoutVisit.setEncounterDatetime(parseDate("2009-06-01"));
+		es.saveEncounter(withoutVisit);
+		
+		vs.saveVisit(new Visit(patient, vs.getVisitType(2), parseDate("2009-01-01")));
+		return patient;
+	}
+	
+	private Date parseDate(String date) throws Exception {
+		return new SimpleDateFormat("yyyy-MM-dd").parse(date);
+	}
+	
+	private Date getTimelineDate(Encounter encounter) {
+		return encounter.getVisit() != null ? encounter.getVisit().getStartDatetime() : encounter.getEncounterDatetime();
+	}
+	
+	/**
+	 * @see EncounterService#getEncountersByVisitsAndPatient(Patient,boolean,String,Integer,Integer)
+	 */
+	@Test
+	public void getEncountersByVisitsAndPatient_shouldReturnEncountersAndEmptyVisitsNewestFirst() throws Exception {
+		Patient patient = createTimeline();
+		EncounterService es = Context.getEncounterService();
+		
+		List<Encounter> timeline = es.getEncountersByVisitsAndPatient(patient, false, null, null, null);
+		
+		assertEquals(es.getEncountersByVisitsAndPatientCount(patient, false, null).intValue(), timeline.size());
+		assertEquals(6, timeline.size());
+		assertNotNull(timeline.get(0).getEncounterId());
+		assertNotNull(timeline.get(0).getVisit());
+		assertNotNull(timeline.get(1).getEncounterId());
+		assertNull(timeline.get(1).getVisit());
+		assertNull(timeline.get(2).getEncounterId());
+		assertEquals(parseDate("2009-01-01"), getTimelineDate(timeline.get(2)));
+		assertEquals(6, timeline.get(3).getEncounterId().intValue());
+		for (int i = 1; i < timeline.size(); i++) {
+			assertFalse(getTimelineDate(timeline.get(i)).after(getTimelineDate(timeline.get(i - 1))));
+		}
+	}
+	
+	/**
+	 * @see EncounterService#getEncountersByVisitsAndPatient(Patient,boolean,String,Integer,Integer)
+	 */
+	@Test
+	public void getEncountersByVisitsAndPatient_shouldReturnTheRequestedPage() throws Exception {
+		Patient patient = createTimeline();
+		EncounterService es = Context.getEncounterService();
+		List<Encounter> timeline = es.getEncountersByVisitsAndPatient(patient, false, null, null, null);
+		
+		for (int start = 0; start < timeline.size(); start++) {
+			List<Encounter> page = es.getEncountersByVisitsAndPatient(patient, false, null, start, 2);
+			List<Encounter> expected = timeline.subList(start, Math.min(start + 2, timeline.size()));
+			assertEquals(expected.size(), page.size());
+			for (int i = 0; i < page.size(); i++) {
+				assertEquals(expected.get(i).getEncounterId(), page.get(i).getEncounterId());
+				assertEquals(expected.get(i).getVisit(), page.get(i).getVisit());
+			}
+		}
+		assertEquals(0, es.getEncountersByVisitsAndPatient(patient, false, null, timeline.size(), 2).size());
+	}
+	
+	/**
+	 * @see EncounterService#getEncountersByVisitsAndPatient(Patient,boolean,String,Integer,Integer)
+	 */
+	@Test
+	public void getEncountersByVisitsAndPatient_shouldFilterTheResultsByTheQuery() throws Exception {
+		Patient patient = createTimeline();
+		EncounterService es = Context.getEncounterService();
+		VisitType returnVisit = Context.getVisitService().getVisitType(2);
+		
+		List<Encounter> timeline = es.getEncountersByVisitsAndPatient(patient, false, returnVisit.getName(), null, null);
+		
+		assertEquals(es.getEncountersByVisitsAndPatientCount(patient, false, returnVisit.getName()).intValue(), timeline
+		        .size());
+		assertEquals(2, timeline.size());
+		for (Encounter encounter : timeline) {
+			assertNull(encounter.getEncounterId());
+			assertEquals(returnVisit, encounter.getVisit().getVisitType());
+		}
+	}
 }
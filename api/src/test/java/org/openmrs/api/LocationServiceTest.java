@@ -17,8 +17,10 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -1259,4 +1261,111 @@ public class LocationServiceTest extends BaseContextSensitiveTest {
 		Assert.assertFalse(tag.getRetired());
 	}
 	
+	/**
+	 * @see LocationService#getDescendantLocationIds(Location,boolean)
+	 */
+	@Test
+	public void getDescendantLocationIds_shouldReturnTheIdsOfAllDescendantsOfTheLocation() throws Exception {
+		LocationService ls = Context.getLocationService();
+		
+		assertEquals(new HashSet<Integer>(Arrays.asList(2, 3, 4)), ls.getDescendantLocationIds(ls.getLocation(1), true));
+		assertEquals(new HashSet<Integer>(Arrays.asList(4)), ls.getDescendantLocationIds(ls.getLocation(3), true));
+		assertTrue(ls.getDescendantLocationIds(ls.getLocation(4), true).isEmpty());
+	}
+	
+	/**
+	 * @see LocationService#getDescendantLocationIds(Location,boolean)
+	 */
+	@Test
+	public void getDescendantLocationIds_shouldNotReturnRetiredLocationsAndTheirDescendantsIfIncludeRetiredIsFalse()
+	        throws Exception {
+		LocationService ls = Context.getLocationService();
+		ls.retireLocation(ls.getLocation(3), "test");
+		
+		assertEquals(new HashSet<Integer>(Arrays.asList(2)), ls.getDescendantLocationIds(ls.getLocation(1), false));
+		assertEquals(new HashSet<Integer>(Arrays.asList(2, 3, 4)), ls.getDescendantLocationIds(ls.getLocation(1), true));
+	}
+	
+	/**
+	 * @see LocationService#getDescendantLocationIds(Location,boolean)
+	 */
+	@Test
+	public void getDescendantLocationIds_shouldReturnAnEmptySetForAnUnsavedLocation() throws Exception {
+		assertTrue(Context.getLocationService().getDescendantLocationIds(new Location(), true).isEmpty());
+	}
+	
+	/**
+	 * @see LocationService#getDescendantLocationIds(Location,boolean)
+	 */
+	@Test
+	public void getDescendantLocationIds_shouldSeeALocationSavedInTheSameTransaction() throws Exception {
+		LocationService ls = Context.getLocationService();
+		Location root = ls.getLocation(1);
+		assertEquals(3, ls.getDescendantLocationIds(root, false).size());
+		
+		Location location = new Location();
+		location.setName("Test Level C Child Location");
+		location.setParentLocation(ls.getLocation(4));
+		ls.saveLocation(location);
+		
+		assertTrue(ls.getDescendantLocationIds(root, false).contains(location.getLocationId()));
+		assertEquals(Arrays.asList(4, 3, 1), ls.getAncestorLocationIds(location));
+	}
+	
+	/**
+	 * @see LocationService#getAncestorLocationIds(Location)
+	 */
+	@Test
+	public void getAncestorLocationIds_shouldReturnTheIdsOfAllAncestorsOfTheLocationStartingWithItsParent()
+	        throws Exception {
+		LocationService ls = Context.getLocationService();
+		assertEquals(Arrays.asList(3, 1), ls.getAncestorLocationIds(ls.getLocation(4)));
+	}
+	
+	/**
+	 * @see LocationService#getAncestorLocationIds(Location)
+	 */
+	@Test
+	public void getAncestorLocationIds_shouldReturnAnEmptyListForARootLocation() throws Exception {
+		LocationService ls = Context.getLocationService();
+		assertTrue(ls.getAncestorLocationIds(ls.getLocation(1)).isEmpty());
+	}
+	
+	/**
+	 * @see LocationService#isInHierarchy(Location,Location)
+	 */
+	@Test
+	public void isInHierarchy_shouldReturnTrueIfTheLocationIsTheRoot() throws Exception {
+		LocationService ls = Context.getLocationService();
+		assertTrue(ls.isInHierarchy(ls.getLocation(3), ls.getLocation(3)));
+	}
+	
+	/**
+	 * @see LocationService#isInHierarchy(Location,Location)
+	 */
+	@Test
+	public void isInHierarchy_shouldReturnTrueIfTheLocationIsADescendantOfTheRoot() throws Exception {
+		LocationService ls = Context.getLocationService();
+		assertTrue(ls.isInHierarchy(ls.getLocation(4), ls.getLocation(1)));
+	}
+	
+	/**
+	 * @see LocationService#isInHierarchy(Location,Location)
+	 */
+	@Test
+	public void isInHierarchy_shouldReturnFalseIfTheLocationIsNotADescendantOfTheRoot() throws Exception {
+		LocationService ls = Context.getLocationService();
+		assertFalse(ls.isInHierarchy(ls.getLocation(4), ls.getLocation(2)));
+		assertFalse(ls.isInHierarchy(ls.getLocation(1), ls.getLocation(4)));
+	}
+	
+	/**
+	 * @see LocationService#isInHierarchy(Location,Location)
+	 */
+	@Test
+	public void isInHierarchy_shouldReturnFalseIfEitherLocationIsNull() throws Exception {
+		LocationService ls = Context.getLocationService();
+		assertFalse(ls.isInHierarchy(null, ls.getLocation(1)));
+		assertFalse(ls.isInHierarchy(ls.getLocation(1), null));
+	}
 }
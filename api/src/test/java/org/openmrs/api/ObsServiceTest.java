@@ -13,17 +13,20 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
 import java.io.CharArrayReader;
 import java.io.File;
+import java.io.InputStream;
 import java.io.Reader;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -36,6 +39,7 @@ import java.util.Set;
 import javax.imageio.ImageIO;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -52,6 +56,7 @@ import org.openmrs.Person;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.impl.ObsServiceImpl;
 import org.openmrs.obs.ComplexData;
+import org.openmrs.obs.ComplexDataStream;
 import org.openmrs.obs.ComplexObsHandler;
 import org.openmrs.obs.handler.BinaryDataHandler;
 import org.openmrs.obs.handler.ImageHandler;
@@ -475,6 +480,38 @@ public class ObsServiceTest extends BaseContextSensitiveTest {
 		createdFile.delete();
 	}
 	
+	/**
+	 * @see ObsService#getComplexObs(Integer,String)
+	 */
+	@Test
+	public void getComplexObs_shouldReturnAStreamOverTheStoredFileForTheStreamView() throws Exception {
+		executeDataSet(COMPLEX_OBS_XML);
+		File complexObsDir = OpenmrsUtil.getDirectoryInApplicationDataDirectory(Context.getAdministrationService()
+		        .getGlobalProperty(OpenmrsConstants.GLOBAL_PROPERTY_COMPLEX_OBS_DIR));
+		File createdFile = new File(complexObsDir, "openmrs_logo_small.gif");
+		try {
+			ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "gif", createdFile);
+			byte[] fileContent = FileUtils.readFileToByteArray(createdFile);
+			
+			Obs complexObs = Context.getObsService().getComplexObs(44, ComplexObsHandler.STREAM_VIEW);
+			
+			ComplexData complexData = complexObs.getComplexData();
+			assertEquals("image/gif", complexData.getMimeType());
+			assertEquals(Long.valueOf(fileContent.length), complexData.getLength());
+			ComplexDataStream stream = (ComplexDataStream) complexData.getData();
+			InputStream in = stream.openStream(6, 4);
+			try {
+				Assert.assertArrayEquals(Arrays.copyOfRange(fileContent, 6, 10), IOUtils.toByteArray(in));
+			}
+			finally {
+				in.close();
+			}
+		}
+		finally {
+			createdFile.delete();
+		}
+	}
+	
 	/**
 	 * @see ObsService#getComplexObs(Integer,String)
 	 */
@@ -1990,4 +2027,293 @@ public class ObsServiceTest extends BaseContextSensitiveTest {
 			}
 		}
 	}
+	
+	private List<Integer> getObsIdsInKeysetOrder(List<Person> whom) {
+		List<Obs> obs = Context.getObsService().getObservations(whom, null, null, null, null, null,
+		    Arrays.asList("obsDatetime asc", "obsId asc"), null, null, null, null, false, null);
+		List<Integer> obsIds = new ArrayList<Integer>();
+		for (Obs o : obs) {
+			obsIds.add(o.getObsId());
+		}
+		return obsIds;
+	}
+	
+	/**
+	 * @see ObsService#getObservationsAfter(List,List,List,List,List,List,Integer,Date,Date,boolean,String,Obs,int)
+	 */
+	@Test
+	public void getObservationsAfter_shouldReturnTheFirstPageOrderedByObsDatetimeAndObsIdIfLastObsIsNull()
+	        throws Exception {
+		executeDataSet(INITIAL_OBS_XML);
+		List<Integer> expected = getObsIdsInKeysetOrder(null);
+		
+		List<Obs> page = Context.getObsService().getObservationsAfter(null, null, null, null, null, null, null, null,
+		    null, false, null, null, 3);
+		
+		assertEquals(3, page.size());
+		for (int i = 0; i < page.size(); i++) {
+			assertEquals(expected.get(i), page.get(i).getObsId());
+		}
+	}
+	
+	/**
+	 * @see ObsService#getObservationsAfter(List,List,List,List,List,List,Integer,Date,Date,boolean,String,Obs,int)
+	 */
+	@Test
+	public void getObservationsAfter_shouldReturnAllMatchingObservationsAcrossPages() throws Exception {
+		executeDataSet(INITIAL_OBS_XML);
+		List<Integer> expected = getObsIdsInKeysetOrder(null);
+		assertTrue(expected.size() > 4);
+		
+		List<Integer> actual = new ArrayList<Integer>();
+		Obs lastObs = null;
+		List<Obs> page;
+		do {
+			page = Context.getObsService().getObservationsAfter(null, null, null, null, null, null, null, null, null,
+			    false, null, lastObs, 2);
+			for (Obs obs : page) {
+				actual.add(obs.getObsId());
+				lastObs = obs;
+			}
+		} while (page.size() == 2);
+		
+		assertEquals(expected, actual);
+	}
+	
+	/**
+	 * @see ObsService#getObservationsAfter(List,List,List,List,List,List,Integer,Date,Date,boolean,String,Obs,int)
+	 */
+	@Test
+	public void getObservationsAfter_shouldApplyTheSameCriteriaAsGetObservations() throws Exception {
+		executeDataSet(INITIAL_OBS_XML);
+		List<Person> whom = Collections.singletonList(new Person(8));
+		List<Integer> expected = getObsIdsInKeysetOrder(whom);
+		assertTrue(expected.size() > 1);
+		
+		List<Obs> page = Context.getObsService().getObservationsAfter(whom, null, null, null, null, null, null, null,
+		    null, false, null, null, 100);
+		
+		assertEquals(expected.size(), page.size());
+		for (Obs obs : page) {
+			assertEquals(8, obs.getPerson().getPersonId().intValue());
+		}
+	}
+	
+	/**
+	 * @see ObsService#getObservationsAfter(List,List,List,List,List,List,Integer,Date,Date,boolean,String,Obs,int)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void getObservationsAfter_shouldFailIfThePageSizeIsLessThan1() throws Exception {
+		Context.getObsService().getObservationsAfter(null, null, null, null, null, null, null, null, null, false, null,
+		    null, 0);
+	}
+	
+	/**
+	 * @see ObsService#getObservationsAfter(List,List,List,List,List,List,Integer,Date,Date,boolean,String,Obs,int)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void getObservationsAfter_shouldFailIfLastObsIsNotSaved() throws Exception {
+		Context.getObsService().getObservationsAfter(null, null, null, null, null, null, null, null, null, false, null,
+		    new Obs(), 10);
+	}
+	
+	/**
+	 * @see ObsService#getObservationStream(List,List,List,List,List,List,Integer,Date,Date,boolean,String,int)
+	 */
+	@Test
+	public void getObservationStream_shouldReturnAllMatchingObservationsOrderedByObsDatetimeAndObsId() throws Exception {
+		executeDataSet(INITIAL_OBS_XML);
+		List<Integer> expected = getObsIdsInKeysetOrder(null);
+		
+		List<Integer> actual = new ArrayList<Integer>();
+		Context.getObsService().getObservationStream(null, null, null, null, null, null, null, null, null, false, null, 3)
+		        .forEach(obs -> actual.add(obs.getObsId()));
+		
+		assertEquals(expected, actual);
+	}
+	
+	/**
+	 * @see ObsService#getObservationStream(List,List,List,List,List,List,Integer,Date,Date,boolean,String,int)
+	 */
+	@Test
+	public void getObservationStream_shouldKeepTheOtherObjectsInTheSession() throws Exception {
+		executeDataSet(INITIAL_OBS_XML);
+		Location location = Context.getLocationService().getLocation(1);
+		location.setName("unflushed name");
+		
+		assertTrue(Context.getObsService().getObservationStream(null, null, null, null, null, null, null, null, null,
+		    false, null, 3).count() > 3);
+		
+		assertSame(location, Context.getLocationService().getLocation(1));
+		assertEquals("unflushed name", location.getName());
+	}
+	
+	/**
+	 * @see ObsService#getObservationStream(List,List,List,List,List,List,Integer,Date,Date,boolean,String,int)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void getObservationStream_shouldFailIfTheBatchSizeIsLessThan1() throws Exception {
+		Context.getObsService().getObservationStream(null, null, null, null, null, null, null, null, null, false, null, 0);
+	}
+	
+	private Obs createNumericObs(double value) {
+		Obs obs = new Obs();
+		obs.setConcept(Context.getConceptService().getConcept(3));
+		obs.setPerson(new Patient(2));
+		obs.setObsDatetime(new Date());
+		obs.setLocation(new Location(1));
+		obs.setValueNumeric(value);
+		return obs;
+	}
+	
+	/**
+	 * @see ObsService#saveObs(Collection)
+	 */
+	@Test
+	public void saveObs_shouldSaveAllTheGivenObs() throws Exception {
+		ObsService obsService = Context.getObsService();
+		List<Obs> obs = new ArrayList<Obs>();
+		for (int i = 0; i < 120; i++) {
+			obs.add(createNumericObs(i));
+		}
+		
+		List<Obs> savedObs = obsService.saveObs(obs);
+		
+		assertEquals(obs, savedObs);
+		for (int i = 0; i < savedObs.size(); i++) {
+			Obs saved = obsService.getObs(savedObs.get(i).getObsId());
+			assertNotNull(saved);
+			assertEquals(i, saved.getValueNumeric(), 0);
+		}
+	}
+	
+	/**
+	 * @see ObsService#saveObs(Collection)
+	 */
+	@Test
+	public void saveObs_shouldSaveTheMembersOfObsGroups() throws Exception {
+		ObsService obsService = Context.getObsService();
+		Encounter encounter = Context.getEncounterService().getEncounter(3);
+		Obs group = createNumericObs(1);
+		group.setValueNumeric(null);
+		group.setEncounter(encounter);
+		Obs member = createNumericObs(2);
+		member.setLocation(null);
+		group.addGroupMember(member);
+		
+		obsService.saveObs(Arrays.asList(group, member, createNumericObs(3)));
+		
+		assertNotNull(group.getObsId());
+		assertNotNull(member.getObsId());
+		Obs savedMember = obsService.getObs(member.getObsId());
+		assertEquals(group.getObsId(), savedMember.getObsGroup().getObsId());
+		assertEquals(encounter.getEncounterId(), savedMember.getEncounter().getEncounterId());
+		assertEquals(1, savedMember.getLocation().getLocationId().intValue());
+	}
+	
+	/**
+	 * @see ObsService#saveObs(Collection)
+	 */
+	@Test
+	public void saveObs_shouldSaveTheMembersOfObsGroupsGivenBeforeTheirGroup() throws Exception {
+		ObsService obsService = Context.getObsService();
+		Encounter encounter = Context.getEncounterService().getEncounter(3);
+		Obs group = createNumericObs(1);
+		group.setValueNumeric(null);
+		group.setEncounter(encounter);
+		Obs member = createNumericObs(2);
+		group.addGroupMember(member);
+		// refers to the group without being one of its members
+		Obs otherMember = createNumericObs(3);
+		otherMember.setObsGroup(group);
+		
+		List<Obs> savedObs = obsService.saveObs(Arrays.asList(member, otherMember, group));
+		
+		assertEquals(Arrays.asList(member, otherMember, group), savedObs);
+		for (Obs o : Arrays.asList(member, otherMember)) {
+			Obs savedMember = obsService.getObs(o.getObsId());
+			assertEquals(group.getObsId(), savedMember.getObsGroup().getObsId());
+			assertEquals(encounter.getEncounterId(), savedMember.getEncounter().getEncounterId());
+			assertEquals(encounter.getPatient().getPersonId(), savedMember.getPerson().getPersonId());
+		}
+	}
+	
+	/**
+	 * @see ObsService#saveObs(Collection)
+	 */
+	@Test
+	public void saveObs_shouldSaveTheNewGroupsOfTheGivenObsThatAreNotAmongTheGivenObs() throws Exception {
+		ObsService obsService = Context.getObsService();
+		Encounter encounter = Context.getEncounterService().getEncounter(3);
+		Obs outerGroup = createNumericObs(1);
+		outerGroup.setValueNumeric(null);
+		outerGroup.setEncounter(encounter);
+		Obs group = createNumericObs(2);
+		group.setValueNumeric(null);
+		outerGroup.addGroupMember(group);
+		// refers to the group without being one of its members
+		Obs member = createNumericObs(3);
+		member.setObsGroup(group);
+		
+		obsService.saveObs(Arrays.asList(createNumericObs(4), member));
+		
+		assertNotNull(outerGroup.getObsId());
+		assertNotNull(group.getObsId());
+		Obs savedMember = obsService.getObs(member.getObsId());
+		assertEquals(group.getObsId(), savedMember.getObsGroup().getObsId());
+		assertEquals(outerGroup.getObsId(), savedMember.getObsGroup().getObsGroup().getObsId());
+		assertEquals(encounter.getEncounterId(), savedMember.getEncounter().getEncounterId());
+	}
+	
+	/**
+	 * @see ObsService#saveObs(Collection)
+	 */
+	@Test
+	public void saveObs_shouldSetThePersonOfObsInAnEncounterToThePatientOfTheEncounter() throws Exception {
+		Encounter encounter = Context.getEncounterService().getEncounter(3);
+		Obs obs = createNumericObs(1);
+		obs.setEncounter(encounter);
+		
+		Context.getObsService().saveObs(Collections.singletonList(obs));
+		
+		assertEquals(encounter.getPatient().getPersonId(), obs.getPerson().getPersonId());
+	}
+	
+	/**
+	 * @see ObsService#saveObs(Collection)
+	 */
+	@Test
+	public void saveObs_shouldSetCreatorAndDateCreatedOnAllObs() throws Exception {
+		Obs group = createNumericObs(1);
+		group.setValueNumeric(null);
+		Obs member = createNumericObs(2);
+		group.addGroupMember(member);
+		
+		Context.getObsService().saveObs(Collections.singletonList(group));
+		
+		for (Obs obs : Arrays.asList(group, member)) {
+			assertNotNull(obs.getCreator());
+			assertNotNull(obs.getDateCreated());
+			assertNotNull(obs.getUuid());
+		}
+	}
+	
+	/**
+	 * @see ObsService#saveObs(Collection)
+	 */
+	@Test(expected = APIException.class)
+	public void saveObs_shouldFailIfAnObsWasAlreadySaved() throws Exception {
+		Context.getObsService().saveObs(Arrays.asList(createNumericObs(1), Context.getObsService().getObs(7)));
+	}
+	
+	/**
+	 * @see ObsService#saveObs(Collection)
+	 */
+	@Test(expected = ValidationException.class)
+	public void saveObs_shouldFailIfAnObsIsInvalid() throws Exception {
+		Obs invalid = createNumericObs(1);
+		invalid.setConcept(null);
+		
+		Context.getObsService().saveObs(Arrays.asList(createNumericObs(1), invalid));
+	}
 }
@@ -0,0 +1,81 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.openmrs.api.impl.BlockOrderNumberGenerator;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseContextSensitiveTest;
+import org.openmrs.test.TestUtil;
+import org.openmrs.util.OpenmrsConstants;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+
+/**
+ * Performance tests comparing the default {@link OrderNumberGenerator}, which locks and updates the
+ * order number seed global property for every order number, with the
+ * {@link BlockOrderNumberGenerator}. Each round generates {@link #ORDER_NUMBERS_PER_ROUND} order
+ * numbers, so orders/sec is that number divided by the reported round time.
+ */
+@BenchmarkHistoryChart
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 5)
+public class OrderNumberGeneratorPT extends BaseContextSensitiveTest {
+	
+	private static final int ORDER_NUMBERS_PER_ROUND = 200;
+	
+	@Rule
+	public TestRule benchmarkRule = new BenchmarkRule();
+	
+	@Resource(name = "orderService")
+	OrderService orderService;
+	
+	@Resource(name = "blockOrderNumberGenerator")
+	OrderNumberGenerator blockOrderNumberGenerator;
+	
+	private String orderNumberSeed;
+	
+	@Before
+	public void before() {
+		orderNumberSeed = Context.getAdministrationService().getGlobalProperty(
+		    OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED);
+	}
+	
+	/**
+	 * Puts back the seed that the benchmark rounds advanced in committed transactions
+	 */
+	@After
+	public void restoreOrderNumberSeed() {
+		TestUtil.saveGlobalPropertyInNewTransaction(OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED, orderNumberSeed);
+	}
+	
+	@Test
+	public void shouldTestDefaultOrderNumberGenerator() {
+		generate((OrderNumberGenerator) orderService);
+	}
+	
+	@Test
+	public void shouldTestBlockOrderNumberGenerator() {
+		generate(blockOrderNumberGenerator);
+	}
+	
+	private void generate(OrderNumberGenerator generator) {
+		for (int i = 0; i < ORDER_NUMBERS_PER_ROUND; i++) {
+			generator.getNewOrderNumber(null);
+		}
+	}
+}
@@ -36,6 +36,7 @@ import java.util.Locale;
 import java.util.Set;
 
 import org.apache.commons.lang3.time.DateUtils;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -108,6 +109,8 @@ public class OrderServiceTest extends BaseContextSensitiveTest {
 	
 	private MessageSourceService mss;
 	
+	private String orderNumberSeed;
+	
 	@Rule
 	public ExpectedException expectedException = ExpectedException.none();
 	
@@ -141,6 +144,16 @@ public class OrderServiceTest extends BaseContextSensitiveTest {
 		if (mss == null) {
 			mss = Context.getMessageSourceService();
 		}
+		orderNumberSeed = adminService.getGlobalProperty(OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED);
+	}
+	
+	/**
+	 * Getting an order number advances the seed in a committed transaction of its own, which the
+	 * rollback of the test does not undo
+	 */
+	@After
+	public void restoreOrderNumberSeed() {
+		TestUtil.saveGlobalPropertyInNewTransaction(OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED, orderNumberSeed);
 	}
 	
 	/**
@@ -261,6 +274,24 @@ public class OrderServiceTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(N, uniqueOrderNumbers.size());
 	}
 	
+	/**
+	 * @see OrderService#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	@Test
+	public void reserveOrderNumberSeedSequenceValues_shouldAdvanceTheOrderNumberSeedByTheSpecifiedCount() throws Exception {
+		Long first = orderService.reserveOrderNumberSeedSequenceValues(25);
+		assertEquals(Long.valueOf(first + 25), orderService.getNextOrderNumberSeedSequenceValue());
+	}
+	
+	/**
+	 * @see OrderService#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	@Test
+	public void reserveOrderNumberSeedSequenceValues_shouldFailIfCountIsNotPositive() throws Exception {
+		expectedException.expect(IllegalArgumentException.class);
+		orderService.reserveOrderNumberSeedSequenceValues(0);
+	}
+	
 	/**
 	 * @see OrderService#getOrderByOrderNumber(String)
 	 */
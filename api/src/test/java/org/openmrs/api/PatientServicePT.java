@@ -0,0 +1,60 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import static org.junit.Assert.assertFalse;
+
+import javax.annotation.Resource;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+
+/**
+ * Performance tests for the patient searches of {@link PatientService}, run against the standard
+ * test dataset.
+ */
+@BenchmarkHistoryChart
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 5)
+public class PatientServicePT extends BaseContextSensitiveTest {
+	
+	private static final int CALLS_PER_ROUND = 20;
+	
+	@Rule
+	public TestRule benchmarkRule = new BenchmarkRule();
+	
+	@Resource(name = "patientService")
+	PatientService patientService;
+	
+	@Before
+	public void before() {
+		updateSearchIndex();
+	}
+	
+	@Test
+	public void shouldTestGetPatientsByName() {
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			assertFalse(patientService.getPatients("Horatio").isEmpty());
+		}
+	}
+	
+	@Test
+	public void shouldTestGetPatientsByIdentifier() {
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			assertFalse(patientService.getPatients("101-6").isEmpty());
+		}
+	}
+}
@@ -23,6 +23,7 @@ import java.util.Set;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.openmrs.Cohort;
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
 import org.openmrs.ConceptStateConversion;
@@ -34,6 +35,7 @@ import org.openmrs.ProgramWorkflow;
 import org.openmrs.ProgramWorkflowState;
 import org.openmrs.User;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.InClauseHelper;
 import org.openmrs.test.BaseContextSensitiveTest;
 import org.openmrs.test.TestUtil;
 import org.openmrs.test.Verifies;
@@ -461,6 +463,76 @@ public class ProgramWorkflowServiceTest extends BaseContextSensitiveTest {
 		assertNull(Context.getProgramWorkflowService().getProgram(2));
 	}
 	
+	/**
+	 * @see ProgramWorkflowService#getPatientPrograms(Cohort, java.util.Collection)
+	 */
+	@Test
+	public void getPatientPrograms_shouldReturnPatientProgramsOrderedByPatientWhenGivenCohortIsNull() {
+		List<PatientProgram> patientPrograms = pws.getPatientPrograms(null, null);
+		assertTrue(patientPrograms.size() > 1);
+		for (int i = 1; i < patientPrograms.size(); i++) {
+			assertTrue(patientPrograms.get(i - 1).getPatient().getPatientId() <= patientPrograms.get(i).getPatient()
+			        .getPatientId());
+		}
+	}
+	
+	/**
+	 * @see ProgramWorkflowService#getPatientPrograms(Cohort, java.util.Collection)
+	 */
+	@Test
+	public void getPatientPrograms_shouldReturnPatientProgramsOfACohortLargerThanAnInClause() {
+		List<Integer> patientIds = new ArrayList<Integer>();
+		patientIds.add(7);
+		patientIds.add(2);
+		List<PatientProgram> expected = pws.getPatientPrograms(new Cohort(patientIds), null);
+		assertTrue(expected.size() > 1);
+		
+		for (int i = 0; i < 2 * InClauseHelper.MAX_IN_CLAUSE_SIZE; i++) {
+			patientIds.add(100000 + i);
+		}
+		assertEquals(expected, pws.getPatientPrograms(new Cohort(patientIds), null));
+		
+		List<Program> programs = Arrays.asList(pws.getProgram(2));
+		List<PatientProgram> inProgram = pws.getPatientPrograms(new Cohort(patientIds), programs);
+		assertEquals(2, inProgram.size());
+		assertEquals(2, inProgram.get(0).getPatient().getPatientId().intValue());
+		assertEquals(7, inProgram.get(1).getPatient().getPatientId().intValue());
+	}
+	
+	/**
+	 * @see ProgramWorkflowService#getPatientPrograms(Cohort, java.util.Collection)
+	 */
+	@Test
+	public void getPatientPrograms_shouldReturnPatientProgramsOfACohortTooLargeToQueryInChunks() {
+		List<Integer> patientIds = new ArrayList<Integer>();
+		patientIds.add(7);
+		patientIds.add(2);
+		List<PatientProgram> expected = pws.getPatientPrograms(new Cohort(patientIds), null);
+		
+		for (int i = 0; i < InClauseHelper.MAX_CHUNKED_SIZE; i++) {
+			patientIds.add(100000 + i);
+		}
+		assertEquals(expected, pws.getPatientPrograms(new Cohort(patientIds), null));
+		
+		List<Program> programs = Arrays.asList(pws.getProgram(2));
+		List<PatientProgram> inProgram = pws.getPatientPrograms(new Cohort(patientIds), programs);
+		assertEquals(2, inProgram.size());
+		assertEquals(2, inProgram.get(0).getPatient().getPatientId().intValue());
+		assertEquals(7, inProgram.get(1).getPatient().getPatientId().intValue());
+	}
+	
+	/**
+	 * @see ProgramWorkflowService#getPatientPrograms(Cohort, java.util.Collection)
+	 */
+	@Test
+	public void getPatientPrograms_shouldReturnPatientProgramsOfAllPatientsInGivenProgramsWhenGivenCohortIsNull() {
+		List<Program> programs = Arrays.asList(pws.getProgram(2));
+		List<PatientProgram> inProgram = pws.getPatientPrograms(null, programs);
+		assertEquals(2, inProgram.size());
+		assertEquals(2, inProgram.get(0).getPatient().getPatientId().intValue());
+		assertEquals(7, inProgram.get(1).getPatient().getPatientId().intValue());
+	}
+	
 	//	/**
 	//	 * This method should be uncommented when you want to examine the actual hibernate
 	//	 * sql calls being made.  The calls that should be limiting the number of returned
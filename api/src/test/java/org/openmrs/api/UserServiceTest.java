@@ -1379,4 +1379,13 @@ public class UserServiceTest extends BaseContextSensitiveTest {
 		
 		userService.changePasswordUsingSecretAnswer("wrong answer", "userServiceTest2");
 	}
+	
+	/**
+	 * @see UserService#hasPrivilegeListeners()
+	 */
+	@Test
+	public void hasPrivilegeListeners_shouldReturnTrueIfThereArePrivilegeListeners() throws Exception {
+		//the test context registers the listeners from AuthorizationAdviceTest
+		assertTrue(Context.getUserService().hasPrivilegeListeners());
+	}
 }
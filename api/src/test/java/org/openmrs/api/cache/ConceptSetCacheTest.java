@@ -0,0 +1,154 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.FutureTask;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.ConceptSet;
+import org.openmrs.api.db.ConceptDAO;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ConceptSetCacheTest {
+	
+	private ConceptDAO dao;
+	
+	private Map<Integer, List<Integer>> memberIds;
+	
+	private Set<Integer> setIds;
+	
+	@Before
+	public void before() {
+		ConceptSetCache.evict();
+		dao = mock(ConceptDAO.class);
+		
+		// 1 contains 2 and 3, 2 contains 4 and 3, 1 and 2 are marked as sets
+		memberIds = new HashMap<Integer, List<Integer>>();
+		memberIds.put(1, Arrays.asList(2, 3));
+		memberIds.put(2, Arrays.asList(4, 3));
+		when(dao.getConceptSetMemberIds()).thenReturn(memberIds);
+		setIds = new HashSet<Integer>(Arrays.asList(1, 2));
+		when(dao.getConceptSetConceptIds()).thenReturn(setIds);
+	}
+	
+	@After
+	public void after() {
+		ConceptSetCache.evict();
+	}
+	
+	/**
+	 * @see ConceptSetCache#getMemberIdsInOrder(Integer, ConceptDAO)
+	 */
+	@Test
+	public void getMemberIdsInOrder_shouldReturnTheMembersOfNestedSets() {
+		assertEquals(Arrays.asList(2, 4, 3, 3), ConceptSetCache.getMemberIdsInOrder(1, dao));
+		assertEquals(new HashSet<Integer>(Arrays.asList(2, 3, 4)), ConceptSetCache.getMemberIds(1, dao));
+	}
+	
+	/**
+	 * @see ConceptSetCache#getMemberIdsInOrder(Integer, ConceptDAO)
+	 */
+	@Test
+	public void getMemberIdsInOrder_shouldNotExpandMembersThatAreNotMarkedAsSets() {
+		memberIds.put(4, Arrays.asList(5));
+		
+		assertEquals(Arrays.asList(2, 4, 3, 3), ConceptSetCache.getMemberIdsInOrder(1, dao));
+		assertEquals(new HashSet<Integer>(Arrays.asList(2, 3, 4)), ConceptSetCache.getMemberIds(1, dao));
+		assertEquals(new HashSet<Integer>(Arrays.asList(5)), ConceptSetCache.getMemberIds(4, dao));
+		assertEquals(new HashSet<Integer>(Arrays.asList(4)), ConceptSetCache.getContainingSetIds(5, dao));
+	}
+	
+	/**
+	 * @see ConceptSetCache#getMemberIdsInOrder(Integer, ConceptDAO)
+	 */
+	@Test
+	public void getMemberIdsInOrder_shouldNotLoopForeverOnACyclicHierarchy() {
+		memberIds.put(4, Arrays.asList(1));
+		setIds.add(4);
+		
+		assertEquals(Arrays.asList(2, 4, 1, 3, 3), ConceptSetCache.getMemberIdsInOrder(1, dao));
+		assertEquals(new HashSet<Integer>(Arrays.asList(1, 2, 3, 4)), ConceptSetCache.getMemberIds(1, dao));
+	}
+	
+	/**
+	 * @see ConceptSetCache#getContainingSetIds(Integer, ConceptDAO)
+	 */
+	@Test
+	public void getContainingSetIds_shouldReturnTheSetsThatContainTheConceptThroughOtherSets() {
+		assertEquals(new HashSet<Integer>(Arrays.asList(1, 2)), ConceptSetCache.getContainingSetIds(4, dao));
+		assertEquals(0, ConceptSetCache.getContainingSetIds(1, dao).size());
+		
+		verify(dao, times(1)).getConceptSetMemberIds();
+	}
+	
+	/**
+	 * @see ConceptSetCache#evict()
+	 */
+	@Test
+	public void evict_shouldReloadTheHierarchyAfterItWasEvicted() {
+		ConceptSetCache.getMemberIds(1, dao);
+		ConceptSetCache.getMemberIds(1, dao);
+		verify(dao, times(1)).getConceptSetMemberIds();
+		
+		ConceptSetCache.evict();
+		ConceptSetCache.getMemberIds(1, dao);
+		verify(dao, times(2)).getConceptSetMemberIds();
+	}
+	
+	/**
+	 * @see ConceptSetCache#evict()
+	 */
+	@Test
+	public void evict_shouldKeepTheCachedHierarchyForOtherTransactionsUntilTheTransactionCompletes() throws Exception {
+		ConceptSetCache.getMemberIds(1, dao);
+		
+		// within the transaction that changed it, set 2 has lost its members
+		Concept set = new Concept(2);
+		when(dao.getConcept(2)).thenReturn(set);
+		when(dao.getConceptSetsByConcept(set)).thenReturn(Collections.<ConceptSet> emptyList());
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			ConceptSetCache.evict();
+			assertEquals(0, ConceptSetCache.getMemberIds(2, dao).size());
+			
+			FutureTask<Integer> otherTransaction = new FutureTask<Integer>(() -> ConceptSetCache.getMemberIds(2, dao).size());
+			new Thread(otherTransaction).start();
+			assertEquals(2, otherTransaction.get().intValue());
+			verify(dao, times(1)).getConceptSetMemberIds();
+			
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		ConceptSetCache.getMemberIds(1, dao);
+		verify(dao, times(2)).getConceptSetMemberIds();
+	}
+}
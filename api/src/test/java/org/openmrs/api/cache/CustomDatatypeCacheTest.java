@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.customdatatype.datatype.RegexValidatedTextDatatype;
+
+public class CustomDatatypeCacheTest {
+	
+	private int created;
+	
+	@Before
+	public void before() {
+		CustomDatatypeCache.evict();
+		created = 0;
+	}
+	
+	@After
+	public void after() {
+		CustomDatatypeCache.evict();
+	}
+	
+	private RegexValidatedTextDatatype get(String configuration) {
+		return CustomDatatypeCache.get(RegexValidatedTextDatatype.class, configuration, () -> {
+			created++;
+			RegexValidatedTextDatatype datatype = new RegexValidatedTextDatatype();
+			if (configuration != null) {
+				datatype.setConfiguration(configuration);
+			}
+			return datatype;
+		});
+	}
+	
+	/**
+	 * @see CustomDatatypeCache#get(Class, String, java.util.function.Supplier)
+	 */
+	@Test
+	public void get_shouldReturnTheCachedInstanceForTheSameClassAndConfiguration() {
+		assertSame(get("[a-z]+"), get("[a-z]+"));
+		assertSame(get(null), get(null));
+		assertEquals(2, created);
+	}
+	
+	/**
+	 * @see CustomDatatypeCache#get(Class, String, java.util.function.Supplier)
+	 */
+	@Test
+	public void get_shouldCreateANewInstanceForADifferentConfiguration() {
+		assertNotSame(get("[a-z]+"), get("[0-9]+"));
+		assertNotSame(get("[a-z]+"), get(null));
+		assertEquals(3, created);
+	}
+	
+	/**
+	 * @see CustomDatatypeCache#get(Class, String, java.util.function.Supplier)
+	 */
+	@Test
+	public void get_shouldCreateANewInstanceAfterTheCacheWasEvicted() {
+		RegexValidatedTextDatatype datatype = get("[a-z]+");
+		CustomDatatypeCache.evict();
+		assertNotSame(datatype, get("[a-z]+"));
+		assertEquals(2, created);
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openmrs.api.db.AdministrationDAO;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class GlobalPropertyCacheTest {
+	
+	private AdministrationDAO dao;
+	
+	@Before
+	public void before() {
+		GlobalPropertyCache.clear();
+		GlobalPropertyCache.resetStatistics();
+		dao = mock(AdministrationDAO.class);
+	}
+	
+	@After
+	public void after() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		GlobalPropertyCache.clear();
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#getValue(String, AdministrationDAO)
+	 */
+	@Test
+	public void getValue_shouldReturnTheCachedValueWithoutQueryingTheDatabase() {
+		when(dao.getGlobalProperty("a.property")).thenReturn("value");
+		
+		assertEquals("value", GlobalPropertyCache.getValue("a.property", dao));
+		assertEquals("value", GlobalPropertyCache.getValue("a.property", dao));
+		
+		verify(dao, times(1)).getGlobalProperty("a.property");
+		assertEquals(1, GlobalPropertyCache.getHitCount());
+		assertEquals(1, GlobalPropertyCache.getMissCount());
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#getValue(String, AdministrationDAO)
+	 */
+	@Test
+	public void getValue_shouldReturnNullForAPropertyThatDoesNotExist() {
+		assertNull(GlobalPropertyCache.getValue("no.such.property", dao));
+		assertNull(GlobalPropertyCache.getValue("no.such.property", dao));
+		
+		verify(dao, times(1)).getGlobalProperty("no.such.property");
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#getValue(String, AdministrationDAO)
+	 */
+	@Test
+	public void getValue_shouldMatchPropertyNamesCaseInsensitively() {
+		when(dao.getGlobalProperty("a.property")).thenReturn("value");
+		
+		GlobalPropertyCache.getValue("a.property", dao);
+		assertEquals("value", GlobalPropertyCache.getValue("A.Property", dao));
+		
+		verify(dao, times(1)).getGlobalProperty("a.property");
+		verify(dao, times(0)).getGlobalProperty("A.Property");
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#getValue(String, AdministrationDAO)
+	 */
+	@Test
+	public void getValue_shouldNotCacheAValueThatWasEvictedWhileItWasLoaded() {
+		when(dao.getGlobalProperty("a.property")).thenAnswer(new Answer<String>() {
+			
+			@Override
+			public String answer(InvocationOnMock invocation) {
+				// another thread saves the property while the old value is being read
+				GlobalPropertyCache.evict("a.property");
+				return "old value";
+			}
+		});
+		
+		GlobalPropertyCache.getValue("a.property", dao);
+		GlobalPropertyCache.getValue("a.property", dao);
+		
+		verify(dao, times(2)).getGlobalProperty("a.property");
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#evict(String)
+	 */
+	@Test
+	public void evict_shouldNotCacheThePropertyAgainBeforeTheTransactionCompletes() {
+		when(dao.getGlobalProperty("a.property")).thenReturn("value");
+		TransactionSynchronizationManager.initSynchronization();
+		
+		GlobalPropertyCache.evict("a.property");
+		GlobalPropertyCache.getValue("a.property", dao);
+		GlobalPropertyCache.getValue("a.property", dao);
+		verify(dao, times(2)).getGlobalProperty("a.property");
+		
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+		TransactionSynchronizationManager.clearSynchronization();
+		
+		GlobalPropertyCache.getValue("a.property", dao);
+		GlobalPropertyCache.getValue("a.property", dao);
+		verify(dao, times(3)).getGlobalProperty("a.property");
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.db.LocationDAO;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class LocationHierarchyCacheTest {
+	
+	private LocationDAO dao;
+	
+	private Map<Integer, Integer> parentIds;
+	
+	@Before
+	public void before() {
+		LocationHierarchyCache.evict();
+		dao = mock(LocationDAO.class);
+		
+		// 1 is the parent of 2 and 3, 3 is the parent of 4 and the retired 5, 5 is the parent of 6
+		parentIds = new HashMap<Integer, Integer>();
+		parentIds.put(1, null);
+		parentIds.put(2, 1);
+		parentIds.put(3, 1);
+		parentIds.put(4, 3);
+		parentIds.put(5, 3);
+		parentIds.put(6, 5);
+		when(dao.getParentLocationIds(true)).thenReturn(parentIds);
+		
+		Map<Integer, Integer> unretiredParentIds = new HashMap<Integer, Integer>(parentIds);
+		unretiredParentIds.remove(5);
+		when(dao.getParentLocationIds(false)).thenReturn(unretiredParentIds);
+	}
+	
+	@After
+	public void after() {
+		LocationHierarchyCache.evict();
+	}
+	
+	/**
+	 * @see LocationHierarchyCache#getDescendantLocationIds(Integer, boolean, LocationDAO)
+	 */
+	@Test
+	public void getDescendantLocationIds_shouldReturnTheDescendantsOfTheLocation() {
+		assertEquals(Arrays.asList(2, 3, 4, 5, 6), new ArrayList<Integer>(LocationHierarchyCache.getDescendantLocationIds(1,
+		    true, dao)));
+		assertEquals(Arrays.asList(4, 5, 6), new ArrayList<Integer>(LocationHierarchyCache.getDescendantLocationIds(3, true,
+		    dao)));
+		assertEquals(0, LocationHierarchyCache.getDescendantLocationIds(2, true, dao).size());
+	}
+	
+	/**
+	 * @see LocationHierarchyCache#getDescendantLocationIds(Integer, boolean, LocationDAO)
+	 */
+	@Test
+	public void getDescendantLocationIds_shouldSkipRetiredLocationsAndTheirDescendantsIfIncludeRetiredIsFalse() {
+		assertEquals(Arrays.asList(2, 3, 4), new ArrayList<Integer>(LocationHierarchyCache.getDescendantLocationIds(1,
+		    false, dao)));
+		// the unretired children of a retired location are still its descendants
+		assertEquals(Arrays.asList(6), new ArrayList<Integer>(LocationHierarchyCache.getDescendantLocationIds(5, false,
+		    dao)));
+	}
+	
+	/**
+	 * @see LocationHierarchyCache#getDescendantLocationIds(Integer, boolean, LocationDAO)
+	 */
+	@Test
+	public void getDescendantLocationIds_shouldNotLoopForeverOnACyclicHierarchy() {
+		parentIds.put(1, 6);
+		
+		assertEquals(Arrays.asList(2, 3, 4, 5, 6, 1), new ArrayList<Integer>(LocationHierarchyCache.getDescendantLocationIds(
+		    1, true, dao)));
+		assertEquals(Arrays.asList(5, 3, 1, 6), LocationHierarchyCache.getAncestorLocationIds(6, dao));
+	}
+	
+	/**
+	 * @see LocationHierarchyCache#getAncestorLocationIds(Integer, LocationDAO)
+	 */
+	@Test
+	public void getAncestorLocationIds_shouldReturnTheAncestorsOfTheLocationStartingWithItsParent() {
+		assertEquals(Arrays.asList(5, 3, 1), LocationHierarchyCache.getAncestorLocationIds(6, dao));
+		assertEquals(0, LocationHierarchyCache.getAncestorLocationIds(1, dao).size());
+	}
+	
+	/**
+	 * @see LocationHierarchyCache#evict()
+	 */
+	@Test
+	public void evict_shouldReloadTheHierarchyAfterItWasEvicted() {
+		LocationHierarchyCache.getDescendantLocationIds(1, true, dao);
+		LocationHierarchyCache.getAncestorLocationIds(4, dao);
+		verify(dao, times(1)).getParentLocationIds(true);
+		
+		LocationHierarchyCache.evict();
+		LocationHierarchyCache.getDescendantLocationIds(1, true, dao);
+		verify(dao, times(2)).getParentLocationIds(true);
+	}
+	
+	/**
+	 * @see LocationHierarchyCache#evict()
+	 */
+	@Test
+	public void evict_shouldKeepTheCachedHierarchyForOtherTransactionsUntilTheTransactionCompletes() throws Exception {
+		LocationHierarchyCache.getAncestorLocationIds(4, dao);
+		
+		// within the transaction that changed it, 4 was moved under 2
+		Map<Integer, Integer> changedParentIds = new HashMap<Integer, Integer>(parentIds);
+		changedParentIds.put(4, 2);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			LocationHierarchyCache.evict();
+			when(dao.getParentLocationIds(true)).thenReturn(changedParentIds);
+			assertEquals(Arrays.asList(2, 1), LocationHierarchyCache.getAncestorLocationIds(4, dao));
+			
+			FutureTask<List<Integer>> otherTransaction = new FutureTask<List<Integer>>(() -> LocationHierarchyCache
+			        .getAncestorLocationIds(4, dao));
+			new Thread(otherTransaction).start();
+			assertEquals(Arrays.asList(3, 1), otherTransaction.get());
+			
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		assertEquals(Arrays.asList(2, 1), LocationHierarchyCache.getAncestorLocationIds(4, dao));
+	}
+}
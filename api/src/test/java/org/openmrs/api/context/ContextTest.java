@@ -18,6 +18,8 @@ import org.junit.Test;
 import org.openmrs.Location;
 import org.openmrs.Person;
 import org.openmrs.PersonName;
+import org.openmrs.Privilege;
+import org.openmrs.Role;
 import org.openmrs.User;
 import org.openmrs.api.APIException;
 import org.openmrs.api.PatientService;
@@ -28,6 +30,7 @@ import org.openmrs.test.BaseContextSensitiveTest;
 import org.openmrs.test.Verifies;
 import org.openmrs.util.LocaleUtility;
 import org.openmrs.util.OpenmrsConstants;
+import org.openmrs.util.PrivilegeConstants;
 import org.springframework.validation.Validator;
 
 /**
@@ -239,6 +242,125 @@ public class ContextTest extends BaseContextSensitiveTest {
 		Context.logout();
 	}
 	
+	/**
+	 * @see Context#hasPrivilege(String)
+	 */
+	@Test
+	public void hasPrivilege_shouldOnlyAuthorizeProxiedPrivilegesWhileTheyAreProxied() throws Exception {
+		Context.logout();
+		Assert.assertFalse(Context.hasPrivilege(PrivilegeConstants.GET_PATIENTS));
+		
+		Context.addProxyPrivilege(PrivilegeConstants.GET_PATIENTS);
+		Context.addProxyPrivilege(PrivilegeConstants.GET_PATIENTS);
+		Assert.assertTrue(Context.hasPrivilege(PrivilegeConstants.GET_PATIENTS));
+		
+		Context.removeProxyPrivilege(PrivilegeConstants.GET_PATIENTS);
+		Assert.assertTrue(Context.hasPrivilege(PrivilegeConstants.GET_PATIENTS));
+		
+		Context.removeProxyPrivilege(PrivilegeConstants.GET_PATIENTS);
+		Assert.assertFalse(Context.hasPrivilege(PrivilegeConstants.GET_PATIENTS));
+	}
+	
+	/**
+	 * @see Context#hasPrivilege(String)
+	 */
+	@Test
+	public void hasPrivilege_shouldAuthorizePrivilegesOfRolesAddedToTheAuthenticatedUserOnceTheUserIsSaved()
+	        throws Exception {
+		UserService userService = Context.getUserService();
+		Role role = new Role("Some Test Role");
+		role.addPrivilege(userService.savePrivilege(new Privilege("Some Test Privilege")));
+		userService.saveRole(role);
+		
+		final User butch = Context.becomeUser("butch");
+		Assert.assertFalse(Context.hasPrivilege("Some Test Privilege"));
+		
+		butch.addRole(role);
+		Assert.assertFalse(Context.hasPrivilege("Some Test Privilege"));
+		runAsAdmin(() -> Context.getUserService().saveUser(butch));
+		Assert.assertTrue(Context.hasPrivilege("Some Test Privilege"));
+		
+		butch.removeRole(role);
+		runAsAdmin(() -> Context.getUserService().saveUser(butch));
+		Assert.assertFalse(Context.hasPrivilege("Some Test Privilege"));
+	}
+	
+	/**
+	 * @see Context#hasPrivilege(String)
+	 */
+	@Test
+	public void hasPrivilege_shouldNotAuthorizePrivilegesOfARoleReplacedByAnotherRole() throws Exception {
+		UserService userService = Context.getUserService();
+		Role first = new Role("First Test Role");
+		first.addPrivilege(userService.savePrivilege(new Privilege("First Test Privilege")));
+		userService.saveRole(first);
+		Role second = new Role("Second Test Role");
+		second.addPrivilege(userService.savePrivilege(new Privilege("Second Test Privilege")));
+		userService.saveRole(second);
+		userService.saveUser(userService.getUserByUsername("butch").addRole(first));
+		
+		final User butch = Context.becomeUser("butch");
+		Assert.assertTrue(Context.hasPrivilege("First Test Privilege"));
+		
+		// the same set keeps the same size
+		butch.getRoles().remove(first);
+		butch.getRoles().add(second);
+		runAsAdmin(() -> Context.getUserService().saveUser(butch));
+		Assert.assertFalse(Context.hasPrivilege("First Test Privilege"));
+		Assert.assertTrue(Context.hasPrivilege("Second Test Privilege"));
+	}
+	
+	/**
+	 * @see Context#hasPrivilege(String)
+	 */
+	@Test
+	public void hasPrivilege_shouldReflectSavedChangesToThePrivilegesAndInheritedRolesOfTheUsersRoles()
+	        throws Exception {
+		UserService userService = Context.getUserService();
+		Privilege privilege = userService.savePrivilege(new Privilege("Some Test Privilege"));
+		final Role role = userService.saveRole(new Role("Some Test Role"));
+		final Role parent = new Role("Some Parent Role");
+		parent.addPrivilege(privilege);
+		userService.saveRole(parent);
+		userService.saveUser(userService.getUserByUsername("butch").addRole(role));
+		
+		Context.becomeUser("butch");
+		Assert.assertFalse(Context.hasPrivilege("Some Test Privilege"));
+		
+		role.addPrivilege(privilege);
+		Assert.assertFalse(Context.hasPrivilege("Some Test Privilege"));
+		runAsAdmin(() -> Context.getUserService().saveRole(role));
+		Assert.assertTrue(Context.hasPrivilege("Some Test Privilege"));
+		
+		role.removePrivilege(privilege);
+		runAsAdmin(() -> Context.getUserService().saveRole(role));
+		Assert.assertFalse(Context.hasPrivilege("Some Test Privilege"));
+		
+		role.getInheritedRoles().add(parent);
+		runAsAdmin(() -> Context.getUserService().saveRole(role));
+		Assert.assertTrue(Context.hasPrivilege("Some Test Privilege"));
+		
+		parent.removePrivilege(privilege);
+		runAsAdmin(() -> Context.getUserService().saveRole(parent));
+		Assert.assertFalse(Context.hasPrivilege("Some Test Privilege"));
+	}
+	
+	/**
+	 * Runs the given action as the admin user in a user context of its own, the user context of the
+	 * current thread is restored afterwards
+	 */
+	private void runAsAdmin(Runnable action) {
+		UserContext userContext = Context.getUserContext();
+		try {
+			Context.setUserContext(new UserContext());
+			Context.authenticate("admin", "test");
+			action.run();
+		}
+		finally {
+			Context.setUserContext(userContext);
+		}
+	}
+	
 	@Test
 	public void shouldUpdateUserLocaleToTheContext() throws Exception {
 		//Logged in with en_GB locale by default
@@ -15,6 +15,7 @@ import org.openmrs.User;
 import org.openmrs.api.APIAuthenticationException;
 import org.openmrs.api.APIException;
 import org.openmrs.scheduler.Task;
+import org.openmrs.scheduler.executor.ExecutorSchedulerTask;
 import org.openmrs.scheduler.tasks.AbstractTask;
 import org.openmrs.scheduler.tasks.HelloWorldTask;
 import org.openmrs.scheduler.timer.TimerSchedulerTask;
@@ -55,6 +56,50 @@ public class DaemonTest extends BaseContextSensitiveTest {
 		Assert.assertTrue(new PrivateSchedulerTask(task).runTheTest());
 	}
 	
+	/**
+	 * @see Daemon#executeScheduledTaskInCurrentThread(Task)
+	 * @verifies not be called from other methods other than ExecutorSchedulerTask
+	 */
+	@Test
+	public void executeScheduledTaskInCurrentThread_shouldNotBeCalledFromOtherMethodsOtherThanExecutorSchedulerTask()
+	    throws Throwable {
+		try {
+			Daemon.executeScheduledTaskInCurrentThread(new HelloWorldTask());
+			Assert.fail("Should not be here, an exception should have been thrown in the line above");
+		}
+		catch (APIException e) {
+			Assert.assertTrue(e.getMessage().startsWith(
+			    Context.getMessageSourceService().getMessage("Scheduler.executor.task.only",
+			        new Object[] { this.getClass().getName() }, null)));
+		}
+	}
+	
+	/**
+	 * @see Daemon#executeScheduledTaskInCurrentThread(Task)
+	 * @verifies run the task as the daemon user in the current thread
+	 */
+	@Test
+	public void executeScheduledTaskInCurrentThread_shouldRunTheTaskAsTheDaemonUserInTheCurrentThread() throws Throwable {
+		final DaemonCheckingTask task = new DaemonCheckingTask();
+		final ExecutorSchedulerTask schedulerTask = new ExecutorSchedulerTask(task, System.currentTimeMillis(), 0);
+		final boolean[] isDaemonThreadAfterwards = { true };
+		Thread thread = new Thread(new Runnable() {
+			
+			@Override
+			public void run() {
+				schedulerTask.run();
+				isDaemonThreadAfterwards[0] = Daemon.isDaemonThread();
+			}
+		});
+		thread.start();
+		thread.join();
+		
+		Assert.assertSame(thread, task.executingThread);
+		Assert.assertTrue(task.wasRunAsDaemon);
+		Assert.assertFalse(isDaemonThreadAfterwards[0]);
+		Assert.assertEquals(1, schedulerTask.getMetrics().getExecutionCount());
+	}
+	
 	/**
 	 * @see Daemon#runInNewDaemonThread(Runnable)
 	 * @verifies throw error if called from a non daemon thread
@@ -86,6 +131,47 @@ public class DaemonTest extends BaseContextSensitiveTest {
 		Assert.assertTrue(new PrivateSchedulerTask(taskThatStartsAnotherThread).runTheTest());
 	}
 	
+	/**
+	 * @see Daemon#createDaemonRunnable(Runnable)
+	 * @verifies throw error if called from a non daemon thread
+	 */
+	@Test(expected = APIAuthenticationException.class)
+	public void createDaemonRunnable_shouldThrowErrorIfCalledFromANonDaemonThread() {
+		Daemon.createDaemonRunnable(new Runnable() {
+			
+			@Override
+			public void run() {
+				// do nothing
+			}
+		});
+	}
+	
+	/**
+	 * @see Daemon#createDaemonRunnable(Runnable)
+	 * @verifies run the runnable as the daemon user in the thread that runs it
+	 */
+	@Test
+	public void createDaemonRunnable_shouldRunTheRunnableAsTheDaemonUserInTheThreadThatRunsIt() throws Throwable {
+		TaskThatCreatesADaemonRunnable task = new TaskThatCreatesADaemonRunnable();
+		new PrivateSchedulerTask(task).runTask();
+		
+		final boolean[] isDaemonThreadAfterwards = { true };
+		Thread thread = new Thread(new Runnable() {
+			
+			@Override
+			public void run() {
+				task.daemonRunnable.run();
+				isDaemonThreadAfterwards[0] = Daemon.isDaemonThread();
+			}
+		});
+		thread.start();
+		thread.join();
+		
+		Assert.assertSame(thread, task.checkingTask.executingThread);
+		Assert.assertTrue(task.checkingTask.wasRunAsDaemon);
+		Assert.assertFalse(isDaemonThreadAfterwards[0]);
+	}
+	
 	/**
 	 * @see Daemon#executeScheduledTask(Task)
 	 * @verifies daemon user should have an associated person.
@@ -167,6 +253,43 @@ public class DaemonTest extends BaseContextSensitiveTest {
 		}
 	}
 	
+	/**
+	 * A task that records the thread it runs in and whether it runs as the daemon user
+	 */
+	private class DaemonCheckingTask extends AbstractTask {
+		
+		private Thread executingThread;
+		
+		private boolean wasRunAsDaemon;
+		
+		@Override
+		public void execute() {
+			executingThread = Thread.currentThread();
+			wasRunAsDaemon = Daemon.isDaemonThread() && Daemon.isDaemonUser(Context.getAuthenticatedUser());
+		}
+	}
+	
+	/**
+	 * A task that creates a daemon runnable which runs a {@link DaemonCheckingTask}
+	 */
+	private class TaskThatCreatesADaemonRunnable extends AbstractTask {
+		
+		private final DaemonCheckingTask checkingTask = new DaemonCheckingTask();
+		
+		private Runnable daemonRunnable;
+		
+		@Override
+		public void execute() {
+			daemonRunnable = Daemon.createDaemonRunnable(new Runnable() {
+				
+				@Override
+				public void run() {
+					checkingTask.execute();
+				}
+			});
+		}
+	}
+	
 	/**
 	 * A task for testing to ensure that a daemon user always has an associated person.
 	 */
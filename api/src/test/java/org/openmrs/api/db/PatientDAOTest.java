@@ -27,6 +27,7 @@ import java.util.Set;
 import org.apache.commons.io.FileUtils;
 import org.hamcrest.FeatureMatcher;
 import org.hamcrest.Matcher;
+import org.hibernate.Hibernate;
 import org.hibernate.SessionFactory;
 import org.junit.Assert;
 import org.junit.Before;
@@ -835,6 +836,28 @@ public class PatientDAOTest extends BaseContextSensitiveTest {
 		Assert.assertFalse(patients.get(0).getGivenName().equalsIgnoreCase(patients.get(1).getGivenName()));
 	}
 	
+	/**
+	 * @see HibernatePatientDAO#getPatients(String, Integer, Integer)
+	 */
+	@Test
+	public void getPatients_shouldLoadTheNamesAndIdentifiersOfTheMatchedPatients() throws Exception {
+		List<Integer> expectedIds = new ArrayList<Integer>();
+		for (Patient patient : dao.getPatients("Baggins", 0, 11)) {
+			expectedIds.add(patient.getPatientId());
+		}
+		sessionFactory.getCurrentSession().clear();
+		
+		List<Patient> patients = dao.getPatients("Baggins", 0, 11);
+		
+		List<Integer> actualIds = new ArrayList<Integer>();
+		for (Patient patient : patients) {
+			actualIds.add(patient.getPatientId());
+			Assert.assertTrue(Hibernate.isInitialized(patient.getNames()));
+			Assert.assertTrue(Hibernate.isInitialized(patient.getIdentifiers()));
+		}
+		Assert.assertEquals(expectedIds, actualIds);
+	}
+	
 	/**
 	 * @verifies get patient by family2 name _ signature no 1
 	 * @see HibernatePatientDAO#getPatients(String, String, java.util.List, boolean, Integer, Integer, boolean)
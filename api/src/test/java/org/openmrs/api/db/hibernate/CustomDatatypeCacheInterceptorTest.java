@@ -0,0 +1,42 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.openmrs.VisitAttributeType;
+import org.openmrs.api.DatatypeService;
+import org.openmrs.api.context.Context;
+import org.openmrs.customdatatype.datatype.DateDatatype;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+public class CustomDatatypeCacheInterceptorTest extends BaseContextSensitiveTest {
+	
+	/**
+	 * @see CustomDatatypeCacheInterceptor#onFlushDirty(Object, java.io.Serializable, Object[],
+	 *      Object[], String[], org.hibernate.type.Type[])
+	 */
+	@Test
+	public void onFlushDirty_shouldEvictTheCacheIfAnAttributeTypeIsChanged() {
+		DatatypeService service = Context.getDatatypeService();
+		DateDatatype datatype = service.getDatatype(DateDatatype.class, null);
+		Context.flushSession();
+		assertSame(datatype, service.getDatatype(DateDatatype.class, null));
+		
+		VisitAttributeType attributeType = Context.getVisitService().getVisitAttributeType(1);
+		attributeType.setDescription("changed");
+		Context.getVisitService().saveVisitAttributeType(attributeType);
+		Context.flushSession();
+		
+		assertNotSame(datatype, service.getDatatype(DateDatatype.class, null));
+	}
+}
@@ -10,6 +10,7 @@
 package org.openmrs.api.db.hibernate;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.hibernate.Session;
@@ -18,6 +19,7 @@ import org.hibernate.criterion.Order;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.openmrs.Concept;
 import org.openmrs.Obs;
 import org.openmrs.test.BaseContextSensitiveTest;
 import org.openmrs.test.Verifies;
@@ -85,4 +87,29 @@ public class HibernateObsDAOTest extends BaseContextSensitiveTest {
 		    null, null, null, null, false, null);
 		Assert.assertArrayEquals(obsListExpected.toArray(), obsListActual.toArray());
 	}
+	
+	/**
+	 * @see HibernateObsDAO#getObservationIterator(List, List, List, List, List, List, Integer,
+	 *      java.util.Date, java.util.Date, boolean, String, int)
+	 */
+	@Test
+	public void getObservationIterator_shouldEvictWhatWasLoadedWithEarlierPages() throws Exception {
+		Session session = sessionFactory.getCurrentSession();
+		Iterator<Obs> iterator = dao.getObservationIterator(null, null, null, null, null, null, null, null, null, false,
+		    null, 2);
+		Obs first = iterator.next();
+		Concept concept = first.getConcept();
+		Assert.assertNotNull(concept.getDatatype());
+		Assert.assertTrue(session.contains(first));
+		
+		int count = 1;
+		while (iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		
+		Assert.assertTrue(count > 2);
+		Assert.assertFalse(session.contains(first));
+		Assert.assertFalse(session.contains(concept));
+	}
 }
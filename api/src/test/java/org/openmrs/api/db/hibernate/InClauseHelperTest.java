@@ -0,0 +1,189 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.Criteria;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Disjunction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Encounter;
+import org.openmrs.api.db.hibernate.InClauseHelper.Strategy;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+public class InClauseHelperTest extends BaseContextSensitiveTest {
+	
+	private SessionFactory sessionFactory;
+	
+	private Supplier<Criteria> criteriaFactory;
+	
+	/**
+	 * The ids of the patients with encounters in the standard test dataset and enough ids without
+	 * patients to need several chunks
+	 */
+	private List<Integer> patientIds;
+	
+	@Before
+	public void before() {
+		sessionFactory = (SessionFactory) applicationContext.getBean("sessionFactory");
+		criteriaFactory = () -> sessionFactory.getCurrentSession().createCriteria(Encounter.class).addOrder(
+		    Order.asc("patient.personId")).addOrder(Order.asc("encounterId"));
+		
+		patientIds = new ArrayList<Integer>();
+		patientIds.add(7);
+		patientIds.add(2);
+		for (int i = 0; i < 2 * InClauseHelper.MAX_IN_CLAUSE_SIZE; i++) {
+			patientIds.add(100000 + i);
+		}
+	}
+	
+	/**
+	 * @see InClauseHelper#getStrategy(int, boolean, Dialect)
+	 */
+	@Test
+	public void getStrategy_shouldUseAnInClauseForFewIds() {
+		assertEquals(Strategy.IN, InClauseHelper.getStrategy(InClauseHelper.MAX_IN_CLAUSE_SIZE, true, new H2Dialect()));
+		assertEquals(Strategy.IN, InClauseHelper.getStrategy(0, false, new H2Dialect()));
+	}
+	
+	/**
+	 * @see InClauseHelper#getStrategy(int, boolean, Dialect)
+	 */
+	@Test
+	public void getStrategy_shouldQueryInChunksIfTheResultsAreMergeable() {
+		assertEquals(Strategy.CHUNKED_IN, InClauseHelper.getStrategy(InClauseHelper.MAX_CHUNKED_SIZE, true,
+		    new H2Dialect()));
+	}
+	
+	/**
+	 * @see InClauseHelper#getStrategy(int, boolean, Dialect)
+	 */
+	@Test
+	public void getStrategy_shouldUseATemporaryTableForManyIds() {
+		assertEquals(Strategy.TEMPORARY_TABLE, InClauseHelper.getStrategy(InClauseHelper.MAX_CHUNKED_SIZE + 1, true,
+		    new H2Dialect()));
+	}
+	
+	/**
+	 * @see InClauseHelper#getStrategy(int, boolean, Dialect)
+	 */
+	@Test
+	public void getStrategy_shouldUseATemporaryTableIfTheResultsAreNotMergeable() {
+		assertEquals(Strategy.TEMPORARY_TABLE, InClauseHelper.getStrategy(InClauseHelper.MAX_IN_CLAUSE_SIZE + 1, false,
+		    new H2Dialect()));
+	}
+	
+	/**
+	 * @see InClauseHelper#getStrategy(int, boolean, Dialect)
+	 */
+	@Test
+	public void getStrategy_shouldFallBackToInClausesIfTheDatabaseDoesNotSupportTemporaryTables() {
+		Dialect dialect = new Dialect() {};
+		assertEquals(Strategy.CHUNKED_IN, InClauseHelper.getStrategy(InClauseHelper.MAX_CHUNKED_SIZE + 1, true, dialect));
+		assertEquals(Strategy.IN, InClauseHelper.getStrategy(InClauseHelper.MAX_CHUNKED_SIZE + 1, false, dialect));
+	}
+	
+	/**
+	 * @see InClauseHelper#list(SessionFactory, Supplier, String, java.util.Collection)
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void list_shouldReturnTheSameResultsWithEveryStrategy() {
+		List<Encounter> expected = criteriaFactory.get().add(
+		    Restrictions.in("patient.personId", new Integer[] { 2, 7 })).list();
+		assertTrue(expected.size() > 1);
+		
+		for (Strategy strategy : Strategy.values()) {
+			List<Encounter> encounters = InClauseHelper.execute(strategy, sessionFactory, criteriaFactory,
+			    "patient.personId", patientIds, criteria -> (List<Encounter>) criteria.list(), (results, moreResults) -> {
+				    results.addAll(moreResults);
+				    return results;
+			    });
+			assertEquals(strategy.toString(), expected, encounters);
+		}
+		
+		// the temporary table can be used again in the same transaction
+		assertEquals(expected, InClauseHelper.execute(Strategy.TEMPORARY_TABLE, sessionFactory, criteriaFactory,
+		    "patient.personId", patientIds, criteria -> (List<Encounter>) criteria.list(), null));
+	}
+	
+	/**
+	 * @see InClauseHelper#execute(SessionFactory, Supplier, String, java.util.Collection,
+	 *      java.util.function.Function, java.util.function.BinaryOperator)
+	 */
+	@Test
+	public void execute_shouldMergeTheResultsOfTheChunks() {
+		Supplier<Criteria> countFactory = () -> sessionFactory.getCurrentSession().createCriteria(Encounter.class)
+		        .setProjection(Projections.rowCount());
+		Long expected = (Long) countFactory.get().add(
+		    Restrictions.in("patient.personId", new Integer[] { 2, 7 })).uniqueResult();
+		
+		assertEquals(expected, InClauseHelper.execute(Strategy.CHUNKED_IN, sessionFactory, countFactory,
+		    "patient.personId", patientIds, criteria -> (Long) criteria.uniqueResult(), Long::sum));
+	}
+	
+	/**
+	 * @see InClauseHelper#execute(SessionFactory, Supplier, String, java.util.Collection,
+	 *      java.util.function.Function, java.util.function.BinaryOperator)
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void execute_shouldGiveANestedQueryATemporaryTableOfItsOwn() {
+		List<Encounter> expected = criteriaFactory.get().add(
+		    Restrictions.in("patient.personId", new Integer[] { 2, 7 })).list();
+		List<Integer> otherIds = new ArrayList<Integer>(patientIds.subList(2, patientIds.size()));
+		otherIds.add(7);
+		List<Encounter> expectedNested = criteriaFactory.get().add(Restrictions.eq("patient.personId", 7)).list();
+		
+		List<Encounter> nested = new ArrayList<Encounter>();
+		List<Encounter> encounters = InClauseHelper.execute(Strategy.TEMPORARY_TABLE, sessionFactory, criteriaFactory,
+		    "patient.personId", patientIds, criteria -> {
+			    nested.addAll(InClauseHelper.execute(Strategy.TEMPORARY_TABLE, sessionFactory, criteriaFactory,
+			        "patient.personId", otherIds, nestedCriteria -> (List<Encounter>) nestedCriteria.list(), null));
+			    return (List<Encounter>) criteria.list();
+		    }, null);
+		
+		assertEquals(expectedNested, nested);
+		assertEquals(expected, encounters);
+	}
+	
+	/**
+	 * @see InClauseHelper#in(String, java.util.Collection)
+	 */
+	@Test
+	public void in_shouldSplitTheIdsIntoSeveralInClauses() {
+		assertTrue(InClauseHelper.in("patient.personId", patientIds) instanceof Disjunction);
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Encounter.class).add(
+		    InClauseHelper.in("patient.personId", patientIds)).setProjection(Projections.countDistinct("patient.personId"));
+		assertEquals(2L, criteria.uniqueResult());
+	}
+	
+	/**
+	 * @see InClauseHelper#in(String, java.util.Collection)
+	 */
+	@Test
+	public void in_shouldMatchNothingIfThereAreNoIds() {
+		assertEquals(0, criteriaFactory.get().add(InClauseHelper.in("patient.personId", Collections.<Integer> emptyList()))
+		        .list().size());
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+public class PageEvictorTest extends BaseContextSensitiveTest {
+	
+	private Session session;
+	
+	private PageEvictor evictor;
+	
+	@Before
+	public void before() {
+		session = ((SessionFactory) applicationContext.getBean("sessionFactory")).getCurrentSession();
+		evictor = new PageEvictor(session);
+	}
+	
+	/**
+	 * @see PageEvictor#startPage()
+	 */
+	@Test
+	public void startPage_shouldEvictTheEntitiesLoadedSinceThePreviousPage() {
+		evictor.startPage();
+		Encounter encounter = (Encounter) session.get(Encounter.class, 5);
+		Location location = encounter.getLocation();
+		assertEquals("Xanadu", location.getName());
+		assertTrue(session.contains(encounter));
+		assertTrue(session.contains(location));
+		
+		evictor.startPage();
+		assertFalse(session.contains(encounter));
+		assertFalse(session.contains(location));
+	}
+	
+	/**
+	 * @see PageEvictor#startPage()
+	 */
+	@Test
+	public void startPage_shouldKeepTheEntitiesThatWereInTheSessionBeforeTheFirstPage() {
+		Location location = (Location) session.get(Location.class, 1);
+		location.setDescription("changed before the first page");
+		
+		evictor.startPage();
+		Encounter encounter = (Encounter) session.get(Encounter.class, 3);
+		assertEquals(location, encounter.getLocation());
+		evictor.startPage();
+		
+		assertFalse(session.contains(encounter));
+		assertTrue(session.contains(location));
+		assertEquals("changed before the first page", location.getDescription());
+	}
+	
+	/**
+	 * @see PageEvictor#startPage()
+	 */
+	@Test
+	public void startPage_shouldFlushTheChangesToTheEvictedEntities() {
+		evictor.startPage();
+		Location location = (Location) session.get(Location.class, 2);
+		location.setDescription("changed on the page");
+		
+		evictor.startPage();
+		assertFalse(session.contains(location));
+		assertEquals("changed on the page", session.createSQLQuery(
+		    "select description from location where location_id = 2").uniqueResult());
+	}
+}
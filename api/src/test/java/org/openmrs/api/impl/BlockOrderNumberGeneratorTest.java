@@ -0,0 +1,128 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.OrderService;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseContextSensitiveTest;
+import org.openmrs.test.TestUtil;
+import org.openmrs.util.OpenmrsConstants;
+import org.openmrs.util.PrivilegeConstants;
+
+public class BlockOrderNumberGeneratorTest extends BaseContextSensitiveTest {
+	
+	private BlockOrderNumberGenerator generator;
+	
+	private OrderService orderService;
+	
+	private String orderNumberSeed;
+	
+	@Before
+	public void before() {
+		generator = new BlockOrderNumberGenerator();
+		orderService = Context.getOrderService();
+		orderNumberSeed = Context.getAdministrationService().getGlobalProperty(
+		    OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED);
+		Context.getAdministrationService().saveGlobalProperty(
+		    new GlobalProperty(OpenmrsConstants.GP_ORDER_NUMBER_BLOCK_SIZE, "10"));
+	}
+	
+	/**
+	 * Order number seeds are reserved in transactions of their own, which are committed, so the seed
+	 * is put back after each test for the tests that follow
+	 */
+	@After
+	public void restoreOrderNumberSeed() {
+		TestUtil.saveGlobalPropertyInNewTransaction(OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED, orderNumberSeed);
+	}
+	
+	private long getSeed(String orderNumber) {
+		return Long.parseLong(orderNumber.substring(OrderServiceImpl.ORDER_NUMBER_PREFIX.length()));
+	}
+	
+	/**
+	 * @see BlockOrderNumberGenerator#getNewOrderNumber(org.openmrs.api.OrderContext)
+	 */
+	@Test
+	public void getNewOrderNumber_shouldReserveABlockOfSeedsAtATime() throws Exception {
+		long first = getSeed(generator.getNewOrderNumber(null));
+		for (int i = 1; i < 10; i++) {
+			assertEquals(first + i, getSeed(generator.getNewOrderNumber(null)));
+		}
+		assertEquals(Long.valueOf(first + 10), orderService.getNextOrderNumberSeedSequenceValue());
+	}
+	
+	/**
+	 * @see BlockOrderNumberGenerator#getNewOrderNumber(org.openmrs.api.OrderContext)
+	 */
+	@Test
+	public void getNewOrderNumber_shouldReserveANewBlockWhenTheCurrentOneIsUsedUp() throws Exception {
+		long first = getSeed(generator.getNewOrderNumber(null));
+		//take the seed right after the block so that the next block is not adjacent
+		Long taken = orderService.getNextOrderNumberSeedSequenceValue();
+		assertEquals(Long.valueOf(first + 10), taken);
+		for (int i = 1; i < 10; i++) {
+			generator.getNewOrderNumber(null);
+		}
+		assertEquals(taken + 1, getSeed(generator.getNewOrderNumber(null)));
+	}
+	
+	/**
+	 * @see BlockOrderNumberGenerator#getNewOrderNumber(org.openmrs.api.OrderContext)
+	 */
+	@Test
+	public void getNewOrderNumber_shouldAlwaysReturnUniqueOrderNumbersWhenCalledMultipleTimesWithoutSavingOrders()
+	    throws Exception {
+		final int threadCount = 10;
+		final int numbersPerThread = 25;
+		final Set<String> uniqueOrderNumbers = Collections.synchronizedSet(new HashSet<String>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < threadCount; i++) {
+			threads.add(new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					try {
+						Context.openSession();
+						Context.addProxyPrivilege(PrivilegeConstants.ADD_ORDERS);
+						Context.addProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
+						for (int j = 0; j < numbersPerThread; j++) {
+							uniqueOrderNumbers.add(generator.getNewOrderNumber(null));
+						}
+					}
+					finally {
+						Context.removeProxyPrivilege(PrivilegeConstants.ADD_ORDERS);
+						Context.removeProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
+						Context.closeSession();
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(threadCount * numbersPerThread, uniqueOrderNumbers.size());
+	}
+}
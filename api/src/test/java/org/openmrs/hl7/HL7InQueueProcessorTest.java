@@ -0,0 +1,113 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.hl7;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+public class HL7InQueueProcessorTest extends BaseContextSensitiveTest {
+	
+	private static HL7InQueue newHL7InQueue(int id, String patientIdentifier) {
+		HL7InQueue hl7InQueue = new HL7InQueue();
+		hl7InQueue.setHL7InQueueId(id);
+		hl7InQueue.setHL7SourceKey("key" + id);
+		hl7InQueue.setHL7Data("MSH|^~\\&|FORMENTRY|AMRS.ELD|HL7LISTENER|AMRS.ELD|20080226102656||ORU^R01|" + id
+		        + "|P|2.5|1\r" + "PID|||" + patientIdentifier + "^^^^||John^Doe^||\r"
+		        + "OBX|1|NM|5497^CD4, BY FACS^99DCT||450|||||||||20080206");
+		return hl7InQueue;
+	}
+	
+	/**
+	 * @see HL7InQueueProcessor#processHL7InQueue()
+	 */
+	@Test
+	public void processHL7InQueue_shouldProcessAllPendingQueueEntries() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		HL7Service hl7service = Context.getHL7Service();
+		long processedCount = HL7InQueueProcessor.getProcessedCount();
+		
+		new HL7InQueueProcessor().processHL7InQueue();
+		
+		assertEquals(0, hl7service.getAllHL7InQueues().size());
+		assertEquals(1, hl7service.getAllHL7InArchives().size());
+		assertEquals(1, hl7service.getAllHL7InErrors().size());
+		assertEquals(processedCount + 2, HL7InQueueProcessor.getProcessedCount());
+		assertEquals(0, HL7InQueueProcessor.getBacklog());
+	}
+	
+	/**
+	 * @see HL7InQueueProcessor#partition(List, int)
+	 */
+	@Test
+	public void partition_shouldKeepTheEntriesOfTheSamePatientTogetherAndInOrder() throws Exception {
+		List<HL7InQueue> hl7InQueues = new ArrayList<HL7InQueue>();
+		for (int i = 1; i <= 40; i++) {
+			hl7InQueues.add(newHL7InQueue(i, String.valueOf(i % 4)));
+		}
+		
+		List<List<Integer>> partitions = HL7InQueueProcessor.partition(hl7InQueues, 3);
+		
+		int total = 0;
+		Map<Integer, List<Integer>> partitionByPatient = new HashMap<Integer, List<Integer>>();
+		for (List<Integer> partition : partitions) {
+			total += partition.size();
+			for (int i = 0; i < partition.size(); i++) {
+				if (i > 0) {
+					assertTrue(partition.get(i - 1) < partition.get(i));
+				}
+				List<Integer> previous = partitionByPatient.put(partition.get(i) % 4, partition);
+				assertTrue(previous == null || previous == partition);
+			}
+		}
+		assertEquals(40, total);
+	}
+	
+	/**
+	 * @see HL7InQueueProcessor#partition(List, int)
+	 */
+	@Test
+	public void partition_shouldNotReturnEmptyLists() throws Exception {
+		List<List<Integer>> partitions = HL7InQueueProcessor.partition(Arrays.asList(newHL7InQueue(1, "3"),
+		    newHL7InQueue(2, "3")), 4);
+		
+		assertEquals(1, partitions.size());
+		assertEquals(Arrays.asList(1, 2), partitions.get(0));
+	}
+	
+	/**
+	 * @see HL7InQueueProcessor#getOrderingKey(HL7InQueue)
+	 */
+	@Test
+	public void getOrderingKey_shouldReturnThePatientIdentifiersOfTheMessage() throws Exception {
+		assertEquals("PID:7^^^^", HL7InQueueProcessor.getOrderingKey(newHL7InQueue(1, "7")));
+	}
+	
+	/**
+	 * @see HL7InQueueProcessor#getOrderingKey(HL7InQueue)
+	 */
+	@Test
+	public void getOrderingKey_shouldReturnTheSourceKeyIfTheMessageHasNoPIDSegment() throws Exception {
+		HL7InQueue hl7InQueue = new HL7InQueue();
+		hl7InQueue.setHL7SourceKey("asdf");
+		hl7InQueue.setHL7Data("a malformed hl7 message");
+		
+		assertEquals("KEY:asdf", HL7InQueueProcessor.getOrderingKey(hl7InQueue));
+	}
+}
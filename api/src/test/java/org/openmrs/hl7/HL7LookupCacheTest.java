@@ -0,0 +1,68 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.hl7;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class HL7LookupCacheTest {
+	
+	@After
+	public void after() {
+		HL7LookupCache.unbind();
+	}
+	
+	/**
+	 * @see HL7LookupCache#get(String, String)
+	 */
+	@Test
+	public void get_shouldReturnTheCachedId() {
+		HL7LookupCache cache = new HL7LookupCache(10);
+		cache.bind();
+		HL7LookupCache.put(HL7LookupCache.LOCATION, "Unknown Location", 1);
+		
+		assertEquals(1, HL7LookupCache.get(HL7LookupCache.LOCATION, "Unknown Location").intValue());
+		assertNull(HL7LookupCache.get(HL7LookupCache.CONCEPT, "Unknown Location"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+	
+	/**
+	 * @see HL7LookupCache#get(String, String)
+	 */
+	@Test
+	public void get_shouldReturnNullIfNoCacheIsBoundToTheCurrentThread() {
+		HL7LookupCache cache = new HL7LookupCache(10);
+		cache.bind();
+		HL7LookupCache.put(HL7LookupCache.LOCATION, "Unknown Location", 1);
+		HL7LookupCache.unbind();
+		
+		assertNull(HL7LookupCache.get(HL7LookupCache.LOCATION, "Unknown Location"));
+		assertEquals(0, cache.getMissCount());
+	}
+	
+	/**
+	 * @see HL7LookupCache#get(String, String)
+	 */
+	@Test
+	public void get_shouldStopCachingValuesWhenFull() {
+		new HL7LookupCache(2).bind();
+		HL7LookupCache.put(HL7LookupCache.CONCEPT, "SSTRM^WGT234", 5089);
+		HL7LookupCache.put(HL7LookupCache.CONCEPT, "SSTRM^CD41-LIT", 5497);
+		HL7LookupCache.put(HL7LookupCache.CONCEPT, "SSTRM^HGB", 21);
+		
+		assertEquals(5089, HL7LookupCache.get(HL7LookupCache.CONCEPT, "SSTRM^WGT234").intValue());
+		assertEquals(5497, HL7LookupCache.get(HL7LookupCache.CONCEPT, "SSTRM^CD41-LIT").intValue());
+		assertNull(HL7LookupCache.get(HL7LookupCache.CONCEPT, "SSTRM^HGB"));
+	}
+}
@@ -13,6 +13,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
@@ -47,6 +48,7 @@ import ca.uhn.hl7v2.model.v25.datatype.XCN;
 import ca.uhn.hl7v2.model.v25.message.ORU_R01;
 import ca.uhn.hl7v2.model.v25.segment.NK1;
 import ca.uhn.hl7v2.model.v25.segment.ORC;
+import ca.uhn.hl7v2.model.v25.segment.PID;
 import ca.uhn.hl7v2.model.v25.segment.PV1;
 
 /**
@@ -134,6 +136,91 @@ public class HL7ServiceTest extends BaseContextSensitiveTest {
 		hl7service.processHL7InQueue(queueItem);
 	}
 	
+	/**
+	 * @see HL7Service#claimHL7InQueues(int)
+	 */
+	@Test
+	public void claimHL7InQueues_shouldClaimTheOldestPendingQueueItems() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		HL7Service hl7service = Context.getHL7Service();
+		
+		List<HL7InQueue> claimed = hl7service.claimHL7InQueues(1);
+		
+		assertEquals(1, claimed.size());
+		assertEquals(1, claimed.get(0).getHL7InQueueId().intValue());
+		assertEquals(HL7Constants.HL7_STATUS_PROCESSING, claimed.get(0).getMessageState());
+		assertEquals(1, hl7service.countHL7InQueue(HL7Constants.HL7_STATUS_PENDING, null).intValue());
+	}
+	
+	/**
+	 * @see HL7Service#claimHL7InQueues(int)
+	 */
+	@Test
+	public void claimHL7InQueues_shouldNotClaimQueueItemsThatAreNotPending() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		HL7Service hl7service = Context.getHL7Service();
+		
+		assertEquals(2, hl7service.claimHL7InQueues(10).size());
+		assertEquals(0, hl7service.claimHL7InQueues(10).size());
+	}
+	
+	/**
+	 * @see HL7Service#releaseHL7InQueues(List)
+	 */
+	@Test
+	public void releaseHL7InQueues_shouldReleaseTheGivenQueueItemsThatAreProcessing() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		HL7Service hl7service = Context.getHL7Service();
+		assertEquals(2, hl7service.claimHL7InQueues(10).size());
+		
+		assertEquals(1, hl7service.releaseHL7InQueues(Arrays.asList(1, 100)));
+		
+		assertEquals(1, hl7service.countHL7InQueue(HL7Constants.HL7_STATUS_PENDING, null).intValue());
+		List<HL7InQueue> claimed = hl7service.claimHL7InQueues(10);
+		assertEquals(1, claimed.size());
+		assertEquals(1, claimed.get(0).getHL7InQueueId().intValue());
+	}
+	
+	/**
+	 * @see HL7Service#releaseHL7InQueues(List)
+	 */
+	@Test
+	public void releaseHL7InQueues_shouldReleaseAllTheQueueItemsThatAreProcessingIfTheIdsAreNull() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		HL7Service hl7service = Context.getHL7Service();
+		assertEquals(2, hl7service.claimHL7InQueues(10).size());
+		
+		assertEquals(2, hl7service.releaseHL7InQueues(null));
+		
+		assertEquals(2, hl7service.countHL7InQueue(HL7Constants.HL7_STATUS_PENDING, null).intValue());
+	}
+	
+	/**
+	 * @see HL7Service#processClaimedHL7InQueue(HL7InQueue)
+	 */
+	@Test
+	public void processClaimedHL7InQueue_shouldCreateHL7InArchiveAfterSuccessfulParsing() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		HL7Service hl7service = Context.getHL7Service();
+		Assert.assertEquals(0, hl7service.getAllHL7InArchives().size());
+		
+		hl7service.processClaimedHL7InQueue(hl7service.claimHL7InQueues(1).get(0));
+		
+		Assert.assertEquals(1, hl7service.getAllHL7InArchives().size());
+		Assert.assertNull(hl7service.getHL7InQueue(1));
+	}
+	
+	/**
+	 * @see HL7Service#processClaimedHL7InQueue(HL7InQueue)
+	 */
+	@Test(expected = HL7Exception.class)
+	public void processClaimedHL7InQueue_shouldFailIfGivenInQueueIsNotMarkedAsProcessing() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		
+		HL7Service hl7service = Context.getHL7Service();
+		hl7service.processClaimedHL7InQueue(hl7service.getHL7InQueue(1));
+	}
+	
 	/**
 	 * @see HL7Service#processHL7Message(Message)
 	 */
@@ -270,6 +357,34 @@ public class HL7ServiceTest extends BaseContextSensitiveTest {
 		ModuleUtil.shutdown();
 	}
 	
+	/**
+	 * @see HL7Service#resolvePatientId(PID)
+	 */
+	@Test
+	public void resolvePatientId_shouldNotUseACachedPatientIdThatNoLongerHasAnyOfTheIdentifiers() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		HL7Service hl7service = Context.getHL7Service();
+		Message message = hl7service
+		        .parseHL7String("MSH|^~\\&|FORMENTRY|AMRS.ELD|HL7LISTENER|AMRS.ELD|20080226102656||ORU^R01|JqnfhKKtouEz8kzTk6Zo|P|2.5|1||||||||16^AMRS.ELD.FORMID\r"
+		                + "PID|||3^^^^||John3^Doe^||\r"
+		                + "PV1||O|1^Unknown Location||||1^Super User (1-8)|||||||||||||||||||||||||||||||||||||20080212|||||||V\r"
+		                + "ORC|RE||||||||20080226102537|1^Super User\r"
+		                + "OBR|1|||1238^MEDICAL RECORD OBSERVATIONS^99DCT\r"
+		                + "OBX|1|NM|5497^CD4, BY FACS^99DCT||450|||||||||20080206");
+		PID pid = ((ORU_R01) message).getPATIENT_RESULT().getPATIENT().getPID();
+		String cacheKey = HL7LookupCache.key(pid.getPatientIdentifierList());
+		new HL7LookupCache(10).bind();
+		try {
+			HL7LookupCache.put(HL7LookupCache.PATIENT, cacheKey, 7);
+			
+			assertEquals(3, hl7service.resolvePatientId(pid).intValue());
+			assertEquals(3, HL7LookupCache.get(HL7LookupCache.PATIENT, cacheKey).intValue());
+		}
+		finally {
+			HL7LookupCache.unbind();
+		}
+	}
+	
 	/**
 	 * @see HL7Service#resolvePersonFromIdentifiers(null)
 	 */
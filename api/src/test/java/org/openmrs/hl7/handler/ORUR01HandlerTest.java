@@ -43,6 +43,7 @@ import org.openmrs.api.PersonService;
 import org.openmrs.api.ProviderService;
 import org.openmrs.api.context.Context;
 import org.openmrs.hl7.HL7Constants;
+import org.openmrs.hl7.HL7LookupCache;
 import org.openmrs.obs.ComplexObsHandler;
 import org.openmrs.test.BaseContextSensitiveTest;
 import org.openmrs.test.Verifies;
@@ -396,6 +397,42 @@ public class ORUR01HandlerTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(5089, new ORUR01Handler().getConcept("WGT234", "SSTRM", "23498343sdnm3").getId().intValue());
 	}
 	
+	/**
+	 * @see ORUR01Handler#getConcept(String,String,String)
+	 */
+	@Test
+	public void getConcept_shouldUseTheCachedConceptIdOfAMappingWhileALookupCacheIsBound() throws Exception {
+		HL7LookupCache lookupCache = new HL7LookupCache(10);
+		lookupCache.bind();
+		try {
+			Assert.assertEquals(5089, new ORUR01Handler().getConcept("WGT234", "SSTRM", "23498343sdnm3").getId().intValue());
+			Assert.assertEquals(0, lookupCache.getHitCount());
+			
+			Assert.assertEquals(5089, new ORUR01Handler().getConcept("WGT234", "SSTRM", "23498343sdnm3").getId().intValue());
+			Assert.assertEquals(1, lookupCache.getHitCount());
+		}
+		finally {
+			HL7LookupCache.unbind();
+		}
+	}
+	
+	/**
+	 * @see ORUR01Handler#getConcept(String,String,String)
+	 */
+	@Test
+	public void getConcept_shouldNotUseACachedConceptIdThatIsNoLongerMappedToTheCode() throws Exception {
+		new HL7LookupCache(10).bind();
+		try {
+			HL7LookupCache.put(HL7LookupCache.CONCEPT, "SSTRM^WGT234", 3);
+			
+			Assert.assertEquals(5089, new ORUR01Handler().getConcept("WGT234", "SSTRM", "23498343sdnm3").getId().intValue());
+			Assert.assertEquals(5089, HL7LookupCache.get(HL7LookupCache.CONCEPT, "SSTRM^WGT234").intValue());
+		}
+		finally {
+			HL7LookupCache.unbind();
+		}
+	}
+	
 	/**
 	 * @see ORUR01Handler#getConcept(String,String)
 	 */
@@ -11,7 +11,12 @@ package org.openmrs.module;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -182,6 +187,62 @@ public class ModuleFactoryTest extends BaseContextSensitiveTest {
 		Assert.assertFalse(test3.isStarted());
 	}
 	
+	/**
+	 * @see ModuleFactory#getModulesByStartupLevel(List)
+	 */
+	@Test
+	public void getModulesByStartupLevel_shouldPutModulesThatDoNotDependOnEachOtherInTheSameLevel() {
+		Module a = createModule("a");
+		Module b = createModule("b");
+		Module c = createModule("c", "a");
+		
+		List<List<Module>> levels = ModuleFactory.getModulesByStartupLevel(Arrays.asList(a, b, c));
+		
+		Assert.assertEquals(2, levels.size());
+		Assert.assertEquals(Arrays.asList(a, b), levels.get(0));
+		Assert.assertEquals(Arrays.asList(c), levels.get(1));
+	}
+	
+	/**
+	 * @see ModuleFactory#getModulesByStartupLevel(List)
+	 */
+	@Test
+	public void getModulesByStartupLevel_shouldPutAModuleOneLevelAfterTheLastModuleItDependsOn() {
+		Module a = createModule("a");
+		Module b = createModule("b", "a");
+		Module c = createModule("c", "b");
+		Module d = createModule("d", "a");
+		d.setAwareOfModulesMap(Collections.singletonMap("org.openmrs.module.c", "1.0"));
+		
+		List<List<Module>> levels = ModuleFactory.getModulesByStartupLevel(Arrays.asList(a, b, c, d));
+		
+		Assert.assertEquals(4, levels.size());
+		Assert.assertEquals(Arrays.asList(d), levels.get(3));
+	}
+	
+	private Module createModule(String moduleId, String... requiredModuleIds) {
+		Module module = new Module(moduleId, moduleId, "org.openmrs.module." + moduleId, null, null, "1.0");
+		Map<String, String> requiredModules = new HashMap<String, String>();
+		for (String requiredModuleId : requiredModuleIds) {
+			requiredModules.put("org.openmrs.module." + requiredModuleId, "1.0");
+		}
+		module.setRequiredModulesMap(requiredModules);
+		return module;
+	}
+	
+	/**
+	 * @see ModuleFactory#getStartedModules()
+	 */
+	@Test
+	public void getStartedModules_shouldReturnACopyOfTheStartedModules() {
+		Collection<Module> startedModules = ModuleFactory.getStartedModules();
+		Module test2 = loadModule(MODULE2_PATH, MODULE2, false);
+		ModuleFactory.startModule(test2);
+		
+		Assert.assertTrue(ModuleFactory.getStartedModules().contains(test2));
+		Assert.assertFalse(startedModules.contains(test2));
+	}
+	
 	private Module loadModule(String location, String moduleName, boolean replace) {
 		String moduleLocation = ModuleUtil.class.getClassLoader().getResource(location).getPath();
 		Module newModule = ModuleFactory.loadModule(new File(moduleLocation), replace);
@@ -11,6 +11,7 @@ package org.openmrs.module;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 import org.openmrs.test.BaseContextSensitiveTest;
@@ -57,4 +58,36 @@ public class ModuleInteroperabilityTest extends BaseContextSensitiveTest {
 		assertEquals("test1", module1ServiceClassLoader.getModule().getModuleId());
 	}
 	
+	/**
+	 * @see ModuleClassLoader#loadClass(String, boolean, ModuleClassLoader, java.util.Set)
+	 */
+	@Test
+	public void loadClass_shouldLoadAClassFromARequiredModule() throws Exception {
+		ModuleClassLoader module2ClassLoader = ModuleFactory.getModuleClassLoader("test2");
+		
+		Class<?> module1TestClass = module2ClassLoader.loadClass("org.openmrs.module.test1.Test1", false,
+		    module2ClassLoader, null);
+		
+		assertEquals("test1", ((ModuleClassLoader) module1TestClass.getClassLoader()).getModule().getModuleId());
+	}
+	
+	/**
+	 * @see ModuleClassLoader#loadClass(String, boolean, ModuleClassLoader, java.util.Set)
+	 */
+	@Test
+	public void loadClass_shouldFailForAClassThatNoModuleProvides() throws Exception {
+		ModuleClassLoader module2ClassLoader = ModuleFactory.getModuleClassLoader("test2");
+		
+		// the second lookup is answered from what the class loaders remember
+		for (int i = 0; i < 2; i++) {
+			try {
+				module2ClassLoader.loadClass("org.openmrs.module.test1.NoSuchClass", false, module2ClassLoader, null);
+				fail("The class should not have been found");
+			}
+			catch (ClassNotFoundException e) {
+				assertEquals("org.openmrs.module.test1.NoSuchClass", e.getMessage());
+			}
+		}
+	}
+	
 }
@@ -23,7 +23,7 @@ public class BinaryDataHandlerTest {
     public void shouldReturnSupportedViews() {
         BinaryDataHandler handler = new BinaryDataHandler();
         String[] actualViews = handler.getSupportedViews();
-        String[] expectedViews = { ComplexObsHandler.RAW_VIEW };
+        String[] expectedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.STREAM_VIEW };
 
         assertArrayEquals(actualViews, expectedViews);
     }
@@ -35,6 +35,13 @@ public class BinaryDataHandlerTest {
         assertTrue(handler.supportsView(ComplexObsHandler.RAW_VIEW));
     }
 
+    @Test
+    public void shouldSupportStreamView() {
+        BinaryDataHandler handler = new BinaryDataHandler();
+
+        assertTrue(handler.supportsView(ComplexObsHandler.STREAM_VIEW));
+    }
+
     @Test
     public void shouldNotSupportOtherViews() {
         BinaryDataHandler handler = new BinaryDataHandler();
@@ -23,7 +23,7 @@ public class BinaryStreamHandlerTest {
     public void shouldReturnSupportedViews() {
         BinaryStreamHandler handler = new BinaryStreamHandler();
         String[] actualViews = handler.getSupportedViews();
-        String[] expectedViews = { ComplexObsHandler.RAW_VIEW };
+        String[] expectedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.STREAM_VIEW };
 
         assertArrayEquals(actualViews, expectedViews);
     }
@@ -35,6 +35,13 @@ public class BinaryStreamHandlerTest {
         assertTrue(handler.supportsView(ComplexObsHandler.RAW_VIEW));
     }
 
+    @Test
+    public void shouldSupportStreamView() {
+        BinaryStreamHandler handler = new BinaryStreamHandler();
+
+        assertTrue(handler.supportsView(ComplexObsHandler.STREAM_VIEW));
+    }
+
     @Test
     public void shouldNotSupportOtherViews() {
         BinaryStreamHandler handler = new BinaryStreamHandler();
@@ -0,0 +1,97 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.obs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ComplexDataStreamTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private byte[] content;
+	
+	private ComplexDataStream stream;
+	
+	@Before
+	public void before() throws Exception {
+		content = new byte[10000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		File file = folder.newFile("complex.bin");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content);
+		}
+		finally {
+			out.close();
+		}
+		stream = new ComplexDataStream(file);
+	}
+	
+	/**
+	 * @see ComplexDataStream#openStream()
+	 */
+	@Test
+	public void openStream_shouldReadTheWholeFile() throws Exception {
+		assertEquals(content.length, stream.getLength());
+		InputStream in = stream.openStream();
+		try {
+			assertArrayEquals(content, IOUtils.toByteArray(in));
+		}
+		finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * @see ComplexDataStream#openStream(long, long)
+	 */
+	@Test
+	public void openStream_shouldReadOnlyTheGivenRange() throws Exception {
+		InputStream in = stream.openStream(1000, 500);
+		try {
+			assertArrayEquals(Arrays.copyOfRange(content, 1000, 1500), IOUtils.toByteArray(in));
+		}
+		finally {
+			in.close();
+		}
+		
+		// a range past the end of the file stops at the end
+		in = stream.openStream(9900, 500);
+		try {
+			assertArrayEquals(Arrays.copyOfRange(content, 9900, 10000), IOUtils.toByteArray(in));
+		}
+		finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * @see ComplexDataStream#openStream(long, long)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void openStream_shouldFailIfTheOffsetIsNegativeOrBeyondTheEndOfTheFile() throws Exception {
+		stream.openStream(content.length + 1, 10);
+	}
+}
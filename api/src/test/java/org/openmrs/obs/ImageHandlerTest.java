@@ -23,7 +23,7 @@ public class ImageHandlerTest {
     public void shouldReturnSupportedViews() {
         ImageHandler handler = new ImageHandler();
         String[] actualViews = handler.getSupportedViews();
-        String[] expectedViews = { ComplexObsHandler.RAW_VIEW };
+        String[] expectedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.STREAM_VIEW };
 
         assertArrayEquals(actualViews, expectedViews);
     }
@@ -35,6 +35,13 @@ public class ImageHandlerTest {
         assertTrue(handler.supportsView(ComplexObsHandler.RAW_VIEW));
     }
 
+    @Test
+    public void shouldSupportStreamView() {
+        ImageHandler handler = new ImageHandler();
+
+        assertTrue(handler.supportsView(ComplexObsHandler.STREAM_VIEW));
+    }
+
     @Test
     public void shouldNotSupportOtherViews() {
         ImageHandler handler = new ImageHandler();
@@ -23,7 +23,7 @@ public class MediaHandlerTest {
     public void shouldReturnSupportedViews() {
         MediaHandler handler = new MediaHandler();
         String[] actualViews = handler.getSupportedViews();
-        String[] expectedViews = { ComplexObsHandler.RAW_VIEW };
+        String[] expectedViews = { ComplexObsHandler.RAW_VIEW, ComplexObsHandler.STREAM_VIEW };
 
         assertArrayEquals(actualViews, expectedViews);
     }
@@ -35,6 +35,13 @@ public class MediaHandlerTest {
         assertTrue(handler.supportsView(ComplexObsHandler.RAW_VIEW));
     }
 
+    @Test
+    public void shouldSupportStreamView() {
+        MediaHandler handler = new MediaHandler();
+
+        assertTrue(handler.supportsView(ComplexObsHandler.STREAM_VIEW));
+    }
+
     @Test
     public void shouldNotSupportOtherViews() {
         MediaHandler handler = new MediaHandler();
@@ -0,0 +1,144 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.openmrs.scheduler.SchedulerService;
+import org.openmrs.scheduler.Task;
+import org.openmrs.scheduler.TaskDefinition;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+/**
+ * Tests methods in ExecutorSchedulerServiceImpl
+ */
+public class ExecutorSchedulerServiceImplTest extends BaseContextSensitiveTest {
+	
+	private static final long TASK_WAIT_MS = 30000;
+	
+	private static CountDownLatch latch;
+	
+	private static volatile String executingThreadName;
+	
+	private static volatile boolean executedAsDaemon;
+	
+	private TaskDefinition makeTaskDefinition(String className, Long repeatInterval) {
+		TaskDefinition taskDefinition = new TaskDefinition();
+		taskDefinition.setName("Test Task");
+		taskDefinition.setTaskClass(className);
+		taskDefinition.setRepeatInterval(repeatInterval);
+		taskDefinition.setStartTime(null);
+		taskDefinition.setStartOnStartup(false);
+		return taskDefinition;
+	}
+	
+	/**
+	 * @see ExecutorSchedulerServiceImpl#scheduleTask(TaskDefinition)
+	 */
+	@Test
+	public void scheduleTask_shouldHandleZeroRepeatInterval() throws Exception {
+		TaskDefinition taskDefinition = makeTaskDefinition("org.openmrs.scheduler.tasks.TestTask", 0L);
+		taskDefinition.setStartTime(Calendar.getInstance().getTime());
+		
+		Task clientTask = Context.getSchedulerService().scheduleTask(taskDefinition);
+		
+		// without this commit there seems to be a table lock left on the SCHEDULER_TASK_CONFIG table, see TRUNK-4212
+		Context.flushSession();
+		
+		assertNotNull(clientTask);
+	}
+	
+	/**
+	 * @see ExecutorSchedulerServiceImpl#scheduleTask(TaskDefinition)
+	 */
+	@Test
+	public void scheduleTask_shouldRunTheTaskOnTheThreadPoolAsTheDaemonUser() throws Exception {
+		SchedulerService schedulerService = Context.getSchedulerService();
+		TaskDefinition taskDefinition = makeTaskDefinition(RecordingTask.class.getName(), 0L);
+		executingThreadName = null;
+		executedAsDaemon = false;
+		latch = new CountDownLatch(1);
+		
+		schedulerService.scheduleTask(taskDefinition);
+		
+		assertTrue("task didn't execute", latch.await(TASK_WAIT_MS, TimeUnit.MILLISECONDS));
+		assertTrue(executingThreadName.startsWith("OpenMRS Scheduler"));
+		assertTrue(executedAsDaemon);
+		schedulerService.shutdownTask(taskDefinition);
+	}
+	
+	/**
+	 * @see ExecutorSchedulerServiceImpl#scheduleTask(TaskDefinition)
+	 */
+	@Test
+	public void scheduleTask_shouldRecordTheMetricsOfTheTask() throws Exception {
+		SchedulerService schedulerService = Context.getSchedulerService();
+		TaskDefinition taskDefinition = makeTaskDefinition(RecordingTask.class.getName(), 1000L);
+		latch = new CountDownLatch(1);
+		
+		schedulerService.scheduleTask(taskDefinition);
+		Integer id = taskDefinition.getId();
+		assertTrue("task didn't execute", latch.await(TASK_WAIT_MS, TimeUnit.MILLISECONDS));
+		
+		// the metrics are recorded right after the task returns
+		TaskMetrics metrics = ExecutorSchedulerServiceImpl.getTaskMetrics(id);
+		for (int i = 0; i < 100 && metrics.getExecutionCount() == 0; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(1, metrics.getExecutionCount());
+		assertEquals(0, metrics.getOverrunCount());
+		assertNotNull(metrics.getLastExecutionTime());
+		
+		schedulerService.shutdownTask(taskDefinition);
+		assertNull(ExecutorSchedulerServiceImpl.getTaskMetrics(id));
+	}
+	
+	/**
+	 * Records the thread it runs on, it does not have a task definition so no last execution time is
+	 * saved to the database
+	 */
+	public static class RecordingTask implements Task {
+		
+		@Override
+		public void execute() {
+			executingThreadName = Thread.currentThread().getName();
+			executedAsDaemon = Daemon.isDaemonThread();
+			latch.countDown();
+		}
+		
+		@Override
+		public TaskDefinition getTaskDefinition() {
+			return null;
+		}
+		
+		@Override
+		public void initialize(TaskDefinition definition) {
+		}
+		
+		@Override
+		public boolean isExecuting() {
+			return false;
+		}
+		
+		@Override
+		public void shutdown() {
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.executor;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TaskMetricsTest {
+	
+	/**
+	 * @see TaskMetrics#recordExecution(long, long, long, long)
+	 */
+	@Test
+	public void recordExecution_shouldCountAnOverrunIfTheRunTimeExceedsTheRepeatInterval() {
+		TaskMetrics metrics = new TaskMetrics();
+		metrics.recordExecution(0, 10, 500, 1000);
+		metrics.recordExecution(1000, 30, 1500, 1000);
+		
+		assertEquals(2, metrics.getExecutionCount());
+		assertEquals(1, metrics.getOverrunCount());
+		assertEquals(30, metrics.getLastQueueDelay());
+		assertEquals(20, metrics.getAverageQueueDelay());
+		assertEquals(30, metrics.getMaxQueueDelay());
+		assertEquals(1500, metrics.getLastRunTime());
+		assertEquals(1000, metrics.getAverageRunTime());
+		assertEquals(1500, metrics.getMaxRunTime());
+		assertEquals(1000, metrics.getLastExecutionTime().getTime());
+	}
+	
+	/**
+	 * @see TaskMetrics#recordExecution(long, long, long, long)
+	 */
+	@Test
+	public void recordExecution_shouldNotCountOverrunsForTasksThatDoNotRepeat() {
+		TaskMetrics metrics = new TaskMetrics();
+		metrics.recordExecution(0, 0, 5000, 0);
+		
+		assertEquals(1, metrics.getExecutionCount());
+		assertEquals(0, metrics.getOverrunCount());
+	}
+}
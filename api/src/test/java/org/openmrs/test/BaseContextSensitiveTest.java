@@ -77,6 +77,10 @@ import org.openmrs.PersonAttribute;
 import org.openmrs.PersonName;
 import org.openmrs.User;
 import org.openmrs.annotation.OpenmrsProfileExcludeFilter;
+import org.openmrs.api.cache.ConceptSetCache;
+import org.openmrs.api.cache.CustomDatatypeCache;
+import org.openmrs.api.cache.GlobalPropertyCache;
+import org.openmrs.api.cache.LocationHierarchyCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.ContextAuthenticationException;
 import org.openmrs.api.context.ContextMockHelper;
@@ -775,6 +779,12 @@ public abstract class BaseContextSensitiveTest extends AbstractJUnit4SpringConte
 		//Do the actual update/insert:
 		//insert new rows, update existing rows, and leave others alone
 		DatabaseOperation.REFRESH.execute(dbUnitConn, dataset);
+		
+		// the dataset may contain global properties and concept sets
+		GlobalPropertyCache.clear();
+		ConceptSetCache.evict();
+		LocationHierarchyCache.evict();
+		CustomDatatypeCache.evict();
 	}
 	
 	private IDatabaseConnection setupDatabaseConnection(Connection connection) throws DatabaseUnitException {
@@ -820,6 +830,11 @@ public abstract class BaseContextSensitiveTest extends AbstractJUnit4SpringConte
 		
 		connection.commit();
 		
+		GlobalPropertyCache.clear();
+		ConceptSetCache.evict();
+		LocationHierarchyCache.evict();
+		CustomDatatypeCache.evict();
+		
 		updateSearchIndex();
 		
 		isBaseSetup = false;
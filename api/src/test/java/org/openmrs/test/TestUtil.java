@@ -28,6 +28,9 @@ import org.openmrs.BaseOpenmrsObject;
 import org.openmrs.GlobalProperty;
 import org.openmrs.api.context.Context;
 import org.openmrs.util.OpenmrsUtil;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Methods use by the Openmrs tests
@@ -191,6 +194,24 @@ public class TestUtil {
 		Context.getAdministrationService().saveGlobalProperty(gp);
 	}
 	
+	/**
+	 * Saves a global property in a transaction of its own that is committed, e.g. to undo a change
+	 * that a method with propagation REQUIRES_NEW committed during a test, which is not rolled back
+	 * with the test
+	 * 
+	 * @param name the name of the property to save
+	 * @param value the value of the property to save
+	 */
+	public static void saveGlobalPropertyInNewTransaction(String name, String value) {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(Context.getRegisteredComponent(
+		    "transactionManager", PlatformTransactionManager.class));
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		transactionTemplate.execute(status -> {
+			saveGlobalProperty(name, value);
+			return null;
+		});
+	}
+	
 	/**
 	 * Utility method to check if a list contains a BaseOpenmrsObject using the id
 	 * @param list
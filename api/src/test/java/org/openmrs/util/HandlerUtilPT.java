@@ -0,0 +1,51 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.openmrs.Patient;
+import org.openmrs.api.handler.SaveHandler;
+import org.openmrs.test.BaseContextSensitiveTest;
+import org.springframework.validation.Validator;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+
+/**
+ * Performance tests for {@link HandlerUtil}. Each round looks up the handlers
+ * {@link #CALLS_PER_ROUND} times, which is what the save handler and validation advice do for
+ * every object they are invoked for.
+ */
+@BenchmarkHistoryChart
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 5)
+public class HandlerUtilPT extends BaseContextSensitiveTest {
+	
+	private static final int CALLS_PER_ROUND = 100000;
+	
+	@Rule
+	public TestRule benchmarkRule = new BenchmarkRule();
+	
+	@Test
+	public void shouldTestGetHandlersForType() {
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			HandlerUtil.getHandlersForType(SaveHandler.class, Patient.class);
+		}
+	}
+	
+	@Test
+	public void shouldTestGetValidatorsForType() {
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			HandlerUtil.getHandlersForType(Validator.class, Patient.class);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IntBitmapTest {
+	
+	private IntBitmap bitmap(int... values) {
+		IntBitmap bitmap = new IntBitmap();
+		for (int value : values) {
+			bitmap.add(value);
+		}
+		return bitmap;
+	}
+	
+	/**
+	 * @see IntBitmap#add(int)
+	 */
+	@Test
+	public void add_shouldAddTheValue() {
+		IntBitmap bitmap = new IntBitmap();
+		
+		assertTrue(bitmap.add(5));
+		assertTrue(bitmap.add(200000));
+		assertFalse(bitmap.add(5));
+		
+		assertTrue(bitmap.contains(5));
+		assertTrue(bitmap.contains(200000));
+		assertFalse(bitmap.contains(6));
+		assertFalse(bitmap.contains(70000));
+		assertEquals(2, bitmap.size());
+	}
+	
+	/**
+	 * @see IntBitmap#add(int)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void add_shouldFailForANegativeValue() {
+		new IntBitmap().add(-1);
+	}
+	
+	/**
+	 * @see IntBitmap#remove(int)
+	 */
+	@Test
+	public void remove_shouldRemoveTheValue() {
+		IntBitmap bitmap = bitmap(1, 2, 3);
+		
+		assertTrue(bitmap.remove(2));
+		assertFalse(bitmap.remove(2));
+		assertFalse(bitmap.remove(100000));
+		
+		assertFalse(bitmap.contains(2));
+		assertEquals(2, bitmap.size());
+	}
+	
+	/**
+	 * @see IntBitmap#contains(int)
+	 */
+	@Test
+	public void contains_shouldReturnFalseForANegativeValue() {
+		assertFalse(bitmap(1).contains(-1));
+	}
+	
+	/**
+	 * @see IntBitmap#toArray()
+	 */
+	@Test
+	public void toArray_shouldReturnTheValuesInAscendingOrder() {
+		assertArrayEquals(new int[] { 0, 63, 64, 65535, 65536, Integer.MAX_VALUE }, bitmap(65536, Integer.MAX_VALUE, 64,
+		    0, 65535, 63).toArray());
+	}
+	
+	/**
+	 * @see IntBitmap#union(IntBitmap,IntBitmap)
+	 */
+	@Test
+	public void union_shouldReturnTheValuesThatAreInEitherBitmap() {
+		IntBitmap union = IntBitmap.union(bitmap(1, 2, 70000), bitmap(2, 3, 140000));
+		
+		assertArrayEquals(new int[] { 1, 2, 3, 70000, 140000 }, union.toArray());
+		assertEquals(5, union.size());
+	}
+	
+	/**
+	 * @see IntBitmap#intersect(IntBitmap,IntBitmap)
+	 */
+	@Test
+	public void intersect_shouldReturnTheValuesThatAreInBothBitmaps() {
+		IntBitmap intersection = IntBitmap.intersect(bitmap(1, 2, 70000, 140000), bitmap(2, 3, 70001, 140000));
+		
+		assertArrayEquals(new int[] { 2, 140000 }, intersection.toArray());
+		assertEquals(2, intersection.size());
+	}
+	
+	/**
+	 * @see IntBitmap#subtract(IntBitmap,IntBitmap)
+	 */
+	@Test
+	public void subtract_shouldReturnTheValuesOfTheFirstBitmapThatAreNotInTheSecondOne() {
+		IntBitmap difference = IntBitmap.subtract(bitmap(1, 2, 70000, 140000), bitmap(2, 3, 70000));
+		
+		assertArrayEquals(new int[] { 1, 140000 }, difference.toArray());
+		assertEquals(2, difference.size());
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class StripedLockTest {
+	
+	/**
+	 * @see StripedLock#StripedLock(int)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void StripedLock_shouldFailIfStripesIsNotPositive() {
+		new StripedLock(0);
+	}
+	
+	/**
+	 * @see StripedLock#getLock(Object)
+	 */
+	@Test
+	public void getLock_shouldReturnTheSameLockForEqualKeys() {
+		StripedLock stripedLock = new StripedLock(16);
+		assertSame(stripedLock.getLock(new Integer(1000)), stripedLock.getLock(new Integer(1000)));
+	}
+	
+	/**
+	 * @see StripedLock#getLock(Object)
+	 */
+	@Test
+	public void getLock_shouldReturnADedicatedLockForANullKey() {
+		StripedLock stripedLock = new StripedLock(1);
+		assertSame(stripedLock.getLock(null), stripedLock.getLock(null));
+		assertNotSame(stripedLock.getLock(1), stripedLock.getLock(null));
+	}
+	
+	/**
+	 * @see StripedLock#getLock(Object)
+	 */
+	@Test
+	public void getLock_shouldAllowDifferentKeysToBeHeldConcurrently() throws Exception {
+		final int threadCount = 8;
+		final StripedLock stripedLock = new StripedLock(threadCount * 16);
+		final Set<Object> locks = new HashSet<Object>();
+		for (int i = 1; i <= threadCount; i++) {
+			locks.add(stripedLock.getLock(i));
+		}
+		//sequential ids should be spread over distinct stripes
+		assertEquals(threadCount, locks.size());
+		
+		//every thread only gets past the latch if all the others hold their own lock at the same time
+		final CountDownLatch allInside = new CountDownLatch(threadCount);
+		final AtomicInteger completed = new AtomicInteger();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 1; i <= threadCount; i++) {
+			final Integer key = i;
+			threads.add(new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					synchronized (stripedLock.getLock(key)) {
+						allInside.countDown();
+						try {
+							if (allInside.await(10, TimeUnit.SECONDS)) {
+								completed.incrementAndGet();
+							}
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(threadCount, completed.get());
+	}
+	
+	/**
+	 * @see StripedLock#getLock(Object)
+	 */
+	@Test
+	public void getLock_shouldSerializeWorkForTheSameKey() throws Exception {
+		final StripedLock stripedLock = new StripedLock(16);
+		final AtomicInteger inside = new AtomicInteger();
+		final AtomicInteger maxInside = new AtomicInteger();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 8; i++) {
+			threads.add(new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					for (int j = 0; j < 100; j++) {
+						synchronized (stripedLock.getLock("samePatient")) {
+							int current = inside.incrementAndGet();
+							if (current > maxInside.get()) {
+								maxInside.set(current);
+							}
+							Thread.yield();
+							inside.decrementAndGet();
+						}
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(maxInside.get() == 1);
+	}
+}
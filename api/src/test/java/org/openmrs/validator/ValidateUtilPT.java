@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.validator;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+
+/**
+ * Performance tests for {@link ValidateUtil}. Each round validates a patient of the standard test
+ * dataset {@link #CALLS_PER_ROUND} times.
+ */
+@BenchmarkHistoryChart
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 5)
+public class ValidateUtilPT extends BaseContextSensitiveTest {
+	
+	private static final int CALLS_PER_ROUND = 100;
+	
+	@Rule
+	public TestRule benchmarkRule = new BenchmarkRule();
+	
+	private Patient patient;
+	
+	@Before
+	public void before() {
+		patient = Context.getPatientService().getPatient(2);
+	}
+	
+	@Test
+	public void shouldTestValidate() {
+		for (int i = 0; i < CALLS_PER_ROUND; i++) {
+			ValidateUtil.validate(patient);
+		}
+	}
+}
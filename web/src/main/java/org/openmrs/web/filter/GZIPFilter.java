@@ -33,10 +33,6 @@ public class GZIPFilter extends OncePerRequestFilter {
 	
 	private static final Logger log = LoggerFactory.getLogger(GZIPFilter.class);
 	
-	private Boolean cachedGZipEnabledFlag = null;
-	
-	private String cachedGZipCompressedRequestForPathAccepted = null;
-	
 	/**
 	 * @see org.springframework.web.filter.OncePerRequestFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
 	 *      javax.servlet.http.HttpServletResponse, javax.servlet.FilterChain)
@@ -123,22 +119,15 @@ public class GZIPFilter extends OncePerRequestFilter {
 	 * Returns global property gzip.enabled as boolean
 	 */
 	private boolean isGZIPEnabled() {
-		if (cachedGZipEnabledFlag != null) {
-			return cachedGZipEnabledFlag;
-		}
-		
 		try {
+			// global properties are cached by the administration service, so changes apply right away
 			String gzipEnabled = Context.getAdministrationService().getGlobalProperty(
 			    OpenmrsConstants.GLOBAL_PROPERTY_GZIP_ENABLED, "");
 			
-			boolean isEnabled = Boolean.valueOf(gzipEnabled);
-			cachedGZipEnabledFlag = isEnabled;
-			return cachedGZipEnabledFlag;
+			return Boolean.valueOf(gzipEnabled);
 		}
 		catch (Exception e) {
 			log.warn("Unable to get the global property: " + OpenmrsConstants.GLOBAL_PROPERTY_GZIP_ENABLED, e);
-			// not caching the enabled flag here in case it becomes available
-			// before the next request
 			
 			return false;
 		}
@@ -149,12 +138,10 @@ public class GZIPFilter extends OncePerRequestFilter {
 	 */
 	private boolean isCompressedRequestForPathAccepted(String path) {
 		try {
-			if (cachedGZipCompressedRequestForPathAccepted == null) {
-				cachedGZipCompressedRequestForPathAccepted = Context.getAdministrationService().getGlobalProperty(
-				    OpenmrsConstants.GLOBAL_PROPERTY_GZIP_ACCEPT_COMPRESSED_REQUESTS_FOR_PATHS, "");
-			}
+			String acceptedPaths = Context.getAdministrationService().getGlobalProperty(
+			    OpenmrsConstants.GLOBAL_PROPERTY_GZIP_ACCEPT_COMPRESSED_REQUESTS_FOR_PATHS, "");
 			
-			for (String acceptPath : cachedGZipCompressedRequestForPathAccepted.split(",")) {
+			for (String acceptPath : acceptedPaths.split(",")) {
 				if (path.matches(acceptPath)) {
 					return true;
 				}